@@ -307,6 +307,31 @@ public class DataUtilities
 		return DataUtilities.EMPTY_STREAM;
 	}
 
+	/**
+	 * Returns the checksum which the jar file records for one of the files it contains, which
+	 * changes whenever the file does, without reading the file.
+	 *
+	 * @param directory the name of the directory containing the file
+	 * @param filename the name of the file
+	 * @return the CRC-32 of the file, or -1 if there is no jar file or it does not contain the file
+	 */
+
+	public static long getBundledChecksum( String directory, String filename )
+	{
+		if ( DataUtilities.jarFile == null )
+		{
+			return -1;
+		}
+
+		if ( directory.length() > 0 && !directory.endsWith( "/" ) )
+		{
+			directory += "/";
+		}
+
+		ZipEntry internal = DataUtilities.jarFile.getEntry( directory + filename );
+		return internal == null ? -1 : internal.getCrc();
+	}
+
 	public static InputStream getOverrideStream( String fullname, final boolean allowOverride )
 	{
 		// Don't look for an override file unless allowed to
@@ -42,16 +42,23 @@ import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.AbstractListModel;
 import javax.swing.ComboBoxModel;
 import javax.swing.ListModel;
 import javax.swing.MutableComboBoxModel;
+import javax.swing.SwingUtilities;
 
 /**
  * Lockable aspects of this class have been removed due to incompatibilities with Swing; synchronization between two
  * threads when one is the Swing thread turns out to have a lot of problems. It retains its original name for
  * convenience purposes only.
+ *
+ * Changes are applied to the visible elements of this list and of each of its mirrors one element at a time, testing
+ * only the element which changed against each filter. Elements appended from any thread other than the Swing thread,
+ * as results are while adventuring, are announced to listeners as one interval per list once the Swing thread gets
+ * to it, rather than one event per element; any other change announces the pending interval first.
  */
 
 public class LockableListModel<E>
@@ -63,9 +70,15 @@ public class LockableListModel<E>
 	private boolean actionListenerFired = false;
 	
 	protected ArrayList<E> actualElements;
+	// Shared with mirrors, which share actualElements
+	private AtomicInteger modifications;
 	private ArrayList<E> visibleElements;
 	private ArrayList<WeakReference<LockableListModel<E>>> mirrorList;
 
+	// Visible indices appended but not yet announced to listeners
+	private int pendingLow = -1;
+	private int pendingHigh = -1;
+
 	E selectedValue;
 	protected ListElementFilter currentFilter;
 	protected Comparator<E> comparator;
@@ -77,6 +90,7 @@ public class LockableListModel<E>
 	public LockableListModel()
 	{
 		this.actualElements = new ArrayList<>();
+		this.modifications = new AtomicInteger();
 		this.visibleElements = new ArrayList<>();
 		this.mirrorList = new ArrayList<>();
 
@@ -107,6 +121,7 @@ public class LockableListModel<E>
 		synchronized ( l.actualElements )
 		{
 			this.actualElements = l.actualElements;
+			this.modifications = l.modifications;
 			this.visibleElements = new ArrayList<>();
 
 			this.selectedValue = null;
@@ -165,6 +180,8 @@ public class LockableListModel<E>
 	{
 		synchronized ( this.actualElements )
 		{
+			this.firePendingIntervals();
+
 			Comparator<E> comparator = this.comparator != null ? this.comparator : c;
 			Collections.sort( this.actualElements, comparator );
 			Collections.sort( this.visibleElements, comparator );
@@ -187,10 +204,22 @@ public class LockableListModel<E>
 		}
 	}
 
+	/**
+	 * Returns a count which changes whenever an element is added, removed or replaced, in this list or in any of its
+	 * mirrors. Callers can use it to tell whether anything they derived from the list is still current.
+	 */
+
+	public int getModificationCount()
+	{
+		return this.modifications.get();
+	}
+
 	public void touch()
 	{
 		synchronized ( this.actualElements )
 		{
+			this.firePendingIntervals();
+
 			this.fireContentsChanged( this, 0, this.visibleElements.size() - 1 );
 
 			Iterator<WeakReference<LockableListModel<E>>> it = this.mirrorList.iterator();
@@ -220,6 +249,8 @@ public class LockableListModel<E>
 			return;
 		}
 
+		this.firePendingInterval();
+
 		this.actionListenerFired = true;
 		super.fireContentsChanged( source, index0, index1 );
 		this.actionListenerFired = false;
@@ -233,6 +264,8 @@ public class LockableListModel<E>
 			return;
 		}
 
+		this.firePendingInterval();
+
 		this.actionListenerFired = true;
 		super.fireIntervalAdded( source, index0, index1 );
 		this.actionListenerFired = false;
@@ -246,6 +279,8 @@ public class LockableListModel<E>
 			return;
 		}
 
+		this.firePendingInterval();
+
 		this.actionListenerFired = true;
 		super.fireIntervalRemoved( source, index0, index1 );
 		this.actionListenerFired = false;
@@ -264,12 +299,13 @@ public class LockableListModel<E>
 
 		synchronized ( this.actualElements )
 		{
-			if ( this.currentFilter != LockableListModel.NO_FILTER || !this.mirrorList.isEmpty() )
+			if ( index != this.actualElements.size() )
 			{
-				this.updateFilter( false );
+				this.firePendingIntervals();
 			}
 
 			this.actualElements.add( index, element );
+			this.modifications.incrementAndGet();
 
 			this.addVisibleElement( index, element );
 
@@ -282,7 +318,7 @@ public class LockableListModel<E>
 					return;
 				}
 
-				mirror.addVisibleElement(index, element );
+				mirror.addVisibleElement( index, element );
 			}
 		}
 	}
@@ -294,11 +330,99 @@ public class LockableListModel<E>
 			return;
 		}
 
+		if ( index == this.actualElements.size() - 1 )
+		{
+			// Every visible element comes before an appended one
+			int visibleIndex = this.visibleElements.size();
+			this.visibleElements.add( element );
+			this.queueIntervalAdded( visibleIndex, visibleIndex );
+			return;
+		}
+
 		int visibleIndex = this.computeVisibleIndex( index );
 		this.visibleElements.add( visibleIndex, element );
 		this.fireIntervalAdded( this, visibleIndex, visibleIndex );
 	}
 
+	/**
+	 * Announces elements appended to the visible elements. Appends made away from the Swing thread are collected into
+	 * one interval, which is announced when the Swing thread next runs, or before any other change to this list.
+	 */
+
+	private void queueIntervalAdded( final int low, final int high )
+	{
+		if ( this.listenerList.getListenerCount() == 0 )
+		{
+			return;
+		}
+
+		if ( SwingUtilities.isEventDispatchThread() )
+		{
+			this.fireIntervalAdded( this, low, high );
+			return;
+		}
+
+		if ( this.pendingLow != -1 && low == this.pendingHigh + 1 )
+		{
+			this.pendingHigh = high;
+			return;
+		}
+
+		this.firePendingInterval();
+		this.pendingLow = low;
+		this.pendingHigh = high;
+
+		SwingUtilities.invokeLater( () -> {
+			synchronized ( this.actualElements )
+			{
+				this.firePendingInterval();
+			}
+		} );
+	}
+
+	private void firePendingInterval()
+	{
+		if ( this.pendingLow == -1 )
+		{
+			return;
+		}
+
+		int low = this.pendingLow;
+		int high = this.pendingHigh;
+		this.pendingLow = this.pendingHigh = -1;
+
+		if ( this.actionListenerFired || this.listenerList.getListenerCount() == 0 )
+		{
+			return;
+		}
+
+		this.actionListenerFired = true;
+		super.fireIntervalAdded( this, low, high );
+		this.actionListenerFired = false;
+	}
+
+	/**
+	 * Announces the pending appends to this list and to its mirrors, so that listeners hear of them before they hear
+	 * of a change made after them.
+	 */
+
+	private void firePendingIntervals()
+	{
+		this.firePendingInterval();
+
+		Iterator<WeakReference<LockableListModel<E>>> it = this.mirrorList.iterator();
+		while ( it.hasNext() )
+		{
+			LockableListModel<E> mirror = this.getNextMirror( it );
+			if ( mirror == null )
+			{
+				return;
+			}
+
+			mirror.firePendingInterval();
+		}
+	}
+
 	/**
 	 * Please refer to {@link java.util.List#add(Object)} for more information regarding this function.
 	 */
@@ -338,12 +462,57 @@ public class LockableListModel<E>
 	{
 		synchronized ( this.actualElements )
 		{
-			boolean result = this.actualElements.addAll( index, c );
-			this.updateFilter( false );
+			if ( index != this.actualElements.size() )
+			{
+				this.firePendingIntervals();
+
+				boolean result = this.actualElements.addAll( index, c );
+				this.modifications.incrementAndGet();
+				this.updateFilter( false );
+				return result;
+			}
+
+			boolean result = this.actualElements.addAll( c );
+			this.modifications.incrementAndGet();
+
+			// Only the appended elements need to be tested
+			this.appendVisibleElements( index );
+
+			Iterator<WeakReference<LockableListModel<E>>> it = this.mirrorList.iterator();
+			while ( it.hasNext() )
+			{
+				LockableListModel<E> mirror = this.getNextMirror( it );
+				if ( mirror == null )
+				{
+					return result;
+				}
+
+				mirror.appendVisibleElements( index );
+			}
+
 			return result;
 		}
 	}
 
+	private void appendVisibleElements( final int index )
+	{
+		int low = this.visibleElements.size();
+
+		for ( int i = index; i < this.actualElements.size(); ++i )
+		{
+			E element = this.actualElements.get( i );
+			if ( this.currentFilter.isVisible( element ) )
+			{
+				this.visibleElements.add( element );
+			}
+		}
+
+		if ( this.visibleElements.size() > low )
+		{
+			this.queueIntervalAdded( low, this.visibleElements.size() - 1 );
+		}
+	}
+
 	/**
 	 * Please refer to {@link java.util.List#clear()} for more information regarding this function.
 	 */
@@ -352,7 +521,10 @@ public class LockableListModel<E>
 	{
 		synchronized ( this.actualElements )
 		{
+			this.firePendingIntervals();
+
 			this.actualElements.clear();
+			this.modifications.incrementAndGet();
 
 			this.clearVisibleElements();
 
@@ -601,13 +773,11 @@ public class LockableListModel<E>
 				return null;
 			}
 
-			if ( this.currentFilter != LockableListModel.NO_FILTER || !this.mirrorList.isEmpty() )
-			{
-				this.updateFilter( false );
-			}
+			this.firePendingIntervals();
 
 			E originalValue = this.actualElements.get( index );
 			this.actualElements.remove( index );
+			this.modifications.incrementAndGet();
 
 			this.removeVisibleElement( index, originalValue );
 
@@ -629,12 +799,13 @@ public class LockableListModel<E>
 
 	private void removeVisibleElement( final int index, final E element )
 	{
-		if ( !this.currentFilter.isVisible( element ) )
+		// The element is visible if it was when it was last tested, whatever the filter would say of it now
+		int visibleIndex = this.computeVisibleIndex( index );
+		if ( visibleIndex == this.visibleElements.size() || this.visibleElements.get( visibleIndex ) != element )
 		{
 			return;
 		}
 
-		int visibleIndex = this.computeVisibleIndex( index );
 		this.visibleElements.remove( visibleIndex );
 		this.fireIntervalRemoved( this, visibleIndex, visibleIndex );
 	}
@@ -711,12 +882,10 @@ public class LockableListModel<E>
 				return null;
 			}
 
-			if ( this.currentFilter != LockableListModel.NO_FILTER || !this.mirrorList.isEmpty() )
-			{
-				this.updateFilter( false );
-			}
+			this.firePendingIntervals();
 
 			E originalValue = this.actualElements.set( index, element );
+			this.modifications.incrementAndGet();
 			this.setVisibleElement( index, element, originalValue );
 
 			Iterator<WeakReference<LockableListModel<E>>> it = this.mirrorList.iterator();
@@ -739,18 +908,13 @@ public class LockableListModel<E>
 	{
 		int visibleIndex = this.computeVisibleIndex( index );
 
-		if ( originalValue != null && this.currentFilter.isVisible( originalValue ) )
+		if ( visibleIndex < this.visibleElements.size() && this.visibleElements.get( visibleIndex ) == originalValue )
 		{
 			if ( !this.currentFilter.isVisible( element ) )
 			{
 				this.visibleElements.remove( visibleIndex );
 				this.fireIntervalRemoved( this, visibleIndex, visibleIndex );
 			}
-			else if ( visibleIndex == this.visibleElements.size() )
-			{
-				this.visibleElements.add( visibleIndex, element );
-				this.fireIntervalAdded( this, visibleIndex, visibleIndex );
-			}
 			else
 			{
 				this.visibleElements.set( visibleIndex, element );
@@ -804,6 +968,8 @@ public class LockableListModel<E>
 	{
 		synchronized ( this.actualElements )
 		{
+			this.firePendingIntervals();
+
 			this.updateSingleFilter( refresh );
 
 			Iterator<WeakReference<LockableListModel<E>>> it = this.mirrorList.iterator();
@@ -1073,11 +1239,13 @@ public class LockableListModel<E>
 
 		cloneCopy.actualElements = new ArrayList();
 		cloneCopy.actualElements.addAll( this.actualElements );
+		cloneCopy.modifications = new AtomicInteger();
 
 		cloneCopy.visibleElements = new ArrayList();
 		cloneCopy.visibleElements.addAll( this.visibleElements );
 
 		cloneCopy.mirrorList = new ArrayList<WeakReference<LockableListModel<E>>>();
+		cloneCopy.pendingLow = cloneCopy.pendingHigh = -1;
 
 		cloneCopy.currentFilter = this.currentFilter;
 		cloneCopy.selectedValue = null;
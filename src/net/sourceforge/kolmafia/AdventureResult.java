@@ -21,6 +21,7 @@ import net.sourceforge.kolmafia.session.ElVibratoManager;
 import net.sourceforge.kolmafia.session.ElVibratoManager.Punchcard;
 import net.sourceforge.kolmafia.session.GoalManager;
 import net.sourceforge.kolmafia.session.InventoryManager;
+import net.sourceforge.kolmafia.session.ItemCountIndex;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
 public class AdventureResult implements Comparable<AdventureResult>, Cloneable {
@@ -1141,6 +1142,13 @@ public class AdventureResult implements Comparable<AdventureResult>, Cloneable {
    * intent more transparent.
    */
   public int getCount(final List<AdventureResult> list) {
+    if (this.isItem() && this.id > 0) {
+      ItemCountIndex index = ItemCountIndex.forList(list);
+      if (index != null) {
+        return index.getCount(this.id);
+      }
+    }
+
     int index = list.indexOf(this);
     if (index == -1) return 0;
     AdventureResult item = list.get(index);
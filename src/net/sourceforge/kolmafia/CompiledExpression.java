@@ -0,0 +1,378 @@
+package net.sourceforge.kolmafia;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import net.sourceforge.kolmafia.modifiers.DoubleModifier;
+import net.sourceforge.kolmafia.objectpool.EffectPool;
+import net.sourceforge.kolmafia.objectpool.FamiliarPool;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.persistence.AdventureDatabase;
+import net.sourceforge.kolmafia.persistence.EffectDatabase;
+import net.sourceforge.kolmafia.persistence.FamiliarDatabase;
+import net.sourceforge.kolmafia.persistence.HolidayDatabase;
+import net.sourceforge.kolmafia.persistence.ItemDatabase;
+import net.sourceforge.kolmafia.persistence.ModifierDatabase;
+import net.sourceforge.kolmafia.persistence.MonsterDatabase.Element;
+import net.sourceforge.kolmafia.persistence.SkillDatabase;
+import net.sourceforge.kolmafia.preferences.Preferences;
+import net.sourceforge.kolmafia.request.BasementRequest;
+import net.sourceforge.kolmafia.request.FightRequest;
+import net.sourceforge.kolmafia.session.InventoryManager;
+import net.sourceforge.kolmafia.utilities.StringUtilities;
+
+/**
+ * Translates the bytecode of an {@link Expression} into a tree of closures. Names in literals are
+ * resolved to items, effects, skills and so on once, when the tree is built, rather than every time
+ * the expression is evaluated, and no operand stack is needed.
+ *
+ * <p>Each operation must behave exactly as it does in {@link Expression#evalInternal}, which
+ * remains the reference implementation.
+ */
+final class CompiledExpression {
+  @FunctionalInterface
+  interface Node {
+    double eval(ExpressionOverrides overrides);
+  }
+
+  private record Constant(double value) implements Node {
+    @Override
+    public double eval(ExpressionOverrides overrides) {
+      return this.value;
+    }
+  }
+
+  private CompiledExpression() {}
+
+  /**
+   * Returns the tree for the given bytecode, or null if the bytecode contains something that
+   * cannot be compiled. In that case, the interpreter reports the problem when evaluating.
+   */
+  static Node compile(Expression expression, char[] bytecode, List<Object> literals) {
+    Deque<Node> stack = new ArrayDeque<>();
+    try {
+      for (char inst : bytecode) {
+        if (inst == 'r') {
+          return stack.size() == 1 ? stack.pop() : null;
+        }
+        Node node = compile(expression, inst, stack, literals);
+        if (node == null) {
+          return null;
+        }
+        stack.push(node);
+      }
+    } catch (RuntimeException e) {
+      // Malformed bytecode, such as an operation without enough operands
+    }
+    return null;
+  }
+
+  private static Node compile(
+      Expression expression, char inst, Deque<Node> stack, List<Object> literals) {
+    if (inst > '\u00FF') {
+      return new Constant(inst - 0x8000);
+    }
+
+    return switch (inst) {
+      // Operands are named in the order they are popped, as in the interpreter
+      case '+' -> binary(stack, Double::sum);
+      case '-' -> binary(stack, (first, second) -> first - second);
+      case '*' -> binary(stack, (first, second) -> first * second);
+      case '/' ->
+          binary(
+              stack,
+              (numerator, denominator) -> {
+                if (denominator == 0.0) {
+                  throw new ArithmeticException("Can't divide by zero");
+                }
+                return numerator / denominator;
+              });
+      case '%' -> binary(stack, (first, second) -> first % second);
+      case '^' ->
+          binary(
+              stack,
+              (base, expt) -> {
+                double v = Math.pow(base, expt);
+                if (Double.isNaN(v) || Double.isInfinite(v)) {
+                  throw new ArithmeticException(
+                      "Invalid exponentiation: cannot take " + base + " ** " + expt);
+                }
+                return v;
+              });
+      case 'm' -> binary(stack, Math::min);
+      case 'x' -> binary(stack, Math::max);
+      case '<' -> binary(stack, (first, second) -> first > second ? 1 : 0);
+      case '≤' -> binary(stack, (first, second) -> first >= second ? 1 : 0);
+      case '>' -> binary(stack, (first, second) -> first < second ? 1 : 0);
+      case '≥' -> binary(stack, (first, second) -> first <= second ? 1 : 0);
+      case '=' -> binary(stack, (first, second) -> first == second ? 1 : 0);
+      case '≠' -> binary(stack, (first, second) -> first != second ? 1 : 0);
+      case 'a' -> unary(stack, Math::abs);
+      case 'c' -> unary(stack, Math::ceil);
+      case 'f' -> unary(stack, Math::floor);
+      case 's' ->
+          unary(
+              stack,
+              a -> {
+                double v = Math.sqrt(a);
+                if (Double.isNaN(v)) {
+                  throw new ArithmeticException("Can't take square root of a negative value");
+                }
+                return v;
+              });
+      case '#' -> new Constant((Double) literal(stack, literals));
+      default -> {
+        if (usesLiteral(inst)) {
+          yield compileLiteral(inst, (String) literal(stack, literals));
+        }
+        yield compileState(expression, inst);
+      }
+    };
+  }
+
+  private static Object literal(Deque<Node> stack, List<Object> literals) {
+    if (!(stack.pop() instanceof Constant index)) {
+      throw new IllegalStateException("Literal index is not constant");
+    }
+    return literals.get((int) index.value());
+  }
+
+  // The operand popped second was pushed first, so it is evaluated first, as it would be by the
+  // interpreter.
+  private static Node binary(Deque<Node> stack, DoubleBinaryOperator op) {
+    Node first = stack.pop();
+    Node second = stack.pop();
+    Node node =
+        overrides -> {
+          double v = second.eval(overrides);
+          return op.applyAsDouble(first.eval(overrides), v);
+        };
+    return fold(node, first instanceof Constant && second instanceof Constant);
+  }
+
+  private static Node unary(Deque<Node> stack, DoubleUnaryOperator op) {
+    Node operand = stack.pop();
+    Node node = overrides -> op.applyAsDouble(operand.eval(overrides));
+    return fold(node, operand instanceof Constant);
+  }
+
+  // Evaluates operations on constants up front, unless they fail. Failures are left for
+  // evaluation time, so that they are reported the same way as by the interpreter.
+  private static Node fold(Node node, boolean constant) {
+    if (!constant) {
+      return node;
+    }
+    try {
+      return new Constant(node.eval(ExpressionOverrides.NONE));
+    } catch (ArithmeticException e) {
+      return node;
+    }
+  }
+
+  private static boolean usesLiteral(char inst) {
+    return switch (inst) {
+      case 'b', 'd', 'e', 'g', 'h', 'i', 'j', 'k', 'l', 'n', 'o', 'p', 'v', 'w', 'z' -> true;
+      case '\u0092', '\u0093', '\u0096', '\u008a' -> true;
+      default -> false;
+    };
+  }
+
+  private static Node compileLiteral(char inst, String literal) {
+    return switch (inst) {
+      case 'o' -> {
+        AdventureResult item =
+            StringUtilities.isNumeric(literal)
+                ? ItemPool.get(StringUtilities.parseInt(literal))
+                : ItemPool.get(literal);
+        // To replicate KoL's internal haveitem(), we only check the inventory.
+        yield overrides -> InventoryManager.getCount(item);
+      }
+      case 'p' -> {
+        int commaIndex = literal.indexOf(",");
+        String prefName = commaIndex > -1 ? literal.substring(0, commaIndex) : literal;
+        String second = commaIndex > -1 ? literal.substring(commaIndex + 1) : null;
+        yield overrides -> {
+          String prefString =
+              overrides.pref(prefName).orElseGet(() -> Preferences.getString(prefName));
+          if (second != null) {
+            return prefString.contains(second) ? 1 : 0;
+          }
+          return prefString.contains("true")
+              ? 1
+              : prefString.contains("false") ? 0 : StringUtilities.parseDouble(prefString);
+        };
+      }
+      case 'b' -> {
+        DoubleModifier resistance =
+            ModifierDatabase.elementalResistance(Element.fromString(literal));
+        yield overrides -> KoLCharacter.currentNumericModifier(resistance);
+      }
+      case 'd' -> {
+        String skillName =
+            StringUtilities.isNumeric(literal)
+                ? SkillDatabase.getSkillName(StringUtilities.parseInt(literal))
+                : literal;
+        yield overrides -> KoLCharacter.hasSkill(skillName) ? 1 : 0;
+      }
+      case 'e' -> {
+        int effectId =
+            StringUtilities.isNumeric(literal)
+                ? StringUtilities.parseInt(literal)
+                : EffectDatabase.getEffectId(literal);
+        AdventureResult effect = EffectPool.get(effectId);
+        yield overrides -> Math.max(0, effect.getCount(KoLConstants.activeEffects));
+      }
+      case 'g' -> {
+        AdventureResult item = ItemPool.get(ItemDatabase.getItemId(literal));
+        yield overrides -> KoLCharacter.hasEquipped(item) ? 1 : 0;
+      }
+      case 'h' -> overrides -> Modifiers.getMainhandClass().equalsIgnoreCase(literal) ? 1 : 0;
+      case 'i' ->
+          overrides ->
+              FamiliarDatabase.hasAttribute(Modifiers.getCurrentFamiliar(), literal) ? 1 : 0;
+      case 'j' -> overrides -> Modifiers.currentEnvironment.equalsIgnoreCase(literal) ? 1 : 0;
+      case 'k' -> overrides -> KoLCharacter.mainStat().name().equalsIgnoreCase(literal) ? 1 : 0;
+      case 'l' -> overrides -> Modifiers.currentLocation.equalsIgnoreCase(literal) ? 1 : 0;
+      case 'n' -> {
+        if (literal.equalsIgnoreCase("awol")) {
+          yield overrides -> KoLCharacter.isAWoLClass() ? 1 : 0;
+        }
+        yield overrides -> KoLCharacter.getAscensionClassName().equalsIgnoreCase(literal) ? 1 : 0;
+      }
+      case 'w' -> {
+        String familiarName =
+            StringUtilities.isNumeric(literal)
+                ? FamiliarDatabase.getFamiliarName(StringUtilities.parseInt(literal))
+                : literal;
+        yield overrides -> Modifiers.getCurrentFamiliar().equalsIgnoreCase(familiarName) ? 1 : 0;
+      }
+      case 'z' -> overrides -> inZone(literal) ? 1 : 0;
+      case 'v' ->
+          switch (literal) {
+            case "December" -> overrides -> HolidayDatabase.isDecember() ? 1 : 0;
+            case "Saturday" -> overrides -> HolidayDatabase.isSaturday() ? 1 : 0;
+            default -> overrides -> HolidayDatabase.getHoliday().contains(literal) ? 1 : 0;
+          };
+      case '\u0092' -> {
+        AscensionPath.Path path = AscensionPath.nameToPath(literal);
+        yield overrides -> KoLCharacter.getPath() == path ? 1 : 0;
+      }
+      case '\u0093' -> {
+        DoubleModifier modifier = DoubleModifier.byCaselessName(literal);
+        yield overrides -> KoLCharacter.getCurrentModifiers().getAccumulator(modifier);
+      }
+      case '\u0096' -> new Constant(StringUtilities.parseInt(literal.replaceAll(",", "")));
+      case '\u008a' -> new Constant(StringUtilities.parseRomanNumerals(literal));
+      default -> null;
+    };
+  }
+
+  private static boolean inZone(String expressionZone) {
+    String currentZone = Modifiers.currentZone;
+    while (true) {
+      if (currentZone.equalsIgnoreCase(expressionZone)) {
+        return true;
+      }
+      String parentZone = AdventureDatabase.getParentZone(currentZone);
+      if (parentZone == null || currentZone.equals(parentZone)) {
+        return false;
+      }
+      currentZone = parentZone;
+    }
+  }
+
+  private static Node compileState(Expression expression, char inst) {
+    return switch (inst) {
+      case 't' -> overrides -> KoLCharacter.getAdventuresLeft();
+      case '\u0080' -> overrides -> KoLCharacter.getAdjustedMuscle();
+      case '\u0081' -> overrides -> KoLCharacter.getAdjustedMysticality();
+      case '\u0082' -> overrides -> KoLCharacter.getAdjustedMoxie();
+      case '\u0083' -> overrides -> KoLCharacter.getMonsterLevelAdjustment();
+      case '\u0084' -> overrides -> KoLCharacter.getMindControlLevel();
+      case '\u0085' -> overrides -> KoLCharacter.getMaximumHP();
+      case '\u0086' -> overrides -> BasementRequest.getBasementLevel();
+      case '\u0087' -> overrides -> FightRequest.dreadKisses("Woods");
+      case '\u0088' -> overrides -> FightRequest.dreadKisses("Village");
+      case '\u0089' -> overrides -> FightRequest.dreadKisses("Castle");
+      case '\u0090' -> overrides -> KoLCharacter.getAdjustedHighestStat();
+      case '\u0091' -> overrides -> KoLCharacter.getMaximumMP();
+      case '\u0094' -> overrides -> KoLCharacter.canInteract() ? 1 : 0;
+      case '\u0095' -> overrides -> KoLCharacter.getCurrentHP();
+      case '\u008b' -> overrides -> isRobot(Modifiers.getCurrentFamiliar()) ? 1 : 0;
+      case '\u008c' -> overrides -> KoLCharacter.getTurnsPlayed();
+      case '\u008d' -> overrides -> KoLCharacter.getParadoxicity();
+      case '\u008e' -> overrides -> overrides.unarmed().orElse(Modifiers.isUnarmed()) ? 1 : 0;
+      case '\u008f' -> overrides -> KoLCharacter.getSwordOfSWordsosity();
+      case '\u0097' -> overrides -> KoLCharacter.getBaseMuscle();
+      case '\u0098' -> overrides -> KoLCharacter.getBaseMysticality();
+      case '\u0099' -> overrides -> KoLCharacter.getBaseMoxie();
+      case 'A' -> overrides -> KoLCharacter.getAscensions();
+      case 'B' -> overrides -> HolidayDatabase.getBloodEffect();
+      case 'C' -> overrides -> KoLCharacter.getMinstrelLevel();
+      case 'D' -> overrides -> KoLCharacter.getInebriety();
+      case 'E' ->
+          overrides ->
+              KoLConstants.activeEffects.stream()
+                  .map(AdventureResult::getCount)
+                  .filter(d -> d < Integer.MAX_VALUE)
+                  .count();
+      case 'F' -> overrides -> KoLCharacter.getFullness();
+      case 'G' -> overrides -> HolidayDatabase.getGrimaciteEffect() / 10.0;
+      case 'H' -> overrides -> Modifiers.getHoboPower();
+      case 'I' -> overrides -> KoLCharacter.getDiscoMomentum();
+      case 'J' ->
+          overrides ->
+              HolidayDatabase.getHoliday().contains("Festival of Jarlsberg") ? 1.0 : 0.0;
+      case 'K' -> overrides -> Modifiers.getSmithsness();
+      case 'L' -> overrides -> KoLCharacter.getLevel();
+      case 'M' -> overrides -> HolidayDatabase.getMoonlight();
+      case 'N' -> overrides -> KoLCharacter.getAudience();
+      case 'P' -> overrides -> KoLCharacter.currentPastaThrall.getLevel();
+      case 'R' -> overrides -> KoLCharacter.getReagentPotionDuration();
+      case 'S' -> overrides -> KoLCharacter.getSpleenUse();
+      case 'T' ->
+          overrides ->
+              expression.effect == null
+                  ? 0.0
+                  : Math.max(1, expression.effect.getCount(KoLConstants.activeEffects));
+      case 'U' -> overrides -> KoLCharacter.getTelescopeUpgrades();
+      case 'W' -> overrides -> Modifiers.getCurrentWeight();
+      case 'X' -> overrides -> KoLCharacter.getGender().modifierValue;
+      case 'Y' -> overrides -> KoLCharacter.getFury();
+      default -> null;
+    };
+  }
+
+  private static boolean isRobot(String familiar) {
+    return switch (FamiliarDatabase.getFamiliarId(familiar)) {
+      case FamiliarPool.AUTONOMOUS_DISCO_BALL,
+          FamiliarPool.CLOCKWORK_GRAPEFRUIT,
+          FamiliarPool.PRESSIE,
+          FamiliarPool.CYMBAL_PLAYING_MONKEY,
+          FamiliarPool.DATASPIDER,
+          FamiliarPool.MEGADRONE,
+          FamiliarPool.HOMEMADE_ROBOT,
+          FamiliarPool.MAGIMECHTECH_MICROMECHAMECH,
+          FamiliarPool.MECHANICAL_SONGBIRD,
+          FamiliarPool.MINI_CRIMBOT,
+          FamiliarPool.MINIMECHAELF,
+          FamiliarPool.NANORHINO,
+          FamiliarPool.NINJA_PIRATE_ZOMBIE_ROBOT,
+          FamiliarPool.OAF,
+          FamiliarPool.POCKET_PROFESSOR,
+          FamiliarPool.ROBOGOOSE,
+          FamiliarPool.ROBORTENDER,
+          FamiliarPool.ROBOT_REINDEER,
+          FamiliarPool.ORB,
+          FamiliarPool.STEAM_CHEERLEADER,
+          FamiliarPool.SWEET_NUTCRACKER,
+          FamiliarPool.TEDDY_BORG,
+          FamiliarPool.WARBEAR_DRONE,
+          FamiliarPool.WIND_UP_CHATTERING_TEETH ->
+          true;
+      default -> false;
+    };
+  }
+}
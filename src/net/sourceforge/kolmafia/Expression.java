@@ -2,8 +2,13 @@ package net.sourceforge.kolmafia;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import net.sourceforge.kolmafia.listener.Listener;
+import net.sourceforge.kolmafia.listener.PreferenceListenerRegistry;
 import net.sourceforge.kolmafia.modifiers.DoubleModifier;
 import net.sourceforge.kolmafia.objectpool.EffectPool;
 import net.sourceforge.kolmafia.objectpool.FamiliarPool;
@@ -29,8 +34,23 @@ public class Expression {
   protected String name;
   protected String text;
 
+  // Whether to evaluate expressions as closure trees rather than by interpreting bytecode
+  private static boolean compiledEvaluation = true;
+
   private char[] bytecode; // Compiled expression
   private ArrayList<Object> literals; // Strings & floats needed by expression
+  private CompiledExpression.Node compiled; // Closure tree, built on first evaluation
+  private boolean compileFailed = false;
+
+  // Names of the preferences read by this expression, or null if it depends on anything other than
+  // preferences. Values of such expressions are remembered until one of those preferences changes.
+  private Set<String> preferences;
+  private final AtomicInteger version = new AtomicInteger();
+  private final Listener invalidator = this.version::incrementAndGet;
+  private int registeredGeneration = -1;
+  private volatile Memo memo = null;
+
+  private record Memo(int version, double value) {}
   protected AdventureResult effect;
 
   // If non-null, contains concatenated error strings from compiling bytecode
@@ -90,6 +110,7 @@ public class Expression {
       buf.append(this.text);
     }
     this.text = null;
+    this.findDependencies();
   }
 
   public static Expression getInstance(String text, String name) {
@@ -103,13 +124,43 @@ public class Expression {
 
   protected void initialize() {}
 
+  /**
+   * Chooses between evaluating closure trees and interpreting bytecode, so that the two can be
+   * compared. Returns the previous setting.
+   */
+  public static boolean setCompiledEvaluation(boolean compiled) {
+    boolean previous = Expression.compiledEvaluation;
+    Expression.compiledEvaluation = compiled;
+    return previous;
+  }
+
   public double eval() {
     return this.eval(ExpressionOverrides.NONE);
   }
 
   public double eval(ExpressionOverrides overrides) {
+    // Listeners are not told about preference changes while they are deferred
+    Set<String> preferences = this.preferences;
+    boolean memoize =
+        preferences != null
+            && overrides == ExpressionOverrides.NONE
+            && !PreferenceListenerRegistry.isDeferringPreferenceListeners();
+    int version = 0;
+    if (memoize) {
+      this.listenTo(preferences);
+      version = this.version.get();
+      Memo memo = this.memo;
+      if (memo != null && memo.version() == version) {
+        return memo.value();
+      }
+    }
+
     try {
-      return this.evalInternal(overrides);
+      double value = this.evalCompiled(overrides);
+      if (memoize) {
+        this.memo = new Memo(version, value);
+      }
+      return value;
     } catch (ArrayIndexOutOfBoundsException e) {
       KoLmafia.updateDisplay("Unreasonably complex expression for " + this.name + ": " + e);
     } catch (RuntimeException e) {
@@ -124,6 +175,68 @@ public class Expression {
     return this.evalInternal(ExpressionOverrides.NONE);
   }
 
+  private void listenTo(Set<String> preferences) {
+    int generation = PreferenceListenerRegistry.getGeneration();
+    if (this.registeredGeneration == generation) {
+      return;
+    }
+    synchronized (this) {
+      if (this.registeredGeneration != generation) {
+        PreferenceListenerRegistry.registerPreferenceListener(
+            preferences.toArray(String[]::new), this.invalidator);
+        // Anything remembered before now may have missed a change
+        this.version.incrementAndGet();
+        this.registeredGeneration = generation;
+      }
+    }
+  }
+
+  // Determines whether this expression reads nothing but preferences, and if so, which ones.
+  private void findDependencies() {
+    Set<String> names = new HashSet<>();
+    for (int pc = 0; pc < this.bytecode.length; ++pc) {
+      char inst = this.bytecode[pc];
+      if (inst > '\u00FF') {
+        continue;
+      }
+      switch (inst) {
+        case 'r', '+', '-', '*', '/', '%', '^', 'a', 'c', 'f', 's', 'm', 'x', '#' -> {}
+        case '<', '≤', '>', '≥', '=', '≠' -> {}
+        case 'p' -> {
+          if (pc == 0 || this.bytecode[pc - 1] <= '\u00FF') {
+            this.preferences = null;
+            return;
+          }
+          String pref = (String) this.literals.get(this.bytecode[pc - 1] - 0x8000);
+          int commaIndex = pref.indexOf(",");
+          names.add(commaIndex > -1 ? pref.substring(0, commaIndex) : pref);
+        }
+        default -> {
+          this.preferences = null;
+          return;
+        }
+      }
+    }
+    this.preferences = names;
+  }
+
+  private double evalCompiled(ExpressionOverrides overrides) {
+    if (!Expression.compiledEvaluation || this.compileFailed) {
+      return this.evalInternal(overrides);
+    }
+    CompiledExpression.Node node = this.compiled;
+    if (node == null) {
+      // Names are resolved on first use, once the databases they refer to have been loaded
+      node = CompiledExpression.compile(this, this.bytecode, this.literals);
+      if (node == null) {
+        this.compileFailed = true;
+        return this.evalInternal(overrides);
+      }
+      this.compiled = node;
+    }
+    return node.eval(overrides);
+  }
+
   public double evalInternal(ExpressionOverrides overrides) {
     double[] s = stackFactory(null);
     int sp = 0;
@@ -241,13 +354,14 @@ public class Expression {
         }
         case 'h' ->
             v =
-                Modifiers.mainhandClass.equalsIgnoreCase((String) this.literals.get((int) s[--sp]))
+                Modifiers.getMainhandClass()
+                        .equalsIgnoreCase((String) this.literals.get((int) s[--sp]))
                     ? 1
                     : 0;
         case 'i' ->
             v =
                 FamiliarDatabase.hasAttribute(
-                        Modifiers.currentFamiliar, (String) this.literals.get((int) s[--sp]))
+                        Modifiers.getCurrentFamiliar(), (String) this.literals.get((int) s[--sp]))
                     ? 1
                     : 0;
         case 'j' ->
@@ -283,7 +397,7 @@ public class Expression {
               (StringUtilities.isNumeric(fam))
                   ? FamiliarDatabase.getFamiliarName(StringUtilities.parseInt(fam))
                   : fam;
-          v = Modifiers.currentFamiliar.equalsIgnoreCase(familiarName) ? 1 : 0;
+          v = Modifiers.getCurrentFamiliar().equalsIgnoreCase(familiarName) ? 1 : 0;
         }
         case 'z' -> {
           String expressionZone = (String) this.literals.get((int) s[--sp]);
@@ -306,11 +420,7 @@ public class Expression {
           switch (event) {
             case "December" -> v = HolidayDatabase.isDecember() ? 1 : 0;
             case "Saturday" -> v = HolidayDatabase.isSaturday() ? 1 : 0;
-            default -> {
-              if (HolidayDatabase.getHoliday().contains(event)) {
-                v = 1;
-              }
-            }
+            default -> v = HolidayDatabase.getHoliday().contains(event) ? 1 : 0;
           }
         }
 
@@ -381,7 +491,7 @@ public class Expression {
         // Valid with Modifier Expression:
         case '\u008b' ->
             v =
-                switch (FamiliarDatabase.getFamiliarId(Modifiers.currentFamiliar)) {
+                switch (FamiliarDatabase.getFamiliarId(Modifiers.getCurrentFamiliar())) {
                   case FamiliarPool.AUTONOMOUS_DISCO_BALL,
                       FamiliarPool.CLOCKWORK_GRAPEFRUIT,
                       FamiliarPool.PRESSIE,
@@ -413,7 +523,7 @@ public class Expression {
         // Valid with Modifier Expression:
         case '\u008c' -> v = KoLCharacter.getTurnsPlayed();
         case '\u008d' -> v = KoLCharacter.getParadoxicity();
-        case '\u008e' -> v = overrides.unarmed().orElse(Modifiers.unarmed) ? 1 : 0;
+        case '\u008e' -> v = overrides.unarmed().orElse(Modifiers.isUnarmed()) ? 1 : 0;
         case '\u008f' -> v = KoLCharacter.getSwordOfSWordsosity();
         // Valid with Modifier Expression:
         case '\u0097' -> v = KoLCharacter.getBaseMuscle();
@@ -437,10 +547,10 @@ public class Expression {
         }
         case 'F' -> v = KoLCharacter.getFullness();
         case 'G' -> v = HolidayDatabase.getGrimaciteEffect() / 10.0;
-        case 'H' -> v = Modifiers.hoboPower;
+        case 'H' -> v = Modifiers.getHoboPower();
         case 'I' -> v = KoLCharacter.getDiscoMomentum();
         case 'J' -> v = HolidayDatabase.getHoliday().contains("Festival of Jarlsberg") ? 1.0 : 0.0;
-        case 'K' -> v = Modifiers.smithsness;
+        case 'K' -> v = Modifiers.getSmithsness();
         case 'L' -> v = KoLCharacter.getLevel();
         case 'M' -> v = HolidayDatabase.getMoonlight();
         case 'N' -> v = KoLCharacter.getAudience();
@@ -453,7 +563,7 @@ public class Expression {
                     ? 0.0
                     : Math.max(1, this.effect.getCount(KoLConstants.activeEffects));
         case 'U' -> v = KoLCharacter.getTelescopeUpgrades();
-        case 'W' -> v = Modifiers.currentWeight;
+        case 'W' -> v = Modifiers.getCurrentWeight();
         case 'X' -> v = KoLCharacter.getGender().modifierValue;
         case 'Y' -> v = KoLCharacter.getFury();
         default -> {
@@ -730,6 +840,9 @@ public class Expression {
         throw new IllegalArgumentException("Combiner must be a binary operator");
     }
 
+    this.compiled = null;
+    this.compileFailed = false;
+
     int bytecodeOffset = this.bytecode.length - 1;
 
     bytecode = Arrays.copyOf(this.bytecode, this.bytecode.length + other.bytecode.length);
@@ -749,5 +862,9 @@ public class Expression {
 
     this.bytecode[this.bytecode.length - 2] = combiner;
     this.bytecode[this.bytecode.length - 1] = 'r';
+
+    this.findDependencies();
+    this.registeredGeneration = -1;
+    this.version.incrementAndGet();
   }
 }
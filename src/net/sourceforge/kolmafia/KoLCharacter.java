@@ -5123,12 +5123,12 @@ public abstract class KoLCharacter {
     Modifiers newModifiers = debug ? new DebugModifiers() : new Modifiers();
     Modifiers.setFamiliar(familiar);
     AdventureResult weapon = equipment.get(Slot.WEAPON);
-    Modifiers.mainhandClass =
-        weapon == null ? "" : EquipmentDatabase.getItemType(weapon.getItemId());
+    Modifiers.setMainhandClass(
+        weapon == null ? "" : EquipmentDatabase.getItemType(weapon.getItemId()));
     AdventureResult offhand = equipment.get(Slot.OFFHAND);
-    Modifiers.unarmed =
+    Modifiers.setUnarmed(
         (weapon == null || weapon == EquipmentRequest.UNEQUIP)
-            && (offhand == null || offhand == EquipmentRequest.UNEQUIP);
+            && (offhand == null || offhand == EquipmentRequest.UNEQUIP));
 
     // Area-specific adjustments
     newModifiers.add(ModifierDatabase.getModifiers(ModifierType.LOC, Modifiers.currentLocation));
@@ -5185,7 +5185,7 @@ public abstract class KoLCharacter {
                   newModifiers.addDouble(
                       DoubleModifier.INITIATIVE, level * 20, ModifierType.EL_VIBRATO, "SELF");
               case 8 -> {
-                if (Modifiers.currentFamiliar.contains("megadrone")) {
+                if (Modifiers.getCurrentFamiliar().contains("megadrone")) {
                   newModifiers.addDouble(
                       DoubleModifier.FAMILIAR_WEIGHT, level * 10, ModifierType.EL_VIBRATO, "DRONE");
                 }
@@ -5206,7 +5206,7 @@ public abstract class KoLCharacter {
     }
 
     // Store some modifiers as statics
-    Modifiers.smithsness = KoLCharacter.getSmithsnessModifier(equipment, effects);
+    Modifiers.setSmithsness(KoLCharacter.getSmithsnessModifier(equipment, effects));
 
     // Look at items
     for (var slot : SlotSet.SLOTS) {
@@ -5396,7 +5396,7 @@ public abstract class KoLCharacter {
     newModifiers.add(fightMods);
 
     // Store some modifiers as statics
-    Modifiers.hoboPower = newModifiers.getDouble(DoubleModifier.HOBO_POWER);
+    Modifiers.setHoboPower(newModifiers.getDouble(DoubleModifier.HOBO_POWER));
 
     if (Modifiers.currentLocation.equals("The Slime Tube")) {
       int hatred = (int) newModifiers.getDouble(DoubleModifier.SLIME_HATES_IT);
@@ -10,6 +10,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
 import java.math.BigInteger;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
@@ -122,6 +123,7 @@ import net.sourceforge.kolmafia.swingui.panel.GenericPanel;
 import net.sourceforge.kolmafia.textui.AshRuntime;
 import net.sourceforge.kolmafia.utilities.LockableListFactory;
 import net.sourceforge.kolmafia.utilities.LogStream;
+import net.sourceforge.kolmafia.utilities.PreparedDataFiles;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 import net.sourceforge.kolmafia.utilities.SwinglessUIUtils;
 import net.sourceforge.kolmafia.webui.RelayServer;
@@ -163,6 +165,7 @@ public abstract class KoLmafia {
   private static FileChannel SESSION_CHANNEL = null;
   private static File SESSION_FILE = null;
   private static boolean SESSION_ENDING = false;
+  private static long startupTime = 0L;
   public static KoLAdventure currentAdventure;
   private static final String PREFERRED_IMAGE_SERVER = "https://d2uyhvukfffg5a.cloudfront.net";
   private static final String PREFERRED_IMAGE_SERVER_PATH = PREFERRED_IMAGE_SERVER + "/";
@@ -307,6 +310,9 @@ public abstract class KoLmafia {
 
     KoLmafia.checkDataOverrides();
 
+    // Read the data files the databases will need while the interface is built.
+    PreparedDataFiles.prepareStartupFiles();
+
     // Create an images directory if necessary
     KoLConstants.IMAGE_LOCATION.mkdirs();
 
@@ -335,6 +341,8 @@ public abstract class KoLmafia {
       KoLmafiaTUI.initialize();
     }
 
+    KoLmafia.startupTime = ManagementFactory.getRuntimeMXBean().getUptime();
+
     // Now, maybe the person wishes to run something
     // on startup, and they associated KoLmafia with
     // some non-ASH file extension. This will run it.
@@ -383,6 +391,11 @@ public abstract class KoLmafia {
     }
   }
 
+  /** Returns how long after the JVM started the interface was ready, in milliseconds. */
+  public static long getStartupTime() {
+    return KoLmafia.startupTime;
+  }
+
   public static List<String> minimumJavaVersionWarning() {
     if (Runtime.version().feature() >= MINIMUM_JAVA_VERSION) return List.of();
 
@@ -5,7 +5,6 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import net.sourceforge.kolmafia.request.CampgroundRequest;
 import net.sourceforge.kolmafia.request.RelayRequest;
 import net.sourceforge.kolmafia.textui.AshRuntime;
@@ -13,6 +12,7 @@ import net.sourceforge.kolmafia.textui.NamespaceInterpreter;
 import net.sourceforge.kolmafia.textui.Parser;
 import net.sourceforge.kolmafia.textui.RuntimeLibrary;
 import net.sourceforge.kolmafia.textui.ScriptRuntime;
+import net.sourceforge.kolmafia.textui.ScriptWatcher;
 import net.sourceforge.kolmafia.textui.javascript.JavascriptRuntime;
 import net.sourceforge.kolmafia.textui.parsetree.Function;
 import net.sourceforge.kolmafia.textui.parsetree.FunctionList;
@@ -22,7 +22,7 @@ import net.sourceforge.kolmafia.utilities.FileUtilities;
 public abstract class KoLmafiaASH {
   private static final HashMap<String, File> relayScriptMap = new HashMap<>();
 
-  private static final HashMap<File, Long> TIMESTAMPS = new HashMap<>();
+  private static final HashMap<File, ScriptWatcher.Stamp> STAMPS = new HashMap<>();
   private static final HashMap<File, ScriptRuntime> INTERPRETERS = new HashMap<>();
 
   public static final AshRuntime NAMESPACE_INTERPRETER = new NamespaceInterpreter();
@@ -197,31 +197,25 @@ public abstract class KoLmafiaASH {
       return null;
     }
 
-    boolean createInterpreter = !KoLmafiaASH.TIMESTAMPS.containsKey(toExecute);
-
-    if (!createInterpreter) {
-      Long timestamp = KoLmafiaASH.TIMESTAMPS.get(toExecute);
-      createInterpreter = timestamp != toExecute.lastModified();
-    }
+    boolean createInterpreter =
+        !ScriptWatcher.isCurrent(toExecute, KoLmafiaASH.STAMPS.get(toExecute));
 
     if (!createInterpreter) {
       ScriptRuntime interpreter = KoLmafiaASH.INTERPRETERS.get(toExecute);
       if (interpreter instanceof AshRuntime) {
         Map<File, Parser> imports = ((AshRuntime) interpreter).getImports();
 
-        Iterator<Entry<File, Parser>> it = imports.entrySet().iterator();
+        Iterator<Parser> it = imports.values().iterator();
 
         while (it.hasNext() && !createInterpreter) {
-          Entry<File, Parser> entry = it.next();
-          File file = entry.getKey();
-          long timestamp = entry.getValue().getModificationTimestamp();
-          createInterpreter = timestamp != file.lastModified();
+          createInterpreter = !it.next().isCurrent();
         }
       }
     }
 
     if (createInterpreter) {
-      KoLmafiaASH.TIMESTAMPS.remove(toExecute);
+      KoLmafiaASH.STAMPS.remove(toExecute);
+      ScriptWatcher.Stamp stamp = ScriptWatcher.stamp(toExecute);
       ScriptRuntime interpreter;
       if (toExecute.getName().endsWith(".js")) {
         interpreter = new JavascriptRuntime(toExecute);
@@ -234,7 +228,7 @@ public abstract class KoLmafiaASH {
         return null;
       }
 
-      KoLmafiaASH.TIMESTAMPS.put(toExecute, toExecute.lastModified());
+      KoLmafiaASH.STAMPS.put(toExecute, stamp);
       KoLmafiaASH.INTERPRETERS.put(toExecute, interpreter);
     }
 
@@ -707,6 +707,7 @@ public class KoLmafiaCLI {
     new LogEchoCommand().register("logecho").register("logprint");
     new LoginCommand().register("login");
     new LogoutCommand().register("logout");
+    new MacroCacheCommand().register("macrocache");
     new MacroTestCommand().register("macrotest");
     new MallRepriceCommand().register("reprice").register("undercut");
     new MallSellCommand().register("mallsell");
@@ -756,6 +757,7 @@ public class KoLmafiaCLI {
     new PrefRefCommand().register("prefref");
     new PrefTraceCommand().register("ptrace");
     new PripheaCommand().register("priphea");
+    new ProfilerCommand().register("profiler");
     new PulverizeCommand().register("smash").register("pulverize");
     new PvpAttackCommand().register("attack");
     new PvpStealCommand().register("pvp").register("steal");
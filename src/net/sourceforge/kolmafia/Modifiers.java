@@ -62,6 +62,19 @@ public class Modifiers {
   public static double currentWeight = 0.0;
   public static boolean unarmed = false;
 
+  // Threads that speculate concurrently with others (such as the parallel Maximizer search) keep
+  // their own copy of the statics above, which are otherwise shared by every thread.
+  private static final ThreadLocal<SpeculationContext> speculationContext = new ThreadLocal<>();
+
+  private static class SpeculationContext {
+    private String familiar = Modifiers.currentFamiliar;
+    private String mainhandClass = Modifiers.mainhandClass;
+    private double hoboPower = Modifiers.hoboPower;
+    private double smithsness = Modifiers.smithsness;
+    private double weight = Modifiers.currentWeight;
+    private boolean unarmed = Modifiers.unarmed;
+  }
+
   // caching of passive skills for the current character
   private static boolean availableSkillsChanged = false;
   private static final Map<Boolean, List<Modifiers>> availablePassiveSkillModifiersByVariable =
@@ -1230,7 +1243,7 @@ public class Modifiers {
       final FamiliarData familiar, int weight, final AdventureResult famItem) {
     int familiarId = familiar.getEffectiveId();
     weight = Math.max(1, weight);
-    Modifiers.currentWeight = weight;
+    Modifiers.setCurrentWeight(weight);
 
     String race = familiar.getEffectiveRace();
 
@@ -1729,7 +1742,117 @@ public class Modifiers {
   }
 
   public static void setFamiliar(FamiliarData fam) {
-    Modifiers.currentFamiliar = fam == null ? "" : fam.getRace();
+    String race = fam == null ? "" : fam.getRace();
+    SpeculationContext context = speculationContext.get();
+    if (context != null) {
+      context.familiar = race;
+    } else {
+      Modifiers.currentFamiliar = race;
+    }
+  }
+
+  /**
+   * Gives the current thread a private copy of the statics that are written while modifiers are
+   * recalculated, starting from their current shared values. Until {@link
+   * #exitSpeculationContext()} is called, speculation on this thread neither reads nor clobbers the
+   * values of other threads, and {@link ModifierDatabase} will not update its shared cache.
+   */
+  public static void enterSpeculationContext() {
+    speculationContext.set(new SpeculationContext());
+  }
+
+  public static void exitSpeculationContext() {
+    speculationContext.remove();
+  }
+
+  public static boolean inSpeculationContext() {
+    return speculationContext.get() != null;
+  }
+
+  public static String getCurrentFamiliar() {
+    SpeculationContext context = speculationContext.get();
+    return context != null ? context.familiar : Modifiers.currentFamiliar;
+  }
+
+  public static String getMainhandClass() {
+    SpeculationContext context = speculationContext.get();
+    return context != null ? context.mainhandClass : Modifiers.mainhandClass;
+  }
+
+  public static void setMainhandClass(String mainhandClass) {
+    SpeculationContext context = speculationContext.get();
+    if (context != null) {
+      context.mainhandClass = mainhandClass;
+    } else {
+      Modifiers.mainhandClass = mainhandClass;
+    }
+  }
+
+  public static double getHoboPower() {
+    SpeculationContext context = speculationContext.get();
+    return context != null ? context.hoboPower : Modifiers.hoboPower;
+  }
+
+  public static void setHoboPower(double hoboPower) {
+    SpeculationContext context = speculationContext.get();
+    if (context != null) {
+      context.hoboPower = hoboPower;
+    } else {
+      Modifiers.hoboPower = hoboPower;
+    }
+  }
+
+  public static double getSmithsness() {
+    SpeculationContext context = speculationContext.get();
+    return context != null ? context.smithsness : Modifiers.smithsness;
+  }
+
+  public static void setSmithsness(double smithsness) {
+    SpeculationContext context = speculationContext.get();
+    if (context != null) {
+      context.smithsness = smithsness;
+    } else {
+      Modifiers.smithsness = smithsness;
+    }
+  }
+
+  public static double getCurrentWeight() {
+    SpeculationContext context = speculationContext.get();
+    return context != null ? context.weight : Modifiers.currentWeight;
+  }
+
+  public static void setCurrentWeight(double weight) {
+    SpeculationContext context = speculationContext.get();
+    if (context != null) {
+      context.weight = weight;
+    } else {
+      Modifiers.currentWeight = weight;
+    }
+  }
+
+  public static boolean isUnarmed() {
+    SpeculationContext context = speculationContext.get();
+    return context != null ? context.unarmed : Modifiers.unarmed;
+  }
+
+  public static void setUnarmed(boolean unarmed) {
+    SpeculationContext context = speculationContext.get();
+    if (context != null) {
+      context.unarmed = unarmed;
+    } else {
+      Modifiers.unarmed = unarmed;
+    }
+  }
+
+  /**
+   * Returns a copy of these modifiers that shares their (immutable) expressions, so that it can be
+   * recalculated without disturbing this instance.
+   */
+  public Modifiers detachedCopy() {
+    Modifiers copy = new Modifiers(this);
+    copy.variable = this.variable;
+    copy.expressions = this.expressions;
+    return copy;
   }
 
   public boolean hasUnarmedBonus() {
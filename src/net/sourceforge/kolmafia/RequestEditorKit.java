@@ -54,7 +54,6 @@ import net.sourceforge.kolmafia.request.PlaceRequest;
 import net.sourceforge.kolmafia.request.RelayRequest;
 import net.sourceforge.kolmafia.request.SpaaaceRequest;
 import net.sourceforge.kolmafia.request.SpelunkyRequest;
-import net.sourceforge.kolmafia.request.SuburbanDisRequest;
 import net.sourceforge.kolmafia.request.ZapRequest;
 import net.sourceforge.kolmafia.session.ChoiceAdventures;
 import net.sourceforge.kolmafia.session.ChoiceAdventures.Spoilers;
@@ -85,6 +84,7 @@ import net.sourceforge.kolmafia.webui.ClanFortuneDecorator;
 import net.sourceforge.kolmafia.webui.DiscoCombatHelper;
 import net.sourceforge.kolmafia.webui.FightDecorator;
 import net.sourceforge.kolmafia.webui.HobopolisDecorator;
+import net.sourceforge.kolmafia.webui.HtmlRewriter;
 import net.sourceforge.kolmafia.webui.IslandDecorator;
 import net.sourceforge.kolmafia.webui.MemoriesDecorator;
 import net.sourceforge.kolmafia.webui.MineDecorator;
@@ -479,23 +479,10 @@ public class RequestEditorKit extends HTMLEditorKit {
 
   protected static final void applyGlobalAdjustments(
       final String location, final StringBuffer buffer, final boolean addComplexFeatures) {
-    // Make basics.js and basics.css available to all pages
-
-    if (addComplexFeatures) {
-      StringUtilities.insertBefore(
-          buffer,
-          "</head>",
-          "<script language=\"Javascript\" src=\"/" + KoLConstants.BASICS_JS + "\"></script>");
-
-      StringUtilities.insertBefore(
-          buffer,
-          "</head>",
-          "<link rel=\"stylesheet\" href=\"/" + KoLConstants.BASICS_CSS + "\" />");
-    }
-
-    // Skip additional decorations for the character pane and the top menu
+    // The character pane and the top menu only get basics.js and basics.css
 
     if (location.startsWith("charpane.php") || location.contains("menu.php")) {
+      RequestEditorKit.BASICS_REWRITES.rewrite(buffer, addComplexFeatures);
       return;
     }
 
@@ -503,15 +490,9 @@ public class RequestEditorKit extends HTMLEditorKit {
     RequestEditorKit.suppressRedundantRefreshes(buffer);
 
     // Handle changes which happen on a lot of different pages
-    // rather than just one or two.
-
-    RequestEditorKit.changePunchcardNames(buffer);
-    RequestEditorKit.changePotionImages(buffer);
-    RequestEditorKit.decorateLevelGain(buffer);
-    RequestEditorKit.addAbsintheLink(buffer);
-    RequestEditorKit.addTransponderLink(buffer);
-    RequestEditorKit.addBatteryLink(buffer);
-    RequestEditorKit.addFolioLink(buffer);
+    // rather than just one or two. This includes basics.js and basics.css.
+
+    RequestEditorKit.GLOBAL_REWRITES.rewrite(buffer, addComplexFeatures);
     RequestEditorKit.addNewLocationLinks(buffer);
     RequestEditorKit.suppressPotentialMalware(buffer);
     RequestEditorKit.extendRightClickMenu(buffer);
@@ -597,14 +578,7 @@ public class RequestEditorKit extends HTMLEditorKit {
 
     String defaultColor = Preferences.getString("defaultBorderColor");
     if (!defaultColor.equals("blue")) {
-      StringUtilities.globalStringReplace(
-          buffer, "bgcolor=blue", "bgcolor=\"" + defaultColor + "\"");
-      StringUtilities.globalStringReplace(
-          buffer, "border: 1px solid blue", "border: 1px solid " + defaultColor);
-      StringUtilities.globalStringReplace(
-          buffer,
-          "<td style=\"background-color: blue\"",
-          "<td style=\"background-color: " + defaultColor + "\"");
+      RequestEditorKit.BORDER_REWRITES.rewrite(buffer, defaultColor);
     }
   }
 
@@ -615,6 +589,130 @@ public class RequestEditorKit extends HTMLEditorKit {
     }
   }
 
+  // The literal decorations which apply to all pages are made in one pass, after the charpane
+  // refreshes are suppressed and before any decorator runs. The border colours are changed in a
+  // second pass at the very end, since they must also see what the decorators added. Decorators
+  // which match patterns rather than literal text still make their own passes.
+
+  private static final String BASICS_SCRIPT =
+      "<script language=\"Javascript\" src=\"/" + KoLConstants.BASICS_JS + "\"></script>";
+  private static final String BASICS_STYLE =
+      "<link rel=\"stylesheet\" href=\"/" + KoLConstants.BASICS_CSS + "\" />";
+
+  // Make basics.js and basics.css available to all pages
+
+  private static HtmlRewriter<Boolean> addBasics(final HtmlRewriter<Boolean> rewriter) {
+    return rewriter
+        .insertBefore("</head>", (complex, page) -> complex ? BASICS_SCRIPT : null)
+        .insertBefore("</head>", (complex, page) -> complex ? BASICS_STYLE : null);
+  }
+
+  private static final HtmlRewriter<Boolean> BASICS_REWRITES =
+      RequestEditorKit.addBasics(new HtmlRewriter<>());
+
+  private static final String LEVEL_GAIN = "<b>You gain a Level!</b>";
+  private static final String LEVELS_GAIN = "<b>You gain some Levels!</b>";
+
+  // You can't get there anymore, because you don't know the
+  // transporter frequency. You consider beating up Kenneth to
+  // see if <i>he</i> remembers it, but you think better of it.
+  private static final String TRANSPONDER_NEEDED =
+      "You consider beating up Kenneth to see if <i>he</i> remembers it, but you think better of it.";
+  private static final String TRANSPONDER_NEEDED_TOO =
+      "You can't get here without the proper transporter frequency.";
+
+  private static final HtmlRewriter<Boolean> GLOBAL_REWRITES =
+      RequestEditorKit.addBasics(new HtmlRewriter<>())
+          .watch("El Vibrato punchcard")
+          .watch("exclam.gif")
+          .watch("vial.gif")
+          .insertAfter(LEVEL_GAIN, (complex, page) -> RequestEditorKit.getLevelGainLinks())
+          .insertAfter(
+              LEVELS_GAIN,
+              (complex, page) ->
+                  page.contains(LEVEL_GAIN) ? null : RequestEditorKit.getLevelGainLinks())
+          // For some reason, you can't find your way back there.
+          .insertAfter(
+              "For some reason, you can't find your way back there.",
+              (complex, page) -> RequestEditorKit.getUseLink(ItemPool.ABSINTHE, "use absinthe"))
+          .insertAfter(
+              TRANSPONDER_NEEDED,
+              (complex, page) ->
+                  RequestEditorKit.getUseLink(ItemPool.TRANSPORTER_TRANSPONDER, "use transponder"))
+          .insertAfter(
+              TRANSPONDER_NEEDED_TOO,
+              (complex, page) ->
+                  page.contains(TRANSPONDER_NEEDED)
+                      ? null
+                      : RequestEditorKit.getUseLink(
+                          ItemPool.TRANSPORTER_TRANSPONDER, "use transponder"))
+          // Your hoverbelt would totally do the trick to get you up
+          // there, only it's out of juice.
+          .insertAfter(
+              "Your hoverbelt would totally do the trick to get you up there, only it's out of juice.",
+              (complex, page) ->
+                  RequestEditorKit.getUseLink(ItemPool.WARBEAR_BATTERY, "install warbear battery"))
+          // Remember that devilish folio you read?
+          // No, you don't! You don't have it all still in your head!
+          // Better find a new one you can read! I swear this:
+          // 'Til you do, you can't visit the Suburbs of Dis!
+          .insertAfter(
+              "'Til you do, you can't visit the Suburbs of Dis!",
+              (complex, page) ->
+                  RequestEditorKit.getUseLink(ItemPool.DEVILISH_FOLIO, "use devilish folio"));
+
+  static {
+    // Show what the El Vibrato punchcards do, rather than how many holes they have
+    for (Punchcard punchcard : ElVibratoManager.PUNCHCARDS) {
+      RequestEditorKit.GLOBAL_REWRITES.replaceAll(
+          punchcard.name(),
+          (complex, page) -> page.contains("El Vibrato punchcard") ? punchcard.alias() : null);
+    }
+
+    // Show what the bang potions and slime vials do, if you know
+    for (int i = 819; i <= 827; ++i) {
+      RequestEditorKit.addPotionEffect(i, "lastBangPotion" + i, " of ");
+    }
+    for (int i = ItemPool.VIAL_OF_RED_SLIME; i <= ItemPool.VIAL_OF_PURPLE_SLIME; ++i) {
+      RequestEditorKit.addPotionEffect(i, "lastSlimeVial" + i, ": ");
+    }
+  }
+
+  private static void addPotionEffect(
+      final int itemId, final String property, final String separator) {
+    String plural = ItemDatabase.getPluralName(itemId);
+    for (String name : List.of(ItemDatabase.getItemName(itemId), plural)) {
+      RequestEditorKit.GLOBAL_REWRITES.replaceAll(
+          name + "</b>",
+          (complex, page) -> {
+            if (!page.contains("exclam.gif") && !page.contains("vial.gif")) {
+              return null;
+            }
+            if (!Preferences.getBoolean("relayShowSpoilers")) {
+              return null;
+            }
+            String effect = Preferences.getString(property);
+            return effect.isEmpty() ? null : name + separator + effect + "</b>";
+          });
+    }
+  }
+
+  private static final HtmlRewriter<String> BORDER_REWRITES =
+      new HtmlRewriter<String>()
+          .replaceAll("bgcolor=blue", (color, page) -> "bgcolor=\"" + color + "\"")
+          .replaceAll("border: 1px solid blue", (color, page) -> "border: 1px solid " + color)
+          .replaceAll(
+              "<td style=\"background-color: blue\"",
+              (color, page) -> "<td style=\"background-color: " + color + "\"");
+
+  private static String getUseLink(final int itemId, final String action) {
+    if (ItemPool.get(itemId, 1).getCount(KoLConstants.inventory) == 0) {
+      return null;
+    }
+
+    return new UseLink(itemId, 1, action, "inv_use.php?which=3&whichitem=").getItemHTML();
+  }
+
   private static final String TOPMENU_REFRESH =
       "<script>top.menupane.location.href=\"topmenu.php\";</script>";
 
@@ -625,20 +723,7 @@ public class RequestEditorKit extends HTMLEditorKit {
     }
   }
 
-  private static void decorateLevelGain(final StringBuffer buffer) {
-    String test = "<b>You gain a Level!</b>";
-    int index = buffer.indexOf(test);
-
-    if (index == -1) {
-      String test2 = "<b>You gain some Levels!</b>";
-      int index2 = buffer.indexOf(test2);
-      if (index2 == -1) {
-        return;
-      }
-      index = index2;
-      test = test2;
-    }
-
+  private static String getLevelGainLinks() {
     StringBuilder links = new StringBuilder();
     boolean haveLinks = false;
     int newLevel = KoLCharacter.getLevel();
@@ -692,108 +777,7 @@ public class RequestEditorKit extends HTMLEditorKit {
 
     links.append("</font>");
 
-    if (haveLinks) {
-      buffer.insert(index + test.length(), links.toString());
-    }
-  }
-
-  private static void addTransponderLink(final StringBuffer buffer) {
-    // You can't get there anymore, because you don't know the
-    // transporter frequency. You consider beating up Kenneth to
-    // see if <i>he</i> remembers it, but you think better of it.
-
-    String test =
-        "You consider beating up Kenneth to see if <i>he</i> remembers it, but you think better of it.";
-    int index = buffer.indexOf(test);
-
-    if (index == -1) {
-      test = "You can't get here without the proper transporter frequency.";
-      index = buffer.indexOf(test);
-    }
-
-    if (index == -1) {
-      return;
-    }
-
-    if (SpaaaceRequest.TRANSPONDER.getCount(KoLConstants.inventory) == 0) {
-      return;
-    }
-
-    UseLink link =
-        new UseLink(
-            ItemPool.TRANSPORTER_TRANSPONDER,
-            1,
-            "use transponder",
-            "inv_use.php?which=3&whichitem=");
-    buffer.insert(index + test.length(), link.getItemHTML());
-  }
-
-  private static final AdventureResult WARBEAR_BATTERY = ItemPool.get(ItemPool.WARBEAR_BATTERY, 1);
-
-  private static void addBatteryLink(final StringBuffer buffer) {
-    // Your hoverbelt would totally do the trick to get you up
-    // there, only it's out of juice.
-
-    String test =
-        "Your hoverbelt would totally do the trick to get you up there, only it's out of juice.";
-    int index = buffer.indexOf(test);
-    if (index == -1) {
-      return;
-    }
-
-    if (RequestEditorKit.WARBEAR_BATTERY.getCount(KoLConstants.inventory) == 0) {
-      return;
-    }
-
-    UseLink link =
-        new UseLink(
-            ItemPool.WARBEAR_BATTERY,
-            1,
-            "install warbear battery",
-            "inv_use.php?which=3&whichitem=");
-    buffer.insert(index + test.length(), link.getItemHTML());
-  }
-
-  private static void addFolioLink(final StringBuffer buffer) {
-    // Remember that devilish folio you read?
-    // No, you don't! You don't have it all still in your head!
-    // Better find a new one you can read! I swear this:
-    // 'Til you do, you can't visit the Suburbs of Dis!
-
-    String test = "'Til you do, you can't visit the Suburbs of Dis!";
-    int index = buffer.indexOf(test);
-
-    if (index == -1) {
-      return;
-    }
-
-    if (SuburbanDisRequest.FOLIO.getCount(KoLConstants.inventory) == 0) {
-      return;
-    }
-
-    UseLink link =
-        new UseLink(
-            ItemPool.DEVILISH_FOLIO, 1, "use devilish folio", "inv_use.php?which=3&whichitem=");
-    buffer.insert(index + test.length(), link.getItemHTML());
-  }
-
-  private static void addAbsintheLink(final StringBuffer buffer) {
-    // For some reason, you can't find your way back there.
-
-    String test = "For some reason, you can't find your way back there.";
-    int index = buffer.indexOf(test);
-
-    if (index == -1) {
-      return;
-    }
-
-    if (ItemPool.get(ItemPool.ABSINTHE, 1).getCount(KoLConstants.inventory) == 0) {
-      return;
-    }
-
-    UseLink link =
-        new UseLink(ItemPool.ABSINTHE, 1, "use absinthe", "inv_use.php?which=3&whichitem=");
-    buffer.insert(index + test.length(), link.getItemHTML());
+    return haveLinks ? links.toString() : null;
   }
 
   // <table  width=400  cellspacing=0 cellpadding=0><tr><td style="background-color: blue"
@@ -1563,57 +1547,6 @@ public class RequestEditorKit extends HTMLEditorKit {
     RequestEditorKit.changePotionNames(buffer);
   }
 
-  private static void changePotionImages(final StringBuffer buffer) {
-    if (buffer.indexOf("exclam.gif") == -1 && buffer.indexOf("vial.gif") == -1) {
-      return;
-    }
-    if (!Preferences.getBoolean("relayShowSpoilers")) {
-      return;
-    }
-
-    ArrayList<String> potionNames = new ArrayList<>();
-    ArrayList<String> pluralNames = new ArrayList<>();
-    ArrayList<String> potionEffects = new ArrayList<>();
-
-    for (int i = 819; i <= 827; ++i) {
-      String name = ItemDatabase.getItemName(i);
-      String plural = ItemDatabase.getPluralName(i);
-      if (buffer.indexOf(name) != -1 || buffer.indexOf(plural) != -1) {
-        String effect = Preferences.getString("lastBangPotion" + i);
-        if (!effect.isEmpty()) {
-          potionNames.add(name);
-          pluralNames.add(plural);
-          potionEffects.add(" of " + effect);
-        }
-      }
-    }
-    for (int i = ItemPool.VIAL_OF_RED_SLIME; i <= ItemPool.VIAL_OF_PURPLE_SLIME; ++i) {
-      String name = ItemDatabase.getItemName(i);
-      String plural = ItemDatabase.getPluralName(i);
-      if (buffer.indexOf(name) != -1 || buffer.indexOf(plural) != -1) {
-        String effect = Preferences.getString("lastSlimeVial" + i);
-        if (!effect.isEmpty()) {
-          potionNames.add(name);
-          pluralNames.add(plural);
-          potionEffects.add(": " + effect);
-        }
-      }
-    }
-
-    if (potionNames.isEmpty()) {
-      return;
-    }
-
-    for (int i = 0; i < potionNames.size(); ++i) {
-      String name = potionNames.get(i);
-      String plural = pluralNames.get(i);
-      String effect = potionEffects.get(i);
-
-      StringUtilities.globalStringReplace(buffer, name + "</b>", name + effect + "</b>");
-      StringUtilities.globalStringReplace(buffer, plural + "</b>", plural + effect + "</b>");
-    }
-  }
-
   private static void changePotionNames(final StringBuffer buffer) {
     for (int i = 819; i <= 827; ++i) {
       String name = ItemDatabase.getItemName(i);
@@ -1643,19 +1576,6 @@ public class RequestEditorKit extends HTMLEditorKit {
     }
   }
 
-  private static void changePunchcardNames(final StringBuffer buffer) {
-    if (buffer.indexOf("El Vibrato punchcard") == -1) {
-      return;
-    }
-
-    for (Punchcard punchcard : ElVibratoManager.PUNCHCARDS) {
-      String name = punchcard.name();
-      if (buffer.indexOf(name) != -1) {
-        StringUtilities.globalStringReplace(buffer, name, punchcard.alias());
-      }
-    }
-  }
-
   private static void fixTavernCellar(final StringBuffer buffer) {
     // When you adventure in the Typical Tavern Cellar, the
     // Adventure Again link takes you to the map. Fix that link
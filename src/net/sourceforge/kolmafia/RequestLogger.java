@@ -1,9 +1,14 @@
 package net.sourceforge.kolmafia;
 
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import net.sourceforge.kolmafia.KoLConstants.MafiaState;
 import net.sourceforge.kolmafia.listener.NamedListenerRegistry;
@@ -393,6 +398,446 @@ public class RequestLogger extends NullStream {
     }
   }
 
+  @FunctionalInterface
+  private interface Handler {
+    boolean register(boolean isExternal, String urlString);
+  }
+
+  /**
+   * Something which may claim a URL for logging. If type is not null, the URL is only offered when
+   * the request is external or an instance of that type. If claims is false, claiming the URL
+   * suppresses logging without marking the last request as not simple. An empty set of paths
+   * means that the registrar must see every URL.
+   */
+  private record Registrar(
+      Class<? extends GenericRequest> type, Handler handler, boolean claims, Set<String> paths) {
+    static Registrar of(final Predicate<String> registrar, final String... paths) {
+      return new Registrar(null, (isExternal, url) -> registrar.test(url), true, Set.of(paths));
+    }
+
+    static Registrar of(
+        final Class<? extends GenericRequest> type,
+        final Predicate<String> registrar,
+        final String... paths) {
+      return new Registrar(type, (isExternal, url) -> registrar.test(url), true, Set.of(paths));
+    }
+
+    static Registrar external(
+        final Class<? extends GenericRequest> type,
+        final Handler handler,
+        final String... paths) {
+      return new Registrar(type, handler, true, Set.of(paths));
+    }
+
+    static Registrar ignore(final Predicate<String> filter, final String... paths) {
+      return new Registrar(null, (isExternal, url) -> filter.test(url), false, Set.of(paths));
+    }
+  }
+
+  // Everything which might claim a URL, in the order in which they get to
+  // look at it. Each declares the php pages it handles, so that a URL need
+  // only be offered to the handful which might want it.
+
+  private static final List<Registrar> REGISTRARS =
+      List.of(
+          // We want to do special things when we visit locations within
+          // the Sorceress' Lair. Those locations which are "adventures"
+          // but are not claimed here will be picked up by KoLAdventure
+          Registrar.of(SorceressLairManager::registerRequest, "place.php"),
+          Registrar.of(url -> KoLAdventure.recordToSession(url)),
+
+          // Anything past this is not an "adventure" per se
+
+          // We know of 138 different shops.
+          //
+          // 24 concoctions
+          // 71 coinmasters
+          // 39 NPC stores
+          // 4 NPC + coinmaster
+
+          // This one was written before shop.php was modernized.
+          // It's obsolete, so, who knows?
+          Registrar.of(Crimbo12Request.class, Crimbo12Request::registerRequest, "shop.php"),
+          // This should cover literally everything else.
+          Registrar.of(ShopRequest::registerRequest, "shop.php"),
+          Registrar.external(
+              FightRequest.class, FightRequest::registerRequest, "fight.php", "fambattle.php"),
+
+          // Some adventures do not post any form fields,
+          // so handle them first.
+
+          // We want to register simple visits to the Altar of Literacy
+          Registrar.of(
+              AltarOfLiteracyRequest.class,
+              AltarOfLiteracyRequest::registerRequest,
+              "town_altar.php"),
+          // We want to register simple visits to the Bounty Hunter Hunter
+          Registrar.of(
+              BountyHunterHunterRequest.class,
+              BountyHunterHunterRequest::registerRequest,
+              "bounty.php"),
+          // We want to register visits to the You're the Fudge Wizard Now, Dog choice adventure
+          // before ChoiceManager.
+          Registrar.of(
+              FudgeWandRequest.class,
+              FudgeWandRequest::registerRequest,
+              "inv_use.php",
+              "choice.php"),
+          // We want to register visits to the Visiting your Skeleton of Crimbo Past choice
+          // adventure before ChoiceManager.
+          Registrar.of(
+              SkeletonOfCrimboPastRequest.class,
+              SkeletonOfCrimboPastRequest::registerRequest,
+              "main.php",
+              "choice.php"),
+          // We want to register visits to the Summoning Chamber choice adventure before
+          // ChoiceManager.
+          Registrar.of(
+              SummoningChamberRequest.class,
+              SummoningChamberRequest::registerRequest,
+              "choice.php"),
+          // We want to register simple visits to HeyDeze
+          Registrar.of(HeyDezeRequest.class, HeyDezeRequest::registerRequest, "heydeze.php"),
+          // We want to register simple visits to Mr. Store
+          Registrar.of(MrStoreRequest.class, MrStoreRequest::registerRequest, "mrstore.php"),
+          // We want to register simple visits to Spaaace
+          Registrar.of(SpaaaceRequest.class, SpaaaceRequest::registerRequest, "spaaace.php"),
+          // We want to register simple visits to the Volcano Maze
+          Registrar.of(
+              VolcanoMazeRequest.class, VolcanoMazeRequest::registerRequest, "volcanomaze.php"),
+
+          // Burning Leaves creation is an instance of choice.php
+          Registrar.of(
+              BurningLeavesRequest.class, BurningLeavesRequest::registerRequest, "choice.php"),
+          // Burning Newspaper creation is an instance of choice.php
+          Registrar.of(
+              BurningNewspaperRequest.class,
+              BurningNewspaperRequest::registerRequest,
+              "choice.php"),
+          // The Cargo Cultist Shorts is an instance of choice.php
+          Registrar.of(
+              CargoCultistShortsRequest.class,
+              CargoCultistShortsRequest::registerRequest,
+              "choice.php"),
+          // The Clan Lounge Swimming Pool is an instance of choice.php
+          Registrar.of(
+              ClanLoungeSwimmingPoolRequest.class,
+              ClanLoungeSwimmingPoolRequest::registerRequest,
+              "choice.php"),
+          // The Deck of Every Card is an instance of choice.php
+          Registrar.of(
+              DeckOfEveryCardRequest.class, DeckOfEveryCardRequest::registerRequest, "choice.php"),
+          // The Florist is an instance of choice.php
+          Registrar.of(FloristRequest.class, FloristRequest::registerRequest, "choice.php"),
+          // grubby wool creation is an instance of choice.php
+          Registrar.of(GrubbyWoolRequest.class, GrubbyWoolRequest::registerRequest, "choice.php"),
+          // The Hashing Vise is an instance of choice.php
+          Registrar.of(HashingViseRequest.class, HashingViseRequest::registerRequest, "choice.php"),
+          // metal meteoroid creation is an instance of choice.php
+          Registrar.of(MeteoroidRequest.class, MeteoroidRequest::registerRequest, "choice.php"),
+          // Numberology is an instance of choice.php
+          Registrar.of(NumberologyRequest.class, NumberologyRequest::registerRequest, "choice.php"),
+          // The Potted Tea Tree is an instance of choice.php
+          Registrar.of(
+              PottedTeaTreeRequest.class, PottedTeaTreeRequest::registerRequest, "choice.php"),
+          // Sausage Grinder creation is an instance of choice.php
+          Registrar.of(
+              SausageOMaticRequest.class, SausageOMaticRequest::registerRequest, "choice.php"),
+          // The Source Terminal is an instance of choice.php
+          Registrar.of(TerminalRequest.class, TerminalRequest::registerRequest, "choice.php"),
+          // Sweet Synthesis is an instance of choice.php
+          Registrar.of(
+              SweetSynthesisRequest.class, SweetSynthesisRequest::registerRequest, "choice.php"),
+          // Wax Glob creation is an instance of choice.php
+          Registrar.of(WaxGlobRequest.class, WaxGlobRequest::registerRequest, "choice.php"),
+          // All other choices can be handled generically.
+          Registrar.ignore(
+              url -> {
+                ChoiceManager.registerRequest(url);
+                return true;
+              },
+              "choice.php"),
+
+          // We want to register a simple visit to tiles.php
+          Registrar.of(DvorakManager::registerRequest, "tiles.php"),
+          // We want to register a simple visit to ocean.php
+          Registrar.of(OceanManager::registerRequest, "ocean.php"),
+          // We want to register a simple visit to elvmachine.php
+          Registrar.of(ElVibratoManager::registerRequest, "elvmachine.php"),
+
+          // Anything else that doesn't submit an actual form
+          // should not be registered.
+          Registrar.ignore(url -> !url.contains("?")),
+
+          // We want to register some visits to the Campground
+          Registrar.of(
+              CampgroundRequest.class, CampgroundRequest::registerRequest, "campground.php"),
+          // This is a campground request and so must go here.
+          Registrar.of(
+              PizzaCubeRequest.class, PizzaCubeRequest::registerRequest, "campground.php"),
+          // This is a campground request and so must go here.
+          Registrar.of(PortalRequest.class, PortalRequest::registerRequest, "campground.php"),
+          // This is a campground request and so must go here.
+          Registrar.of(TelescopeRequest.class, TelescopeRequest::registerRequest),
+          // This might be a campground request and so must go here.
+          Registrar.of(
+              UseSkillRequest.class,
+              UseSkillRequest::registerRequest,
+              "skillz.php",
+              "campground.php",
+              "runskillz.php"),
+          // This might be on inventory.php
+          Registrar.of(
+              EquipmentRequest.class,
+              EquipmentRequest::registerRequest,
+              "bedazzle.php",
+              "inv_use.php",
+              "inventory.php",
+              "inv_equip.php"),
+          Registrar.ignore(
+              url ->
+                  url.startsWith("campground")
+                      || url.startsWith("doc.php")
+                      || url.startsWith("inventory.php?ajax")
+                      || url.startsWith("inventory.php?which=")
+                      || url.startsWith("inventory.php?action=message")
+                      || url.startsWith("mining")),
+
+          // Check individual cafes
+          Registrar.of(MicroBreweryRequest.class, MicroBreweryRequest::registerRequest),
+          Registrar.of(ChezSnooteeRequest.class, ChezSnooteeRequest::registerRequest),
+          Registrar.of(CrimboCafeRequest.class, CrimboCafeRequest::registerRequest),
+
+          // Check UseItemRequest early, so that lastItemUsed gets
+          // cleared when processing anything else.  Otherwise, any
+          // non-item-use that redirects to inventory.php?action=message
+          // (such as outfit changes) will cause the last item to be
+          // processed again.
+
+          // However, we have to check CreateItemRequest earlier, so that
+          // it can handle single-/multi-use concoctions.
+          Registrar.external(null, CreateItemRequest::registerRequest),
+          // Are we finally ready to call UseItemRequest?
+          Registrar.of(UseItemRequest.class, UseItemRequest::registerRequest),
+
+          // The following is in place.php
+          Registrar.of(
+              FalloutShelterRequest.class, FalloutShelterRequest::registerRequest, "place.php"),
+          // Let the "placeholder" for place.php take every otherwise
+          // unclaimed call to that URL.
+          Registrar.of(PlaceRequest::registerRequest, "place.php"),
+
+          // The following lists all the remaining requests in
+          // alphabetical order.
+          Registrar.of(AfterLifeRequest.class, AfterLifeRequest::registerRequest, "afterlife.php"),
+          Registrar.of(
+              AltarOfBonesRequest.class, AltarOfBonesRequest::registerRequest, "bone_altar.php"),
+          Registrar.of(ArcadeRequest.class, ArcadeRequest::registerRequest),
+          Registrar.of(ArtistRequest.class, ArtistRequest::registerRequest, "place.php"),
+          Registrar.of(AutoMallRequest.class, AutoMallRequest::registerRequest, "managestore.php"),
+          Registrar.of(
+              AutoSellRequest.class,
+              AutoSellRequest::registerRequest,
+              "sellstuff.php",
+              "sellstuff_ugly.php"),
+          Registrar.of(
+              AWOLQuartermasterRequest.class,
+              AWOLQuartermasterRequest::registerRequest,
+              "inv_use.php"),
+          Registrar.of(BeerPongRequest.class, BeerPongRequest::registerRequest, "beerpong.php"),
+          Registrar.of(
+              BigBrotherRequest.class, BigBrotherRequest::registerRequest, "monkeycastle.php"),
+          Registrar.of(BURTRequest.class, BURTRequest::registerRequest, "inv_use.php"),
+          Registrar.of(CafeRequest.class, CafeRequest::registerRequest),
+          Registrar.of(CakeArenaRequest.class, CakeArenaRequest::registerRequest, "arena.php"),
+          Registrar.of(CampAwayRequest.class, CampAwayRequest::registerRequest, "place.php"),
+          Registrar.of(ChateauRequest.class, ChateauRequest::registerRequest, "place.php"),
+          Registrar.of(
+              ClanLoungeRequest.class, ClanLoungeRequest::registerRequest, "clan_viplounge.php"),
+          Registrar.of(
+              ClanRumpusRequest.class,
+              ClanRumpusRequest::registerRequest,
+              "clan_rumpus.php",
+              "place.php",
+              "gnomes.php"),
+          Registrar.of(ClanStashRequest.class, ClanStashRequest::registerRequest, "clan_stash.php"),
+          Registrar.of(
+              ClosetRequest.class,
+              ClosetRequest::registerRequest,
+              "closet.php",
+              "fillcloset.php",
+              "inventory.php"),
+          Registrar.of(
+              CRIMBCOGiftShopRequest.class,
+              CRIMBCOGiftShopRequest::registerRequest,
+              "crimbo10.php"),
+          Registrar.of(Crimbo07Request.class, Crimbo07Request::registerRequest),
+          Registrar.of(Crimbo09Request.class, Crimbo09Request::registerRequest, "crimbo09.php"),
+          Registrar.of(Crimbo10Request.class, Crimbo10Request::registerRequest, "crimbo10.php"),
+          Registrar.of(Crimbo11Request.class, Crimbo11Request::registerRequest, "crimbo11.php"),
+          Registrar.of(
+              Crimbo21TreeRequest.class, Crimbo21TreeRequest::registerRequest, "crimbo21tree.php"),
+          Registrar.of(
+              CrimboCartelRequest.class, CrimboCartelRequest::registerRequest, "crimbo09.php"),
+          Registrar.of(CurseRequest.class, CurseRequest::registerRequest, "curse.php"),
+          Registrar.of(DigRequest.class, DigRequest::registerRequest, "dig.php"),
+          Registrar.of(
+              DimemasterRequest.class, DimemasterRequest::registerRequest, "bigisland.php"),
+          Registrar.of(
+              DisplayCaseRequest.class,
+              DisplayCaseRequest::registerRequest,
+              "managecollection.php"),
+          Registrar.of(
+              DreadsylvaniaRequest.class,
+              DreadsylvaniaRequest::registerRequest,
+              "clan_dreadsylvania.php"),
+          Registrar.of(
+              DwarfContraptionRequest.class,
+              DwarfContraptionRequest::registerRequest,
+              "dwarfcontraption.php"),
+          Registrar.of(
+              DwarfFactoryRequest.class, DwarfFactoryRequest::registerRequest, "dwarffactory.php"),
+          Registrar.of(EdBaseRequest.class, EdBaseRequest::registerRequest, "place.php"),
+          Registrar.of(FamiliarRequest.class, FamiliarRequest::registerRequest, "familiar.php"),
+          Registrar.of(FamTeamRequest.class, FamTeamRequest::registerRequest, "famteam.php"),
+          Registrar.of(
+              FantasyRealmRequest.class, FantasyRealmRequest::registerRequest, "choice.php"),
+          Registrar.of(
+              FleaMarketRequest.class, FleaMarketRequest::registerRequest, "town_fleamarket.php"),
+          Registrar.of(
+              FleaMarketSellRequest.class,
+              FleaMarketSellRequest::registerRequest,
+              "town_sellflea.php"),
+          Registrar.of(FreeSnackRequest.class, FreeSnackRequest::registerRequest, "gamestore.php"),
+          Registrar.of(FriarRequest.class, FriarRequest::registerRequest, "friars.php"),
+          Registrar.of(
+              GameShoppeRequest.class, GameShoppeRequest::registerRequest, "gamestore.php"),
+          Registrar.of(GourdRequest.class, GourdRequest::registerRequest, "town_right.php"),
+          Registrar.of(GrandpaRequest.class, GrandpaRequest::registerRequest, "monkeycastle.php"),
+          Registrar.of(GuildRequest.class, GuildRequest::registerRequest, "guild.php"),
+          Registrar.of(HermitRequest.class, HermitRequest::registerRequest, "hermit.php"),
+          Registrar.of(
+              IslandRequest.class,
+              IslandRequest::registerRequest,
+              "bigisland.php",
+              "postwarisland.php"),
+          Registrar.of(KnollRequest.class, KnollRequest::registerRequest, "place.php"),
+          Registrar.of(LeafletRequest.class, LeafletRequest::registerRequest, "leaflet.php"),
+          Registrar.of(
+              MallSearchRequest.class,
+              MallSearchRequest::registerRequest,
+              "mallstore.php",
+              "mall.php"),
+          Registrar.of(
+              ManageStoreRequest.class, ManageStoreRequest::registerRequest, "backoffice.php"),
+          Registrar.of(MindControlRequest.class, MindControlRequest::registerRequest),
+          Registrar.of(MomRequest.class, MomRequest::registerRequest, "monkeycastle.php"),
+          Registrar.of(
+              MonsterManuelRequest.class, MonsterManuelRequest::registerRequest, "questlog.php"),
+          Registrar.of(
+              MushroomRequest.class, MushroomRequest::registerRequest, "knoll_mushrooms.php"),
+          Registrar.of(NemesisRequest.class, NemesisRequest::registerRequest, "cave.php"),
+          Registrar.of(
+              PandamoniumRequest.class, PandamoniumRequest::registerRequest, "pandamonium.php"),
+          Registrar.of(PeeVPeeRequest.class, PeeVPeeRequest::registerRequest, "peevpee.php"),
+          Registrar.of(ProfileRequest.class, ProfileRequest::registerRequest, "showplayer.php"),
+          Registrar.of(PulverizeRequest.class, PulverizeRequest::registerRequest, "craft.php"),
+          Registrar.of(
+              QuartersmasterRequest.class, QuartersmasterRequest::registerRequest, "bigisland.php"),
+          Registrar.of(RaffleRequest.class, RaffleRequest::registerRequest, "raffle.php"),
+          Registrar.of(GnomePartRequest.class, GnomePartRequest::registerRequest, "choice.php"),
+          Registrar.of(RichardRequest.class, RichardRequest::registerRequest, "clan_hobopolis.php"),
+          Registrar.of(ScrapheapRequest.class, ScrapheapRequest::registerRequest, "place.php"),
+          Registrar.of(SeaMerkinRequest.class, SeaMerkinRequest::registerRequest, "sea_merkin.php"),
+          Registrar.of(
+              SendGiftRequest.class, SendGiftRequest::registerRequest, "town_sendgift.php"),
+          Registrar.of(
+              SendMailRequest.class, SendMailRequest::registerRequest, "sendmessage.php"),
+          Registrar.of(ShrineRequest.class, ShrineRequest::registerRequest, "da.php"),
+          Registrar.of(
+              SkateParkRequest.class, SkateParkRequest::registerRequest, "sea_skatepark.php"),
+          Registrar.of(StandardRequest.class, StandardRequest::registerRequest, "standard.php"),
+          Registrar.of(StorageRequest.class, StorageRequest::registerRequest, "storage.php"),
+          Registrar.of(
+              SuburbanDisRequest.class, SuburbanDisRequest::registerRequest, "suburbandis.php"),
+          Registrar.of(
+              SwaggerShopRequest.class, SwaggerShopRequest::registerRequest, "peevpee.php"),
+          Registrar.of(TavernRequest.class, TavernRequest::registerRequest, "tavern.php"),
+          Registrar.of(
+              TravelingTraderRequest.class,
+              TravelingTraderRequest::registerRequest,
+              "traveler.php"),
+          Registrar.of(TrophyHutRequest.class, TrophyHutRequest::registerRequest, "trophy.php"),
+          Registrar.of(TutorialRequest.class, TutorialRequest::registerRequest, "tutorial.php"),
+          Registrar.of(
+              UneffectRequest.class,
+              UneffectRequest::registerRequest,
+              "uneffect.php",
+              "charsheet.php"),
+          Registrar.of(UntinkerRequest.class, UntinkerRequest::registerRequest, "place.php"),
+          Registrar.of(
+              VolcanoIslandRequest.class,
+              VolcanoIslandRequest::registerRequest,
+              "volcanoisland.php"),
+          Registrar.of(
+              WildfireCampRequest.class, WildfireCampRequest::registerRequest, "place.php"),
+          Registrar.of(ZapRequest.class, ZapRequest::registerRequest, "wand.php"),
+
+          // Do PurchaseRequest after all Coinmaster shops so they can
+          // register simple visits, if they so choose.
+          Registrar.of(
+              PurchaseRequest.class,
+              PurchaseRequest::registerRequest,
+              "mallstore.php",
+              "town_giftshop.php"),
+
+          // Let PlaceRequest step in and suppress logging for any
+          // unclaimed simple visits to a place.php container
+          Registrar.of(PlaceRequest::unclaimedPlace, "place.php"));
+
+  // For each php page, the registrars which might claim it, in order
+  private static final Map<String, List<Registrar>> REGISTRARS_BY_PAGE = new HashMap<>();
+
+  // The registrars which must see a URL for any other page
+  private static final List<Registrar> UNINDEXED_REGISTRARS = new ArrayList<>();
+
+  static {
+    for (Registrar registrar : RequestLogger.REGISTRARS) {
+      for (String page : registrar.paths()) {
+        RequestLogger.REGISTRARS_BY_PAGE.putIfAbsent(page, new ArrayList<>());
+      }
+    }
+
+    for (Registrar registrar : RequestLogger.REGISTRARS) {
+      if (registrar.paths().isEmpty()) {
+        RequestLogger.UNINDEXED_REGISTRARS.add(registrar);
+        for (List<Registrar> registrars : RequestLogger.REGISTRARS_BY_PAGE.values()) {
+          registrars.add(registrar);
+        }
+      } else {
+        for (String page : registrar.paths()) {
+          RequestLogger.REGISTRARS_BY_PAGE.get(page).add(registrar);
+        }
+      }
+    }
+  }
+
+  private static List<Registrar> getRegistrars(final String urlString) {
+    return RequestLogger.REGISTRARS_BY_PAGE.getOrDefault(
+        RequestLogger.getPage(urlString), RequestLogger.UNINDEXED_REGISTRARS);
+  }
+
+  // Every registrar which checks urlString.startsWith("xxx.php") will
+  // find it under "xxx.php", whatever follows.
+  private static String getPage(final String urlString) {
+    int query = urlString.indexOf('?');
+    int php = urlString.indexOf(".php");
+    if (php != -1 && (query == -1 || php < query)) {
+      return urlString.substring(0, php + 4);
+    }
+    return query == -1 ? urlString : urlString.substring(0, query);
+  }
+
   public static void registerRequest(final GenericRequest request, final String urlString) {
     try {
       RequestLogger.doRegister(request, urlString);
@@ -421,871 +866,23 @@ public class RequestLogger extends NullStream {
       return;
     }
 
-    // We want to do special things when we visit locations within
-    // the Sorceress' Lair. Those locations which are "adventures"
-    // but are not claimed here will be picked up by KoLAdventure
-
-    if (SorceressLairManager.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if (KoLAdventure.recordToSession(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Anything past this is not an "adventure" per se
-
     boolean isExternal =
         request.getClass() == GenericRequest.class
             || request instanceof RelayRequest
             || request instanceof PlaceRequest;
 
-    if (urlString.startsWith("shop.php")) {
-      // We know of 138 different shops.
-      //
-      // 24 concoctions
-      // 71 coinmasters
-      // 39 NPC stores
-      // 4 NPC + coinmaster
-
-      // This one was written before shop.php was modernized.
-      // It's obsolete, so, who knows?
-      if ((isExternal || request instanceof Crimbo12Request)
-          && Crimbo12Request.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // This should cover literally everything else.
-      if (ShopRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-    }
-
-    if ((isExternal || request instanceof FightRequest)
-        && FightRequest.registerRequest(isExternal, urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Some adventures do not post any form fields,
-    // so handle them first.
-
-    // We want to register simple visits to the Altar of Literacy
-    if ((isExternal || request instanceof AltarOfLiteracyRequest)
-        && AltarOfLiteracyRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register simple visits to the Bounty Hunter Hunter
-    if ((isExternal || request instanceof BountyHunterHunterRequest)
-        && BountyHunterHunterRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register visits to the You're the Fudge Wizard Now, Dog choice adventure before
-    // ChoiceManager.
-    if ((isExternal || request instanceof FudgeWandRequest)
-        && FudgeWandRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register visits to the Visiting your Skeleton of Crimbo Past choice adventure
-    // before ChoiceManager.
-    if ((isExternal || request instanceof SkeletonOfCrimboPastRequest)
-        && SkeletonOfCrimboPastRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register visits to the Summoning Chamber choice adventure before ChoiceManager.
-    if ((isExternal || request instanceof SummoningChamberRequest)
-        && SummoningChamberRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register simple visits to HeyDeze
-    if ((isExternal || request instanceof HeyDezeRequest)
-        && HeyDezeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register simple visits to Mr. Store
-    if ((isExternal || request instanceof MrStoreRequest)
-        && MrStoreRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register simple visits to Spaaace
-    if ((isExternal || request instanceof SpaaaceRequest)
-        && SpaaaceRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register simple visits to the Volcano Maze
-    if ((isExternal || request instanceof VolcanoMazeRequest)
-        && VolcanoMazeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if (urlString.startsWith("choice.php")) {
-      // Burning Leaves creation is an instance of choice.php
-      if ((isExternal || request instanceof BurningLeavesRequest)
-          && BurningLeavesRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // Burning Newspaper creation is an instance of choice.php
-      if ((isExternal || request instanceof BurningNewspaperRequest)
-          && BurningNewspaperRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // The Cargo Cultist Shorts is an instance of choice.php
-      if ((isExternal || request instanceof CargoCultistShortsRequest)
-          && CargoCultistShortsRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // The Clan Lounge Swimming Pool is an instance of choice.php
-      if ((isExternal || request instanceof ClanLoungeSwimmingPoolRequest)
-          && ClanLoungeSwimmingPoolRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // The Deck of Every Card is an instance of choice.php
-      if ((isExternal || request instanceof DeckOfEveryCardRequest)
-          && DeckOfEveryCardRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // The Florist is an instance of choice.php
-      if ((isExternal || request instanceof FloristRequest)
-          && FloristRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // grubby wool creation is an instance of choice.php
-      if ((isExternal || request instanceof GrubbyWoolRequest)
-          && GrubbyWoolRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // The Hashing Vise is an instance of choice.php
-      if ((isExternal || request instanceof HashingViseRequest)
-          && HashingViseRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // metal meteoroid creation is an instance of choice.php
-      if ((isExternal || request instanceof MeteoroidRequest)
-          && MeteoroidRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // Numberology is an instance of choice.php
-      if ((isExternal || request instanceof NumberologyRequest)
-          && NumberologyRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // The Potted Tea Tree is an instance of choice.php
-      if ((isExternal || request instanceof PottedTeaTreeRequest)
-          && PottedTeaTreeRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // Sausage Grinder creation is an instance of choice.php
-      if ((isExternal || request instanceof SausageOMaticRequest)
-          && SausageOMaticRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
+    for (Registrar registrar : RequestLogger.getRegistrars(urlString)) {
+      Class<? extends GenericRequest> type = registrar.type();
+      if (type != null && !isExternal && !type.isInstance(request)) {
+        continue;
       }
 
-      // The Source Terminal is an instance of choice.php
-      if ((isExternal || request instanceof TerminalRequest)
-          && TerminalRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
+      if (registrar.handler().register(isExternal, urlString)) {
+        if (registrar.claims()) {
+          RequestLogger.wasLastRequestSimple = false;
+        }
         return;
       }
-
-      // Sweet Synthesis is an instance of choice.php
-      if ((isExternal || request instanceof SweetSynthesisRequest)
-          && SweetSynthesisRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // Wax Glob creation is an instance of choice.php
-      if ((isExternal || request instanceof WaxGlobRequest)
-          && WaxGlobRequest.registerRequest(urlString)) {
-        RequestLogger.wasLastRequestSimple = false;
-        return;
-      }
-
-      // All other choicees can be handled generically.
-      ChoiceManager.registerRequest(urlString);
-      return;
-    }
-
-    // We want to register a simple visit to tiles.php
-    if (DvorakManager.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register a simple visit to ocean.php
-    if (OceanManager.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // We want to register a simple visit to elvmachine.php
-    if (ElVibratoManager.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Anything else that doesn't submit an actual form
-    // should not be registered.
-
-    if (!urlString.contains("?")) {
-      return;
-    }
-
-    // We want to register some visits to the Campground
-    if ((isExternal || request instanceof CampgroundRequest)
-        && CampgroundRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // This is a campground request and so must go here.
-    if ((isExternal || request instanceof PizzaCubeRequest)
-        && PizzaCubeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // This is a campground request and so must go here.
-    if ((isExternal || request instanceof PortalRequest)
-        && PortalRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // This is a campground request and so must go here.
-    if ((isExternal || request instanceof TelescopeRequest)
-        && TelescopeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // This might be a campground request and so must go here.
-    if ((isExternal || request instanceof UseSkillRequest)
-        && UseSkillRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // This might be on inventory.php
-
-    if ((isExternal || request instanceof EquipmentRequest)
-        && EquipmentRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if (urlString.startsWith("campground")
-        || urlString.startsWith("doc.php")
-        || urlString.startsWith("inventory.php?ajax")
-        || urlString.startsWith("inventory.php?which=")
-        || urlString.startsWith("inventory.php?action=message")
-        || urlString.startsWith("mining")) {
-      return;
-    }
-
-    // Check individual cafes
-    if ((isExternal || request instanceof MicroBreweryRequest)
-        && MicroBreweryRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof ChezSnooteeRequest)
-        && ChezSnooteeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof CrimboCafeRequest)
-        && CrimboCafeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Check UseItemRequest early, so that lastItemUsed gets
-    // cleared when processing anything else.  Otherwise, any
-    // non-item-use that redirects to inventory.php?action=message
-    // (such as outfit changes) will cause the last item to be
-    // processed again.
-
-    // However, we have to check CreateItemRequest earlier, so that
-    // it can handle single-/multi-use concoctions.
-    if (CreateItemRequest.registerRequest(isExternal, urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Are we finally ready to call UseItemRequest?
-    if ((isExternal || request instanceof UseItemRequest)
-        && UseItemRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // The following is in place.php
-    if ((isExternal || request instanceof FalloutShelterRequest)
-        && FalloutShelterRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Let the "placeholder" for place.php take every otherwise
-    // unclaimed call to that URL.
-
-    if (PlaceRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // The following lists all the remaining requests in
-    // alphabetical order.
-
-    if ((isExternal || request instanceof AfterLifeRequest)
-        && AfterLifeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof AltarOfBonesRequest)
-        && AltarOfBonesRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof ArcadeRequest)
-        && ArcadeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof ArtistRequest)
-        && ArtistRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof AutoMallRequest)
-        && AutoMallRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof AutoSellRequest)
-        && AutoSellRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof AWOLQuartermasterRequest)
-        && AWOLQuartermasterRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof BeerPongRequest)
-        && BeerPongRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof BigBrotherRequest)
-        && BigBrotherRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof BURTRequest) && BURTRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof CafeRequest) && CafeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof CakeArenaRequest)
-        && CakeArenaRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof CampAwayRequest)
-        && CampAwayRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof ChateauRequest)
-        && ChateauRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof ClanLoungeRequest)
-        && ClanLoungeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof ClanRumpusRequest)
-        && ClanRumpusRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof ClanStashRequest)
-        && ClanStashRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof ClosetRequest)
-        && ClosetRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof CRIMBCOGiftShopRequest)
-        && CRIMBCOGiftShopRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof Crimbo07Request)
-        && Crimbo07Request.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof Crimbo09Request)
-        && Crimbo09Request.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof Crimbo10Request)
-        && Crimbo10Request.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof Crimbo11Request)
-        && Crimbo11Request.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof Crimbo21TreeRequest)
-        && Crimbo21TreeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof CrimboCartelRequest)
-        && CrimboCartelRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof CurseRequest)
-        && CurseRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof DigRequest) && DigRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof DimemasterRequest)
-        && DimemasterRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof DisplayCaseRequest)
-        && DisplayCaseRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof DreadsylvaniaRequest)
-        && DreadsylvaniaRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof DwarfContraptionRequest)
-        && DwarfContraptionRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof DwarfFactoryRequest)
-        && DwarfFactoryRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof EdBaseRequest)
-        && EdBaseRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof FamiliarRequest)
-        && FamiliarRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof FamTeamRequest)
-        && FamTeamRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof FantasyRealmRequest)
-        && FantasyRealmRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof FleaMarketRequest)
-        && FleaMarketRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof FleaMarketSellRequest)
-        && FleaMarketSellRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof FreeSnackRequest)
-        && FreeSnackRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof FriarRequest)
-        && FriarRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof GameShoppeRequest)
-        && GameShoppeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof GourdRequest)
-        && GourdRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof GrandpaRequest)
-        && GrandpaRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof GuildRequest)
-        && GuildRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof HermitRequest)
-        && HermitRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof IslandRequest)
-        && IslandRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof KnollRequest)
-        && KnollRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof LeafletRequest)
-        && LeafletRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof MallSearchRequest)
-        && MallSearchRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof ManageStoreRequest)
-        && ManageStoreRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof MindControlRequest)
-        && MindControlRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof MomRequest) && MomRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof MonsterManuelRequest)
-        && MonsterManuelRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof MushroomRequest)
-        && MushroomRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof NemesisRequest)
-        && NemesisRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof PandamoniumRequest)
-        && PandamoniumRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof PeeVPeeRequest)
-        && PeeVPeeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof ProfileRequest)
-        && ProfileRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof PulverizeRequest)
-        && PulverizeRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof QuartersmasterRequest)
-        && QuartersmasterRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof RaffleRequest)
-        && RaffleRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof GnomePartRequest)
-        && GnomePartRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof RichardRequest)
-        && RichardRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof ScrapheapRequest)
-        && ScrapheapRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof SeaMerkinRequest)
-        && SeaMerkinRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof SendGiftRequest)
-        && SendGiftRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof SendMailRequest)
-        && SendMailRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof ShrineRequest)
-        && ShrineRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof SkateParkRequest)
-        && SkateParkRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof StandardRequest)
-        && StandardRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof StorageRequest)
-        && StorageRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof SuburbanDisRequest)
-        && SuburbanDisRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof SwaggerShopRequest)
-        && SwaggerShopRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof TavernRequest)
-        && TavernRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof TravelingTraderRequest)
-        && TravelingTraderRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof TrophyHutRequest)
-        && TrophyHutRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof TutorialRequest)
-        && TutorialRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof UneffectRequest)
-        && UneffectRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof UntinkerRequest)
-        && UntinkerRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof VolcanoIslandRequest)
-        && VolcanoIslandRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof WildfireCampRequest)
-        && WildfireCampRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    if ((isExternal || request instanceof ZapRequest) && ZapRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Do PurchaseRequest after all Coinmaster shops so they can
-    // register simple visits, if they so choose.
-
-    if ((isExternal || request instanceof PurchaseRequest)
-        && PurchaseRequest.registerRequest(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
-    }
-
-    // Let PlaceRequest step in and suppress logging for any
-    // unclaimed simple visits to a place.php container
-
-    if (PlaceRequest.unclaimedPlace(urlString)) {
-      RequestLogger.wasLastRequestSimple = false;
-      return;
     }
 
     // Otherwise, print the raw URL so that it's at least mentioned
@@ -18,6 +18,7 @@ import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.KoLConstants.MafiaState;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.StaticEntity;
+import net.sourceforge.kolmafia.listener.PreferenceListenerRegistry;
 import net.sourceforge.kolmafia.objectpool.ItemPool;
 import net.sourceforge.kolmafia.persistence.ItemDatabase;
 import net.sourceforge.kolmafia.persistence.ItemDatabase.Attribute;
@@ -107,6 +108,7 @@ public abstract class CombatActionManager {
     }
 
     Preferences.setString("customCombatScript", name);
+    PreferenceListenerRegistry.firePreferenceChanged("(ccs)");
 
     CombatActionManager.availableLookups.setSelectedItem(name);
   }
@@ -186,6 +188,8 @@ public abstract class CombatActionManager {
     for (int i = 0; i < rounds.length; ++i) {
       CombatActionManager.strategyLookup.addEncounterAction("default", i + 1, "", rounds[i], false);
     }
+
+    PreferenceListenerRegistry.firePreferenceChanged("(ccs)");
   }
 
   public static final boolean hasGlobalPrefix() {
@@ -0,0 +1,153 @@
+package net.sourceforge.kolmafia.combat;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.listener.ItemListenerRegistry;
+import net.sourceforge.kolmafia.listener.Listener;
+import net.sourceforge.kolmafia.listener.PreferenceListenerRegistry;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.objectpool.SkillPool;
+import net.sourceforge.kolmafia.persistence.SkillDatabase;
+import net.sourceforge.kolmafia.preferences.Preferences;
+import net.sourceforge.kolmafia.session.LimitMode;
+
+/**
+ * Remembers the macros built from the custom combat script.
+ *
+ * <p>A farming session fights the same monsters over and over, and Macrofier would walk the same
+ * CCS section and build the same macro each time. A macro is remembered under everything that went
+ * into it: the CCS section, the round it starts from, the header of antidote and MP restore
+ * subroutines (which is built afresh each fight, since it depends on inventory and poison), and the
+ * few facts about the character that the CCS actions look at. The MP cost of each skill used is
+ * checked again before a remembered macro is used, since it varies with equipment and effects.
+ *
+ * <p>Anything else which changes the macro - loading or editing a CCS, changing the battle action,
+ * or gaining or losing a dictionary - discards every remembered macro. Actions which depend on the
+ * state of the fight itself, such as special actions, stealing, or running away with a chance of
+ * being free, are never remembered.
+ */
+public class MacroCache {
+  private static final int MAX_ENTRIES = 64;
+
+  private static final String[] PREFERENCES = {"(ccs)", "battleAction", "customCombatScript"};
+
+  record Key(
+      String section,
+      int prefixLength,
+      String header,
+      LimitMode limitMode,
+      boolean jarlsberg,
+      boolean canOlfact,
+      long maximumMP,
+      boolean autoManaRestore) {
+    static Key of(final String section, final int prefixLength, final String header) {
+      return new Key(
+          section,
+          prefixLength,
+          header,
+          KoLCharacter.getLimitMode(),
+          KoLCharacter.isJarlsberg(),
+          (!KoLCharacter.inBadMoon() || KoLCharacter.skillsRecalled())
+              && KoLCharacter.hasCombatSkill(SkillPool.OLFACTION),
+          KoLCharacter.getMaximumMP(),
+          Preferences.getBoolean("autoManaRestore"));
+    }
+  }
+
+  /**
+   * A macro, or null if the CCS could not be macrofied; the macro prefix length to leave behind;
+   * and the MP cost of each skill the macro uses.
+   */
+  record Entry(String macro, int prefixLength, Map<Integer, Long> skillCosts) {
+    boolean isCurrent() {
+      for (var cost : this.skillCosts.entrySet()) {
+        if (SkillDatabase.getMPConsumptionById(cost.getKey()) != cost.getValue()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private static final Map<Key, Entry> entries =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+          return this.size() > MAX_ENTRIES;
+        }
+      };
+
+  private static final Listener invalidator = MacroCache::clear;
+  private static final AtomicInteger registeredGeneration = new AtomicInteger(-1);
+
+  private static long hits = 0;
+  private static long misses = 0;
+  private static long uncacheable = 0;
+
+  static {
+    ItemListenerRegistry.registerItemListener(ItemPool.DICTIONARY, invalidator);
+    ItemListenerRegistry.registerItemListener(ItemPool.FACSIMILE_DICTIONARY, invalidator);
+  }
+
+  private MacroCache() {}
+
+  /** Returns the macro remembered under this key, or null if it must be built. */
+  static synchronized Entry get(final Key key) {
+    MacroCache.listen();
+    Entry entry = MacroCache.entries.get(key);
+    if (entry != null && entry.isCurrent()) {
+      MacroCache.hits++;
+      return entry;
+    }
+    return null;
+  }
+
+  /** Remembers a macro which had to be built. */
+  static synchronized void put(final Key key, final Entry entry) {
+    MacroCache.misses++;
+    MacroCache.entries.put(key, entry);
+  }
+
+  /** Counts a macro which had to be built and cannot be remembered. */
+  static synchronized void countUncacheable() {
+    MacroCache.uncacheable++;
+  }
+
+  public static synchronized void clear() {
+    MacroCache.entries.clear();
+  }
+
+  public static synchronized void resetStatistics() {
+    MacroCache.hits = 0;
+    MacroCache.misses = 0;
+    MacroCache.uncacheable = 0;
+  }
+
+  public static synchronized int size() {
+    return MacroCache.entries.size();
+  }
+
+  public static synchronized long getHits() {
+    return MacroCache.hits;
+  }
+
+  public static synchronized long getMisses() {
+    return MacroCache.misses;
+  }
+
+  public static synchronized long getUncacheable() {
+    return MacroCache.uncacheable;
+  }
+
+  // Listeners are dropped when the registry is reset, so register again if that has happened
+  private static void listen() {
+    int generation = PreferenceListenerRegistry.getGeneration();
+    if (MacroCache.registeredGeneration.getAndSet(generation) != generation) {
+      PreferenceListenerRegistry.registerPreferenceListener(PREFERENCES, invalidator);
+      // Anything remembered before now may have missed a change
+      MacroCache.entries.clear();
+    }
+  }
+}
@@ -2,7 +2,9 @@ package net.sourceforge.kolmafia.combat;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import net.sourceforge.kolmafia.AdventureResult;
@@ -40,6 +42,11 @@ public class Macrofier {
   private static final Pattern ALLCALLS_PATTERN = Pattern.compile("call (\\w+)");
   private static final Pattern ALLSUBS_PATTERN = Pattern.compile("sub (\\w+)([\\s;\\n]+endsub)?");
 
+  // While a macro is being built for the cache: whether it can be remembered, and the MP cost of
+  // each skill it uses
+  private static boolean cacheable = false;
+  private static Map<Integer, Long> skillCosts = null;
+
   private Macrofier() {}
 
   public static void resetMacroOverride() {
@@ -231,6 +238,48 @@ public class Macrofier {
 
     Macrofier.macroCommon(macro);
 
+    // The header is built for every fight; what follows it comes from the CCS, and is the same
+    // each time this section is used while nothing it depends on changes.
+    MacroCache.Key key = null;
+    if (!debug) {
+      if (Preferences.getString("battleAction").startsWith("custom")) {
+        key =
+            MacroCache.Key.of(
+                CombatActionManager.getBestEncounterKey(monsterName),
+                FightRequest.getMacroPrefixLength(),
+                macro.toString());
+        MacroCache.Entry entry = MacroCache.get(key);
+        if (entry != null) {
+          FightRequest.setMacroPrefixLength(entry.prefixLength());
+          return entry.macro();
+        }
+      } else {
+        MacroCache.countUncacheable();
+      }
+    }
+
+    Macrofier.cacheable = true;
+    Macrofier.skillCosts = new HashMap<>();
+    try {
+      String result = Macrofier.macrofyStrategy(macro, monsterName, debug);
+      if (key != null) {
+        if (Macrofier.cacheable) {
+          MacroCache.put(
+              key,
+              new MacroCache.Entry(
+                  result, FightRequest.getMacroPrefixLength(), Map.copyOf(Macrofier.skillCosts)));
+        } else {
+          MacroCache.countUncacheable();
+        }
+      }
+      return result;
+    } finally {
+      Macrofier.skillCosts = null;
+    }
+  }
+
+  private static String macrofyStrategy(
+      final StringBuffer macro, final String monsterName, final boolean debug) {
     macro.append("#mafiaheader\n");
 
     // Load up the "global prefix", if there is one
@@ -363,6 +412,7 @@ public class Macrofier {
     }
 
     if (action.equals("special")) {
+      Macrofier.cacheable = false;
       if (FightRequest.waitingForSpecial) {
         // only allow once per combat
         FightRequest.waitingForSpecial = false;
@@ -385,10 +435,12 @@ public class Macrofier {
         macro.append("#mafiarestart\n");
       }
     } else if (action.equals("abort after")) {
+      Macrofier.cacheable = false;
       KoLmafia.abortAfter("Aborted by CCS request");
     } else if (action.equals("runaway")) {
       macro.append("runaway\n");
     } else if (action.startsWith("runaway")) {
+      Macrofier.cacheable = false;
       int runaway = StringUtilities.parseInt(action.substring(7));
       if (FightRequest.freeRunawayChance() >= runaway) {
         macro.append("runaway\n");
@@ -401,14 +453,17 @@ public class Macrofier {
         macro.append("call mafiaround; attack\n");
       }
     } else if (action.equals("steal")) {
+      Macrofier.cacheable = false;
       if (MonsterStatusTracker.shouldSteal()) {
         macro.append("pickpocket\n");
       }
     } else if (action.equals("jiggle")) {
+      Macrofier.cacheable = false;
       if (EquipmentManager.usingChefstaff()) {
         macro.append("call mafiaround; jiggle\n");
       }
     } else if (action.startsWith("combo ")) {
+      Macrofier.cacheable = false;
       int[] combo = DiscoCombatHelper.getCombo(action.substring(6));
       if (combo != null) {
         String name = action.substring(6);
@@ -501,6 +556,9 @@ public class Macrofier {
 
   public static void macroSkill(StringBuffer macro, int skillId) {
     long cost = SkillDatabase.getMPConsumptionById(skillId);
+    if (Macrofier.skillCosts != null) {
+      Macrofier.skillCosts.put(skillId, cost);
+    }
     if (cost > KoLCharacter.getMaximumMP()) {
       return; // no point in even trying
     }
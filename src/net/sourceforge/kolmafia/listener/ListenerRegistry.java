@@ -70,6 +70,10 @@ public class ListenerRegistry {
     }
   }
 
+  public boolean isDeferring() {
+    return this.deferring > 0;
+  }
+
   public final void registerListener(final Object key, final Listener listener) {
     ArrayList<WeakReference<Listener>> listenerList = null;
 
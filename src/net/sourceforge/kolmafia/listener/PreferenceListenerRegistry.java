@@ -4,15 +4,31 @@ public class PreferenceListenerRegistry extends ListenerRegistry {
   // The registry of listeners:
   private static final ListenerRegistry INSTANCE = new ListenerRegistry();
 
+  // Incremented whenever registered listeners are discarded
+  private static volatile int generation = 0;
+
   // For testing
   public static void reset() {
     INSTANCE.clear();
+    PreferenceListenerRegistry.generation++;
+  }
+
+  /**
+   * Returns a number that changes whenever all listeners are discarded, so that long-lived
+   * listeners can tell when they need to register again.
+   */
+  public static int getGeneration() {
+    return PreferenceListenerRegistry.generation;
   }
 
   public static void deferPreferenceListeners(boolean deferring) {
     PreferenceListenerRegistry.INSTANCE.deferListeners(deferring);
   }
 
+  public static boolean isDeferringPreferenceListeners() {
+    return PreferenceListenerRegistry.INSTANCE.isDeferring();
+  }
+
   public static void registerPreferenceListener(final String name, final Listener listener) {
     PreferenceListenerRegistry.INSTANCE.registerListener(name, listener);
   }
@@ -94,6 +94,7 @@ public class Evaluator {
   private String weaponType = null;
   private int hands = 0;
   int melee = 0; // +/-2 or higher: require, +/-1: disallow other type
+  ScoreBound bound = null; // set only when branch-and-bound pruning is safe
   private boolean effective = false;
   private boolean requireClub = false;
   private boolean requireShield = false;
@@ -1403,7 +1404,7 @@ public class Evaluator {
               continue;
             }
             if (hoboPowerUseful && name.startsWith("Hodgman's")) {
-              Modifiers.hoboPower = 100.0;
+              Modifiers.setHoboPower(100.0);
               item.automaticFlag = true;
             }
             break;
@@ -2402,6 +2403,36 @@ public class Evaluator {
           }
         });
 
+    this.bound = null;
+    if (Preferences.getBoolean("maximizerBranchAndBound")
+        && this.isSeparable()
+        && usefulSynergies == 0
+        && !(hoboPowerUseful
+            || smithsnessUseful
+            || brimstoneUseful
+            || cloathingUseful
+            || slimeHateUseful
+            || mcHugeLargeUseful)) {
+      double outfitAllowance = 0.0;
+      for (var entry : usefulOutfits.entrySet()) {
+        if (!entry.getValue()) continue;
+        SpecialOutfit outfit = EquipmentDatabase.getOutfit(entry.getKey());
+        Modifiers mods = ModifierDatabase.getModifiers(ModifierType.OUTFIT, outfit.getName());
+        if (mods == null) continue;
+        outfitAllowance = Math.max(outfitAllowance, this.getScore(mods) - nullScore);
+      }
+      this.bound =
+          ScoreBound.build(
+              spec,
+              automatic,
+              outfitPieces.keySet(),
+              outfitAllowance,
+              this.carriedFamiliars,
+              useCard,
+              useCrownFamiliar,
+              useBjornFamiliar);
+    }
+
     spec.tryAll(
         this.familiars,
         this.carriedFamiliars,
@@ -2413,6 +2444,28 @@ public class Evaluator {
         useBjornFamiliar);
   }
 
+  // Whether the score of a combination is the sum of the scores of its pieces. Derived stats and
+  // capped or overridden values are not, so pruning by summed contributions would be unsafe.
+  private boolean isSeparable() {
+    for (var mod : DoubleModifier.DOUBLE_MODIFIERS) {
+      if (this.weight.getDouble(mod) == 0.0) continue;
+      switch (mod) {
+        case EXPERIENCE,
+            HP,
+            MP,
+            COLD_RESISTANCE,
+            HOT_RESISTANCE,
+            SLEAZE_RESISTANCE,
+            SPOOKY_RESISTANCE,
+            STENCH_RESISTANCE -> {
+          return false;
+        }
+      }
+      if (this.max.get(mod) != Double.POSITIVE_INFINITY) return false;
+    }
+    return true;
+  }
+
   private boolean isCatUseful(double nullScore, String catName) {
     Modifiers mods = ModifierDatabase.getModifiers(ModifierType.MAX_CAT, catName);
     return mods != null && this.getScore(mods) - nullScore > 0.0;
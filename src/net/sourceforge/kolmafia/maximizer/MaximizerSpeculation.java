@@ -1,8 +1,15 @@
 package net.sourceforge.kolmafia.maximizer;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.DoubleAccumulator;
 import net.sourceforge.kolmafia.AdventureResult;
 import net.sourceforge.kolmafia.FamiliarData;
 import net.sourceforge.kolmafia.KoLCharacter;
@@ -39,6 +46,46 @@ public class MaximizerSpeculation extends Speculation
   public boolean failed = false;
   public CheckedItem attachment;
   private boolean foldables = false;
+  // Non-null while this speculation is exploring one branch of a parallel search
+  private Branch branch = null;
+
+  // State shared by all branches of one parallel search.
+  private static class Search {
+    private final AtomicReference<MaximizerInterruptedException> stopped =
+        new AtomicReference<>();
+    private final DoubleAccumulator bestScore =
+        new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+
+    void stop(MaximizerInterruptedException e) {
+      this.stopped.compareAndSet(null, e);
+    }
+
+    void checkStopped() throws MaximizerInterruptedException {
+      if (this.stopped.get() != null) {
+        throw new MaximizerInterruptedException();
+      }
+    }
+  }
+
+  // The best combination found by a single branch of a parallel search.
+  private static class Branch {
+    private final Search search;
+    private MaximizerSpeculation best;
+
+    Branch(Search search, MaximizerSpeculation best) {
+      this.search = search;
+      this.best = best;
+    }
+
+    void offer(MaximizerSpeculation spec) {
+      if (spec.compareTo(this.best) > 0) {
+        this.best = spec.clone();
+        if (!spec.failed) {
+          this.search.bestScore.accumulate(spec.getScore());
+        }
+      }
+    }
+  }
 
   @Override
   public MaximizerSpeculation clone() {
@@ -68,19 +115,22 @@ public class MaximizerSpeculation extends Speculation
   public double getScore() {
     if (this.scored) return this.score;
     if (!this.calculated) this.calculate();
-    this.score = Maximizer.eval.getScore(this.mods, this.equipment, this.getModeables());
     if (KoLCharacter.inBeecore()) {
       this.beeosity = KoLCharacter.getBeeosity(this.equipment);
     }
-    Maximizer.eval.checkEquipment(this.mods, this.equipment, this.beeosity);
-    this.failed = Maximizer.eval.failed;
+    // The Evaluator reports failure through its own fields, so only one thread may use it at once.
+    synchronized (Maximizer.eval) {
+      this.score = Maximizer.eval.getScore(this.mods, this.equipment, this.getModeables());
+      Maximizer.eval.checkEquipment(this.mods, this.equipment, this.beeosity);
+      this.failed = Maximizer.eval.failed;
+      this.exceeded = Maximizer.eval.exceeded;
+    }
     if ((this.mods.getRawBitmap(BitmapModifier.MUTEX_VIOLATIONS)
             & ~KoLCharacter.currentRawBitmapModifier(BitmapModifier.MUTEX_VIOLATIONS))
         != 0) { // We're speculating about something that would create a
       // mutex problem that the player didn't already have.
       this.failed = true;
     }
-    this.exceeded = Maximizer.eval.exceeded;
     this.scored = true;
     return this.score;
   }
@@ -88,7 +138,9 @@ public class MaximizerSpeculation extends Speculation
   public double getTiebreaker() {
     if (this.tiebreakered) return this.tiebreaker;
     if (!this.calculated) this.calculate();
-    this.tiebreaker = Maximizer.eval.getTiebreaker(this.mods);
+    synchronized (Maximizer.eval) {
+      this.tiebreaker = Maximizer.eval.getTiebreaker(this.mods);
+    }
     this.tiebreakered = true;
     this.simplicity = 0;
     for (var slot : SlotSet.ALL_SLOTS) {
@@ -226,6 +278,22 @@ public class MaximizerSpeculation extends Speculation
       FamiliarData useBjornFamiliar)
       throws MaximizerInterruptedException {
     this.foldables = Preferences.getBoolean("maximizerFoldables");
+    // The combination limit counts checks across every branch, and branches run in no fixed order,
+    // so a limited parallel search would stop at a different combination from run to run.
+    if (Preferences.getBoolean("maximizerParallelSearch")
+        && Preferences.getLong("maximizerCombinationLimit") == 0
+        && !familiars.isEmpty()) {
+      this.tryAllInParallel(
+          familiars,
+          enthronedFamiliars,
+          usefulOutfits,
+          outfitPieces,
+          possibles,
+          bestCard,
+          useCrownFamiliar,
+          useBjornFamiliar);
+      return;
+    }
     this.tryOutfits(
         enthronedFamiliars,
         usefulOutfits,
@@ -248,6 +316,91 @@ public class MaximizerSpeculation extends Speculation
     }
   }
 
+  // Explores the current familiar and each candidate familiar on its own worker thread. Each
+  // branch keeps its own best combination, and the branches are merged in the order in which
+  // tryAll would have visited them, so that ties are broken exactly as in a sequential search.
+  private void tryAllInParallel(
+      List<FamiliarData> familiars,
+      List<FamiliarData> enthronedFamiliars,
+      Map<Integer, Boolean> usefulOutfits,
+      Map<AdventureResult, AdventureResult> outfitPieces,
+      SlotList<CheckedItem> possibles,
+      AdventureResult bestCard,
+      FamiliarData useCrownFamiliar,
+      FamiliarData useBjornFamiliar)
+      throws MaximizerInterruptedException {
+    MaximizerSpeculation initial = Maximizer.best;
+    if (initial == null) {
+      throw new MaximizerLimitException();
+    }
+    // Every branch compares against the initial best, so finish evaluating it up front.
+    initial.getScore();
+    initial.getTiebreaker();
+
+    Search search = new Search();
+    List<Branch> branches = new ArrayList<>();
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int i = -1; i < familiars.size(); ++i) {
+      MaximizerSpeculation spec = this.clone();
+      SlotList<CheckedItem> branchPossibles = new SlotList<>(possibles);
+      if (i >= 0) {
+        spec.setFamiliar(familiars.get(i));
+        branchPossibles.set(Slot.FAMILIAR, possibles.getFamiliar(i));
+      }
+      spec.branch = new Branch(search, initial);
+      branches.add(spec.branch);
+      tasks.add(
+          () -> {
+            Modifiers.enterSpeculationContext();
+            try {
+              spec.tryOutfits(
+                  enthronedFamiliars,
+                  usefulOutfits,
+                  outfitPieces,
+                  branchPossibles,
+                  bestCard,
+                  useCrownFamiliar,
+                  useBjornFamiliar);
+            } catch (MaximizerInterruptedException e) {
+              search.stop(e);
+            } finally {
+              Modifiers.exitSpeculationContext();
+            }
+            return null;
+          });
+    }
+
+    int threads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+    ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+    try {
+      for (Future<Void> future : pool.invokeAll(tasks)) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) {
+        throw re;
+      }
+      throw new RuntimeException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MaximizerInterruptedException();
+    } finally {
+      pool.shutdown();
+    }
+
+    for (Branch branch : branches) {
+      if (branch.best.compareTo(Maximizer.best) > 0) {
+        Maximizer.best = branch.best;
+      }
+    }
+    Maximizer.best.branch = null;
+
+    MaximizerInterruptedException stopped = search.stopped.get();
+    if (stopped != null) {
+      throw stopped;
+    }
+  }
+
   public void tryOutfits(
       List<FamiliarData> enthronedFamiliars,
       Map<Integer, Boolean> usefulOutfits,
@@ -332,6 +485,7 @@ public class MaximizerSpeculation extends Speculation
       FamiliarData useCrownFamiliar,
       FamiliarData useBjornFamiliar)
       throws MaximizerInterruptedException {
+    if (this.cannotBeatBest(possibles)) return;
     var mark = this.mark();
     if (this.equipment.get(Slot.FAMILIAR) == null) {
       List<CheckedItem> possible = possibles.get(Slot.FAMILIAR);
@@ -386,6 +540,7 @@ public class MaximizerSpeculation extends Speculation
       FamiliarData useCrownFamiliar,
       FamiliarData useBjornFamiliar)
       throws MaximizerInterruptedException {
+    if (this.cannotBeatBest(possibles)) return;
     var mark = this.mark();
     if (this.equipment.get(Slot.CONTAINER) == null) {
       List<CheckedItem> possible = possibles.get(Slot.CONTAINER);
@@ -443,6 +598,7 @@ public class MaximizerSpeculation extends Speculation
       AdventureResult bestCard,
       FamiliarData useCrownFamiliar)
       throws MaximizerInterruptedException {
+    if (this.cannotBeatBest(possibles)) return;
     var mark = this.mark();
     int free = 0;
     if (this.equipment.get(Slot.ACCESSORY1) == null) ++free;
@@ -522,6 +678,7 @@ public class MaximizerSpeculation extends Speculation
       AdventureResult bestCard,
       FamiliarData useCrownFamiliar)
       throws MaximizerInterruptedException {
+    if (this.cannotBeatBest(possibles)) return;
     var mark = this.mark();
     if (this.equipment.get(Slot.HAT) == null) {
       List<CheckedItem> possible = possibles.get(Slot.HAT);
@@ -580,6 +737,7 @@ public class MaximizerSpeculation extends Speculation
 
   public void tryShirts(SlotList<CheckedItem> possibles, AdventureResult bestCard)
       throws MaximizerInterruptedException {
+    if (this.cannotBeatBest(possibles)) return;
     var mark = this.mark();
     if (this.equipment.get(Slot.SHIRT) == null) {
       boolean any = false;
@@ -621,6 +779,7 @@ public class MaximizerSpeculation extends Speculation
 
   public void tryPants(SlotList<CheckedItem> possibles, AdventureResult bestCard)
       throws MaximizerInterruptedException {
+    if (this.cannotBeatBest(possibles)) return;
     var mark = this.mark();
     if (this.equipment.get(Slot.PANTS) == null) {
       List<CheckedItem> possible = possibles.get(Slot.PANTS);
@@ -660,6 +819,7 @@ public class MaximizerSpeculation extends Speculation
 
   public void trySixguns(SlotList<CheckedItem> possibles, AdventureResult bestCard)
       throws MaximizerInterruptedException {
+    if (this.cannotBeatBest(possibles)) return;
     var mark = this.mark();
     if (this.equipment.get(Slot.HOLSTER) == null) {
       List<CheckedItem> possible = possibles.get(Slot.HOLSTER);
@@ -683,6 +843,7 @@ public class MaximizerSpeculation extends Speculation
 
   public void tryWeapons(SlotList<CheckedItem> possibles, AdventureResult bestCard)
       throws MaximizerInterruptedException {
+    if (this.cannotBeatBest(possibles)) return;
     var mark = this.mark();
     boolean chefstaffable =
         KoLCharacter.hasSkill(SkillPool.SPIRIT_OF_RIGATONI) || KoLCharacter.isJarlsberg();
@@ -743,6 +904,7 @@ public class MaximizerSpeculation extends Speculation
 
   public void tryOffhands(SlotList<CheckedItem> possibles, AdventureResult bestCard)
       throws MaximizerInterruptedException {
+    if (this.cannotBeatBest(possibles)) return;
     var mark = this.mark();
     int weapon = this.equipment.get(Slot.WEAPON).getItemId();
     if (EquipmentDatabase.getHands(weapon) > 1) {
@@ -808,14 +970,15 @@ public class MaximizerSpeculation extends Speculation
       // this isn't really what is happening but trying to understand why this is happening, first.
       throw new MaximizerLimitException();
     }
-    if (this.compareTo(Maximizer.best) > 0) {
-      Maximizer.best = this.clone();
-    }
-    Maximizer.bestChecked++;
-    long t = System.currentTimeMillis();
-    if (t > Maximizer.bestUpdate) {
-      MaximizerSpeculation.showProgress();
-      Maximizer.bestUpdate = t + 5000;
+    int checked;
+    if (this.branch != null) {
+      this.branch.offer(this);
+      checked = MaximizerSpeculation.countChecked(this.branch.search.bestScore.get());
+    } else {
+      if (this.compareTo(Maximizer.best) > 0) {
+        Maximizer.best = this.clone();
+      }
+      checked = MaximizerSpeculation.countChecked(Double.NaN);
     }
     this.restore(mark);
     if (!KoLmafia.permitsContinue()) {
@@ -825,9 +988,49 @@ public class MaximizerSpeculation extends Speculation
       throw new MaximizerExceededException();
     }
     long comboLimit = Preferences.getLong("maximizerCombinationLimit");
-    if (comboLimit != 0 && Maximizer.bestChecked >= comboLimit) {
+    if (comboLimit != 0 && checked >= comboLimit) {
       throw new MaximizerLimitException();
     }
+    if (this.branch != null) {
+      this.branch.search.checkStopped();
+    }
+  }
+
+  // Whether the branch-and-bound estimate shows that no way of filling the remaining slots can
+  // beat the best combination found so far.
+  private boolean cannotBeatBest(SlotList<CheckedItem> possibles) {
+    ScoreBound bound = Maximizer.eval.bound;
+    if (bound == null) return false;
+    double incumbent;
+    if (this.branch != null) {
+      incumbent = this.branch.search.bestScore.get();
+      if (!this.branch.best.failed) {
+        incumbent = Math.max(incumbent, this.branch.best.getScore());
+      }
+    } else {
+      MaximizerSpeculation best = Maximizer.best;
+      if (best == null) return false;
+      incumbent = best.getScore();
+      if (best.failed) return false;
+    }
+    if (incumbent == Double.NEGATIVE_INFINITY) return false;
+    return bound.cannotExceed(this, possibles, incumbent);
+  }
+
+  // Counts one more combination checked, and periodically reports progress. The score is the best
+  // found so far by a parallel search, or NaN to report Maximizer.best.
+  private static synchronized int countChecked(double bestScore) {
+    int checked = ++Maximizer.bestChecked;
+    long t = System.currentTimeMillis();
+    if (t > Maximizer.bestUpdate) {
+      if (Double.isNaN(bestScore) || bestScore == Double.NEGATIVE_INFINITY) {
+        MaximizerSpeculation.showProgress();
+      } else {
+        MaximizerSpeculation.showProgress(checked, bestScore, false);
+      }
+      Maximizer.bestUpdate = t + 5000;
+    }
+    return checked;
   }
 
   private static int getMutex(AdventureResult item) {
@@ -872,12 +1075,16 @@ public class MaximizerSpeculation extends Speculation
   }
 
   public static void showProgress() {
+    double score = Maximizer.best.getScore();
+    MaximizerSpeculation.showProgress(Maximizer.bestChecked, score, Maximizer.best.failed);
+  }
+
+  private static void showProgress(int checked, double score, boolean failed) {
     StringBuilder msg = new StringBuilder();
-    msg.append(Maximizer.bestChecked);
+    msg.append(checked);
     msg.append(" combinations checked, best score ");
-    double score = Maximizer.best.getScore();
     msg.append(KoLConstants.FLOAT_FORMAT.format(score));
-    if (Maximizer.best.failed) {
+    if (failed) {
       msg.append(" (FAIL)");
     }
     // if ( MaximizerFrame.best.tiebreakered )
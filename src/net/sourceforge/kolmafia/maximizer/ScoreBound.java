@@ -0,0 +1,308 @@
+package net.sourceforge.kolmafia.maximizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.sourceforge.kolmafia.AdventureResult;
+import net.sourceforge.kolmafia.FamiliarData;
+import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.ModifierType;
+import net.sourceforge.kolmafia.Modifiers;
+import net.sourceforge.kolmafia.equipment.Slot;
+import net.sourceforge.kolmafia.equipment.SlotSet;
+import net.sourceforge.kolmafia.modifiers.DoubleModifier;
+import net.sourceforge.kolmafia.modifiers.Lookup;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.objectpool.SkillPool;
+import net.sourceforge.kolmafia.persistence.ModifierDatabase;
+import net.sourceforge.kolmafia.request.EquipmentRequest;
+import net.sourceforge.kolmafia.session.EquipmentManager;
+
+/**
+ * An optimistic estimate of the best score that can be reached by completing a partial
+ * combination, which lets MaximizerSpeculation skip subtrees that cannot beat the best combination
+ * found so far.
+ *
+ * <p>Each candidate's contribution is measured by equipping it alone, with every searched slot
+ * otherwise empty. As long as the pieces of a combination do not reinforce each other, it cannot
+ * score more than the empty score plus the contributions of its pieces, so the estimate never
+ * discards a better combination. {@link #build} refuses to produce a bound when that does not hold.
+ */
+class ScoreBound {
+  // Allowance for rounding when summing contributions
+  private static final double EPSILON = 1e-6;
+
+  // Text in an item's modifiers that indicates that its value depends on other equipment or on
+  // derived stats which are not a plain sum of their parts.
+  private static final String[] INTERACTIONS = {
+    "mainhand(", "equipped(", "unarmed", "Equalize", " Limit", "Floor Buffed"
+  };
+
+  private static final Map<Slot, Slot> LIST_SLOTS = new EnumMap<>(Slot.class);
+
+  static {
+    LIST_SLOTS.put(Slot.HAT, Slot.HAT);
+    LIST_SLOTS.put(Slot.WEAPON, Slot.WEAPON);
+    LIST_SLOTS.put(Slot.HOLSTER, Slot.HOLSTER);
+    LIST_SLOTS.put(Slot.OFFHAND, Slot.OFFHAND);
+    LIST_SLOTS.put(Evaluator.OFFHAND_MELEE, Slot.OFFHAND);
+    LIST_SLOTS.put(Evaluator.OFFHAND_RANGED, Slot.OFFHAND);
+    LIST_SLOTS.put(Slot.CONTAINER, Slot.CONTAINER);
+    LIST_SLOTS.put(Slot.SHIRT, Slot.SHIRT);
+    LIST_SLOTS.put(Slot.PANTS, Slot.PANTS);
+    LIST_SLOTS.put(Slot.ACCESSORY1, Slot.ACCESSORY1);
+    LIST_SLOTS.put(Slot.FAMILIAR, Slot.FAMILIAR);
+  }
+
+  private final FamiliarData familiar;
+  private final List<CheckedItem> familiarItems;
+  private final Set<Slot> searched;
+  private final MaximizerSpeculation empty;
+  private final double emptyScore;
+  private final double outfitAllowance;
+  private final Map<Slot, Map<Integer, Double>> contributions = new EnumMap<>(Slot.class);
+  private final Map<Slot, Double> bestContributions = new EnumMap<>(Slot.class);
+  // Best total contribution from filling 0, 1, 2 or 3 accessory slots
+  private final double[] bestAccessories = new double[4];
+
+  private ScoreBound(
+      MaximizerSpeculation base,
+      List<CheckedItem> familiarItems,
+      Set<Slot> searched,
+      double outfitAllowance) {
+    this.familiar = base.getFamiliar();
+    this.familiarItems = familiarItems;
+    this.searched = searched;
+    this.empty = base.clone();
+    for (Slot slot : searched) {
+      this.empty.equipment.put(slot, EquipmentRequest.UNEQUIP);
+    }
+    this.emptyScore = this.empty.getScore();
+    this.outfitAllowance = outfitAllowance;
+  }
+
+  /**
+   * Measures every candidate in the shortlists. Returns null if there is nothing to search, or if
+   * the candidates interact in ways that would make the estimate too low.
+   */
+  static ScoreBound build(
+      MaximizerSpeculation base,
+      SlotList<CheckedItem> possibles,
+      Collection<AdventureResult> outfitPieces,
+      double outfitAllowance,
+      List<FamiliarData> enthronedFamiliars,
+      AdventureResult bestCard,
+      FamiliarData useCrownFamiliar,
+      FamiliarData useBjornFamiliar) {
+    Set<Slot> searched = EnumSet.noneOf(Slot.class);
+    for (Slot slot : SlotSet.SLOTS) {
+      if (base.equipment.get(slot) == null) {
+        searched.add(slot);
+      }
+    }
+    if (searched.isEmpty()) {
+      return null;
+    }
+    // Being unarmed is lost once, however many hand items are worn
+    if (KoLCharacter.hasSkill(SkillPool.MASTER_OF_THE_SURPRISING_FIST)) {
+      return null;
+    }
+
+    List<AdventureResult> candidates = new ArrayList<>(outfitPieces);
+    for (Slot listSlot : LIST_SLOTS.keySet()) {
+      candidates.addAll(possibles.get(listSlot));
+    }
+    if (candidates.stream().anyMatch(ScoreBound::interacts)) {
+      return null;
+    }
+
+    ScoreBound bound =
+        new ScoreBound(base, possibles.get(Slot.FAMILIAR), searched, outfitAllowance);
+    if (bound.familiarWeightMatters()
+        && candidates.stream().anyMatch(ScoreBound::changesFamiliarWeight)) {
+      return null;
+    }
+
+    List<Double> accessories = new ArrayList<>();
+    for (var entry : LIST_SLOTS.entrySet()) {
+      Slot slot = entry.getValue();
+      boolean searchedAccessory =
+          slot == Slot.ACCESSORY1
+              && searched.stream().anyMatch(SlotSet.ACCESSORY_SLOTS::contains);
+      if (!searched.contains(slot) && !searchedAccessory) {
+        continue;
+      }
+      double best = bound.bestContributions.getOrDefault(slot, 0.0);
+      for (CheckedItem item : possibles.get(entry.getKey())) {
+        double value =
+            bound.measure(
+                slot, item, enthronedFamiliars, bestCard, useCrownFamiliar, useBjornFamiliar);
+        best = Math.max(best, value);
+        if (slot == Slot.ACCESSORY1) {
+          for (int i = Math.min(item.getCount(), 3); i > 0; --i) {
+            accessories.add(value);
+          }
+        }
+      }
+      bound.bestContributions.put(slot, best);
+    }
+
+    accessories.sort(Collections.reverseOrder());
+    for (int i = 1; i < bound.bestAccessories.length; ++i) {
+      double value = i <= accessories.size() ? Math.max(0.0, accessories.get(i - 1)) : 0.0;
+      bound.bestAccessories[i] = bound.bestAccessories[i - 1] + value;
+    }
+
+    for (AdventureResult piece : outfitPieces) {
+      Slot slot = EquipmentManager.itemIdToEquipmentType(piece.getItemId());
+      if (searched.contains(slot)) {
+        bound.measure(
+            slot, piece, enthronedFamiliars, bestCard, useCrownFamiliar, useBjornFamiliar);
+      }
+    }
+
+    return bound;
+  }
+
+  private static boolean interacts(AdventureResult item) {
+    String text =
+        ModifierDatabase.getModifierString(new Lookup(ModifierType.ITEM, item.getItemId()));
+    if (text == null) {
+      return false;
+    }
+    // The maximizer halves all familiar weight when the percentage is negative
+    Modifiers mods = ModifierDatabase.getItemModifiers(item.getItemId());
+    if (mods != null && mods.getDouble(DoubleModifier.FAMILIAR_WEIGHT_PCT) < 0.0) {
+      return true;
+    }
+    for (String interaction : INTERACTIONS) {
+      if (text.contains(interaction)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean changesFamiliarWeight(AdventureResult item) {
+    Modifiers mods = ModifierDatabase.getItemModifiers(item.getItemId());
+    return mods != null
+        && (mods.getDouble(DoubleModifier.FAMILIAR_WEIGHT) != 0.0
+            || mods.getDouble(DoubleModifier.HIDDEN_FAMILIAR_WEIGHT) != 0.0
+            || mods.getDouble(DoubleModifier.FAMILIAR_WEIGHT_PCT) != 0.0);
+  }
+
+  // Familiar abilities need not grow linearly with weight, so weight from several items can be
+  // worth more together than apart.
+  private boolean familiarWeightMatters() {
+    if (this.familiar == null || this.familiar == FamiliarData.NO_FAMILIAR) {
+      return false;
+    }
+    Modifiers weight = new Modifiers();
+    weight.setDouble(DoubleModifier.FAMILIAR_WEIGHT, 10);
+    double direct = Maximizer.eval.getScore(weight) - Maximizer.eval.getScore(new Modifiers());
+
+    MaximizerSpeculation heavier = this.empty.clone();
+    heavier.setCustom("Familiar Weight: +10");
+    heavier.setUnscored();
+    return Math.abs(heavier.getScore() - this.emptyScore - direct) > EPSILON;
+  }
+
+  private static Slot key(Slot slot) {
+    return SlotSet.ACCESSORY_SLOTS.contains(slot) ? Slot.ACCESSORY1 : slot;
+  }
+
+  private double measure(
+      Slot slot,
+      AdventureResult item,
+      List<FamiliarData> enthronedFamiliars,
+      AdventureResult bestCard,
+      FamiliarData useCrownFamiliar,
+      FamiliarData useBjornFamiliar) {
+    if (item.equals(EquipmentRequest.UNEQUIP)) {
+      return 0.0;
+    }
+    Map<Integer, Double> known =
+        this.contributions.computeIfAbsent(key(slot), k -> new HashMap<>());
+    Double value = known.get(item.getItemId());
+    if (value != null) {
+      return value;
+    }
+
+    MaximizerSpeculation spec = this.empty.clone();
+    spec.setUnscored();
+    spec.equipment.put(slot, item);
+    double score;
+    switch (item.getItemId()) {
+      case ItemPool.HATSEAT -> {
+        score = Double.NEGATIVE_INFINITY;
+        for (FamiliarData f :
+            useCrownFamiliar != null ? List.of(useCrownFamiliar) : enthronedFamiliars) {
+          spec.setEnthroned(f);
+          spec.setUnscored();
+          score = Math.max(score, spec.getScore());
+        }
+      }
+      case ItemPool.BUDDY_BJORN -> {
+        score = Double.NEGATIVE_INFINITY;
+        for (FamiliarData f :
+            useBjornFamiliar != null ? List.of(useBjornFamiliar) : enthronedFamiliars) {
+          spec.setBjorned(f);
+          spec.setUnscored();
+          score = Math.max(score, spec.getScore());
+        }
+      }
+      case ItemPool.CARD_SLEEVE -> {
+        spec.equipment.put(Slot.CARDSLEEVE, bestCard);
+        score = spec.getScore();
+      }
+      default -> score = spec.getScore();
+    }
+
+    value = score == Double.NEGATIVE_INFINITY ? 0.0 : score - this.emptyScore;
+    known.put(item.getItemId(), value);
+    return value;
+  }
+
+  private double contribution(Slot slot, AdventureResult item) {
+    if (item.equals(EquipmentRequest.UNEQUIP)) {
+      return 0.0;
+    }
+    Map<Integer, Double> known = this.contributions.get(key(slot));
+    Double value = known == null ? null : known.get(item.getItemId());
+    return value == null ? Double.POSITIVE_INFINITY : value;
+  }
+
+  /**
+   * Returns whether no completion of the given partial combination can score more than the given
+   * score. Only valid for the familiar and familiar items the bound was measured with.
+   */
+  boolean cannotExceed(
+      MaximizerSpeculation spec, SlotList<CheckedItem> possibles, double score) {
+    if (spec.getFamiliar() != this.familiar
+        || possibles.get(Slot.FAMILIAR) != this.familiarItems) {
+      return false;
+    }
+
+    double bound = this.emptyScore + this.outfitAllowance;
+    int freeAccessories = 0;
+    for (Slot slot : this.searched) {
+      AdventureResult item = spec.equipment.get(slot);
+      if (item != null) {
+        bound += this.contribution(slot, item);
+      } else if (SlotSet.ACCESSORY_SLOTS.contains(slot)) {
+        ++freeAccessories;
+      } else {
+        bound += this.bestContributions.getOrDefault(slot, 0.0);
+      }
+    }
+    bound += this.bestAccessories[freeAccessories];
+
+    return bound + EPSILON * Math.max(1.0, Math.abs(score)) < score;
+  }
+}
@@ -32,6 +32,16 @@ public class SlotList<T> {
     }
   }
 
+  /**
+   * Makes a shallow copy: the interior lists are shared, but replacing a slot's list in the copy
+   * does not affect the original.
+   */
+  public SlotList(SlotList<T> other) {
+    slotList = new EnumMap<>(Slot.class);
+    slotList.putAll(other.slotList);
+    familiarList = new ArrayList<>(other.familiarList);
+  }
+
   public List<T> get(Slot key) {
     return slotList.computeIfAbsent(key, k -> new ArrayList<>());
   }
@@ -2,13 +2,16 @@ package net.sourceforge.kolmafia.persistence;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -18,6 +21,7 @@ import java.util.stream.Collectors;
 import net.java.dev.spellcast.utilities.LockableListModel;
 import net.java.dev.spellcast.utilities.SortedListModel;
 import net.sourceforge.kolmafia.AdventureResult;
+import net.sourceforge.kolmafia.AscensionPath.Path;
 import net.sourceforge.kolmafia.CoinmasterData;
 import net.sourceforge.kolmafia.CoinmasterRegistry;
 import net.sourceforge.kolmafia.KoLCharacter;
@@ -82,6 +86,16 @@ public class ConcoctionDatabase {
   private static boolean recalculateAdventureRange = false;
   public static int refreshLevel = 0;
 
+  // When the only reason for a refresh is that some items changed quantity, we
+  // can recalculate just the concoctions which (transitively) use those items.
+  // Items change quantity on any thread, even during a refresh, so both fields
+  // are guarded by changeLock; a refresh takes the changed items collected so
+  // far and leaves a fresh set for changes made while it runs.
+  private static final Object changeLock = new Object();
+  private static boolean fullRefreshNeeded = true;
+  private static Set<Integer> changedItems = new HashSet<>();
+  private static RefreshState lastRefreshState = null;
+
   public static int queuedAdventuresUsed = 0;
   public static int queuedFreeCraftingTurns = 0;
   public static int queuedStillsUsed = 0;
@@ -1146,16 +1160,12 @@ public class ConcoctionDatabase {
   }
 
   public static final void setRefreshNeeded(int itemId) {
-    switch (ItemDatabase.getConsumptionType(itemId)) {
-      case EAT, DRINK, SPLEEN, USE, USE_MULTIPLE, FOOD_HELPER, DRINK_HELPER -> {
-        ConcoctionDatabase.setRefreshNeeded(false);
-        return;
-      }
-    }
-
     switch (itemId) {
       // Items that affect creatability of other items, but
       // aren't explicitly listed in their recipes:
+      case ItemPool.MEAT_PASTE:
+      case ItemPool.MEAT_STACK:
+      case ItemPool.DENSE_STACK:
       case ItemPool.WORTHLESS_TRINKET:
       case ItemPool.WORTHLESS_GEWGAW:
       case ItemPool.WORTHLESS_KNICK_KNACK:
@@ -1175,28 +1185,52 @@ public class ConcoctionDatabase {
         return;
     }
 
+    for (CoinmasterData coinmaster : CoinmasterRegistry.COINMASTERS) {
+      AdventureResult item = coinmaster.getItem();
+      if (item != null && itemId == item.getItemId()) {
+        ConcoctionDatabase.setRefreshNeeded(false);
+        return;
+      }
+    }
+
+    switch (ItemDatabase.getConsumptionType(itemId)) {
+      case EAT, DRINK, SPLEEN, USE, USE_MULTIPLE, FOOD_HELPER, DRINK_HELPER -> {
+        ConcoctionDatabase.setItemRefreshNeeded(itemId);
+        return;
+      }
+    }
+
     for (AdventureResult use : ConcoctionDatabase.getKnownUses(itemId)) {
       CraftingType method = ConcoctionDatabase.getMixingMethod(use.getItemId());
       EnumSet<CraftingRequirements> requirements =
           ConcoctionDatabase.getRequirements(use.getItemId());
 
       if (ConcoctionDatabase.isPermittedMethod(method, requirements)) {
-        ConcoctionDatabase.setRefreshNeeded(false);
+        ConcoctionDatabase.setItemRefreshNeeded(itemId);
         return;
       }
     }
+  }
 
-    for (CoinmasterData coinmaster : CoinmasterRegistry.COINMASTERS) {
-      AdventureResult item = coinmaster.getItem();
-      if (item != null && itemId == item.getItemId()) {
-        ConcoctionDatabase.setRefreshNeeded(false);
-        return;
+  private static void setItemRefreshNeeded(final int itemId) {
+    synchronized (ConcoctionDatabase.changeLock) {
+      ConcoctionDatabase.refreshNeeded = true;
+
+      if (!ConcoctionDatabase.fullRefreshNeeded) {
+        ConcoctionDatabase.changedItems.add(itemId);
       }
     }
   }
 
+  private static void setFullRefreshNeeded() {
+    synchronized (ConcoctionDatabase.changeLock) {
+      ConcoctionDatabase.refreshNeeded = true;
+      ConcoctionDatabase.fullRefreshNeeded = true;
+    }
+  }
+
   public static final void setRefreshNeeded(boolean recalculateAdventureRange) {
-    ConcoctionDatabase.refreshNeeded = true;
+    ConcoctionDatabase.setFullRefreshNeeded();
 
     if (recalculateAdventureRange) {
       ConcoctionDatabase.recalculateAdventureRange = true;
@@ -1214,7 +1248,7 @@ public class ConcoctionDatabase {
   public static final void refreshConcoctions(boolean force) {
     if (force) {
       // Remember that refresh is forced, even if deferred
-      ConcoctionDatabase.refreshNeeded = true;
+      ConcoctionDatabase.setFullRefreshNeeded();
     }
 
     if (!ConcoctionDatabase.refreshNeeded) {
@@ -1232,12 +1266,26 @@ public class ConcoctionDatabase {
       return;
     }
 
-    ConcoctionDatabase.refreshConcoctionsNow();
+    ConcoctionDatabase.refreshPendingConcoctions();
   }
 
   public static final synchronized void refreshConcoctionsNow() {
+    ConcoctionDatabase.setFullRefreshNeeded();
+    ConcoctionDatabase.refreshPendingConcoctions();
+  }
+
+  private static synchronized void refreshPendingConcoctions() {
     Preferences.increment("_concoctionDatabaseRefreshes");
-    ConcoctionDatabase.refreshNeeded = false;
+
+    boolean fullRefresh;
+    Set<Integer> changed;
+    synchronized (ConcoctionDatabase.changeLock) {
+      ConcoctionDatabase.refreshNeeded = false;
+      fullRefresh = ConcoctionDatabase.fullRefreshNeeded;
+      changed = ConcoctionDatabase.changedItems;
+      ConcoctionDatabase.fullRefreshNeeded = false;
+      ConcoctionDatabase.changedItems = new HashSet<>();
+    }
 
     List<AdventureResult> availableIngredientsList = ConcoctionDatabase.getAvailableIngredients();
 
@@ -1251,81 +1299,47 @@ public class ConcoctionDatabase {
       availableIngredients.put(item.getItemId(), item);
     }
 
-    // Iterate through the concoction table, Initialize each one
-    // appropriately depending on whether it is an NPC item, a Coin
-    // Master item, or anything else.
+    // If only a few items have changed quantity since the last
+    // refresh, try recalculating just the concoctions they affect.
 
-    boolean useNPCStores = InventoryManager.canUseNPCStores();
-    boolean useCoinmasters = InventoryManager.canUseCoinmasters();
-
-    for (Concoction item : ConcoctionPool.concoctions()) {
-      // Initialize all the variables
-      item.resetCalculations();
-
-      if (item.speakeasy != null) {
-        // Has an item number, but can't appear in inventory
-        continue;
-      }
+    Collection<Concoction> refreshed =
+        fullRefresh || !Preferences.getBoolean("incrementalConcoctionRefresh")
+            ? null
+            : ConcoctionDatabase.refreshChangedConcoctions(
+                changed, availableIngredientsList, availableIngredients);
 
-      AdventureResult concoction = item.concoction;
-      if (concoction == null) {
-        continue;
-      }
+    if (refreshed == null) {
+      refreshed = ConcoctionPool.concoctions();
 
-      int itemId = concoction.getItemId();
+      // Iterate through the concoction table, Initialize each one
+      // appropriately depending on whether it is an NPC item, a Coin
+      // Master item, or anything else.
 
-      if (useNPCStores && NPCStoreDatabase.contains(itemId, true)) {
-        if (itemId != ItemPool.FLAT_DOUGH) {
-          // Don't buy flat dough from Degrassi Knoll Bakery -
-          // buy wads of dough for 20 meat less, instead.
+      boolean useNPCStores = InventoryManager.canUseNPCStores();
+      boolean useCoinmasters = InventoryManager.canUseCoinmasters();
 
-          item.price = NPCStoreDatabase.price(itemId);
-          item.initial = concoction.getCount(availableIngredients);
-          item.creatable = 0;
-          item.total = item.initial;
-          item.visibleTotal = item.total;
-          continue;
-        }
-      }
-
-      PurchaseRequest purchaseRequest = item.getPurchaseRequest();
-      if (purchaseRequest != null) {
-        purchaseRequest.setCanPurchase(useCoinmasters);
-        int acquirable = purchaseRequest.canPurchase() ? purchaseRequest.affordableCount() : 0;
-        item.price = 0;
-        item.initial = concoction.getCount(availableIngredients);
-        item.creatable = acquirable;
-        item.total = item.initial + acquirable;
-        item.visibleTotal = item.total;
-        continue;
+      for (Concoction item : refreshed) {
+        ConcoctionDatabase.initializeConcoction(
+            item, availableIngredientsList, availableIngredients, useNPCStores, useCoinmasters);
       }
 
-      // Set initial quantity of all remaining items.
-
-      // Switch to the better of any interchangeable ingredients. Only mutates the first argument.
-      ConcoctionDatabase.getIngredients(item, item.getIngredients(), availableIngredientsList);
+      // Make assessment of availability of mixing methods.
+      // This method will also calculate the availability of
+      // chefs and bartenders automatically so a second call
+      // is not needed.
 
-      item.initial = concoction.getCount(availableIngredients);
-      item.price = 0;
-      item.creatable = 0;
-      item.total = item.initial;
-      item.visibleTotal = item.total;
-    }
+      ConcoctionDatabase.cachePermitted(availableIngredientsList);
 
-    // Make assessment of availability of mixing methods.
-    // This method will also calculate the availability of
-    // chefs and bartenders automatically so a second call
-    // is not needed.
+      // Finally, increment through all of the things which are
+      // created any other way, making sure that it's a permitted
+      // mixture before doing the calculation.
 
-    ConcoctionDatabase.cachePermitted(availableIngredientsList);
-
-    // Finally, increment through all of the things which are
-    // created any other way, making sure that it's a permitted
-    // mixture before doing the calculation.
+      for (Concoction item : refreshed) {
+        item.calculate2();
+        item.calculate3();
+      }
 
-    for (Concoction item : ConcoctionPool.concoctions()) {
-      item.calculate2();
-      item.calculate3();
+      ConcoctionDatabase.lastRefreshState = RefreshState.current();
     }
 
     // Now, to update the list of creatables without removing
@@ -1338,7 +1352,7 @@ public class ConcoctionDatabase {
             && !KoLCharacter.isHardcore()
             && ConcoctionDatabase.getPullsBudgeted() > ConcoctionDatabase.queuedPullsUsed;
 
-    for (Concoction item : ConcoctionPool.concoctions()) {
+    for (Concoction item : refreshed) {
       AdventureResult ar = item.getItem();
       if (ar == null) {
         continue;
@@ -1403,6 +1417,181 @@ public class ConcoctionDatabase {
     ConcoctionDatabase.queuedPotions.updateFilter(changeDetected);
   }
 
+  private static void initializeConcoction(
+      final Concoction item,
+      final List<AdventureResult> availableIngredientsList,
+      final Map<Integer, AdventureResult> availableIngredients,
+      final boolean useNPCStores,
+      final boolean useCoinmasters) {
+    // Initialize all the variables
+    item.resetCalculations();
+
+    if (item.speakeasy != null) {
+      // Has an item number, but can't appear in inventory
+      return;
+    }
+
+    AdventureResult concoction = item.concoction;
+    if (concoction == null) {
+      return;
+    }
+
+    int itemId = concoction.getItemId();
+
+    if (useNPCStores && NPCStoreDatabase.contains(itemId, true)) {
+      if (itemId != ItemPool.FLAT_DOUGH) {
+        // Don't buy flat dough from Degrassi Knoll Bakery -
+        // buy wads of dough for 20 meat less, instead.
+
+        item.price = NPCStoreDatabase.price(itemId);
+        item.initial = concoction.getCount(availableIngredients);
+        item.creatable = 0;
+        item.total = item.initial;
+        item.visibleTotal = item.total;
+        return;
+      }
+    }
+
+    PurchaseRequest purchaseRequest = item.getPurchaseRequest();
+    if (purchaseRequest != null) {
+      purchaseRequest.setCanPurchase(useCoinmasters);
+      int acquirable = purchaseRequest.canPurchase() ? purchaseRequest.affordableCount() : 0;
+      item.price = 0;
+      item.initial = concoction.getCount(availableIngredients);
+      item.creatable = acquirable;
+      item.total = item.initial + acquirable;
+      item.visibleTotal = item.total;
+      return;
+    }
+
+    // Set initial quantity of all remaining items.
+
+    // Switch to the better of any interchangeable ingredients. Only mutates the first argument.
+    ConcoctionDatabase.getIngredients(item, item.getIngredients(), availableIngredientsList);
+
+    item.initial = concoction.getCount(availableIngredients);
+    item.price = 0;
+    item.creatable = 0;
+    item.total = item.initial;
+    item.visibleTotal = item.total;
+  }
+
+  /**
+   * Recalculates only the concoctions affected by the items which changed quantity since the last
+   * refresh: the items themselves and everything which uses them, directly or indirectly.
+   *
+   * @return the recalculated concoctions, or null if a full refresh is needed instead
+   */
+  private static Collection<Concoction> refreshChangedConcoctions(
+      final Set<Integer> changed,
+      final List<AdventureResult> availableIngredientsList,
+      final Map<Integer, AdventureResult> availableIngredients) {
+    if (ConcoctionDatabase.lastRefreshState == null) {
+      return null;
+    }
+
+    Set<Concoction> affected =
+        ConcoctionDatabase.getAffectedConcoctions(changed);
+
+    boolean useNPCStores = InventoryManager.canUseNPCStores();
+    boolean useCoinmasters = InventoryManager.canUseCoinmasters();
+
+    for (Concoction item : affected) {
+      ConcoctionDatabase.initializeConcoction(
+          item, availableIngredientsList, availableIngredients, useNPCStores, useCoinmasters);
+    }
+
+    // Everything else still holds, as long as nothing which feeds into
+    // every calculation - meat, adventures, crafting methods - changed.
+
+    ConcoctionDatabase.cachePermitted(availableIngredientsList);
+
+    if (!ConcoctionDatabase.lastRefreshState.equals(RefreshState.current())) {
+      return null;
+    }
+
+    // cachePermitted resets the items which are bought with meat
+    for (int itemId : new int[] {ItemPool.MEAT_PASTE, ItemPool.MEAT_STACK, ItemPool.DENSE_STACK}) {
+      Concoction item = ConcoctionPool.get(itemId);
+      if (item != null) {
+        affected.add(item);
+      }
+    }
+
+    for (Concoction item : affected) {
+      item.calculate2();
+      item.calculate3();
+    }
+
+    return affected;
+  }
+
+  private static Set<Concoction> getAffectedConcoctions(final Set<Integer> itemIds) {
+    Set<Concoction> affected = Collections.newSetFromMap(new IdentityHashMap<>());
+    Set<Integer> seen = new HashSet<>(itemIds);
+    Deque<Integer> pending = new ArrayDeque<>(itemIds);
+
+    while (!pending.isEmpty()) {
+      int itemId = pending.pop();
+
+      Concoction item = ConcoctionPool.get(itemId);
+      if (item != null) {
+        affected.add(item);
+      }
+
+      for (AdventureResult use : ConcoctionDatabase.getKnownUses(itemId)) {
+        if (seen.add(use.getItemId())) {
+          pending.push(use.getItemId());
+        }
+      }
+    }
+
+    return affected;
+  }
+
+  private record RefreshState(
+      boolean useNPCStores,
+      boolean useCoinmasters,
+      int pullsAvailable,
+      long availableMeat,
+      Path path,
+      boolean knollAvailable,
+      List<Integer> limits,
+      Set<CraftingType> permitted,
+      Set<CraftingRequirements> requirementsMet,
+      Map<CraftingType, Integer> adventureUsage,
+      Map<CraftingType, Long> creationCost) {
+    static RefreshState current() {
+      boolean considerPulls = !KoLCharacter.canInteract() && !KoLCharacter.isHardcore();
+      return new RefreshState(
+          InventoryManager.canUseNPCStores(),
+          InventoryManager.canUseCoinmasters(),
+          considerPulls
+              ? ConcoctionDatabase.getPullsBudgeted() - ConcoctionDatabase.queuedPullsUsed
+              : 0,
+          KoLCharacter.getAvailableMeat(),
+          KoLCharacter.getPath(),
+          KoLCharacter.knollAvailable(),
+          List.of(
+              ConcoctionDatabase.stillsLimit.initial,
+              ConcoctionDatabase.clipArtLimit.initial,
+              ConcoctionDatabase.extrudeLimit.initial,
+              ConcoctionDatabase.adventureLimit.initial,
+              ConcoctionDatabase.adventureSmithingLimit.initial,
+              ConcoctionDatabase.cookingLimit.initial,
+              ConcoctionDatabase.cocktailcraftingLimit.initial,
+              ConcoctionDatabase.turnFreeLimit.initial,
+              ConcoctionDatabase.turnFreeCookingLimit.initial,
+              ConcoctionDatabase.turnFreeCocktailcraftingLimit.initial,
+              ConcoctionDatabase.turnFreeSmithingLimit.initial,
+              ConcoctionDatabase.meatLimit.initial),
+          EnumSet.copyOf(ConcoctionDatabase.PERMIT_METHOD),
+          EnumSet.copyOf(ConcoctionDatabase.REQUIREMENT_MET),
+          new EnumMap<>(ConcoctionDatabase.ADVENTURE_USAGE),
+          new EnumMap<>(ConcoctionDatabase.CREATION_COST));
+    }
+  }
+
   /** Reset concoction stat gains when you've logged in a new character. */
   public static final void resetConcoctionStatGains() {
     for (Concoction item : ConcoctionPool.concoctions()) {
@@ -23,6 +23,7 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -66,6 +67,7 @@ import net.sourceforge.kolmafia.request.ClosetRequest.ClosetRequestType;
 import net.sourceforge.kolmafia.request.DisplayCaseRequest;
 import net.sourceforge.kolmafia.request.FamiliarRequest;
 import net.sourceforge.kolmafia.request.GenericRequest;
+import net.sourceforge.kolmafia.request.GetRequestPipeline;
 import net.sourceforge.kolmafia.request.MonsterManuelRequest;
 import net.sourceforge.kolmafia.request.StorageRequest;
 import net.sourceforge.kolmafia.request.StorageRequest.StorageRequestType;
@@ -268,6 +270,7 @@ public class DebugDatabase {
 
   private static void checkItems(final PrintStream report) {
     Set<Integer> keys = ItemDatabase.descriptionIdKeySet();
+    DebugDatabase.prefetchItemDescriptions(keys);
     int lastId = 0;
 
     for (Integer id : keys) {
@@ -437,6 +440,37 @@ public class DebugDatabase {
         ItemDatabase.itemString(itemId, name, descId, image, type, attrs, access, price, plural));
   }
 
+  /**
+   * Fetches the descriptions of those items which have none saved, several at a time, so that
+   * checking or deriving them all need not wait for each description in turn.
+   */
+  public static void prefetchItemDescriptions(final Collection<Integer> itemIds) {
+    Map<Integer, String> paths = new LinkedHashMap<>();
+    for (Integer id : itemIds) {
+      String descId = ItemDatabase.getDescriptionId(id);
+      if (id > 0 && descId != null && !descId.isEmpty() && isMissing(rawItems.get(id))) {
+        paths.put(id, "desc_item.php?whichitem=" + descId);
+      }
+    }
+    DebugDatabase.prefetch(paths, DebugDatabase.rawItems);
+  }
+
+  private static boolean isMissing(final String rawText) {
+    return rawText == null || rawText.isEmpty();
+  }
+
+  // Descriptions which cannot be fetched here are left for the usual request to try again
+  private static void prefetch(final Map<Integer, String> paths, final Map<Integer, String> raw) {
+    if (paths.size() < 2) {
+      return;
+    }
+
+    RequestLogger.printLine("Fetching " + paths.size() + " descriptions...");
+    try (GetRequestPipeline pipeline = GetRequestPipeline.forSession()) {
+      raw.putAll(pipeline.fetchAll(paths));
+    }
+  }
+
   public static String itemDescriptionText(final int itemId, boolean forceReload) {
     return DebugDatabase.itemDescriptionText(
         DebugDatabase.rawItemDescriptionText(ItemDatabase.getDescriptionId(itemId), forceReload));
@@ -1789,6 +1823,15 @@ public class DebugDatabase {
             .map(Entry::getKey)
             .collect(Collectors.toCollection(LinkedHashSet::new));
 
+    Map<Integer, String> paths = new LinkedHashMap<>();
+    for (Integer id : keys) {
+      String descId = EffectDatabase.getDescriptionId(id);
+      if (id > 0 && descId != null && !descId.isEmpty() && isMissing(rawEffects.get(id))) {
+        paths.put(id, "desc_effect.php?whicheffect=" + descId);
+      }
+    }
+    DebugDatabase.prefetch(paths, DebugDatabase.rawEffects);
+
     for (Integer key : keys) {
       int id = key;
       if (id < 1) {
@@ -2025,6 +2068,15 @@ public class DebugDatabase {
 
   private static void checkSkills(final PrintStream report) {
     Set<Integer> keys = SkillDatabase.idKeySet();
+
+    Map<Integer, String> paths = new LinkedHashMap<>();
+    for (Integer id : keys) {
+      if (id > 0 && isMissing(rawSkills.get(id))) {
+        paths.put(id, "desc_skill.php?whichskill=" + id + "&self=true");
+      }
+    }
+    DebugDatabase.prefetch(paths, DebugDatabase.rawSkills);
+
     for (Integer value : keys) {
       int id = value;
       if (id < 1) {
@@ -76,8 +76,14 @@ public class EffectDatabase {
       StaticEntity.printStackTrace(e);
     }
 
-    EffectDatabase.canonicalNames = new String[EffectDatabase.effectIdSetByName.size()];
-    EffectDatabase.effectIdSetByName.keySet().toArray(EffectDatabase.canonicalNames);
+    EffectDatabase.saveCanonicalNames();
+  }
+
+  private static void saveCanonicalNames() {
+    // Replace rather than refill the array, so that searches index the new names
+    String[] newArray = new String[EffectDatabase.effectIdSetByName.size()];
+    EffectDatabase.effectIdSetByName.keySet().toArray(newArray);
+    EffectDatabase.canonicalNames = newArray;
   }
 
   private static void addIdToName(String canonicalName, int itemId) {
@@ -487,6 +493,7 @@ public class EffectDatabase {
     Integer id = effectId;
 
     EffectDatabase.addIdToName(canonicalName, id);
+    EffectDatabase.saveCanonicalNames();
     // if defaultAction is null, we want to keep the existing action
     var existing = EffectDatabase.getEffectData(id);
     if (existing == null) {
@@ -4,6 +4,7 @@ import static net.sourceforge.kolmafia.session.StoreManager.MALL_MAX;
 
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -18,8 +19,12 @@ import java.net.http.HttpResponse.BodyHandlers;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
 import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import net.java.dev.spellcast.utilities.DataUtilities;
@@ -33,14 +38,31 @@ import net.sourceforge.kolmafia.utilities.FileUtilities;
 import net.sourceforge.kolmafia.utilities.HttpUtilities;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
+/**
+ * Mall prices, by item id, with the time each was recorded.
+ *
+ * <p>mallprices.txt is kept as a log. The first time prices are saved in a session the whole file
+ * is written out, and after that each newly recorded price is appended to it. A price appended
+ * for an item which is already in the file supersedes the earlier line, since lines are read in
+ * order and later timestamps win. Once the file holds as many superseded lines as current ones, it
+ * is written out again.
+ */
 public class MallPriceDatabase {
   // If false, blocks saving of mall prices. Do not modify outside of tests.
   public static boolean savePricesToFile = true;
 
-  private static final SortedMap<Integer, Price> prices = new TreeMap<>();
+  private static final SortedMap<Integer, Price> prices = new ConcurrentSkipListMap<>();
+
+  // Items whose prices have been recorded since they were last saved
+  private static final Set<Integer> unsaved = ConcurrentHashMap.newKeySet();
+
+  // Lines appended to the price file since it was last written out, or -1 if it has not been
+  // written out in this session
+  private static int appendedLines = -1;
+
   private static final HashSet<String> updated = new HashSet<>();
   private static final HashSet<String> submitted = new HashSet<>();
-  private static int modCount = 0;
+  private static final AtomicInteger modCount = new AtomicInteger();
 
   public static final File PRICE_FILE = new File(KoLConstants.DATA_LOCATION, "mallprices.txt");
 
@@ -48,7 +70,7 @@ public class MallPriceDatabase {
 
   static {
     updatePricesFromSource("mallprices.txt");
-    MallPriceDatabase.modCount = 0;
+    MallPriceDatabase.modCount.set(0);
   }
 
   private MallPriceDatabase() {}
@@ -88,15 +110,14 @@ public class MallPriceDatabase {
         }
 
         if (!ItemDatabase.isTradeable(id)) continue;
+        // Prices appended later in the file supersede earlier ones
         Price p = MallPriceDatabase.prices.get(id);
-        if (p == null) {
+        if (p == null || timestamp >= p.timestamp) {
           MallPriceDatabase.prices.put(id, new Price(id, price, timestamp));
-        } else if (timestamp > p.timestamp) {
-          p.update(price, timestamp);
         }
         MallPriceManager.cachePriceIfFromCurrentRolloverDay(id, price, timestamp);
         ++count;
-        ++MallPriceDatabase.modCount;
+        MallPriceDatabase.modCount.incrementAndGet();
       }
     } catch (IOException e) {
       StaticEntity.printStackTrace(e);
@@ -143,43 +164,69 @@ public class MallPriceDatabase {
     }
   }
 
+  /**
+   * Records a price for an item. Unless deferred, the price is saved at once; deferred prices are
+   * saved by the next call to {@link #savePrices}.
+   */
   public static void recordPrice(int itemId, long price, boolean deferred) {
     long timestamp = MallPriceManager.currentTimeMillis() / 1000L;
-    Price p = MallPriceDatabase.prices.get(itemId);
-    if (p == null) {
-      MallPriceDatabase.prices.put(itemId, new Price(itemId, price, timestamp));
-    } else {
-      p.update(price, timestamp);
-    }
-    ++MallPriceDatabase.modCount;
+    MallPriceDatabase.prices.put(itemId, new Price(itemId, price, timestamp));
+    MallPriceDatabase.unsaved.add(itemId);
+    MallPriceDatabase.modCount.incrementAndGet();
     if (!deferred) {
+      MallPriceDatabase.savePrices();
+    }
+  }
+
+  /** Saves the prices recorded since they were last saved, appending them to the price file. */
+  public static synchronized void savePrices() {
+    if (!MallPriceDatabase.savePricesToFile || MallPriceDatabase.unsaved.isEmpty()) {
+      return;
+    }
+
+    int count = MallPriceDatabase.unsaved.size();
+    if (MallPriceDatabase.appendedLines == -1
+        || MallPriceDatabase.appendedLines + count > MallPriceDatabase.prices.size()
+        || !PRICE_FILE.exists()) {
       MallPriceDatabase.writePrices();
+      return;
+    }
+
+    try (PrintStream writer =
+        new PrintStream(
+            new BufferedOutputStream(DataUtilities.getOutputStream(PRICE_FILE, true)), false)) {
+      Iterator<Integer> it = MallPriceDatabase.unsaved.iterator();
+      while (it.hasNext()) {
+        Price p = MallPriceDatabase.prices.get(it.next());
+        it.remove();
+        if (p != null) {
+          writer.write(p.encoded, 0, p.encoded.length);
+          ++MallPriceDatabase.appendedLines;
+        }
+      }
     }
   }
 
-  public static void writePrices() {
+  /** Writes out every price, replacing the price file. */
+  public static synchronized void writePrices() {
     if (!MallPriceDatabase.savePricesToFile) {
       return;
     }
 
+    // Prices recorded while the file is being written will be saved again, which is harmless
+    MallPriceDatabase.unsaved.clear();
     try (PrintStream writer =
         new PrintStream(
             new BufferedOutputStream(DataUtilities.getOutputStream(PRICE_FILE)), false)) {
       writePrices(writer);
     }
+    MallPriceDatabase.appendedLines = 0;
   }
 
   static void writePrices(PrintStream writer) {
     writer.println(KoLConstants.MALLPRICES_VERSION);
 
-    MallPriceDatabase.prices.entrySet().stream()
-        .forEach(
-            entry -> {
-              Price p = entry.getValue();
-              if (p != null) {
-                writer.writeBytes(p.encoded);
-              }
-            });
+    MallPriceDatabase.prices.values().forEach(p -> writer.write(p.encoded, 0, p.encoded.length));
   }
 
   public static void submitPrices(String url) {
@@ -188,7 +235,7 @@ public class MallPriceDatabase {
       return;
     }
 
-    if (MallPriceDatabase.modCount == 0) {
+    if (MallPriceDatabase.modCount.get() == 0) {
       RequestLogger.printLine("You have no updated price data to submit.");
       return;
     }
@@ -240,15 +287,12 @@ public class MallPriceDatabase {
     builder.append(
         "Content-Disposition: form-data; name=\"upload\"; filename=\"mallprices.txt\"\r\n\r\n");
 
-    try (BufferedReader reader = FileUtilities.getReader("mallprices.txt")) {
-      String line;
-      while ((line = FileUtilities.readLine(reader)) != null) {
-        builder.append(line);
-        builder.append('\n');
-      }
-    } catch (IOException e) {
-      StaticEntity.printStackTrace(e);
+    // Send the current prices rather than the file, which may hold superseded ones
+    var prices = new ByteArrayOutputStream();
+    try (PrintStream writer = new PrintStream(prices, false, StandardCharsets.UTF_8)) {
+      writePrices(writer);
     }
+    builder.append(prices.toString(StandardCharsets.UTF_8).replace(KoLConstants.LINE_BREAK, "\n"));
     builder.append("\r\n----blahblahfishcakes--\r\n");
     return builder.toString();
   }
@@ -266,21 +310,15 @@ public class MallPriceDatabase {
   }
 
   private static class Price {
-    int id;
-    long price;
-    long timestamp;
-    byte[] encoded;
+    final long price;
+    final long timestamp;
+    final byte[] encoded;
 
     public Price(int id, long price, long timestamp) {
-      this.id = id;
-      this.update(price, timestamp);
-    }
-
-    public void update(long price, long timestamp) {
       this.price = price;
       this.timestamp = timestamp;
       this.encoded =
-          (this.id + "\t" + this.timestamp + "\t" + this.price + KoLConstants.LINE_BREAK)
+          (id + "\t" + timestamp + "\t" + price + KoLConstants.LINE_BREAK)
               .getBytes(StandardCharsets.UTF_8);
     }
   }
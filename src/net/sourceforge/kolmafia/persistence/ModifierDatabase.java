@@ -452,10 +452,19 @@ public class ModifierDatabase {
       modifiers.variable = modifiers.override(lookup);
       modifiers.applyPathModifiers();
 
+      if (Modifiers.inSpeculationContext()) {
+        // Speculating threads leave the shared cache alone.
+        return shieldDamageReduction(type, key, modifiers);
+      }
+
       modifiersByName.put(type, key, modifiers);
     }
 
     if (modifiers.variable) {
+      if (Modifiers.inSpeculationContext()) {
+        // Recalculate a private copy rather than the instance other threads are reading.
+        modifiers = modifiers.detachedCopy();
+      }
       modifiers.override(lookup);
       if (originalType != null) {
         modifiers.setLookup(new Lookup(originalType, key));
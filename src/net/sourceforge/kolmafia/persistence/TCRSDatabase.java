@@ -279,6 +279,8 @@ public class TCRSDatabase {
       KoLmafia.updateDisplay("Deriving TCRS item adjustments for all real items...");
     }
 
+    DebugDatabase.prefetchItemDescriptions(keys);
+
     List<Runnable> actions = new ArrayList<>();
 
     for (Integer id : keys) {
@@ -54,12 +54,14 @@ public class Preferences {
   private static final SortedMap<String, byte[]> globalEncodedValues =
       Collections.synchronizedSortedMap(new TreeMap<>());
   private static File globalPropertiesFile = null;
+  private static PreferencesJournal globalJournal = null;
 
   private static final HashMap<String, String> userNames = new HashMap<>();
   private static final Map<String, Object> userValues = new ConcurrentHashMap<>();
   private static final SortedMap<String, byte[]> userEncodedValues =
       Collections.synchronizedSortedMap(new TreeMap<>());
   private static File userPropertiesFile = null;
+  private static PreferencesJournal userJournal = null;
 
   private static final Set<String> defaultsSet = new HashSet<>();
   private static final Set<String> perUserGlobalSet = new HashSet<>();
@@ -165,13 +167,15 @@ public class Preferences {
   public static synchronized void reset(String username) {
     // We might not have been tracking encoded values here before this save. Fix that.
     Preferences.reinitializeEncodedValues();
-    Preferences.saveToFile(Preferences.globalPropertiesFile, Preferences.globalEncodedValues);
+    Preferences.globalJournal.compact();
     // Prevent anybody from manipulating the user map until we are
     // done bulk-loading it.
     synchronized (Preferences.userValues) {
       if (username == null || username.isEmpty()) {
         if (Preferences.userPropertiesFile != null) {
-          Preferences.saveToFile(Preferences.userPropertiesFile, Preferences.userEncodedValues);
+          Preferences.userJournal.compact();
+          Preferences.userJournal.close();
+          Preferences.userJournal = null;
           Preferences.userPropertiesFile = null;
           Preferences.userValues.clear();
           Preferences.userEncodedValues.clear();
@@ -201,9 +205,12 @@ public class Preferences {
         new File(KoLConstants.SETTINGS_LOCATION, Preferences.baseUserName("") + "_prefs.txt");
     File backupFile =
         new File(KoLConstants.SETTINGS_LOCATION, Preferences.baseUserName("") + "_prefs.bak");
+    File journalFile =
+        new File(KoLConstants.SETTINGS_LOCATION, Preferences.baseUserName("") + "_prefs.journal");
     Preferences.globalPropertiesFile = file;
 
     Properties p = Preferences.loadPreferencesWithBackup(file, backupFile);
+    boolean replayed = PreferencesJournal.replay(journalFile, p);
     Preferences.globalValues.clear();
     Preferences.globalEncodedValues.clear();
 
@@ -231,6 +238,17 @@ public class Preferences {
         Preferences.putGlobal(key, value);
       }
     }
+
+    Preferences.globalJournal =
+        new PreferencesJournal(
+            journalFile,
+            Preferences.lock,
+            () -> Preferences.saveToFile(file, Preferences.globalEncodedValues));
+
+    // Fold any journal left behind by an unclean exit back into the preferences file
+    if (replayed) {
+      Preferences.globalJournal.compact();
+    }
   }
 
   private static void loadUserPreferences(String username) {
@@ -238,9 +256,18 @@ public class Preferences {
         new File(KoLConstants.SETTINGS_LOCATION, Preferences.baseUserName(username) + "_prefs.txt");
     File backupFile =
         new File(KoLConstants.SETTINGS_LOCATION, Preferences.baseUserName(username) + "_prefs.bak");
+    File journalFile =
+        new File(
+            KoLConstants.SETTINGS_LOCATION, Preferences.baseUserName(username) + "_prefs.journal");
 
     synchronized (lock) {
+      if (Preferences.userJournal != null) {
+        Preferences.userJournal.close();
+        Preferences.userJournal = null;
+      }
+
       Properties p = Preferences.loadPreferencesWithBackup(userPrefsFile, backupFile);
+      boolean replayed = PreferencesJournal.replay(journalFile, p);
 
       Preferences.userPropertiesFile = null;
       Preferences.userValues.clear();
@@ -275,6 +302,16 @@ public class Preferences {
       }
 
       Preferences.userPropertiesFile = userPrefsFile;
+      Preferences.userJournal =
+          new PreferencesJournal(
+              journalFile,
+              Preferences.lock,
+              () -> Preferences.saveToFile(userPrefsFile, Preferences.userEncodedValues));
+
+      // Fold any journal left behind by an unclean exit back into the preferences file
+      if (replayed) {
+        Preferences.userJournal.compact();
+      }
     }
   }
 
@@ -533,7 +570,7 @@ public class Preferences {
         if (trackEncoded) Preferences.userEncodedValues.remove(name);
       }
     }
-    Preferences.maybeSaveToFileAfterUpdating(trackEncoded, name);
+    Preferences.maybeSaveToFileAfterUpdating(trackEncoded, null, name);
     PreferenceListenerRegistry.firePreferenceChanged(name);
   }
 
@@ -869,7 +906,15 @@ public class Preferences {
     }
 
     Preferences.put(user, name, object, trackEncoded);
-    Preferences.maybeSaveToFileAfterUpdating(trackEncoded, name);
+    Preferences.maybeSaveToFileAfterUpdating(trackEncoded, user, name);
+
+    // Leaving journal mode writes out everything that is still only in a journal
+    if (name.equals("saveSettingsToJournal") && !Boolean.parseBoolean(value)) {
+      Preferences.globalJournal.compact();
+      if (Preferences.userJournal != null) {
+        Preferences.userJournal.compact();
+      }
+    }
 
     PreferenceListenerRegistry.firePreferenceChanged(name);
 
@@ -912,16 +957,42 @@ public class Preferences {
     }
   }
 
-  private static void maybeSaveToFileAfterUpdating(boolean enable, String updatedProperty) {
+  private static void maybeSaveToFileAfterUpdating(
+      boolean enable, String user, String updatedProperty) {
     if (enable) {
       if (Preferences.isGlobalProperty(updatedProperty)) {
-        Preferences.saveToFile(Preferences.globalPropertiesFile, Preferences.globalEncodedValues);
+        Preferences.saveChange(
+            Preferences.globalPropertiesFile,
+            Preferences.globalEncodedValues,
+            Preferences.globalJournal,
+            Preferences.propertyName(user, updatedProperty));
       } else if (Preferences.userPropertiesFile != null) {
-        Preferences.saveToFile(Preferences.userPropertiesFile, Preferences.userEncodedValues);
+        Preferences.saveChange(
+            Preferences.userPropertiesFile,
+            Preferences.userEncodedValues,
+            Preferences.userJournal,
+            updatedProperty);
       }
     }
   }
 
+  private static void saveChange(
+      File file, Map<String, byte[]> encodedData, PreferencesJournal journal, String key) {
+    if (journal == null || !Preferences.getBoolean("saveSettingsToJournal")) {
+      Preferences.saveToFile(file, encodedData);
+      return;
+    }
+
+    // Append just this property to the journal rather than rewriting the whole file
+    byte[] line = encodedData.get(key);
+    if (line == null) {
+      line =
+          PreferencesJournal.removal(
+              Preferences.encodeProperty(key, "").getBytes(StandardCharsets.UTF_8));
+    }
+    journal.record(key, line);
+  }
+
   private static String propertyName(final String user, final String name) {
     return user == null ? name : name + "." + Preferences.baseUserName(user);
   }
@@ -0,0 +1,228 @@
+package net.sourceforge.kolmafia.preferences;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import net.sourceforge.kolmafia.utilities.FileUtilities;
+
+/**
+ * An append-only record of preference changes made since a preferences file was last written in
+ * full.
+ *
+ * <p>Each record is one line in the preferences file format, so replaying a journal is a matter of
+ * loading its lines over the preferences file in order. Removed properties are recorded as a
+ * comment line naming the property. Changes are coalesced per property and appended by a
+ * background writer; once enough records have accumulated, the preferences file is rewritten and
+ * the journal deleted.
+ *
+ * <p>The preferences file is only ever rewritten before its journal is deleted, so a crash at any
+ * point leaves either a journal to replay or a complete preferences file. A torn journal write can
+ * only damage its last line, which replay discards the same way a corrupt preferences file is
+ * truncated to its last good line.
+ */
+final class PreferencesJournal {
+  private static final String REMOVED = "#removed ";
+  private static final long COALESCE_MILLIS = 250;
+  private static final int COMPACT_AFTER = 1000;
+
+  private static final ScheduledExecutorService writer =
+      Executors.newSingleThreadScheduledExecutor(
+          r -> {
+            Thread thread = new Thread(r, "PreferencesJournal");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final File journalFile;
+  private final Object ioLock;
+  private final Runnable compactor;
+
+  // Guarded by this
+  private final Map<String, byte[]> pending = new LinkedHashMap<>();
+  private boolean scheduled = false;
+  private boolean closed = false;
+
+  // Guarded by ioLock
+  private int records = 0;
+
+  /**
+   * @param journalFile The journal to append to
+   * @param ioLock The lock held while writing either the journal or the preferences file
+   * @param compactor Rewrites the preferences file in full from the current values
+   */
+  PreferencesJournal(final File journalFile, final Object ioLock, final Runnable compactor) {
+    this.journalFile = journalFile;
+    this.ioLock = ioLock;
+    this.compactor = compactor;
+  }
+
+  static byte[] removal(final byte[] encodedName) {
+    byte[] prefix = REMOVED.getBytes(StandardCharsets.UTF_8);
+    byte[] line = Arrays.copyOf(prefix, prefix.length + encodedName.length);
+    System.arraycopy(encodedName, 0, line, prefix.length, encodedName.length);
+    return line;
+  }
+
+  /** Queues one encoded preferences line, replacing any pending line for the same property. */
+  synchronized void record(final String name, final byte[] line) {
+    if (this.closed) {
+      return;
+    }
+
+    this.pending.remove(name);
+    this.pending.put(name, line);
+
+    if (!this.scheduled) {
+      this.scheduled = true;
+      PreferencesJournal.writer.schedule(this::flush, COALESCE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** Appends all pending lines to the journal, compacting if it has grown long enough. */
+  void flush() {
+    List<byte[]> lines;
+    synchronized (this) {
+      this.scheduled = false;
+      if (this.closed || this.pending.isEmpty()) {
+        return;
+      }
+      lines = new ArrayList<>(this.pending.values());
+      this.pending.clear();
+    }
+
+    synchronized (this.ioLock) {
+      if (!Preferences.saveSettingsToFile || this.isClosed()) {
+        return;
+      }
+
+      try (OutputStream ostream =
+          new BufferedOutputStream(new FileOutputStream(this.journalFile, true))) {
+        for (byte[] line : lines) {
+          ostream.write(line);
+        }
+        this.records += lines.size();
+      } catch (IOException e) {
+        System.out.println(e.getMessage() + " trying to append to preferences journal.");
+        // Fall back to writing everything, so that nothing is lost
+        this.records = COMPACT_AFTER;
+      }
+
+      if (this.records >= COMPACT_AFTER) {
+        this.compact();
+      }
+    }
+  }
+
+  /** Rewrites the preferences file in full and discards the journal. */
+  void compact() {
+    if (!Preferences.saveSettingsToFile) {
+      return;
+    }
+
+    synchronized (this.ioLock) {
+      // Anything recorded after this point is newer than the rewrite and stays pending
+      synchronized (this) {
+        this.pending.clear();
+      }
+
+      this.compactor.run();
+      this.delete();
+    }
+  }
+
+  /**
+   * Stops recording. If anything was recorded since the last compaction, the preferences file is
+   * rewritten first.
+   */
+  void close() {
+    synchronized (this.ioLock) {
+      boolean dirty;
+      synchronized (this) {
+        dirty = !this.pending.isEmpty() || this.journalFile.exists();
+        this.closed = true;
+      }
+
+      if (dirty && Preferences.saveSettingsToFile) {
+        this.compactor.run();
+        this.delete();
+      }
+    }
+  }
+
+  private synchronized boolean isClosed() {
+    return this.closed;
+  }
+
+  private void delete() {
+    if (this.journalFile.exists() && !this.journalFile.delete()) {
+      System.out.println("Unable to delete preferences journal " + this.journalFile);
+    }
+    this.records = 0;
+  }
+
+  /**
+   * Applies every complete record in the given journal to the given properties, in order.
+   *
+   * @return true if the journal existed and was read
+   */
+  static boolean replay(final File journalFile, final Properties properties) {
+    if (!journalFile.exists()) {
+      return false;
+    }
+
+    byte[] bytes;
+    try {
+      bytes =
+          FileUtilities.truncateToLastGoodLineBeforeNullByte(
+              Files.readAllBytes(journalFile.toPath()));
+    } catch (IOException e) {
+      System.out.println(e.getMessage() + " trying to replay preferences journal.");
+      return false;
+    }
+
+    int start = 0;
+    for (int i = 0; i < bytes.length; ++i) {
+      // A final line without a line break may have been torn, so only complete lines count
+      if (bytes[i] != '\n') {
+        continue;
+      }
+
+      String line = new String(bytes, start, i + 1 - start, StandardCharsets.UTF_8);
+      start = i + 1;
+
+      boolean removed = line.startsWith(REMOVED);
+      Properties record = new Properties();
+      try (InputStream istream =
+          new ByteArrayInputStream(
+              (removed ? line.substring(REMOVED.length()) : line)
+                  .getBytes(StandardCharsets.UTF_8))) {
+        record.load(istream);
+      } catch (IOException | IllegalArgumentException e) {
+        continue;
+      }
+
+      if (removed) {
+        record.keySet().forEach(properties::remove);
+      } else {
+        properties.putAll(record);
+      }
+    }
+
+    return true;
+  }
+}
@@ -125,7 +125,6 @@ import net.sourceforge.kolmafia.webui.DiscoCombatHelper;
 import net.sourceforge.kolmafia.webui.HobopolisDecorator;
 import net.sourceforge.kolmafia.webui.NemesisDecorator;
 import net.sourceforge.kolmafia.webui.VillainLairDecorator;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Comment;
 import org.jsoup.nodes.Element;
 import org.jsoup.nodes.Node;
@@ -6370,8 +6369,9 @@ public class FightRequest extends GenericRequest {
   }
 
   private static Element cleanFightHTML(final String text) {
-    // Clean the HTML on this fight response page
-    return Jsoup.parse(text);
+    // Clean the HTML on this fight response page. Processing strips nodes from it as it goes, so
+    // it gets a copy of its own.
+    return ParsedResponse.of(text).copyDocument();
   }
 
   private static Element findMonsterTag(final Element node, final boolean logIt) {
@@ -31,6 +31,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -213,7 +214,13 @@ public class GenericRequest implements Runnable {
     }
   }
 
-  private Builder getRequestBuilder(URI uri) {
+  /** Sends a request on the shared client without waiting for its response. */
+  static <T> CompletableFuture<HttpResponse<T>> sendAsync(
+      HttpRequest request, HttpResponse.BodyHandler<T> handler) {
+    return getClient().sendAsync(request, handler);
+  }
+
+  Builder getRequestBuilder(URI uri) {
     var builder = HttpRequest.newBuilder(uri);
 
     if (!this.isExternalRequest && GenericRequest.sessionId != null) {
@@ -0,0 +1,283 @@
+package net.sourceforge.kolmafia.request;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import net.sourceforge.kolmafia.KoLmafia;
+import net.sourceforge.kolmafia.RequestLogger;
+import net.sourceforge.kolmafia.StaticEntity;
+import net.sourceforge.kolmafia.preferences.Preferences;
+
+/**
+ * Fetches many read-only pages at once, such as item, effect and skill descriptions.
+ *
+ * <p>A GenericRequest waits for each response before the next request can be sent, and processes
+ * everything it gets back. Pages fetched here are only returned as text, so any number of them can
+ * be in flight at once over the shared HttpClient. A single dispatcher thread sends them, never
+ * more than maxInFlight at a time and never faster than requestsPerSecond, so a bulk fetch does
+ * not flood the server. A request which fails, or to which the server responds that it is busy, is
+ * tried again after a delay which doubles with each attempt.
+ *
+ * <p>Each distinct path is only fetched once for the life of the pipeline.
+ *
+ * <p>Only use this for GET requests which change nothing on the server or in the session: the
+ * responses are not processed, and any cookies they set are ignored.
+ */
+public class GetRequestPipeline implements AutoCloseable {
+  /** Sends a request, completing with its response. */
+  @FunctionalInterface
+  public interface Sender {
+    CompletableFuture<HttpResponse<byte[]>> send(HttpRequest request);
+  }
+
+  public record Limits(int maxInFlight, double requestsPerSecond, int maxAttempts, long backoff) {
+    /** The limits set by the bulkRequestThreads and bulkRequestsPerSecond preferences. */
+    public static Limits fromPreferences() {
+      return new Limits(
+          Math.max(1, Preferences.getInteger("bulkRequestThreads")),
+          Math.max(0.1, Preferences.getDouble("bulkRequestsPerSecond")),
+          3,
+          500);
+    }
+  }
+
+  private final URI root;
+  private final Function<URI, HttpRequest.Builder> newRequest;
+  private final Sender sender;
+  private final Limits limits;
+
+  private final Map<String, CompletableFuture<String>> pages = new ConcurrentHashMap<>();
+  private final DelayQueue<Attempt> queue = new DelayQueue<>();
+  private final Semaphore inFlight;
+  private final TokenBucket tokens;
+  private final Thread dispatcher;
+  private volatile boolean closed = false;
+
+  public GetRequestPipeline(
+      final URI root,
+      final Function<URI, HttpRequest.Builder> newRequest,
+      final Sender sender,
+      final Limits limits) {
+    this.root = root;
+    this.newRequest = newRequest;
+    this.sender = sender;
+    this.limits = limits;
+    this.inFlight = new Semaphore(limits.maxInFlight());
+    this.tokens = new TokenBucket(limits.requestsPerSecond(), limits.maxInFlight());
+    this.dispatcher = new Thread(this::dispatch, "GetRequestPipeline");
+    this.dispatcher.setDaemon(true);
+    this.dispatcher.start();
+  }
+
+  /** A pipeline to the KoL server, sending the session's cookies over the shared client. */
+  public static GetRequestPipeline forSession() {
+    GenericRequest headers = new GenericRequest("desc_item.php", false);
+    return new GetRequestPipeline(
+        URI.create("https://" + GenericRequest.KOL_HOST + "/"),
+        headers::getRequestBuilder,
+        request -> GenericRequest.sendAsync(request, BodyHandlers.ofByteArray()),
+        Limits.fromPreferences());
+  }
+
+  /**
+   * Starts fetching a page, relative to the root, unless it has already been requested. The
+   * result is the text of the page, or null if it could not be fetched.
+   */
+  public CompletableFuture<String> fetch(final String path) {
+    return this.pages.computeIfAbsent(
+        path,
+        k -> {
+          CompletableFuture<String> result = new CompletableFuture<>();
+          this.enqueue(new Attempt(path, result, 1, 0));
+          return result;
+        });
+  }
+
+  /**
+   * Fetches a page for each key and waits for all of them. Keys whose page could not be fetched are
+   * left out of the result.
+   */
+  public <K> Map<K, String> fetchAll(final Map<K, String> paths) {
+    Map<K, CompletableFuture<String>> futures = new LinkedHashMap<>();
+    paths.forEach((key, path) -> futures.put(key, this.fetch(path)));
+
+    Map<K, String> results = new LinkedHashMap<>();
+    int received = 0;
+    for (var entry : futures.entrySet()) {
+      String text;
+      try {
+        text = entry.getValue().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException e) {
+        StaticEntity.printStackTrace(e.getCause());
+        continue;
+      }
+      if (text != null) {
+        results.put(entry.getKey(), text);
+      }
+      if (++received % 100 == 0) {
+        KoLmafia.updateDisplay("Progress: " + received + "/" + futures.size());
+      }
+    }
+    return results;
+  }
+
+  /** Stops sending requests. Pages not yet sent complete with null. */
+  @Override
+  public void close() {
+    this.closed = true;
+    this.dispatcher.interrupt();
+  }
+
+  private void dispatch() {
+    Attempt attempt = null;
+    try {
+      while (!this.closed) {
+        attempt = this.queue.take();
+        this.tokens.acquire();
+        this.inFlight.acquire();
+        this.send(attempt);
+        attempt = null;
+      }
+    } catch (InterruptedException e) {
+      // Closed
+    } finally {
+      List<Attempt> pending = new ArrayList<>();
+      if (attempt != null) {
+        pending.add(attempt);
+      }
+      pending.addAll(this.queue);
+      this.queue.clear();
+      pending.forEach(waiting -> waiting.result().complete(null));
+    }
+  }
+
+  private void enqueue(final Attempt attempt) {
+    this.queue.add(attempt);
+    // The dispatcher may already have stopped, and with it anything that would take this
+    if (this.closed) {
+      attempt.result().complete(null);
+    }
+  }
+
+  private void send(final Attempt attempt) {
+    CompletableFuture<HttpResponse<byte[]>> response;
+    try {
+      HttpRequest request =
+          this.newRequest.apply(this.root.resolve(attempt.path())).GET().build();
+      response = this.sender.send(request);
+    } catch (RuntimeException e) {
+      response = CompletableFuture.failedFuture(e);
+    }
+    response.whenComplete(
+        (reply, error) -> {
+          this.inFlight.release();
+          this.received(attempt, reply, error);
+        });
+  }
+
+  private void received(
+      final Attempt attempt, final HttpResponse<byte[]> reply, final Throwable error) {
+    String failure;
+    boolean retry;
+    if (error != null) {
+      failure = error.toString();
+      retry = true;
+    } else if (reply.statusCode() == 200) {
+      try {
+        attempt.result().complete(decode(reply));
+        return;
+      } catch (IOException e) {
+        failure = e.toString();
+        retry = true;
+      }
+    } else {
+      failure = "HTTP " + reply.statusCode();
+      // The server is busy or unwell. Anything else will not change if we ask again.
+      retry = reply.statusCode() == 429 || reply.statusCode() >= 500;
+    }
+
+    if (retry && !this.closed && attempt.number() < this.limits.maxAttempts()) {
+      long delay = this.limits.backoff() << (attempt.number() - 1);
+      this.enqueue(
+          new Attempt(
+              attempt.path(),
+              attempt.result(),
+              attempt.number() + 1,
+              System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay)));
+      return;
+    }
+
+    RequestLogger.printLine("Could not fetch " + attempt.path() + " (" + failure + ")");
+    attempt.result().complete(null);
+  }
+
+  private static String decode(final HttpResponse<byte[]> reply) throws IOException {
+    byte[] body = reply.body();
+    if ("gzip".equals(reply.headers().firstValue("Content-Encoding").orElse(""))) {
+      try (var istream = new GZIPInputStream(new ByteArrayInputStream(body))) {
+        body = istream.readAllBytes();
+      }
+    }
+    return new String(body, StandardCharsets.UTF_8);
+  }
+
+  private record Attempt(String path, CompletableFuture<String> result, int number, long readyAt)
+      implements Delayed {
+    @Override
+    public long getDelay(final TimeUnit unit) {
+      return unit.convert(this.readyAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(final Delayed o) {
+      return Long.compare(this.getDelay(TimeUnit.NANOSECONDS), o.getDelay(TimeUnit.NANOSECONDS));
+    }
+  }
+
+  /** Hands out permits at a steady rate, allowing short bursts of up to its capacity. */
+  static class TokenBucket {
+    private final double perNano;
+    private final double capacity;
+    private double available;
+    private long last = System.nanoTime();
+
+    TokenBucket(final double perSecond, final int capacity) {
+      this.perNano = perSecond / TimeUnit.SECONDS.toNanos(1);
+      this.capacity = capacity;
+      this.available = capacity;
+    }
+
+    synchronized void acquire() throws InterruptedException {
+      while (true) {
+        long now = System.nanoTime();
+        this.available = Math.min(this.capacity, this.available + (now - this.last) * this.perNano);
+        this.last = now;
+        if (this.available >= 1) {
+          this.available -= 1;
+          return;
+        }
+        TimeUnit.NANOSECONDS.sleep((long) Math.ceil((1 - this.available) / this.perNano));
+      }
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package net.sourceforge.kolmafia.request;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+import net.sourceforge.kolmafia.KoLConstants;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * A response from the server, parsed only as far as its consumers need, and only once.
+ *
+ * <p>A response is scanned by many consumers: the result processor strips its tags into lines of
+ * plain text and looks for item and effect tables, choice handling looks for forms, fights build a
+ * DOM, and the relay browser's decorators look for items and effects all over again. Each of them
+ * asks this view instead, which does the work the first time it is asked and remembers it.
+ *
+ * <p>Consumers are mostly handed the response text rather than the request, so views are found by
+ * the identity of that text: {@link #of} returns the same view for the same String while that
+ * response is still among the last few viewed. A different String with the same contents, such as
+ * a fragment or an edited copy of the page, gets a view of its own.
+ */
+public class ParsedResponse {
+  private static final int RECENT_RESPONSES = 4;
+
+  // The most recently viewed responses, most recent first
+  private static final ParsedResponse[] recent = new ParsedResponse[RECENT_RESPONSES];
+
+  private final String text;
+  private final Map<Pattern, List<MatchResult>> matches = new ConcurrentHashMap<>();
+  private String plainText;
+  private List<String> plainTextLines;
+  private Document document;
+
+  ParsedResponse(final String text) {
+    this.text = text;
+  }
+
+  /** Returns the view of this response text, creating it if it was not viewed recently. */
+  public static ParsedResponse of(final String text) {
+    synchronized (recent) {
+      int index = 0;
+      while (index < RECENT_RESPONSES - 1
+          && recent[index] != null
+          && recent[index].text != text) {
+        ++index;
+      }
+
+      ParsedResponse view = recent[index];
+      if (view == null || view.text != text) {
+        view = new ParsedResponse(text);
+      }
+
+      System.arraycopy(recent, 0, recent, 1, index);
+      recent[0] = view;
+      return view;
+    }
+  }
+
+  public String getText() {
+    return this.text;
+  }
+
+  /**
+   * The response with its head removed and every tag but italics replaced by a line break, as the
+   * result processor reads it.
+   */
+  public synchronized String getPlainText() {
+    if (this.plainText == null) {
+      // Whacky, whacky KoL can insert <head> sections within the <body>
+      String body = KoLConstants.HEAD_PATTERN.matcher(this.text).replaceAll("");
+      this.plainText =
+          KoLConstants.ANYTAG_BUT_ITALIC_PATTERN.matcher(body).replaceAll(KoLConstants.LINE_BREAK);
+    }
+    return this.plainText;
+  }
+
+  /** The plain text, split into lines. The list cannot be modified. */
+  public synchronized List<String> getPlainTextLines() {
+    if (this.plainTextLines == null) {
+      this.plainTextLines = List.of(this.getPlainText().split(KoLConstants.LINE_BREAK));
+    }
+    return this.plainTextLines;
+  }
+
+  /** Every match of the pattern in the response, in the order a Matcher finds them. */
+  public List<MatchResult> getMatches(final Pattern pattern) {
+    return this.matches.computeIfAbsent(pattern, p -> p.matcher(this.text).results().toList());
+  }
+
+  /** The response parsed into a DOM, shared by every consumer. It must not be modified. */
+  public synchronized Document getDocument() {
+    if (this.document == null) {
+      this.document = Jsoup.parse(this.text);
+    }
+    return this.document;
+  }
+
+  /** A DOM of the response which the caller is free to modify. */
+  public synchronized Document copyDocument() {
+    return this.document != null ? this.document.clone() : Jsoup.parse(this.text);
+  }
+}
@@ -88,11 +88,11 @@ import net.sourceforge.kolmafia.textui.AshRuntime;
 import net.sourceforge.kolmafia.textui.RuntimeLibrary;
 import net.sourceforge.kolmafia.textui.javascript.JSONValueConverter;
 import net.sourceforge.kolmafia.textui.javascript.ValueConverter;
-import net.sourceforge.kolmafia.utilities.ByteBufferUtilities;
 import net.sourceforge.kolmafia.utilities.FileUtilities;
 import net.sourceforge.kolmafia.utilities.PauseObject;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 import net.sourceforge.kolmafia.utilities.WikiUtilities;
+import net.sourceforge.kolmafia.webui.RelayAssetCache;
 import net.sourceforge.kolmafia.webui.RelayServer;
 import net.sourceforge.kolmafia.webui.StationaryButtonDecorator;
 
@@ -122,6 +122,8 @@ public class RelayRequest extends PasswordHashRequest {
   public Set<ServerCookie> serverCookies = null;
   public String cookies = null;
   public byte[] rawByteBuffer = null;
+  // A file too large to keep in memory, sent in place of rawByteBuffer
+  public File rawFile = null;
   public String contentType = null;
   public long lastModified = 0;
   public String statusLine = "HTTP/1.1 302 Found";
@@ -227,6 +229,7 @@ public class RelayRequest extends PasswordHashRequest {
     super.constructURLString(newURLString, usePostMethod, encoded);
 
     this.rawByteBuffer = null;
+    this.rawFile = null;
     this.headers.clear();
 
     String path = this.getBasePath();
@@ -577,6 +580,7 @@ public class RelayRequest extends PasswordHashRequest {
         this.responseText = " ";
       } else {
         this.rawByteBuffer = null;
+        this.rawFile = null;
         this.responseText = responseText;
       }
 
@@ -674,6 +678,7 @@ public class RelayRequest extends PasswordHashRequest {
   }
 
   public static void clearImageCache() {
+    RelayAssetCache.clear();
     RelayRequest.clearImageDirectory(KoLConstants.IMAGE_LOCATION, RELAYIMAGES_FILTER);
     Preferences.setLong("lastImageCacheClear", (new Date()).getTime());
   }
@@ -700,12 +705,28 @@ public class RelayRequest extends PasswordHashRequest {
       return;
     }
 
-    this.lastModified = imageFile.lastModified();
-    this.rawByteBuffer = ByteBufferUtilities.read(imageFile);
+    RelayAssetCache.Asset asset = RelayAssetCache.getBytes(imageFile);
+    if (asset == null) {
+      this.sendNotFound();
+      return;
+    }
+
+    this.lastModified = asset.lastModified();
+    this.setContent(asset);
     this.headers.add("Access-Control-Allow-Origin: *");
+    this.headers.add("ETag: " + asset.etag());
     this.pseudoResponse("HTTP/1.1 200 OK", "");
   }
 
+  private void setContent(final RelayAssetCache.Asset asset) {
+    if (asset.isStreamed()) {
+      this.rawFile = asset.file();
+      this.rawByteBuffer = new byte[0];
+    } else {
+      this.rawByteBuffer = asset.bytes();
+    }
+  }
+
   public static File findRelayFile(final String filename) {
     if ((filename == null) || (filename.contains(".."))) {
       return null;
@@ -747,22 +768,34 @@ public class RelayRequest extends PasswordHashRequest {
 
     // If it's a binary file, send it back without loading it as a string.
     if (!this.contentType.startsWith("text/") && !this.contentType.equals("application/json")) {
-      this.rawByteBuffer = ByteBufferUtilities.read(override);
-      if (this.rawByteBuffer.length == 0) {
+      RelayAssetCache.Asset asset = RelayAssetCache.getBytes(override);
+      if (asset == null || asset.length() == 0) {
         this.sendNotFound();
         return;
       }
+      this.setContent(asset);
       this.statusLine = "HTTP/1.1 200 OK";
       this.responseCode = 200;
       this.setLastModified(override);
+      this.headers.add("ETag: " + asset.etag());
       return;
     }
 
     // Read the file
     StringBuffer replyBuffer;
+    String etag = null;
 
-    if (override.exists()) {
+    RelayAssetCache.Asset asset =
+        override.exists()
+            ? RelayAssetCache.getText(
+                override, file -> this.readContents(DataUtilities.getReader(file)).toString())
+            : null;
+
+    if (asset != null && !asset.isStreamed()) {
       // If the file is in the file system, it is a local override
+      replyBuffer = new StringBuffer(asset.text());
+      etag = asset.etag();
+    } else if (override.exists()) {
       replyBuffer = this.readContents(DataUtilities.getReader(override));
     } else {
       // If the file is not in the file system, it's probably a KoL
@@ -779,6 +812,9 @@ public class RelayRequest extends PasswordHashRequest {
             replyBuffer, "MAFIAHIT", "pwd=" + GenericRequest.passwordHash);
       } else if (!filename.endsWith(".html")) {
         setLastModified(override);
+        if (etag != null && !this.isChatRequest) {
+          this.headers.add("ETag: " + etag);
+        }
       }
     }
 
@@ -23,12 +23,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.KoLConstants.MafiaState;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.RequestLogger;
+import net.sourceforge.kolmafia.StaticEntity;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import net.sourceforge.kolmafia.scripts.ScriptManager;
+import net.sourceforge.kolmafia.textui.ScriptWatcher;
 import net.sourceforge.kolmafia.utilities.FileUtilities;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 import org.eclipse.jgit.api.Git;
@@ -104,10 +109,29 @@ public class GitManager extends ScriptManager {
     return true;
   }
 
-  /** Update all installed projects. */
+  /**
+   * Update all installed projects.
+   *
+   * <p>With gitThreadPoolSize above one, projects are fetched and rebased on that many threads at
+   * once. Their changes are then installed one project at a time, in the usual order, so that
+   * projects which install the same files still do so one after another.
+   */
   public static void updateAll() {
-    for (var project : allFolders()) {
-      update(project);
+    var folders = allFolders();
+    int poolSize = Math.max(1, Preferences.getInteger("gitThreadPoolSize"));
+
+    if (poolSize == 1 || folders.length < 2) {
+      for (var project : folders) {
+        update(project);
+      }
+    } else {
+      var fetched = fetchAll(folders, poolSize);
+      invalidateProjectsSyncPaths();
+      for (var project : fetched) {
+        if (project != null) {
+          install(project);
+        }
+      }
     }
 
     Preferences.setBoolean("_gitUpdated", true);
@@ -127,7 +151,41 @@ public class GitManager extends ScriptManager {
       KoLmafia.updateDisplay(MafiaState.ERROR, "Cannot find unique match for " + project);
       return false;
     }
-    var folder = folderOpt.get();
+    var fetched = fetch(folderOpt.get());
+    return fetched != null && install(fetched);
+  }
+
+  /** A project which has been brought up to date in git/, but whose files are not yet copied. */
+  private record FetchedProject(
+      String folder, Path projectPath, Path oldRoot, ObjectId oldCommit) {}
+
+  /** Fetch and rebase the given projects on a pool of threads, returning them in order. */
+  private static List<FetchedProject> fetchAll(String[] folders, int poolSize) {
+    var fetched = new ArrayList<FetchedProject>();
+    var executor = Executors.newFixedThreadPool(Math.min(poolSize, folders.length));
+    try {
+      var tasks = new ArrayList<Callable<FetchedProject>>();
+      for (var folder : folders) {
+        tasks.add(() -> fetch(folder));
+      }
+      for (var future : executor.invokeAll(tasks)) {
+        try {
+          fetched.add(future.get());
+        } catch (ExecutionException e) {
+          StaticEntity.printStackTrace(e.getCause());
+          fetched.add(null);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdown();
+    }
+    return fetched;
+  }
+
+  /** Rebase a project onto its remote, returning null if that failed. */
+  private static FetchedProject fetch(String folder) {
     Path projectPath = KoLConstants.GIT_LOCATION.toPath().resolve(folder);
     var oldRoot = getRoot(projectPath);
     Git git;
@@ -135,22 +193,16 @@ public class GitManager extends ScriptManager {
       git = Git.open(projectPath.toFile());
     } catch (IOException e) {
       KoLmafia.updateDisplay(MafiaState.ERROR, "Failed to open project " + folder + ": " + e);
-      return false;
+      return null;
     }
-    // update repo, then find out what was updated
     try (git) {
-      var repo = git.getRepository();
-      AbstractTreeIterator currTree;
-      AbstractTreeIterator incomingTree;
       ObjectId currCommit;
-      ObjectId incomingCommit;
       try {
-        currCommit = getCurrentCommit(repo);
-        currTree = getCurrentCommitTree(repo);
+        currCommit = getCurrentCommit(git.getRepository());
       } catch (IOException e) {
         KoLmafia.updateDisplay(
             MafiaState.ERROR, "Failed to get details for project " + folder + ": " + e);
-        return false;
+        return null;
       }
 
       RequestLogger.printLine("Updating project " + folder);
@@ -161,23 +213,47 @@ public class GitManager extends ScriptManager {
               "Failed to update project "
                   + folder
                   + ": rebase error. Perhaps there are local changes we are unable to automatically reconcile. Consider deleting and re-installing project");
-          return false;
+          return null;
         }
       } catch (GitAPIException e) {
         KoLmafia.updateDisplay(MafiaState.ERROR, "Failed to update project " + folder + ": " + e);
-        return false;
+        return null;
       }
-      var newRoot = getRoot(projectPath);
+      return new FetchedProject(folder, projectPath, oldRoot, currCommit);
+    }
+  }
 
-      if (!oldRoot.equals(newRoot)) {
-        // the root directory has changed. Figuring out the diff is too hard, just sync
-        invalidateProjectsSyncPaths();
-        return sync(projectPath);
-      }
+  /** Copy the files a fetched project changed, returning whether anything changed. */
+  private static boolean install(FetchedProject fetched) {
+    var folder = fetched.folder();
+    var projectPath = fetched.projectPath();
+    var oldRoot = fetched.oldRoot();
+    var newRoot = getRoot(projectPath);
+
+    if (!oldRoot.equals(newRoot)) {
+      // the root directory has changed. Figuring out the diff is too hard, just sync
+      invalidateProjectsSyncPaths();
+      return sync(projectPath);
+    }
 
+    Git git;
+    try {
+      git = Git.open(projectPath.toFile());
+    } catch (IOException e) {
+      KoLmafia.updateDisplay(MafiaState.ERROR, "Failed to open project " + folder + ": " + e);
+      return false;
+    }
+    // find out what was updated
+    try (git) {
+      var repo = git.getRepository();
+      AbstractTreeIterator currTree;
+      AbstractTreeIterator incomingTree;
+      ObjectId currCommit = fetched.oldCommit();
+      ObjectId incomingCommit;
       try {
+        currTree = getCommitTree(repo, currCommit);
         incomingCommit = getCurrentCommit(repo);
-        incomingTree = getCurrentCommitTree(repo);
+        incomingTree = getCommitTree(repo, incomingCommit);
       } catch (IOException e) {
         KoLmafia.updateDisplay(
             MafiaState.ERROR, "Failed to get incoming changes for project " + folder + ": " + e);
@@ -268,6 +344,7 @@ public class GitManager extends ScriptManager {
         var relPath = rootPath.resolve(path);
         KoLmafia.updateDisplay("Deleting: " + path);
         Files.deleteIfExists(relPath);
+        ScriptWatcher.fileChanged(relPath.toFile());
       } catch (IOException e) {
         KoLmafia.updateDisplay(MafiaState.ERROR, "Failed to delete file " + path + ": " + e);
       }
@@ -290,9 +367,10 @@ public class GitManager extends ScriptManager {
     return repo.resolve("HEAD");
   }
 
-  /** Get the current commit as an AbstractTreeIterator, as required by DiffCommand. */
-  private static AbstractTreeIterator getCurrentCommitTree(Repository repo) throws IOException {
-    var currId = repo.resolve("HEAD^{tree}");
+  /** Get a commit as an AbstractTreeIterator, as required by DiffCommand. */
+  private static AbstractTreeIterator getCommitTree(Repository repo, ObjectId commit)
+      throws IOException {
+    var currId = repo.resolve(commit.name() + "^{tree}");
     var treeIterator = new CanonicalTreeParser();
     treeIterator.reset(repo.newObjectReader(), currId);
     return treeIterator;
@@ -387,6 +465,7 @@ public class GitManager extends ScriptManager {
           // if the folder is a non-empty directory, deletion will fail.
           // Deletion is ordered such that all script-relevant files have already been deleted.
           Files.deleteIfExists(relPath);
+          ScriptWatcher.fileChanged(relPath.toFile());
         }
         Files.delete(absPath);
         KoLmafia.updateDisplay(shortPath + " => DELETED");
@@ -677,6 +756,8 @@ public class GitManager extends ScriptManager {
         Files.createDirectories(parent);
       }
       Files.copy(absPath, relPath, REPLACE_EXISTING);
+      // Scripts which are running or kept parsed must see the new version at once
+      ScriptWatcher.fileChanged(relPath.toFile());
     }
   }
 
@@ -37,6 +37,7 @@ import net.sourceforge.kolmafia.RequestLogger;
 import net.sourceforge.kolmafia.RequestThread;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import net.sourceforge.kolmafia.scripts.ScriptManager;
+import net.sourceforge.kolmafia.textui.ScriptWatcher;
 import net.sourceforge.kolmafia.utilities.FileUtilities;
 import net.sourceforge.kolmafia.utilities.PauseObject;
 import org.tmatesoft.svn.core.ISVNLogEntryHandler;
@@ -835,6 +836,8 @@ public class SVNManager extends ScriptManager {
 
     RequestLogger.printLine(file.getName() + " => " + rebase.getPath());
     FileUtilities.copyFile(file, rebase);
+    // Scripts which are running or kept parsed must see the new version at once
+    ScriptWatcher.fileChanged(rebase);
   }
 
   private static void doDelete(File file, String relpath) {
@@ -845,6 +848,7 @@ public class SVNManager extends ScriptManager {
     if (rebase.exists() && !Files.isSymbolicLink(rebase.toPath())) {
       String rerebase = FileUtilities.getRelativePath(KoLConstants.ROOT_LOCATION, rebase);
       if (rebase.delete()) {
+        ScriptWatcher.fileChanged(rebase);
         RequestLogger.printLine(rerebase + " => DELETED");
         RequestLogger.updateSessionLog(rerebase + " => DELETED");
       }
@@ -1225,6 +1229,7 @@ public class SVNManager extends ScriptManager {
         if (rebase != null && !Files.isSymbolicLink(rebase.toPath())) {
           String rerebase = FileUtilities.getRelativePath(KoLConstants.ROOT_LOCATION, rebase);
           if (rebase.delete()) {
+            ScriptWatcher.fileChanged(rebase);
             RequestLogger.printLine(rerebase + " => DELETED");
             RequestLogger.updateSessionLog(rerebase + " => DELETED");
           }
@@ -79,6 +79,7 @@ import net.sourceforge.kolmafia.request.LocketRequest;
 import net.sourceforge.kolmafia.request.MonkeyPawRequest;
 import net.sourceforge.kolmafia.request.MummeryRequest;
 import net.sourceforge.kolmafia.request.PantogramRequest;
+import net.sourceforge.kolmafia.request.ParsedResponse;
 import net.sourceforge.kolmafia.request.PyramidRequest;
 import net.sourceforge.kolmafia.request.QuestLogRequest;
 import net.sourceforge.kolmafia.request.ResearchBenchRequest;
@@ -99,7 +100,6 @@ import net.sourceforge.kolmafia.textui.command.JurassicParkaCommand;
 import net.sourceforge.kolmafia.textui.command.SnowsuitCommand;
 import net.sourceforge.kolmafia.utilities.ChoiceUtilities;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 
 public abstract class ChoiceControl {
@@ -10064,7 +10064,7 @@ public abstract class ChoiceControl {
       return;
     }
     // the last <s> tag contains the monster we just beat
-    var parsed = Jsoup.parse(text);
+    var parsed = ParsedResponse.of(text).getDocument();
     var output = parsed.getElementById("output");
     var out = output == null ? "" : output.text();
     if (out.contains("Instead of a baseball, you throw a big handful of ice")) {
@@ -0,0 +1,134 @@
+package net.sourceforge.kolmafia.session;
+
+import java.util.Arrays;
+import java.util.List;
+import net.sourceforge.kolmafia.AdventureResult;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.utilities.LockableListFactory;
+
+/**
+ * Item counts for one of the character's item lists, indexed by item id.
+ *
+ * <p>The lists themselves are sorted by name, so finding an item in one takes a binary search of
+ * string comparisons. The index answers the same question with an array lookup. It is rebuilt
+ * whenever the list's modification count has changed since the index was last built, so it can
+ * never disagree with the list, however the list was changed.
+ */
+public class ItemCountIndex {
+  public static final ItemCountIndex INVENTORY = new ItemCountIndex(KoLConstants.inventory);
+  public static final ItemCountIndex CLOSET = new ItemCountIndex(KoLConstants.closet);
+  public static final ItemCountIndex STORAGE = new ItemCountIndex(KoLConstants.storage);
+  public static final ItemCountIndex FREEPULLS = new ItemCountIndex(KoLConstants.freepulls);
+  public static final ItemCountIndex COLLECTION = new ItemCountIndex(KoLConstants.collection);
+
+  private record Counts(int modifications, int[] counts) {}
+
+  private static final int[] NO_COUNTS = new int[0];
+
+  private final List<AdventureResult> list;
+  private volatile Counts current = new Counts(-1, NO_COUNTS);
+
+  private ItemCountIndex(final List<AdventureResult> list) {
+    this.list = list;
+  }
+
+  /** Returns the index for the given list, or null if that list is not indexed. */
+  public static ItemCountIndex forList(final List<AdventureResult> list) {
+    if (list == KoLConstants.inventory) {
+      return INVENTORY;
+    }
+    if (list == KoLConstants.closet) {
+      return CLOSET;
+    }
+    if (list == KoLConstants.storage) {
+      return STORAGE;
+    }
+    if (list == KoLConstants.freepulls) {
+      return FREEPULLS;
+    }
+    if (list == KoLConstants.collection) {
+      return COLLECTION;
+    }
+    return null;
+  }
+
+  public int getCount(final int itemId) {
+    int[] counts = this.counts();
+    return itemId > 0 && itemId < counts.length ? counts[itemId] : 0;
+  }
+
+  /**
+   * Returns the current counts as a snapshot which later changes to the list do not affect. Taking
+   * a snapshot does not copy anything until the snapshot itself is changed.
+   */
+  public Snapshot snapshot() {
+    return new Snapshot(this.counts());
+  }
+
+  private int[] counts() {
+    int modifications = LockableListFactory.getModificationCount(this.list);
+    Counts current = this.current;
+    if (current.modifications() == modifications && modifications != -1) {
+      return current.counts();
+    }
+
+    synchronized (this) {
+      current = this.current;
+      if (current.modifications() != modifications || modifications == -1) {
+        current = new Counts(modifications, ItemCountIndex.count(this.list));
+        this.current = current;
+      }
+    }
+    return current.counts();
+  }
+
+  private static int[] count(final List<AdventureResult> list) {
+    // Copy the list first, since it may be changed while it is being counted. If it is, its
+    // modification count will have changed too, and the next lookup will count it again.
+    AdventureResult[] items = list.toArray(new AdventureResult[0]);
+
+    int maxItemId = 0;
+    for (AdventureResult item : items) {
+      if (item != null && item.isItem()) {
+        maxItemId = Math.max(maxItemId, item.getItemId());
+      }
+    }
+
+    int[] counts = new int[maxItemId + 1];
+    for (AdventureResult item : items) {
+      if (item != null && item.isItem() && item.getItemId() > 0) {
+        counts[item.getItemId()] += item.getCount();
+      }
+    }
+    return counts;
+  }
+
+  /**
+   * Item counts frozen at the time they were taken, which can be adjusted to try out acquiring or
+   * using items without touching the real lists.
+   */
+  public static class Snapshot {
+    private int[] counts;
+    private boolean shared = true;
+
+    private Snapshot(final int[] counts) {
+      this.counts = counts;
+    }
+
+    public int getCount(final int itemId) {
+      return itemId > 0 && itemId < this.counts.length ? this.counts[itemId] : 0;
+    }
+
+    /** Adds the given count, which may be negative, to the given item's count. */
+    public void add(final int itemId, final int count) {
+      if (itemId <= 0) {
+        return;
+      }
+      if (this.shared || itemId >= this.counts.length) {
+        this.counts = Arrays.copyOf(this.counts, Math.max(this.counts.length, itemId + 1));
+        this.shared = false;
+      }
+      this.counts[itemId] += count;
+    }
+  }
+}
@@ -4,21 +4,31 @@ import java.time.Clock;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import net.sourceforge.kolmafia.AdventureResult;
 import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.RequestLogger;
 import net.sourceforge.kolmafia.RequestThread;
+import net.sourceforge.kolmafia.StaticEntity;
 import net.sourceforge.kolmafia.objectpool.ItemPool;
 import net.sourceforge.kolmafia.persistence.DateTimeManager;
 import net.sourceforge.kolmafia.persistence.ItemDatabase;
@@ -136,10 +146,11 @@ public abstract class MallPriceManager {
   // The data structures that this package "manages".
 
   // a Map from itemId -> current mall price (as visible to a scripter.)
-  private static final Map<Integer, Long> mallPrices = new HashMap<>();
+  private static final Map<Integer, Long> mallPrices = new ConcurrentHashMap<>();
 
   // a Map from itemId -> the most resent mall search results.
-  private static final Map<Integer, List<PurchaseRequest>> mallSearches = new HashMap<>();
+  private static final Map<Integer, List<PurchaseRequest>> mallSearches =
+      new ConcurrentHashMap<>();
 
   // Constants controlling how we manage those data
 
@@ -645,34 +656,111 @@ public abstract class MallPriceManager {
   }
 
   public static int getMallPrices(AdventureResult[] items, float maxAge) {
+    // Decide which items need a mall search before searching for any of them
+    Map<Integer, AdventureResult> searches = new LinkedHashMap<>();
+    for (AdventureResult item : items) {
+      int itemId = item.getItemId();
+      if (!validMallItem(itemId)) {
+        continue;
+      }
+      long price = MallPriceDatabase.getPrice(itemId);
+      if (price > 0 && MallPriceDatabase.getAge(itemId) <= maxAge) {
+        continue;
+      }
+      if (MallPriceManager.mallPrices.getOrDefault(itemId, 0L) == 0) {
+        searches.putIfAbsent(itemId, item.getInstance(NTH_CHEAPEST_COUNT));
+      }
+    }
+
     // Count how many items we retrieved
-    int count = 0;
+    AtomicInteger count = new AtomicInteger();
 
     try {
+      MallPriceManager.searchMall(
+          searches.values(),
+          search -> {
+            int itemId = search.getItemId();
+            List<PurchaseRequest> results = MallPriceManager.searchMall(search);
+            MallPriceManager.flushCache(itemId);
+            MallPriceManager.updateMallPrice(itemId, results, true);
+            MallPriceManager.mallSearches.put(itemId, results);
+            count.incrementAndGet();
+          });
+    } finally {
+      RequestLogger.printLine("Updating mallprices.txt with " + count + " prices.");
+      MallPriceDatabase.savePrices();
+    }
+
+    return count.get();
+  }
+
+  // Runs a mall search for each item, with up to mallSearchThreads searches in progress at once
+  // and at least mallSearchInterval milliseconds between the start of one and the next.
+  private static void searchMall(
+      final Collection<AdventureResult> items, final Consumer<AdventureResult> search) {
+    int threads = Math.min(items.size(), Preferences.getInteger("mallSearchThreads"));
+    if (threads <= 1) {
       for (AdventureResult item : items) {
-        int itemId = item.getItemId();
-        if (!validMallItem(itemId)) {
-          continue;
-        }
-        long price = MallPriceDatabase.getPrice(itemId);
-        if (price > 0 && MallPriceDatabase.getAge(itemId) <= maxAge) {
-          continue;
+        if (!KoLmafia.permitsContinue()) {
+          break;
         }
-        if (MallPriceManager.mallPrices.getOrDefault(itemId, 0L) == 0) {
-          AdventureResult search = item.getInstance(NTH_CHEAPEST_COUNT);
-          List<PurchaseRequest> results = MallPriceManager.searchMall(search);
-          MallPriceManager.flushCache(itemId);
-          MallPriceManager.updateMallPrice(itemId, results, true);
-          MallPriceManager.mallSearches.put(itemId, results);
-          ++count;
+        search.accept(item);
+      }
+      return;
+    }
+
+    SearchThrottle throttle = new SearchThrottle(Preferences.getInteger("mallSearchInterval"));
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (AdventureResult item : items) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  if (throttle.await() && KoLmafia.permitsContinue()) {
+                    search.accept(item);
+                  }
+                }));
+      }
+
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          StaticEntity.printStackTrace(e.getCause());
         }
       }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     } finally {
-      RequestLogger.printLine("Updating mallprices.txt with " + count + " prices.");
-      MallPriceDatabase.writePrices();
+      executor.shutdownNow();
     }
+  }
 
-    return count;
+  private static class SearchThrottle {
+    private final long interval;
+    private long next = 0;
+
+    SearchThrottle(final int interval) {
+      this.interval = TimeUnit.MILLISECONDS.toNanos(Math.max(0, interval));
+    }
+
+    // Waits until the next search may start. Returns false if interrupted while waiting.
+    synchronized boolean await() {
+      long now = System.nanoTime();
+      long wait = this.next - now;
+      if (wait > 0) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+        now = this.next;
+      }
+      this.next = now + this.interval;
+      return true;
+    }
   }
 
   public static int getMallPrices(String category) {
@@ -723,7 +811,7 @@ public abstract class MallPriceManager {
       }
     } finally {
       RequestLogger.printLine("Updating mallprices.txt with " + count + " prices.");
-      MallPriceDatabase.writePrices();
+      MallPriceDatabase.savePrices();
     }
 
     return count;
@@ -1,9 +1,9 @@
 package net.sourceforge.kolmafia.session;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import net.sourceforge.kolmafia.AdventureResult;
@@ -49,6 +49,7 @@ import net.sourceforge.kolmafia.persistence.TCRSDatabase;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import net.sourceforge.kolmafia.request.ChateauRequest;
 import net.sourceforge.kolmafia.request.EquipmentRequest;
+import net.sourceforge.kolmafia.request.ParsedResponse;
 import net.sourceforge.kolmafia.request.PlaceRequest;
 import net.sourceforge.kolmafia.request.UseItemRequest;
 import net.sourceforge.kolmafia.request.coinmaster.HermitRequest;
@@ -116,8 +117,10 @@ public class ResultProcessor {
     // Item names have a lot of extra adjectives in Two Crazy Random Summer
     boolean crazyRandomAdjectives = KoLCharacter.isCrazyRandomTwo();
 
-    Matcher itemMatcher = ResultProcessor.ITEM_TABLE_PATTERN.matcher(results);
-    while (itemMatcher.find()) {
+    int copied = 0;
+
+    for (MatchResult itemMatcher :
+        ParsedResponse.of(results).getMatches(ResultProcessor.ITEM_TABLE_PATTERN)) {
       String relString = itemMatcher.group(1);
       String itemName = itemMatcher.group(2).trim();
       String descId = itemMatcher.group(3);
@@ -197,7 +200,8 @@ public class ResultProcessor {
 
       // Perform special processing, if indicated
       if (comment != null) {
-        itemMatcher.appendReplacement(buffer, "");
+        buffer.append(results, copied, itemMatcher.start());
+        copied = itemMatcher.end();
         changed = true;
         // If the item went to Hagnk's...
         if (comment.contains("Hagnk")) {
@@ -225,7 +229,7 @@ public class ResultProcessor {
     }
 
     if (changed) {
-      itemMatcher.appendTail(buffer);
+      buffer.append(results, copied, results.length());
       return buffer.toString();
     }
 
@@ -238,8 +242,8 @@ public class ResultProcessor {
     // Item names have a lot of extra adjectives in Two Crazy Random Summer
     boolean crazyRandomAdjectives = KoLCharacter.isCrazyRandomTwo();
 
-    Matcher itemMatcher = ResultProcessor.ITEM_TABLE_PATTERN.matcher(results);
-    while (itemMatcher.find()) {
+    for (MatchResult itemMatcher :
+        ParsedResponse.of(results).getMatches(ResultProcessor.ITEM_TABLE_PATTERN)) {
       String relString = itemMatcher.group(1);
       String itemName = itemMatcher.group(2).trim();
       String descId = itemMatcher.group(3);
@@ -343,8 +347,8 @@ public class ResultProcessor {
 
     LinkedList<AdventureResult> effects = new LinkedList<>();
 
-    Matcher effectMatcher = ResultProcessor.EFFECT_TABLE_PATTERN.matcher(results);
-    while (effectMatcher.find()) {
+    for (MatchResult effectMatcher :
+        ParsedResponse.of(results).getMatches(ResultProcessor.EFFECT_TABLE_PATTERN)) {
       String descId = effectMatcher.group(1);
       // KoL bug: some Affirmations, at least, are reported with a leading space
       String effectName = effectMatcher.group(3).trim();
@@ -445,17 +449,13 @@ public class ResultProcessor {
       List<AdventureResult> data,
       LinkedList<AdventureResult> items,
       LinkedList<AdventureResult> effects) {
-    // Whacky, whacky KoL can insert <head> sections within the <body>
-    String body = KoLConstants.HEAD_PATTERN.matcher(results).replaceAll("");
-    String plainTextResult =
-        KoLConstants.ANYTAG_BUT_ITALIC_PATTERN.matcher(body).replaceAll(KoLConstants.LINE_BREAK);
+    ParsedResponse parsed = ParsedResponse.of(results);
 
     if (data == null) {
-      ResultProcessor.processFamiliarWeightGain(plainTextResult);
+      ResultProcessor.processFamiliarWeightGain(parsed.getPlainText());
     }
 
-    LinkedList<String> parsedResults =
-        new LinkedList<>(Arrays.asList(plainTextResult.split(KoLConstants.LINE_BREAK)));
+    LinkedList<String> parsedResults = new LinkedList<>(parsed.getPlainTextLines());
     boolean shouldRefresh = false;
 
     while (parsedResults.size() > 0) {
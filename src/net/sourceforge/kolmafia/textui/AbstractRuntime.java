@@ -19,6 +19,9 @@ public abstract class AbstractRuntime implements ScriptRuntime {
 
   private int traceIndentation = 0;
 
+  // Records runs into this profiler, rather than the one recording every run
+  private Profiler profiler = null;
+
   @Override
   public Value execute(final String functionName, final Object[] parameters) {
     return execute(functionName, parameters, true);
@@ -92,6 +95,18 @@ public abstract class AbstractRuntime implements ScriptRuntime {
     this.batched = batched;
   }
 
+  // **************** Profiling *****************
+
+  @Override
+  public void setProfiler(final Profiler profiler) {
+    this.profiler = profiler;
+  }
+
+  /** Starts recording a run of this script, if anything is recording it. */
+  protected Profiler.Run startProfilerRun(final String name) {
+    return Profiler.startRun(this.profiler, name);
+  }
+
   // **************** Tracing *****************
 
   @Override
@@ -38,7 +38,7 @@ public class AshRuntime extends AbstractRuntime {
   private static final Stack<AshRuntime> interpreterStack = new Stack<>();
 
   private boolean exiting = false;
-  public Profiler profiler;
+  public Profiler.Run profiler;
 
   // key, then aggregate, then iterator for every active foreach loop
   public ArrayList<Object> iterators = new ArrayList<>();
@@ -188,6 +188,12 @@ public class AshRuntime extends AbstractRuntime {
   @Override
   public Value execute(
       final String functionName, final Object[] parameters, final boolean executeTopLevel) {
+    // A script calling itself is recorded in the run already under way
+    boolean profiling = this.profiler == null;
+    if (profiling) {
+      this.profiler = this.startProfilerRun(this.parser.getShortFileName());
+    }
+
     try {
       return this.executeScope(this.scope, functionName, parameters, executeTopLevel);
     } catch (ScriptException e) {
@@ -202,6 +208,11 @@ public class AshRuntime extends AbstractRuntime {
       StaticEntity.printStackTrace(e, lineAndFile, true);
       KoLmafia.updateDisplay(
           MafiaState.ERROR, "Script execution aborted (" + e.getMessage() + "): " + lineAndFile);
+    } finally {
+      if (profiling && this.profiler != null) {
+        this.profiler.finish();
+        this.profiler = null;
+      }
     }
     return DataTypes.VOID_VALUE;
   }
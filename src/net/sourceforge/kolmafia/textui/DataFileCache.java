@@ -7,14 +7,24 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import net.java.dev.spellcast.utilities.DataUtilities;
 import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.RequestLogger;
+import net.sourceforge.kolmafia.textui.parsetree.AggregateType;
+import net.sourceforge.kolmafia.textui.parsetree.ArrayValue;
+import net.sourceforge.kolmafia.textui.parsetree.CompositeValue;
+import net.sourceforge.kolmafia.textui.parsetree.MapValue;
+import net.sourceforge.kolmafia.textui.parsetree.RecordType;
+import net.sourceforge.kolmafia.textui.parsetree.RecordValue;
+import net.sourceforge.kolmafia.textui.parsetree.Type;
 import net.sourceforge.kolmafia.textui.parsetree.Value;
 import net.sourceforge.kolmafia.utilities.ByteBufferUtilities;
 import net.sourceforge.kolmafia.utilities.RollingLinkedList;
@@ -26,12 +36,21 @@ public class DataFileCache {
   private static final Map<String, byte[]> dataFileDataCache =
       Collections.synchronizedMap(new HashMap<>());
 
+  // Maps read from data files, keyed by file, map type and compactness. Each remembers the file
+  // contents it was read from, and is only reused while the file still has those contents.
+  private record ParsedMapKey(String filename, String type, boolean compact) {}
+
+  private record ParsedMap(byte[] data, CompositeValue map) {}
+
+  private static final Map<ParsedMapKey, ParsedMap> parsedMapCache = new ConcurrentHashMap<>();
+
   private DataFileCache() {}
 
   public static void clearCache() {
     DataFileCache.recentlyUsedList.clear();
     DataFileCache.dataFileTimestampCache.clear();
     DataFileCache.dataFileDataCache.clear();
+    DataFileCache.parsedMapCache.clear();
   }
 
   public static File getFile(String filename, boolean readOnly) {
@@ -145,6 +164,106 @@ public class DataFileCache {
     return DataUtilities.getReader(new ByteArrayInputStream(data));
   }
 
+  /** Reads a data file into a map, returning false if it could not be read. */
+  @FunctionalInterface
+  public interface MapReader {
+    boolean read(BufferedReader reader);
+  }
+
+  /**
+   * Reads a data file into a map using the given reader. If a map of the same type was already
+   * read from the file's current contents, the result is filled with a copy of that map instead,
+   * and the file is not parsed again.
+   *
+   * <p>Only aggregates are copied. Values within them are never modified in place, so the copies
+   * share them with the cached map.
+   */
+  public static boolean readMap(
+      final String filename,
+      final CompositeValue result,
+      final boolean compact,
+      final MapReader reader) {
+    if (filename.startsWith("http://") || filename.startsWith("https://")) {
+      BufferedReader input = DataFileCache.getReader(filename);
+      return input != null && reader.read(input);
+    }
+
+    File file = DataFileCache.getFile(filename, true);
+    byte[] data = DataFileCache.getBytes(filename);
+    if (file == null) {
+      return reader.read(DataUtilities.getReader(new ByteArrayInputStream(data)));
+    }
+
+    ParsedMapKey key =
+        new ParsedMapKey(getSanitizedFilename(file), signature(result.getType()), compact);
+    ParsedMap parsed = DataFileCache.parsedMapCache.get(key);
+
+    if (parsed != null && parsed.data() == data) {
+      CompositeValue map = parsed.map();
+      result.clear();
+      synchronized (map) {
+        for (Value index : map.keys()) {
+          result.aset(index, copy(map.aref(index)));
+        }
+      }
+      return true;
+    }
+
+    if (!reader.read(DataUtilities.getReader(new ByteArrayInputStream(data)))) {
+      return false;
+    }
+
+    DataFileCache.parsedMapCache.put(key, new ParsedMap(data, (CompositeValue) copy(result)));
+    return true;
+  }
+
+  // Describes a type by its structure, since each script declares its own type objects
+  private static String signature(final Type type) {
+    Type base = type.getBaseType();
+    if (base instanceof AggregateType aggregate) {
+      return signature(aggregate.getDataType())
+          + "["
+          + (aggregate.getSize() != -1 ? aggregate.getSize() : signature(aggregate.getIndexType()))
+          + (aggregate.isCaseInsensitive() ? " ignoring case" : "")
+          + "]";
+    }
+    if (base instanceof RecordType record) {
+      StringBuilder buffer = new StringBuilder("record {");
+      String[] names = record.getFieldNames();
+      Type[] types = record.getFieldTypes();
+      for (int i = 0; i < names.length; ++i) {
+        buffer.append(signature(types[i])).append(' ').append(names[i]).append(';');
+      }
+      return buffer.append('}').toString();
+    }
+    return base.getName();
+  }
+
+  private static Value copy(final Value value) {
+    if (value instanceof MapValue map) {
+      MapValue copy = (MapValue) map.getType().initialValue();
+      for (Value key : map.keys()) {
+        copy.aset(key, copy(map.aref(key)));
+      }
+      return copy;
+    }
+    if (value instanceof ArrayValue array) {
+      List<Value> values = new ArrayList<>();
+      for (Value element : (Value[]) array.content) {
+        values.add(copy(element));
+      }
+      return new ArrayValue((AggregateType) array.getType(), values);
+    }
+    if (value instanceof RecordValue record) {
+      RecordValue copy = new RecordValue((RecordType) record.getType());
+      for (Value key : record.keys()) {
+        copy.aset(key, copy(record.aref(key)));
+      }
+      return copy;
+    }
+    return value;
+  }
+
   private static String getSanitizedFilename(final File file) {
     return file.getPath().substring(KoLConstants.ROOT_LOCATION.getPath().length() + 1);
   }
@@ -226,6 +345,8 @@ public class DataFileCache {
       return DataTypes.FALSE_VALUE;
     }
 
+    ScriptWatcher.fileChanged(output);
+
     String sanitizedFilename = getSanitizedFilename(output);
 
     byte[] cacheData = data;
@@ -264,9 +385,13 @@ public class DataFileCache {
   private static void updateCache(String filename, long modifiedTime, byte[] data) {
     String recentlyUsedCheck = DataFileCache.recentlyUsedList.update(filename);
 
+    // Forget the file which was dropped from the list to make room for this one
     if (recentlyUsedCheck != null) {
-      DataFileCache.dataFileTimestampCache.remove(filename);
-      DataFileCache.dataFileDataCache.remove(filename);
+      DataFileCache.dataFileTimestampCache.remove(recentlyUsedCheck);
+      DataFileCache.dataFileDataCache.remove(recentlyUsedCheck);
+      DataFileCache.parsedMapCache
+          .keySet()
+          .removeIf(key -> key.filename().equals(recentlyUsedCheck));
     }
 
     DataFileCache.dataFileTimestampCache.put(filename, modifiedTime);
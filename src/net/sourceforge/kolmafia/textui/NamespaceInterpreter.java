@@ -1,8 +1,5 @@
 package net.sourceforge.kolmafia.textui;
 
-import java.io.File;
-import java.util.Map;
-import java.util.Map.Entry;
 import net.sourceforge.kolmafia.KoLConstants.MafiaState;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.StaticEntity;
@@ -26,13 +23,7 @@ public class NamespaceInterpreter extends AshRuntime {
     boolean shouldRefresh = !this.lastImportString.equals(importString);
 
     if (!shouldRefresh) {
-      Map<File, Parser> imports = this.parser.getImports();
-
-      for (Entry<File, Parser> entry : imports.entrySet()) {
-        File file = entry.getKey();
-        long date = entry.getValue().getModificationTimestamp();
-        shouldRefresh = date != file.lastModified();
-      }
+      shouldRefresh = !this.parser.getImports().values().stream().allMatch(Parser::isCurrent);
     }
 
     if (shouldRefresh && !refresh(importString)) {
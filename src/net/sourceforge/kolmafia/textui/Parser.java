@@ -121,6 +121,8 @@ public class Parser {
   private final String shortFileName;
   private final URI fileUri;
   private final long modificationTimestamp;
+  private final File scriptFile;
+  private final ScriptWatcher.Stamp stamp;
   private String scriptName;
   private final InputStream istream;
 
@@ -143,6 +145,9 @@ public class Parser {
 
   public Parser(final File scriptFile, final InputStream stream, final Map<File, Parser> imports) {
     this.imports = imports != null ? imports : new TreeMap<>();
+    this.scriptFile = scriptFile;
+    // Before the file is read, so that a change made while reading it is noticed
+    this.stamp = scriptFile != null ? ScriptWatcher.stamp(scriptFile) : null;
 
     this.istream =
         stream != null
@@ -252,6 +257,11 @@ public class Parser {
     return this.modificationTimestamp;
   }
 
+  /** Returns true if the file this parsed has not changed since it was read. */
+  public boolean isCurrent() {
+    return this.scriptFile == null || ScriptWatcher.isCurrent(this.scriptFile, this.stamp);
+  }
+
   public Function getMainMethod() {
     return this.mainMethod;
   }
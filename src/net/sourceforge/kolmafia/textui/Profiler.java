@@ -1,88 +1,386 @@
 package net.sourceforge.kolmafia.textui;
 
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import net.sourceforge.kolmafia.KoLConstants;
 
+/**
+ * Records where scripts spend their time.
+ *
+ * <p>A profiler holds a call tree. Each node is a function reached by one particular path of calls,
+ * and holds how often it was called, the nanoseconds spent in it and in what it called (its total
+ * time), and how many ASH values were created meanwhile. Its net time, spent in the function
+ * itself, is what its callees do not account for. The profiler also holds, for each line of each
+ * script, how often calls were made on that line and how long they took.
+ *
+ * <p>ASH scripts are timed at every call, library functions included. JavaScript is sampled
+ * instead: Rhino stops every few thousand instructions to see whether the script was interrupted,
+ * and then, at most once a millisecond, the stack of the script is recorded, weighted by the time
+ * since the previous sample. The lines seen in those samples show which parts of the script ran.
+ *
+ * <p>Each run of a script is recorded by its own thread into a tree of its own, which is merged
+ * into the profiler when the run ends, so recording a call takes no locks. The "profile" command
+ * records a single run. The "profiler" command records every script run until it is stopped, and
+ * exports the calls as collapsed stacks, which flame graph tools read, or as JSON.
+ */
 public class Profiler {
-  public String name;
-  public int count;
-  public long total; // milliseconds, added to all functions in call stack
-  public long net; // milliseconds, added to current function only
-  public long net0; // starting point for current net time accumulation
-
-  private Profiler next; // linked list
-  private static Profiler freeList;
-  private static final Map<String, Profiler> totals = new HashMap<>();
-
-  private Profiler() {}
-
-  public static Profiler create(String name) {
-    Profiler rv = Profiler.freeList;
-    if (rv == null) {
-      rv = new Profiler();
-    } else {
-      Profiler.freeList = rv.next;
-    }
-    rv.name = name;
-    rv.total = 0L;
-    rv.net = 0L;
-    return rv;
-  }
-
-  public void finish() {
-    Profiler existing = Profiler.totals.get(this.name);
-    if (existing != null) {
-      ++existing.count;
-      existing.total += this.total;
-      existing.net += this.net;
-      this.next = Profiler.freeList;
-      Profiler.freeList = this;
-    } else {
-      this.count = 1;
-      Profiler.totals.put(this.name, this);
-    }
-  }
-
-  public static String summary() {
-    StringBuffer buff = new StringBuffer();
-    ArrayList<Profiler> list = new ArrayList<>(Profiler.totals.values());
-    Profiler.totals.clear();
+  // Calls deeper than this are counted in the node at this depth, whose time already includes
+  // theirs. Their lines are recorded as usual.
+  private static final int MAX_DEPTH = 200;
 
+  // The least time between samples of a JavaScript stack, in nanoseconds
+  private static final long SAMPLE_INTERVAL = 1000000L;
+
+  private static final Profiler everyRun = new Profiler();
+  private static volatile boolean recordingEveryRun = false;
+
+  private static int activeRuns = 0;
+  private static volatile boolean countingValues = false;
+  private static final ThreadLocal<long[]> valueCounts = ThreadLocal.withInitial(() -> new long[1]);
+
+  private final Node root = new Node("toplevel", null);
+  private final Map<String, Line> lines = new LinkedHashMap<>();
+
+  static class Node {
+    final String name;
+    final Node parent;
+    final Map<String, Node> children = new LinkedHashMap<>();
+
+    long count;
+    long total;
+    long values;
+
+    // While this node is on the current path of a run
+    long entered;
+    long valuesEntered;
+    Line site;
+
+    Node(final String name, final Node parent) {
+      this.name = name;
+      this.parent = parent;
+    }
+
+    Node child(final String name) {
+      Node child = this.children.get(name);
+      if (child == null) {
+        child = new Node(name, this);
+        this.children.put(name, child);
+      }
+      return child;
+    }
+
+    long net() {
+      long net = this.total;
+      for (Node child : this.children.values()) {
+        net -= child.total;
+      }
+      return Math.max(net, 0L);
+    }
+
+    long netValues() {
+      long net = this.values;
+      for (Node child : this.children.values()) {
+        net -= child.values;
+      }
+      return Math.max(net, 0L);
+    }
+
+    void merge(final Node other) {
+      this.count += other.count;
+      this.total += other.total;
+      this.values += other.values;
+      for (Node child : other.children.values()) {
+        this.child(child.name).merge(child);
+      }
+    }
+  }
+
+  static class Line {
+    final String fileName;
+    final int lineNumber;
+
+    long count;
+    long total;
+
+    Line(final String fileName, final int lineNumber) {
+      this.fileName = fileName;
+      this.lineNumber = lineNumber;
+    }
+
+    String key() {
+      return this.fileName + ":" + this.lineNumber;
+    }
+  }
+
+  /** One run of one script, recorded by the thread running it. */
+  public static class Run {
+    private final Profiler profiler;
+    private final long[] values;
+    private final Node root;
+    private final long started;
+
+    // Keyed by the call for ASH, and by file and line for JavaScript
+    private final Map<Object, Line> lines = new HashMap<>();
+
+    private Node current;
+    private int depth = 0;
+
+    // The calls made below the deepest node, innermost first
+    private final ArrayDeque<Overflow> overflow = new ArrayDeque<>();
+    private long lastSample;
+
+    private Run(final Profiler profiler, final String name) {
+      this.profiler = profiler;
+      this.values = Profiler.valueCounts.get();
+      this.root = new Node(name, null);
+      this.root.count = 1;
+      this.current = this.root;
+      this.started = this.lastSample = System.nanoTime();
+      this.root.valuesEntered = this.values[0];
+    }
+
+    private record Overflow(Line site, long entered) {}
+
+    /** Notes a call to the named function made on the given line. */
+    public void enter(
+        final String name, final Object site, final String fileName, final int lineNumber) {
+      Line line = this.lines.get(site);
+      if (line == null) {
+        line = new Line(fileName, lineNumber);
+        this.lines.put(site, line);
+      }
+      ++line.count;
+
+      if (this.depth >= MAX_DEPTH) {
+        ++this.current.count;
+        this.overflow.push(new Overflow(line, System.nanoTime()));
+        return;
+      }
+
+      Node node = this.current.child(name);
+      ++node.count;
+      node.site = line;
+      node.valuesEntered = this.values[0];
+      node.entered = System.nanoTime();
+
+      this.current = node;
+      ++this.depth;
+    }
+
+    /** Notes the return from the most recently entered function. */
+    public void exit() {
+      Overflow call = this.overflow.poll();
+      if (call != null) {
+        call.site().total += System.nanoTime() - call.entered();
+        return;
+      }
+
+      Node node = this.current;
+      if (node == this.root) {
+        return;
+      }
+
+      long elapsed = System.nanoTime() - node.entered;
+      node.total += elapsed;
+      node.values += this.values[0] - node.valuesEntered;
+      node.site.total += elapsed;
+
+      this.current = node.parent;
+      --this.depth;
+    }
+
+    /** Returns true if enough time has passed since the last sample to take another. */
+    public boolean sampleDue() {
+      return System.nanoTime() - this.lastSample >= SAMPLE_INTERVAL;
+    }
+
+    /**
+     * Records a sample of a stack, outermost function first, stopped on the given line. It is
+     * weighted by the time since the previous sample.
+     */
+    public void sample(final List<String> frames, final String fileName, final int lineNumber) {
+      long now = System.nanoTime();
+      long elapsed = now - this.lastSample;
+      this.lastSample = now;
+
+      Node node = this.root;
+      for (String frame : frames.subList(0, Math.min(frames.size(), MAX_DEPTH))) {
+        node = node.child(frame);
+        ++node.count;
+        node.total += elapsed;
+      }
+
+      String key = fileName + ":" + lineNumber;
+      Line line = this.lines.get(key);
+      if (line == null) {
+        line = new Line(fileName, lineNumber);
+        this.lines.put(key, line);
+      }
+      ++line.count;
+      line.total += elapsed;
+    }
+
+    /** Ends the run, and adds what was recorded to its profiler. */
+    public void finish() {
+      while (this.current != this.root) {
+        this.exit();
+      }
+
+      this.root.total = System.nanoTime() - this.started;
+      this.root.values = this.values[0] - this.root.valuesEntered;
+      this.profiler.merge(this);
+      Profiler.runFinished();
+    }
+  }
+
+  /**
+   * Starts recording a run of a script into the given profiler, or, if there is none, into the one
+   * recording every run. Returns null if neither is recording.
+   */
+  public static Run startRun(final Profiler profiler, final String name) {
+    Profiler target = profiler != null ? profiler : recordingEveryRun ? everyRun : null;
+    if (target == null) {
+      return null;
+    }
+
+    Profiler.runStarted();
+    return new Run(target, name != null ? name : "(command line)");
+  }
+
+  private static synchronized void runStarted() {
+    Profiler.countingValues = ++Profiler.activeRuns > 0;
+  }
+
+  private static synchronized void runFinished() {
+    Profiler.countingValues = --Profiler.activeRuns > 0;
+  }
+
+  /** Counts a value created while a run is being recorded on this thread. */
+  public static void countValue() {
+    if (Profiler.countingValues) {
+      ++Profiler.valueCounts.get()[0];
+    }
+  }
+
+  /** The profiler which records every script run while it is started. */
+  public static Profiler getEveryRun() {
+    return Profiler.everyRun;
+  }
+
+  public static boolean isRecordingEveryRun() {
+    return Profiler.recordingEveryRun;
+  }
+
+  public static void startRecordingEveryRun() {
+    Profiler.recordingEveryRun = true;
+  }
+
+  public static void stopRecordingEveryRun() {
+    Profiler.recordingEveryRun = false;
+  }
+
+  private synchronized void merge(final Run run) {
+    this.root.count += run.root.count;
+    this.root.total += run.root.total;
+    this.root.values += run.root.values;
+    this.root.child(run.root.name).merge(run.root);
+
+    for (Line line : run.lines.values()) {
+      Line merged =
+          this.lines.computeIfAbsent(line.key(), key -> new Line(line.fileName, line.lineNumber));
+      merged.count += line.count;
+      merged.total += line.total;
+    }
+  }
+
+  public synchronized void clear() {
+    this.root.count = 0;
+    this.root.total = 0;
+    this.root.values = 0;
+    this.root.children.clear();
+    this.lines.clear();
+  }
+
+  public synchronized boolean isEmpty() {
+    return this.root.count == 0;
+  }
+
+  // A function added up over every path it was reached by
+  private static class Totals {
+    final String name;
+    long count;
+    long total;
+    long net;
+    long values;
+
+    Totals(final String name) {
+      this.name = name;
+    }
+  }
+
+  /** The functions called, by name, and the lines calls were made on, as HTML tables. */
+  public synchronized String summary() {
+    Map<String, Totals> functions = new LinkedHashMap<>();
+    Profiler.addFunctions(functions, this.root);
+    List<Totals> list = new ArrayList<>(functions.values());
+
+    StringBuilder buff = new StringBuilder();
     buff.append("<br>");
 
-    list.sort(
-        new Comparator<>() {
-          @Override
-          public int compare(Profiler left, Profiler right) {
-            return (int) Math.signum(right.total - left.total);
-          }
-        });
+    list.sort(Comparator.comparingLong((Totals totals) -> totals.total).reversed());
     Profiler.addTable(buff, list, "(sorted by total time)");
 
     buff.append("<br>");
 
-    list.sort(
-        new Comparator<>() {
-          @Override
-          public int compare(Profiler left, Profiler right) {
-            return (int) Math.signum(right.net - left.net);
-          }
-        });
+    list.sort(Comparator.comparingLong((Totals totals) -> totals.net).reversed());
     Profiler.addTable(buff, list, "(sorted by net time)");
 
+    buff.append("<br>");
+
+    List<Line> lines = new ArrayList<>(this.lines.values());
+    lines.sort(Comparator.comparingLong((Line line) -> line.total).reversed());
+    buff.append("<table border=0><tr><td>Count</td><td>Total</td>");
+    buff.append("<td>Line (sorted by total time)</td></tr>");
+    for (Line line : lines) {
+      buff.append("<tr><td>");
+      buff.append(line.count);
+      buff.append("</td><td>");
+      buff.append(KoLConstants.NONSCIENTIFIC_FORMAT.format(line.total / 1e9d));
+      buff.append("</td><td>");
+      buff.append(line.key());
+      buff.append("</td></tr>");
+    }
+    buff.append("</table>");
+
     buff.append("<br>");
     return buff.toString();
   }
 
-  private static void addTable(StringBuffer buff, ArrayList<Profiler> list, String title) {
+  private static void addFunctions(final Map<String, Totals> functions, final Node node) {
+    Totals totals = functions.computeIfAbsent(node.name, Totals::new);
+    totals.count += node.count;
+    totals.total += node.total;
+    totals.net += node.net();
+    totals.values += node.netValues();
+
+    for (Node child : node.children.values()) {
+      Profiler.addFunctions(functions, child);
+    }
+  }
+
+  private static void addTable(final StringBuilder buff, final List<Totals> list, String title) {
     buff.append("<table border=0><tr><td>Count</td><td>Total</td>");
-    buff.append("<td>Net</td><td>Name ");
+    buff.append("<td>Net</td><td>Values</td><td>Name ");
     buff.append(title);
     buff.append("</td></tr>");
-    for (Profiler p : list) {
+    for (Totals p : list) {
       buff.append("<tr><td>");
       buff.append(p.count);
       buff.append("</td><td>");
@@ -90,9 +388,68 @@ public class Profiler {
       buff.append("</td><td>");
       buff.append(KoLConstants.NONSCIENTIFIC_FORMAT.format(p.net / 1e9d));
       buff.append("</td><td>");
+      buff.append(p.values);
+      buff.append("</td><td>");
       buff.append(p.name);
       buff.append("</td></tr>");
     }
     buff.append("</table>");
   }
+
+  /**
+   * The call tree as collapsed stacks: one line for each path of calls, naming the functions on it
+   * separated by semicolons, followed by the net nanoseconds spent at the end of that path.
+   */
+  public synchronized String toCollapsedStacks() {
+    StringBuilder buff = new StringBuilder();
+    for (Node child : this.root.children.values()) {
+      Profiler.addStacks(buff, "", child);
+    }
+    return buff.toString();
+  }
+
+  private static void addStacks(final StringBuilder buff, final String path, final Node node) {
+    String stack = path + node.name.replace(';', ',');
+    long net = node.net();
+    if (net > 0) {
+      buff.append(stack).append(' ').append(net).append(KoLConstants.LINE_BREAK);
+    }
+    for (Node child : node.children.values()) {
+      Profiler.addStacks(buff, stack + ";", child);
+    }
+  }
+
+  /** The call tree and the lines calls were made on, as JSON. Times are in nanoseconds. */
+  public synchronized JSONObject toJSON() {
+    JSONArray lines = new JSONArray();
+    for (Line line : this.lines.values()) {
+      JSONObject object = new JSONObject();
+      object.put("file", line.fileName);
+      object.put("line", line.lineNumber);
+      object.put("count", line.count);
+      object.put("total", line.total);
+      lines.add(object);
+    }
+
+    JSONObject result = new JSONObject();
+    result.put("calls", Profiler.toJSON(this.root));
+    result.put("lines", lines);
+    return result;
+  }
+
+  private static JSONObject toJSON(final Node node) {
+    JSONArray children = new JSONArray();
+    for (Node child : node.children.values()) {
+      children.add(Profiler.toJSON(child));
+    }
+
+    JSONObject object = new JSONObject();
+    object.put("name", node.name);
+    object.put("count", node.count);
+    object.put("total", node.total);
+    object.put("net", node.net());
+    object.put("values", node.values);
+    object.put("children", children);
+    return object;
+  }
 }
@@ -10239,11 +10239,21 @@ public abstract class RuntimeLibrary {
     CompositeValue result = (CompositeValue) var2;
     boolean compact = var3.intValue() == 1;
 
-    BufferedReader reader = DataFileCache.getReader(filename);
-    if (reader == null) {
-      return DataTypes.FALSE_VALUE;
-    }
-
+    boolean read =
+        DataFileCache.readMap(
+            filename,
+            result,
+            compact,
+            reader -> RuntimeLibrary.readMap(controller, reader, filename, result, compact));
+    return DataTypes.makeBooleanValue(read);
+  }
+
+  private static boolean readMap(
+      final ScriptRuntime controller,
+      final BufferedReader reader,
+      final String filename,
+      final CompositeValue result,
+      final boolean compact) {
     String[] data = null;
     result.clear();
 
@@ -10280,10 +10290,10 @@ public abstract class RuntimeLibrary {
         // Otherwise, print a stack trace
         StaticEntity.printStackTrace(e, ex.getMessage());
       }
-      return DataTypes.FALSE_VALUE;
+      return false;
     }
 
-    return DataTypes.TRUE_VALUE;
+    return true;
   }
 
   public static Value map_to_file(ScriptRuntime controller, final Value var1, final Value var2) {
@@ -89,6 +89,8 @@ public interface ScriptRuntime {
 
   void setBatched(LinkedHashMap<String, LinkedHashMap<String, StringBuilder>> batched);
 
+  void setProfiler(final Profiler profiler);
+
   void resetTracing();
 
   void traceIndent();
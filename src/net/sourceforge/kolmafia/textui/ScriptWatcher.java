@@ -0,0 +1,250 @@
+package net.sourceforge.kolmafia.textui;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.RequestLogger;
+import net.sourceforge.kolmafia.preferences.Preferences;
+
+/**
+ * Tells whether a script file has changed since it was read.
+ *
+ * <p>Scripts are kept parsed between runs, and were checked before each run by asking the file
+ * system for the modification time of the script and of everything it imports. Instead, the
+ * scripts and relay directories are watched, and a script in one of them has changed only if the
+ * watch service has reported an event for it since it was read. Files anywhere else, and every
+ * file when the file system cannot be watched or the watchScriptFiles preference is false, are
+ * still checked by their modification time.
+ *
+ * <p>Events are only taken from the watch service under a lock which every check also holds, so a
+ * check always sees every event the service has reported by then. KoLmafia notes the files it
+ * writes or installs itself through {@link #fileChanged}, so those are stale at once. An edit made
+ * outside KoLmafia is seen as soon as the operating system reports it, which is usually within a
+ * few milliseconds.
+ *
+ * <p>Some platforms only provide a watch service which itself polls every few seconds. That would
+ * let a script run for a while after it is edited, so it is not used.
+ */
+public class ScriptWatcher {
+  /**
+   * What was known about a file when it was read: the last event seen, if its directory was
+   * watched, or else its modification time.
+   */
+  public record Stamp(boolean watched, long value) {}
+
+  // Counts the events seen; each file remembers the count at its most recent event
+  private static final AtomicLong events = new AtomicLong();
+  private static final Map<Path, Long> changes = new ConcurrentHashMap<>();
+  private static final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+  private static final Map<Path, WatchKey> keys = new ConcurrentHashMap<>();
+
+  // Events may have been lost at or before this count
+  private static volatile long overflow = 0;
+
+  // Held while events are taken from the watch service and while files are checked
+  private static final Object EVENT_LOCK = new Object();
+
+  // How often events are taken when no script is being checked, so that they do not pile up
+  private static final long DRAIN_INTERVAL = 1000L;
+
+  private static WatchService service = null;
+  private static boolean started = false;
+
+  private ScriptWatcher() {}
+
+  /** Records what is known about a file before it is read. */
+  public static Stamp stamp(final File file) {
+    ScriptWatcher.start();
+
+    Path path = ScriptWatcher.normalize(file);
+    synchronized (EVENT_LOCK) {
+      ScriptWatcher.processPending();
+      if (ScriptWatcher.isWatched(path)) {
+        return new Stamp(true, ScriptWatcher.events.get());
+      }
+    }
+    return new Stamp(false, file.lastModified());
+  }
+
+  /** Returns true if the file has not changed since it was stamped. */
+  public static boolean isCurrent(final File file, final Stamp stamp) {
+    if (stamp == null) {
+      return false;
+    }
+
+    Path path = ScriptWatcher.normalize(file);
+    if (stamp.watched()) {
+      synchronized (EVENT_LOCK) {
+        ScriptWatcher.processPending();
+        if (!ScriptWatcher.isWatched(path)) {
+          // The directory is no longer watched, so we cannot tell what happened to it
+          return false;
+        }
+        return ScriptWatcher.overflow <= stamp.value()
+            && ScriptWatcher.changes.getOrDefault(path, 0L) <= stamp.value();
+      }
+    }
+    return stamp.value() == file.lastModified();
+  }
+
+  /**
+   * Notes that KoLmafia itself has written to a file, so that a script which writes a script and
+   * then runs it does not need to wait for the watch service to report it.
+   */
+  public static void fileChanged(final File file) {
+    ScriptWatcher.changes.put(
+        ScriptWatcher.normalize(file), ScriptWatcher.events.incrementAndGet());
+  }
+
+  private static Path normalize(final File file) {
+    return file.toPath().toAbsolutePath().normalize();
+  }
+
+  private static boolean isWatched(final Path path) {
+    Path parent = path.getParent();
+    return parent != null && ScriptWatcher.keys.containsKey(parent);
+  }
+
+  private static synchronized void start() {
+    if (ScriptWatcher.started) {
+      return;
+    }
+    ScriptWatcher.started = true;
+
+    if (!Preferences.getBoolean("watchScriptFiles")) {
+      return;
+    }
+
+    WatchService service;
+    try {
+      service = FileSystems.getDefault().newWatchService();
+    } catch (IOException | UnsupportedOperationException e) {
+      return;
+    }
+
+    if (service.getClass().getSimpleName().startsWith("Polling")) {
+      try {
+        service.close();
+      } catch (IOException e) {
+        // Nothing was watched yet
+      }
+      return;
+    }
+
+    ScriptWatcher.service = service;
+
+    // Registering a large tree takes a while. Until a directory is registered, its files are
+    // checked by modification time.
+    Thread thread = new Thread(ScriptWatcher::run, "ScriptWatcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static void run() {
+    ScriptWatcher.registerTree(KoLConstants.SCRIPT_LOCATION.toPath());
+    ScriptWatcher.registerTree(KoLConstants.RELAY_LOCATION.toPath());
+
+    // Taking a key with take() would leave its events unrecorded for a moment, during which a
+    // check would miss them, so keys are only ever polled under the lock.
+    try {
+      while (true) {
+        synchronized (EVENT_LOCK) {
+          ScriptWatcher.processPending();
+        }
+        Thread.sleep(DRAIN_INTERVAL);
+      }
+    } catch (InterruptedException e) {
+      // Stopped watching
+    } finally {
+      ScriptWatcher.keys.clear();
+      ScriptWatcher.directories.clear();
+    }
+  }
+
+  // Called with EVENT_LOCK held
+  private static void processPending() {
+    WatchService service = ScriptWatcher.service;
+    if (service == null) {
+      return;
+    }
+
+    try {
+      WatchKey key;
+      while ((key = service.poll()) != null) {
+        ScriptWatcher.process(key);
+      }
+    } catch (ClosedWatchServiceException e) {
+      // Stopped watching
+    }
+  }
+
+  private static void registerTree(final Path root) {
+    Path directory = root.toAbsolutePath().normalize();
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+
+    try (Stream<Path> tree = Files.walk(directory)) {
+      tree.filter(Files::isDirectory).forEach(ScriptWatcher::register);
+    } catch (IOException | RuntimeException e) {
+      RequestLogger.printLine("Unable to watch " + directory + " for script changes: " + e);
+    }
+  }
+
+  private static void register(final Path directory) {
+    try {
+      WatchKey key =
+          directory.register(ScriptWatcher.service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+      ScriptWatcher.directories.put(key, directory);
+      ScriptWatcher.keys.put(directory, key);
+    } catch (IOException e) {
+      // Its files will be checked by modification time
+    }
+  }
+
+  private static void process(final WatchKey key) {
+    Path directory = ScriptWatcher.directories.get(key);
+    if (directory == null) {
+      key.cancel();
+      return;
+    }
+
+    for (WatchEvent<?> event : key.pollEvents()) {
+      long count = ScriptWatcher.events.incrementAndGet();
+
+      if (event.kind() == OVERFLOW) {
+        ScriptWatcher.overflow = count;
+        continue;
+      }
+
+      Path path = directory.resolve((Path) event.context());
+      ScriptWatcher.changes.put(path, count);
+
+      if (event.kind() == ENTRY_CREATE && Files.isDirectory(path)) {
+        ScriptWatcher.registerTree(path);
+      }
+    }
+
+    if (!key.reset()) {
+      // The directory is gone
+      ScriptWatcher.directories.remove(key);
+      ScriptWatcher.keys.remove(directory);
+    }
+  }
+}
@@ -145,7 +145,9 @@ public class CallScriptCommand extends AbstractCommand {
           || CallScriptCommand.JSNAME_PATTERN.matcher(scriptFile.getPath()).find()) {
         ScriptRuntime interpreter = KoLmafiaASH.getInterpreter(scriptFile);
 
-        if (!command.equals("call") && interpreter instanceof JavascriptRuntime) {
+        if (!command.equals("call")
+            && !command.equals("profile")
+            && interpreter instanceof JavascriptRuntime) {
           KoLmafia.updateDisplay(
               MafiaState.ERROR, "Cannot use command " + command + " with JavaScript scripts.");
           return;
@@ -167,26 +169,23 @@ public class CallScriptCommand extends AbstractCommand {
         }
 
         if (command.equals("profile")) {
-          if (interpreter instanceof AshRuntime ashInterpreter) {
-            Profiler prof = Profiler.create("toplevel");
-            long t0 = System.nanoTime();
-            prof.net0 = t0;
-            ashInterpreter.profiler = prof;
-
-            for (int i = 0; i < runCount && KoLmafia.permitsContinue(); ++i) {
-              KoLmafiaASH.logScriptExecution(
-                  "Starting ASH script: ", scriptFile.getName(), interpreter);
-              ashInterpreter.execute("main", arguments);
-              KoLmafiaASH.logScriptExecution(
-                  "Finished ASH script: ", scriptFile.getName(), interpreter);
+          if (interpreter != null) {
+            Profiler profiler = new Profiler();
+            interpreter.setProfiler(profiler);
+
+            try {
+              for (int i = 0; i < runCount && KoLmafia.permitsContinue(); ++i) {
+                KoLmafiaASH.logScriptExecution(
+                    "Starting script: ", scriptFile.getName(), interpreter);
+                interpreter.execute("main", arguments);
+                KoLmafiaASH.logScriptExecution(
+                    "Finished script: ", scriptFile.getName(), interpreter);
+              }
+            } finally {
+              interpreter.setProfiler(null);
             }
 
-            long t1 = System.nanoTime();
-            prof.total = t1 - t0;
-            prof.net += t1 - prof.net0;
-            prof.finish();
-            ashInterpreter.profiler = null;
-            RequestLogger.printLine(Profiler.summary());
+            RequestLogger.printLine(profiler.summary());
           }
           return;
         }
@@ -0,0 +1,41 @@
+package net.sourceforge.kolmafia.textui.command;
+
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.KoLConstants.MafiaState;
+import net.sourceforge.kolmafia.KoLmafia;
+import net.sourceforge.kolmafia.RequestLogger;
+import net.sourceforge.kolmafia.combat.MacroCache;
+
+public class MacroCacheCommand extends AbstractCommand {
+  public MacroCacheCommand() {
+    this.usage = " [clear | reset] - show how often combat macros were reused, or forget them.";
+  }
+
+  @Override
+  public void run(final String cmd, final String parameters) {
+    switch (parameters.trim()) {
+      case "" -> {
+        long hits = MacroCache.getHits();
+        long misses = MacroCache.getMisses();
+        long uncacheable = MacroCache.getUncacheable();
+        long total = hits + misses + uncacheable;
+        double rate = total == 0 ? 0.0 : 100.0 * hits / total;
+
+        RequestLogger.printLine(
+            MacroCache.size() + " macros remembered. " + total + " macros requested:");
+        RequestLogger.printLine(hits + " reused (" + KoLConstants.FLOAT_FORMAT.format(rate) + "%)");
+        RequestLogger.printLine(misses + " built and remembered");
+        RequestLogger.printLine(uncacheable + " built for a single fight");
+      }
+      case "clear" -> {
+        MacroCache.clear();
+        RequestLogger.printLine("Remembered macros forgotten.");
+      }
+      case "reset" -> {
+        MacroCache.resetStatistics();
+        RequestLogger.printLine("Macro cache statistics reset.");
+      }
+      default -> KoLmafia.updateDisplay(MafiaState.ERROR, "Usage: " + cmd + this.usage);
+    }
+  }
+}
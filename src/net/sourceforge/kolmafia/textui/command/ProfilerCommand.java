@@ -0,0 +1,68 @@
+package net.sourceforge.kolmafia.textui.command;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.KoLConstants.MafiaState;
+import net.sourceforge.kolmafia.KoLmafia;
+import net.sourceforge.kolmafia.RequestLogger;
+import net.sourceforge.kolmafia.textui.Profiler;
+
+public class ProfilerCommand extends AbstractCommand {
+  public ProfilerCommand() {
+    this.usage =
+        " [start | stop | clear | collapsed <file> | json <file>] - profile every script run,"
+            + " show the profile, or save it as flame graph stacks or JSON in the data directory.";
+  }
+
+  @Override
+  public void run(final String cmd, final String parameters) {
+    String[] split = parameters.trim().split("\\s+", 2);
+    String option = split[0];
+    String fileName = split.length > 1 ? split[1].trim() : "";
+
+    Profiler profiler = Profiler.getEveryRun();
+
+    switch (option) {
+      case "" -> {
+        RequestLogger.printLine(
+            "Profiler is " + (Profiler.isRecordingEveryRun() ? "recording." : "stopped."));
+        if (!profiler.isEmpty()) {
+          RequestLogger.printLine(profiler.summary());
+        }
+      }
+      case "start" -> {
+        Profiler.startRecordingEveryRun();
+        RequestLogger.printLine("Profiling every script run.");
+      }
+      case "stop" -> {
+        Profiler.stopRecordingEveryRun();
+        RequestLogger.printLine("Profiler stopped.");
+      }
+      case "clear" -> {
+        profiler.clear();
+        RequestLogger.printLine("Profile cleared.");
+      }
+      case "collapsed", "json" -> {
+        if (fileName.isEmpty()) {
+          KoLmafia.updateDisplay(MafiaState.ERROR, "Usage: " + cmd + this.usage);
+          return;
+        }
+
+        String text =
+            option.equals("json") ? profiler.toJSON().toString() : profiler.toCollapsedStacks();
+        File file = new File(KoLConstants.DATA_LOCATION, fileName);
+        try {
+          Files.createDirectories(file.toPath().getParent());
+          Files.writeString(file.toPath(), text);
+        } catch (IOException e) {
+          KoLmafia.updateDisplay(MafiaState.ERROR, "Unable to write " + file + ": " + e);
+          return;
+        }
+        RequestLogger.printLine("Profile saved to " + file);
+      }
+      default -> KoLmafia.updateDisplay(MafiaState.ERROR, "Usage: " + cmd + this.usage);
+    }
+  }
+}
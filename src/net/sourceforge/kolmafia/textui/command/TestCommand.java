@@ -7,11 +7,14 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import net.java.dev.spellcast.utilities.DataUtilities;
+import net.java.dev.spellcast.utilities.LockableListModel;
 import net.sourceforge.kolmafia.AdventureResult;
 import net.sourceforge.kolmafia.CoinmasterRegistry;
 import net.sourceforge.kolmafia.FamiliarData;
@@ -20,6 +23,7 @@ import net.sourceforge.kolmafia.KoLCharacter;
 import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.KoLConstants.MafiaState;
 import net.sourceforge.kolmafia.KoLmafia;
+import net.sourceforge.kolmafia.KoLmafiaCLI;
 import net.sourceforge.kolmafia.ModifierType;
 import net.sourceforge.kolmafia.MonsterData;
 import net.sourceforge.kolmafia.RequestEditorKit;
@@ -62,6 +66,7 @@ import net.sourceforge.kolmafia.request.FightRequest;
 import net.sourceforge.kolmafia.request.GenericRequest;
 import net.sourceforge.kolmafia.request.GenericRequest.ServerCookie;
 import net.sourceforge.kolmafia.request.MonsterManuelRequest;
+import net.sourceforge.kolmafia.request.ParsedResponse;
 import net.sourceforge.kolmafia.request.PlaceRequest;
 import net.sourceforge.kolmafia.request.ScrapheapRequest;
 import net.sourceforge.kolmafia.request.SpaaaceRequest;
@@ -87,18 +92,24 @@ import net.sourceforge.kolmafia.shop.ShopRowDatabase;
 import net.sourceforge.kolmafia.shop.ShopRowDatabase.ShopRowData;
 import net.sourceforge.kolmafia.swingui.ShowHTMLFrame;
 import net.sourceforge.kolmafia.swingui.SkillBuffFrame;
+import net.sourceforge.kolmafia.textui.javascript.JavascriptRuntime;
+import net.sourceforge.kolmafia.textui.javascript.SafeRequire;
 import net.sourceforge.kolmafia.utilities.ByteBufferUtilities;
 import net.sourceforge.kolmafia.utilities.CharacterEntities;
 import net.sourceforge.kolmafia.utilities.ChoiceUtilities;
 import net.sourceforge.kolmafia.utilities.HTMLParserUtils;
 import net.sourceforge.kolmafia.utilities.HashMultimap;
+import net.sourceforge.kolmafia.utilities.PreparedDataFiles;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 import net.sourceforge.kolmafia.utilities.WikiUtilities;
 import net.sourceforge.kolmafia.utilities.WikiUtilities.WikiType;
+import net.sourceforge.kolmafia.webui.RelayBenchmark;
+import net.sourceforge.kolmafia.webui.RelayServer;
 import net.sourceforge.kolmafia.webui.StationaryButtonDecorator;
 import org.htmlcleaner.HtmlCleaner;
 import org.htmlcleaner.TagNode;
 import org.htmlcleaner.XPatherException;
+import org.jsoup.Jsoup;
 
 public class TestCommand extends AbstractCommand {
   private static String contents = null;
@@ -117,6 +128,19 @@ public class TestCommand extends AbstractCommand {
     }
   }
 
+  // Runs the task once for each round to warm it up, then returns the average
+  // time of a round over as many rounds again, in microseconds
+  private static double averageMicros(final int rounds, final Runnable task) {
+    for (int i = 0; i < rounds; ++i) {
+      task.run();
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < rounds; ++i) {
+      task.run();
+    }
+    return (System.nanoTime() - start) / 1000.0 / rounds;
+  }
+
   private static Frame findFrame(final Class<?> type) {
     for (Frame frame : Frame.getFrames()) {
       if (frame.getClass() == type) {
@@ -249,6 +273,51 @@ public class TestCommand extends AbstractCommand {
       return;
     }
 
+    if (command.equals("concoctions")) {
+      if (split.length < 2) {
+        KoLmafia.updateDisplay(MafiaState.ERROR, "test concoctions ITEM");
+        return;
+      }
+
+      String itemName = parameters.substring(command.length()).trim();
+      AdventureResult item = ItemFinder.getFirstMatchingItem(itemName, Match.ANY);
+      if (item == null) {
+        RequestLogger.printLine("Can't parse item from \"" + itemName + "\".");
+        return;
+      }
+
+      // Compare a full refresh with the refresh which follows a change
+      // in the quantity of a single item.
+      int iterations = 10;
+
+      long full = 0;
+      for (int i = 0; i < iterations; ++i) {
+        long start = System.nanoTime();
+        ConcoctionDatabase.refreshConcoctionsNow();
+        full += System.nanoTime() - start;
+      }
+
+      long delta = 0;
+      for (int i = 0; i < iterations; ++i) {
+        ConcoctionDatabase.setRefreshNeeded(item.getItemId());
+        long start = System.nanoTime();
+        ConcoctionDatabase.refreshConcoctions(false);
+        delta += System.nanoTime() - start;
+      }
+
+      RequestLogger.printLine(
+          "Full refresh: "
+              + KoLConstants.FLOAT_FORMAT.format(full / iterations / 1000000.0)
+              + " ms");
+      RequestLogger.printLine(
+          "Refresh after "
+              + item.getName()
+              + " changes: "
+              + KoLConstants.FLOAT_FORMAT.format(delta / iterations / 1000000.0)
+              + " ms");
+      return;
+    }
+
     if (command.equals("cookies")) {
       if (GenericRequest.serverCookies.size() == 0) {
         RequestLogger.printLine("No server cookies");
@@ -452,6 +521,42 @@ public class TestCommand extends AbstractCommand {
       return;
     }
 
+    if (command.equals("jsload")) {
+      // Times runs of a JavaScript file. The first compiles it afresh; later runs reuse that.
+      if (split.length < 2) {
+        KoLmafia.updateDisplay(MafiaState.ERROR, "test jsload SCRIPT [RUNS]");
+        return;
+      }
+
+      List<File> files = KoLmafiaCLI.findScriptFile(split[1]);
+      if (files.size() != 1 || !files.get(0).getName().endsWith(".js")) {
+        KoLmafia.updateDisplay(MafiaState.ERROR, "Cannot find one JavaScript file " + split[1]);
+        return;
+      }
+
+      int runs = split.length < 3 ? 10 : Math.max(2, StringUtilities.parseInt(split[2]));
+      long[] nanos = new long[runs];
+
+      SafeRequire.clearCompiledModules();
+      for (int i = 0; i < runs; ++i) {
+        long start = System.nanoTime();
+        new JavascriptRuntime(files.get(0)).execute("main", null, true);
+        nanos[i] = System.nanoTime() - start;
+      }
+
+      long[] warm = Arrays.copyOfRange(nanos, 1, runs);
+      Arrays.sort(warm);
+      RequestLogger.printLine(
+          "Cold run: "
+              + KoLConstants.FLOAT_FORMAT.format(nanos[0] / 1000000.0)
+              + " ms, warm runs: median "
+              + KoLConstants.FLOAT_FORMAT.format(warm[warm.length / 2] / 1000000.0)
+              + " ms, fastest "
+              + KoLConstants.FLOAT_FORMAT.format(warm[0] / 1000000.0)
+              + " ms");
+      return;
+    }
+
     if (command.equals("leet")) {
       int index = parameters.indexOf(" ");
       if (index == -1) {
@@ -465,6 +570,45 @@ public class TestCommand extends AbstractCommand {
       return;
     }
 
+    if (command.equals("listmodel-benchmark")) {
+      int results = split.length < 2 ? 10000 : Math.max(1, StringUtilities.parseInt(split[1]));
+      LockableListModel.ListElementFilter even = element -> ((Integer) element) % 2 == 0;
+      LockableListModel.ListElementFilter tens = element -> ((Integer) element) % 10 == 0;
+
+      // Adding results to a filtered list with a filtered mirror, as the session lists are
+      double incremental =
+          TestCommand.averageMicros(
+              3,
+              () -> {
+                var model = new LockableListModel<Integer>(even);
+                model.getMirrorImage(tens);
+                for (int i = 0; i < results; ++i) {
+                  model.add(i);
+                }
+              });
+      // Each add used to filter the whole list and its mirrors again first
+      double refiltering =
+          TestCommand.averageMicros(
+              3,
+              () -> {
+                var model = new LockableListModel<Integer>(even);
+                model.getMirrorImage(tens);
+                for (int i = 0; i < results; ++i) {
+                  model.updateFilter(false);
+                  model.add(i);
+                }
+              });
+      RequestLogger.printLine(
+          "Added "
+              + results
+              + " results to a filtered, mirrored list: "
+              + KoLConstants.FLOAT_FORMAT.format(incremental / 1000)
+              + " ms testing each result, "
+              + KoLConstants.FLOAT_FORMAT.format(refiltering / 1000)
+              + " ms filtering again on each add");
+      return;
+    }
+
     if (command.equals("monsterids")) {
       int index = parameters.indexOf(" ");
       String string = parameters.substring(index + 1).trim();
@@ -618,6 +762,49 @@ public class TestCommand extends AbstractCommand {
       return;
     }
 
+    if (command.equals("relayload")) {
+      if (!RelayServer.isRunning()) {
+        KoLmafia.updateDisplay(MafiaState.ERROR, "The relay server is not running.");
+        return;
+      }
+
+      // Replay a page-load burst recorded by "test load FILE", or the built-in relay files
+      List<String> paths;
+      if (TestCommand.contents == null) {
+        paths = RelayBenchmark.defaultBurst();
+      } else {
+        paths = RelayBenchmark.parseBurst(TestCommand.contents);
+        TestCommand.contents = null;
+      }
+
+      int connections = split.length < 2 ? 6 : Math.max(1, StringUtilities.parseInt(split[1]));
+
+      RelayBenchmark.Result result;
+      try {
+        result = RelayBenchmark.run(RelayServer.getPort(), paths, connections);
+      } catch (IOException e) {
+        KoLmafia.updateDisplay(MafiaState.ERROR, "Relay load test failed: " + e.getMessage());
+        return;
+      }
+
+      RequestLogger.printLine(
+          result.requests()
+              + " requests over "
+              + connections
+              + " connections in "
+              + KoLConstants.FLOAT_FORMAT.format(result.wallNanos() / 1000000.0)
+              + " ms, "
+              + result.failures()
+              + " failed");
+      RequestLogger.printLine(
+          "p50: "
+              + KoLConstants.FLOAT_FORMAT.format(result.percentile(50) / 1000000.0)
+              + " ms, p99: "
+              + KoLConstants.FLOAT_FORMAT.format(result.percentile(99) / 1000000.0)
+              + " ms");
+      return;
+    }
+
     if (command.equals("relstring")) {
       if (split.length < 2) {
         KoLmafia.updateDisplay(MafiaState.ERROR, "test relstring RELSTRING");
@@ -825,6 +1012,24 @@ public class TestCommand extends AbstractCommand {
       return;
     }
 
+    if (command.equals("startup")) {
+      long startupTime = KoLmafia.getStartupTime();
+      if (startupTime == 0L) {
+        RequestLogger.printLine("Startup time was not recorded.");
+      } else {
+        RequestLogger.printLine("Interface ready " + startupTime + " ms after the JVM started.");
+      }
+      RequestLogger.printLine(
+          "Data files prepared in the background: "
+              + PreparedDataFiles.getUsedCount()
+              + " of "
+              + PreparedDataFiles.getRequestedCount()
+              + " used, "
+              + PreparedDataFiles.getSnapshotCount()
+              + " loaded already split.");
+      return;
+    }
+
     if (command.equals("state")) {
       if (split.length >= 2) {
         int index = parameters.indexOf(" ");
@@ -1104,6 +1309,30 @@ public class TestCommand extends AbstractCommand {
       return;
     }
 
+    if (command.equals("decorate-benchmark")) {
+      if (split.length < 2) {
+        KoLmafia.updateDisplay(MafiaState.ERROR, "test decorate-benchmark URL [ROUNDS]");
+        return;
+      }
+      String urlString = split[1].trim();
+      int rounds = split.length < 3 ? 1000 : Math.max(1, StringUtilities.parseInt(split[2]));
+      String html = TestCommand.contents;
+      TestCommand.contents = null;
+      double micros =
+          TestCommand.averageMicros(
+              rounds,
+              () -> RequestEditorKit.getFeatureRichHTML(urlString, new StringBuffer(html), true));
+      RequestLogger.printLine(
+          "Decorated "
+              + urlString
+              + " in "
+              + KoLConstants.FLOAT_FORMAT.format(micros)
+              + " us, averaged over "
+              + rounds
+              + " rounds");
+      return;
+    }
+
     if (command.equals("deck")) {
       String responseText = TestCommand.contents;
       TestCommand.contents = null;
@@ -1242,6 +1471,60 @@ public class TestCommand extends AbstractCommand {
       return;
     }
 
+    if (command.equals("parse-benchmark")) {
+      int rounds = split.length < 2 ? 1000 : Math.max(1, StringUtilities.parseInt(split[1]));
+      String html = TestCommand.contents;
+      TestCommand.contents = null;
+      Pattern forms = Pattern.compile("<form.*?</form>", Pattern.DOTALL);
+
+      // The scans made of one page as it is processed: the result processor and the relay
+      // browser's use links both look for items and effects, and choice handling looks at the
+      // forms several times over.
+      double separate =
+          TestCommand.averageMicros(
+              rounds,
+              () -> {
+                String body = KoLConstants.HEAD_PATTERN.matcher(html).replaceAll("");
+                KoLConstants.ANYTAG_BUT_ITALIC_PATTERN
+                    .matcher(body)
+                    .replaceAll(KoLConstants.LINE_BREAK)
+                    .split(KoLConstants.LINE_BREAK);
+                for (int i = 0; i < 2; ++i) {
+                  ResultProcessor.ITEM_TABLE_PATTERN.matcher(html).results().toList();
+                  ResultProcessor.EFFECT_TABLE_PATTERN.matcher(html).results().toList();
+                }
+                for (int i = 0; i < 4; ++i) {
+                  forms.matcher(html).results().toList();
+                }
+                Jsoup.parse(html);
+              });
+      double shared =
+          TestCommand.averageMicros(
+              rounds,
+              () -> {
+                // A response not seen before, as each one from the server is
+                String text = new String(html);
+                ParsedResponse.of(text).getPlainTextLines();
+                for (int i = 0; i < 2; ++i) {
+                  ParsedResponse.of(text).getMatches(ResultProcessor.ITEM_TABLE_PATTERN);
+                  ParsedResponse.of(text).getMatches(ResultProcessor.EFFECT_TABLE_PATTERN);
+                }
+                for (int i = 0; i < 4; ++i) {
+                  ParsedResponse.of(text).getMatches(forms);
+                }
+                ParsedResponse.of(text).getDocument();
+              });
+      RequestLogger.printLine(
+          "Parsed the response in "
+              + KoLConstants.FLOAT_FORMAT.format(separate)
+              + " us scanning separately, "
+              + KoLConstants.FLOAT_FORMAT.format(shared)
+              + " us sharing one view, averaged over "
+              + rounds
+              + " rounds");
+      return;
+    }
+
     if (command.equals("pocket")) {
       if (split.length < 2) {
         KoLmafia.updateDisplay(MafiaState.ERROR, "test pocket POCKET");
@@ -2,9 +2,11 @@ package net.sourceforge.kolmafia.textui.javascript;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import net.sourceforge.kolmafia.textui.DataTypes;
 import net.sourceforge.kolmafia.textui.ScriptException;
 import net.sourceforge.kolmafia.textui.parsetree.CompositeValue;
@@ -22,7 +24,9 @@ public class EnumeratedWrapper extends ScriptableObject {
   private static final long serialVersionUID = 1L;
 
   // Make sure each wrapper is a singleton, so that equality comparison works in JS.
-  private static final Map<Scriptable, Map<Value, EnumeratedWrapper>> registry = new HashMap<>();
+  // Runs which share a scope share its wrappers, and may do so from several threads.
+  private static final Map<Scriptable, Map<Value, EnumeratedWrapper>> registry =
+      Collections.synchronizedMap(new IdentityHashMap<>());
 
   private final Class<?> recordValueClass;
   // NB: This wrapped value is NOT the proxy record type version.
@@ -42,22 +46,18 @@ public class EnumeratedWrapper extends ScriptableObject {
       proto = scope.getPrototype();
     }
 
-    Map<Value, EnumeratedWrapper> subRegistry = registry.getOrDefault(scope, null);
-    if (subRegistry == null) {
-      subRegistry = new HashMap<>();
-      registry.put(scope, subRegistry);
-    }
-
-    EnumeratedWrapper existing = subRegistry.getOrDefault(wrapped, null);
-    if (existing == null) {
-      existing = new EnumeratedWrapper(recordValueClass, wrapped);
-      existing.setPrototype(
-          EnumeratedWrapperPrototype.getPrototypeInstance(scope, wrapped.getType()));
-      existing.sealObject();
-      subRegistry.put(wrapped, existing);
-    }
-
-    return existing;
+    Scriptable topScope = scope;
+    return registry
+        .computeIfAbsent(scope, k -> new ConcurrentHashMap<>())
+        .computeIfAbsent(
+            wrapped,
+            k -> {
+              EnumeratedWrapper wrapper = new EnumeratedWrapper(recordValueClass, wrapped);
+              wrapper.setPrototype(
+                  EnumeratedWrapperPrototype.getPrototypeInstance(topScope, wrapped.getType()));
+              wrapper.sealObject();
+              return wrapper;
+            });
   }
 
   public static void cleanup(Scriptable scope) {
@@ -25,6 +25,7 @@ import net.sourceforge.kolmafia.StaticEntity;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import net.sourceforge.kolmafia.textui.AbstractRuntime;
 import net.sourceforge.kolmafia.textui.DataTypes;
+import net.sourceforge.kolmafia.textui.Profiler;
 import net.sourceforge.kolmafia.textui.RuntimeLibrary;
 import net.sourceforge.kolmafia.textui.ScriptException;
 import net.sourceforge.kolmafia.textui.parsetree.ProxyRecordValue;
@@ -39,6 +40,7 @@ import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.EcmaError;
 import org.mozilla.javascript.EvaluatorException;
 import org.mozilla.javascript.Function;
+import org.mozilla.javascript.FunctionObject;
 import org.mozilla.javascript.JavaScriptException;
 import org.mozilla.javascript.NativeArray;
 import org.mozilla.javascript.NativeJavaObject;
@@ -187,7 +189,8 @@ public class JavascriptRuntime extends AbstractRuntime {
     return prototype.initToScope(cx, scope, runtimeLibrary);
   }
 
-  private static void initEnumeratedTypes(Context cx, Scriptable scope, Scriptable runtimeLibrary) {
+  private static List<ScriptableObject> initEnumeratedTypes(
+      Context cx, Scriptable scope, Scriptable runtimeLibrary) {
     var enumeratedProtos = new ArrayList<ScriptableObject>();
     for (Type valueType : DataTypes.enumeratedTypes) {
       String typeName = capitalize(valueType.getName());
@@ -203,10 +206,60 @@ public class JavascriptRuntime extends AbstractRuntime {
     }
 
     if (runtimeLibrary != null) {
-      var jsArray = (NativeArray) cx.newArray(scope, enumeratedProtos.toArray());
+      defineMafiaClasses(cx, scope, runtimeLibrary, enumeratedProtos);
+    }
+    return enumeratedProtos;
+  }
+
+  private static void defineMafiaClasses(
+      Context cx, Scriptable scope, Scriptable runtimeLibrary, List<ScriptableObject> protos) {
+    var jsArray = (NativeArray) cx.newArray(scope, protos.toArray());
+    ScriptableObject.defineProperty(
+        runtimeLibrary, "MafiaClasses", jsArray, DONTENUM | READONLY | PERMANENT);
+  }
+
+  /**
+   * Fills in a new top-level scope for a script run. Normally each run builds its own standard
+   * objects and enumerated types. With javascriptSharedScope set, runs instead inherit them from a
+   * sealed scope built once and shared by every run. Scripts which add to the standard objects,
+   * as some polyfills do, fail against a sealed scope, which is why sharing is optional.
+   */
+  private void initScope(Context cx, Scriptable scope, SharedScope shared) {
+    currentStdLib = initRuntimeLibrary(cx, scope, scriptFile);
+    if (shared == null) {
+      initEnumeratedTypes(cx, scope, currentStdLib);
+      return;
+    }
+
+    for (ScriptableObject constructor : shared.enumeratedTypes()) {
       ScriptableObject.defineProperty(
-          runtimeLibrary, "MafiaClasses", jsArray, DONTENUM | READONLY | PERMANENT);
+          currentStdLib,
+          ((FunctionObject) constructor).getFunctionName(),
+          constructor,
+          DONTENUM | READONLY | PERMANENT);
     }
+    defineMafiaClasses(cx, scope, currentStdLib, shared.enumeratedTypes());
+  }
+
+  private record SharedScope(ScriptableObject scope, List<ScriptableObject> enumeratedTypes) {
+    Scriptable newScope(Context cx) {
+      Scriptable scope = cx.newObject(this.scope);
+      scope.setPrototype(this.scope);
+      scope.setParentScope(null);
+      return scope;
+    }
+  }
+
+  private static SharedScope sharedScope = null;
+
+  private static synchronized SharedScope getSharedScope(Context cx) {
+    if (sharedScope == null) {
+      ScriptableObject scope = cx.initSafeStandardObjects(null, true);
+      List<ScriptableObject> enumeratedTypes = initEnumeratedTypes(cx, scope, null);
+      scope.sealObject();
+      sharedScope = new SharedScope(scope, List.copyOf(enumeratedTypes));
+    }
+    return sharedScope;
   }
 
   @Override
@@ -224,14 +277,21 @@ public class JavascriptRuntime extends AbstractRuntime {
     cx.setTrackUnhandledPromiseRejections(true);
     runningRuntimes.add(this);
 
-    // TODO: Use a shared parent scope and initialize this with that as a prototype.
-    // But be careful. May mess up our EnumeratedWrapper registries.
-    Scriptable scope = cx.initSafeStandardObjects();
+    SharedScope shared =
+        Preferences.getBoolean("javascriptSharedScope") ? getSharedScope(cx) : null;
+    Scriptable scope = shared == null ? cx.initSafeStandardObjects() : shared.newScope(cx);
+
+    // A script run while another is running on this thread is recorded in a run of its own
+    Object enclosingRun = cx.getThreadLocal(Profiler.Run.class);
+    Profiler.Run run =
+        this.startProfilerRun(this.scriptFile != null ? this.scriptFile.getName() : null);
+    if (run != null) {
+      cx.putThreadLocal(Profiler.Run.class, run);
+    }
 
     try {
       // If executing from GCLI (and not file), add std lib to top scope.
-      currentStdLib = initRuntimeLibrary(cx, scope, scriptFile);
-      initEnumeratedTypes(cx, scope, currentStdLib);
+      initScope(cx, scope, shared);
 
       setState(State.NORMAL);
       if (ScriptRuntime.hasTopCall(cx)) {
@@ -253,6 +313,14 @@ public class JavascriptRuntime extends AbstractRuntime {
       KoLmafia.updateDisplay(KoLConstants.MafiaState.ERROR, escapedMessage);
       return null;
     } finally {
+      if (run != null) {
+        run.finish();
+        if (enclosingRun != null) {
+          cx.putThreadLocal(Profiler.Run.class, enclosingRun);
+        } else {
+          cx.removeThreadLocal(Profiler.Run.class);
+        }
+      }
       EnumeratedWrapper.cleanup(scope);
       runningRuntimes.remove(this);
       Context.exit();
@@ -1,7 +1,12 @@
 package net.sourceforge.kolmafia.textui.javascript;
 
+import java.util.ArrayList;
+import java.util.List;
+import net.sourceforge.kolmafia.textui.Profiler;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.EvaluatorException;
+import org.mozilla.javascript.ScriptStackElement;
 
 public class ObservingContextFactory extends ContextFactory {
   @Override
@@ -15,5 +20,33 @@ public class ObservingContextFactory extends ContextFactory {
   @Override
   protected void observeInstructionCount(Context ctx, int instructionCount) {
     JavascriptRuntime.checkInterrupted();
+
+    if (ctx.getThreadLocal(Profiler.Run.class) instanceof Profiler.Run run && run.sampleDue()) {
+      ObservingContextFactory.sample(run);
+    }
+  }
+
+  private static void sample(final Profiler.Run run) {
+    // Rhino records the script stack in every exception it creates
+    ScriptStackElement[] stack = new EvaluatorException("").getScriptStack();
+    if (stack.length == 0) {
+      return;
+    }
+
+    List<String> frames = new ArrayList<>(stack.length);
+    for (int i = stack.length - 1; i >= 0; --i) {
+      ScriptStackElement element = stack[i];
+      String name = element.functionName != null ? element.functionName : "(top level)";
+      frames.add(name + " (" + ObservingContextFactory.shortName(element.fileName) + ")");
+    }
+
+    run.sample(frames, ObservingContextFactory.shortName(stack[0].fileName), stack[0].lineNumber);
+  }
+
+  private static String shortName(final String fileName) {
+    if (fileName == null) {
+      return "";
+    }
+    return fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1);
   }
 }
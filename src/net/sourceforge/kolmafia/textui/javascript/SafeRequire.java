@@ -18,6 +18,7 @@ import net.sourceforge.kolmafia.textui.parsetree.UserDefinedFunction;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.commonjs.module.ModuleScriptProvider;
 import org.mozilla.javascript.commonjs.module.Require;
 import org.mozilla.javascript.commonjs.module.provider.ParsedContentType;
 import org.mozilla.javascript.commonjs.module.provider.SoftCachingModuleScriptProvider;
@@ -26,19 +27,27 @@ import org.mozilla.javascript.commonjs.module.provider.UrlModuleSourceProvider;
 public class SafeRequire extends Require {
   private static final long serialVersionUID = 1L;
 
+  // Compiled modules are shared by every script run, and recompiled when their file changes.
+  // Each run still executes them afresh in its own scope. Every require checks the file again,
+  // so that a module edited between runs is never run stale.
+  private static volatile ModuleScriptProvider moduleScripts = newModuleScriptProvider();
+
   private final Scriptable stdLib;
 
   public SafeRequire(Context cx, Scriptable nativeScope, Scriptable stdLib) {
-    super(
-        cx,
-        nativeScope,
-        new SoftCachingModuleScriptProvider(new KoLmafiaUrlModuleSourceProvider()),
-        null,
-        new MainWarningScript(),
-        true);
+    super(cx, nativeScope, moduleScripts, null, new MainWarningScript(), true);
     this.stdLib = stdLib;
   }
 
+  private static ModuleScriptProvider newModuleScriptProvider() {
+    return new SoftCachingModuleScriptProvider(new KoLmafiaUrlModuleSourceProvider());
+  }
+
+  /** Forgets every compiled module, so that each is compiled again the next time it is used. */
+  public static void clearCompiledModules() {
+    moduleScripts = newModuleScriptProvider();
+  }
+
   @Override
   public Object call(Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
     if (args == null || args.length < 1 || !(args[0] instanceof String path)) {
@@ -101,6 +110,9 @@ public class SafeRequire extends Require {
     public KoLmafiaUrlModuleSourceProvider() {
       super(
           Arrays.asList(KoLConstants.ROOT_LOCATION.toURI(), KoLConstants.SCRIPT_LOCATION.toURI()),
+          null,
+          // Rhino otherwise trusts a loaded module for a minute without looking at its file
+          urlConnection -> 0L,
           null);
     }
 
@@ -102,6 +102,10 @@ public class AggregateType extends CompositeType {
     this.size = size;
   }
 
+  public boolean isCaseInsensitive() {
+    return this.caseInsensitive;
+  }
+
   @Override
   public boolean equals(final Type o) {
     return o instanceof AggregateType
@@ -379,19 +379,7 @@ public abstract class BasicScope extends Command {
 
   @Override
   public Value execute(final AshRuntime interpreter) {
-    // Yield control at the top of the scope to
-    // allow other tasks to run and keyboard input -
-    // especially the Escape key - to be accepted.
-
-    // Unfortunately, the following does not work
-    // Thread.yield();
-
-    // ...but the following does.
-    long t = System.currentTimeMillis();
-    if (t >= BasicScope.nextPause) {
-      BasicScope.nextPause = t + 100L;
-      this.pauser.pause(1);
-    }
+    this.pauseIfDue();
 
     try {
       Value result = DataTypes.VOID_VALUE;
@@ -427,6 +415,22 @@ public abstract class BasicScope extends Command {
     }
   }
 
+  void pauseIfDue() {
+    // Yield control at the top of the scope to
+    // allow other tasks to run and keyboard input -
+    // especially the Escape key - to be accepted.
+
+    // Unfortunately, the following does not work
+    // Thread.yield();
+
+    // ...but the following does.
+    long t = System.currentTimeMillis();
+    if (t >= BasicScope.nextPause) {
+      BasicScope.nextPause = t + 100L;
+      this.pauser.pause(1);
+    }
+  }
+
   public abstract void addCommand(final Command c, final Parser p);
 
   public abstract Iterator<Command> getCommands();
@@ -0,0 +1,646 @@
+package net.sourceforge.kolmafia.textui.parsetree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import net.sourceforge.kolmafia.KoLmafia;
+import net.sourceforge.kolmafia.textui.AshRuntime;
+import net.sourceforge.kolmafia.textui.DataTypes;
+import net.sourceforge.kolmafia.textui.DataTypes.TypeSpec;
+import net.sourceforge.kolmafia.textui.ScriptRuntime;
+
+/**
+ * Compiles the body of a hot {@link UserDefinedFunction} into a tree of closures.
+ *
+ * <p>Each closure does what the {@code execute} method of its parse tree node does, minus the
+ * tracing, which is never on while compiled code runs. Arithmetic and comparisons whose operands
+ * are int or float variables, constants, or other such arithmetic are evaluated on primitives, so
+ * only the final result of an expression is boxed into a {@link Value}. Any node this compiler
+ * does not know about is run by the tree-walking interpreter, so compiled and interpreted code mix
+ * freely.
+ */
+final class ClosureCompiler {
+  /** How many calls a function takes before its body is compiled. */
+  static final int HOT_THRESHOLD = 100;
+
+  @FunctionalInterface
+  interface Node {
+    Value execute(AshRuntime interpreter);
+  }
+
+  @FunctionalInterface
+  private interface IntNode {
+    long evaluate(AshRuntime interpreter);
+  }
+
+  @FunctionalInterface
+  private interface FloatNode {
+    double evaluate(AshRuntime interpreter);
+  }
+
+  private ClosureCompiler() {}
+
+  static Node compile(final Scope scope) {
+    return ClosureCompiler.compileScope(scope);
+  }
+
+  private static Node compileScope(final BasicScope scope) {
+    if (scope.getClass() != Scope.class) {
+      return scope::execute;
+    }
+
+    Node[] commands =
+        ((Scope) scope)
+            .getCommandList().stream().map(ClosureCompiler::compileCommand).toArray(Node[]::new);
+
+    return interpreter -> {
+      scope.pauseIfDue();
+
+      try {
+        Value result = DataTypes.VOID_VALUE;
+
+        for (Node command : commands) {
+          result = command.execute(interpreter);
+
+          // Abort processing now if command failed
+          if (!KoLmafia.permitsContinue()) {
+            interpreter.setState(ScriptRuntime.State.EXIT);
+          }
+
+          if (result == null) {
+            result = DataTypes.VOID_VALUE;
+          }
+
+          if (interpreter.getState() != ScriptRuntime.State.NORMAL) {
+            break;
+          }
+        }
+
+        return result;
+      } finally {
+        scope.executed = true;
+      }
+    };
+  }
+
+  private static Node compileCommand(final Command command) {
+    if (command instanceof BasicScope scope) {
+      return ClosureCompiler.compileScope(scope);
+    }
+    if (command.getClass() == If.class) {
+      return ClosureCompiler.compileIf((If) command);
+    }
+    if (command.getClass() == WhileLoop.class) {
+      return ClosureCompiler.compileWhile((WhileLoop) command);
+    }
+    if (command.getClass() == FunctionReturn.class) {
+      return ClosureCompiler.compileReturn((FunctionReturn) command);
+    }
+    if (command instanceof Evaluable evaluable) {
+      return ClosureCompiler.compileExpression(evaluable);
+    }
+    return command::execute;
+  }
+
+  private static Node compileIf(final If command) {
+    List<Node> branches = new ArrayList<>();
+    branches.add(ClosureCompiler.compileConditional(command));
+
+    Iterator<Conditional> it = command.getElseLoopIterator();
+    while (it.hasNext()) {
+      branches.add(ClosureCompiler.compileConditional(it.next()));
+    }
+
+    Node[] chain = branches.toArray(new Node[0]);
+
+    return interpreter -> {
+      for (Node branch : chain) {
+        Value result = branch.execute(interpreter);
+
+        if (interpreter.getState() != ScriptRuntime.State.NORMAL
+            || result == DataTypes.TRUE_VALUE) {
+          return result;
+        }
+      }
+
+      return DataTypes.FALSE_VALUE;
+    };
+  }
+
+  private static Node compileConditional(final Conditional conditional) {
+    Node scope = ClosureCompiler.compileScope(conditional.getScope());
+
+    if (conditional.getClass() == Else.class) {
+      return interpreter -> {
+        if (!KoLmafia.permitsContinue()) {
+          interpreter.setState(ScriptRuntime.State.EXIT);
+          return null;
+        }
+
+        Value result = scope.execute(interpreter);
+
+        if (interpreter.getState() != ScriptRuntime.State.NORMAL) {
+          return result;
+        }
+
+        return DataTypes.TRUE_VALUE;
+      };
+    }
+
+    Node condition = ClosureCompiler.compileExpression(conditional.getCondition());
+
+    return interpreter -> {
+      if (!KoLmafia.permitsContinue()) {
+        interpreter.setState(ScriptRuntime.State.EXIT);
+        return null;
+      }
+
+      Value conditionResult = condition.execute(interpreter);
+      interpreter.captureValue(conditionResult);
+
+      if (conditionResult == null) {
+        return null;
+      }
+
+      if (conditionResult.intValue() == 1) {
+        Value result = scope.execute(interpreter);
+
+        if (interpreter.getState() != ScriptRuntime.State.NORMAL) {
+          return result;
+        }
+
+        return DataTypes.TRUE_VALUE;
+      }
+
+      return DataTypes.FALSE_VALUE;
+    };
+  }
+
+  private static Node compileWhile(final WhileLoop loop) {
+    Node condition = ClosureCompiler.compileExpression(loop.getCondition());
+    Node scope = ClosureCompiler.compileScope(loop.getScope());
+
+    return interpreter -> {
+      if (!KoLmafia.permitsContinue()) {
+        interpreter.setState(ScriptRuntime.State.EXIT);
+        return null;
+      }
+
+      while (true) {
+        Value conditionResult = condition.execute(interpreter);
+        interpreter.captureValue(conditionResult);
+
+        if (conditionResult == null) {
+          return null;
+        }
+
+        if (conditionResult.intValue() != 1) {
+          break;
+        }
+
+        Value result = scope.execute(interpreter);
+
+        if (!KoLmafia.permitsContinue()) {
+          interpreter.setState(ScriptRuntime.State.EXIT);
+        }
+
+        switch (interpreter.getState()) {
+          case EXIT:
+            return null;
+          case BREAK:
+            interpreter.setState(ScriptRuntime.State.NORMAL);
+            return DataTypes.VOID_VALUE;
+          case CONTINUE:
+            // Done with this iteration
+            interpreter.setState(ScriptRuntime.State.NORMAL);
+            break;
+          case NORMAL:
+            break;
+          default:
+            return result;
+        }
+      }
+
+      return DataTypes.VOID_VALUE;
+    };
+  }
+
+  private static Node compileReturn(final FunctionReturn command) {
+    Evaluable expression = command.getExpression();
+    Node returnValue = expression == null ? null : ClosureCompiler.compileExpression(expression);
+    Type expectedType = command.getExpectedType();
+
+    return interpreter -> {
+      if (!KoLmafia.permitsContinue()) {
+        interpreter.setState(ScriptRuntime.State.EXIT);
+      }
+
+      if (interpreter.getState() == ScriptRuntime.State.EXIT) {
+        return null;
+      }
+
+      if (returnValue == null) {
+        interpreter.setState(ScriptRuntime.State.RETURN);
+        return null;
+      }
+
+      Value result = returnValue.execute(interpreter);
+      interpreter.captureValue(result);
+
+      if (result == null) {
+        return null;
+      }
+
+      if (interpreter.getState() != ScriptRuntime.State.EXIT) {
+        interpreter.setState(ScriptRuntime.State.RETURN);
+      }
+
+      if (expectedType == null) {
+        return result;
+      }
+
+      if (expectedType.equals(TypeSpec.STRING)) {
+        return result.toStringValue();
+      }
+
+      if (expectedType.equals(TypeSpec.FLOAT)) {
+        return result.toFloatValue();
+      }
+
+      if (expectedType.equals(TypeSpec.INT)) {
+        return result.toIntValue();
+      }
+
+      return result;
+    };
+  }
+
+  private static Node compileExpression(final Evaluable expression) {
+    if (expression.getClass() == Operation.class) {
+      return ClosureCompiler.compileOperation((Operation) expression);
+    }
+    if (expression.getClass() == Assignment.class) {
+      return ClosureCompiler.compileAssignment((Assignment) expression);
+    }
+    if (expression.getClass() == FunctionCall.class) {
+      return ClosureCompiler.compileCall((FunctionCall) expression);
+    }
+    return expression::execute;
+  }
+
+  private static Node compileOperation(final Operation operation) {
+    Operator oper = operation.getOperator();
+
+    if (operation.rhs != null && oper.isComparison()) {
+      Node comparison =
+          ClosureCompiler.compileComparison(oper, operation.getLeftHandSide(), operation.rhs);
+      if (comparison != null) {
+        return comparison;
+      }
+    }
+
+    IntNode intNode = ClosureCompiler.compileInt(operation);
+    if (intNode != null) {
+      return interpreter -> {
+        if (!ClosureCompiler.captureOperands(interpreter)) {
+          return null;
+        }
+        return DataTypes.makeIntValue(intNode.evaluate(interpreter));
+      };
+    }
+
+    FloatNode floatNode = ClosureCompiler.compileFloat(operation);
+    if (floatNode != null) {
+      return interpreter -> {
+        if (!ClosureCompiler.captureOperands(interpreter)) {
+          return null;
+        }
+        return DataTypes.makeFloatValue(floatNode.evaluate(interpreter));
+      };
+    }
+
+    return operation::execute;
+  }
+
+  /**
+   * The tree-walker captures the value of every operand it evaluates. Numeric operands cannot
+   * change the script state, so capturing once before evaluating them all is equivalent.
+   *
+   * @return false if the script is exiting
+   */
+  private static boolean captureOperands(final AshRuntime interpreter) {
+    interpreter.captureValue(DataTypes.VOID_VALUE);
+    return interpreter.getState() != ScriptRuntime.State.EXIT;
+  }
+
+  private static Node compileComparison(
+      final Operator oper, final Evaluable lhs, final Evaluable rhs) {
+    IntNode intLeft = ClosureCompiler.compileInt(lhs);
+    IntNode intRight = ClosureCompiler.compileInt(rhs);
+
+    if (intLeft != null && intRight != null) {
+      ComparisonTest test = ClosureCompiler.comparisonTest(oper);
+      return interpreter -> {
+        if (!ClosureCompiler.captureOperands(interpreter)) {
+          return null;
+        }
+        int comparison =
+            Long.compare(intLeft.evaluate(interpreter), intRight.evaluate(interpreter));
+        return DataTypes.makeBooleanValue(test.test(comparison));
+      };
+    }
+
+    FloatNode floatLeft = ClosureCompiler.compileFloat(lhs);
+    FloatNode floatRight = ClosureCompiler.compileFloat(rhs);
+
+    if (floatLeft != null && floatRight != null) {
+      ComparisonTest test = ClosureCompiler.comparisonTest(oper);
+      return interpreter -> {
+        if (!ClosureCompiler.captureOperands(interpreter)) {
+          return null;
+        }
+        int comparison =
+            Double.compare(floatLeft.evaluate(interpreter), floatRight.evaluate(interpreter));
+        return DataTypes.makeBooleanValue(test.test(comparison));
+      };
+    }
+
+    return null;
+  }
+
+  @FunctionalInterface
+  private interface ComparisonTest {
+    boolean test(int comparison);
+  }
+
+  private static ComparisonTest comparisonTest(final Operator oper) {
+    return switch (oper.operator) {
+      case "!=" -> c -> c != 0;
+      case ">=" -> c -> c >= 0;
+      case "<=" -> c -> c <= 0;
+      case ">" -> c -> c > 0;
+      case "<" -> c -> c < 0;
+      // "==" and the approximate equality operator agree on numbers
+      default -> c -> c == 0;
+    };
+  }
+
+  private static Node compileAssignment(final Assignment assignment) {
+    VariableReference lhs = assignment.getLeftHandSide();
+    Operator oper = assignment.getOperator();
+    Evaluable rhs = assignment.getRightHandSide();
+
+    if (lhs.getClass() != VariableReference.class
+        || lhs.target.expression != null
+        || (oper != null && !ClosureCompiler.isPrimitiveArithmetic(oper))) {
+      return assignment::execute;
+    }
+
+    Variable variable = lhs.target;
+    Node store = null;
+
+    if (lhs.getType().equals(TypeSpec.INT)) {
+      IntNode value = ClosureCompiler.compileInt(rhs);
+      if (value != null && oper != null) {
+        value = ClosureCompiler.intArithmetic(oper, i -> variable.getValue(i).intValue(), value);
+      }
+      if (value != null) {
+        IntNode result = value;
+        store = interpreter -> DataTypes.makeIntValue(result.evaluate(interpreter));
+      }
+    } else if (lhs.getType().equals(TypeSpec.FLOAT)) {
+      FloatNode value = ClosureCompiler.compileFloat(rhs);
+      if (value != null && oper != null) {
+        value =
+            ClosureCompiler.floatArithmetic(oper, i -> variable.getValue(i).floatValue(), value);
+      }
+      if (value != null) {
+        FloatNode result = value;
+        store = interpreter -> DataTypes.makeFloatValue(result.evaluate(interpreter));
+      }
+    }
+
+    if (store == null) {
+      return assignment::execute;
+    }
+
+    Node newValue = store;
+
+    return interpreter -> {
+      if (!KoLmafia.permitsContinue()) {
+        interpreter.setState(ScriptRuntime.State.EXIT);
+        return null;
+      }
+
+      if (!ClosureCompiler.captureOperands(interpreter)) {
+        return null;
+      }
+
+      Value value = newValue.execute(interpreter);
+      variable.setValue(interpreter, value);
+      return value;
+    };
+  }
+
+  private static Node compileCall(final FunctionCall call) {
+    Node[] params =
+        call.getParams().stream().map(ClosureCompiler::compileExpression).toArray(Node[]::new);
+
+    return interpreter -> {
+      // The tree-walker keeps the books for the profiler and the trace
+      if (ScriptRuntime.isTracing() || interpreter.profiler != null) {
+        return call.execute(interpreter);
+      }
+
+      if (!KoLmafia.permitsContinue()) {
+        interpreter.setState(ScriptRuntime.State.EXIT);
+        return null;
+      }
+
+      Object[] values = new Object[params.length + 1];
+      values[0] = interpreter;
+
+      for (int i = 0; i < params.length; ++i) {
+        Value value = params[i].execute(interpreter);
+        interpreter.captureValue(value);
+        if (value == null) {
+          value = DataTypes.VOID_VALUE;
+        }
+
+        if (interpreter.getState() == ScriptRuntime.State.EXIT) {
+          return null;
+        }
+
+        values[i + 1] = value;
+      }
+
+      Function target = call.getTarget();
+
+      interpreter.setLineAndFile(call.fileName, call.lineNumber);
+      interpreter.pushFrame(target.getName());
+
+      Value result = target.execute(interpreter, values);
+
+      if (interpreter.getState() != ScriptRuntime.State.EXIT) {
+        interpreter.setState(ScriptRuntime.State.NORMAL);
+      }
+
+      interpreter.popFrame();
+      return result;
+    };
+  }
+
+  private static boolean isPrimitiveArithmetic(final Operator oper) {
+    return switch (oper.operator) {
+      case "+", "-", "*", "/", "%" -> true;
+      default -> false;
+    };
+  }
+
+  /** Returns a closure computing the given int expression, or null if it cannot be specialized. */
+  private static IntNode compileInt(final Evaluable expression) {
+    if (!expression.getType().getBaseType().equals(TypeSpec.INT)) {
+      return null;
+    }
+
+    if (expression instanceof Value.Constant constant) {
+      long value = constant.value.intValue();
+      return interpreter -> value;
+    }
+
+    if (expression.getClass() == VariableReference.class) {
+      Variable variable = ((VariableReference) expression).target;
+      if (variable.expression != null) {
+        return null;
+      }
+      return interpreter -> variable.getValue(interpreter).intValue();
+    }
+
+    if (expression.getClass() != Operation.class) {
+      return null;
+    }
+
+    Operation operation = (Operation) expression;
+    Operator oper = operation.getOperator();
+    IntNode lhs = ClosureCompiler.compileInt(operation.lhs);
+    if (lhs == null) {
+      return null;
+    }
+
+    if (operation.rhs == null) {
+      return oper.equals("-") ? interpreter -> 0 - lhs.evaluate(interpreter) : null;
+    }
+
+    IntNode rhs = ClosureCompiler.compileInt(operation.rhs);
+    if (rhs == null || !ClosureCompiler.isPrimitiveArithmetic(oper)) {
+      return null;
+    }
+
+    return ClosureCompiler.intArithmetic(oper, lhs, rhs);
+  }
+
+  private static IntNode intArithmetic(final Operator oper, final IntNode lhs, final IntNode rhs) {
+    return switch (oper.operator) {
+      case "+" -> interpreter -> lhs.evaluate(interpreter) + rhs.evaluate(interpreter);
+      case "-" -> interpreter -> lhs.evaluate(interpreter) - rhs.evaluate(interpreter);
+      case "*" -> interpreter -> lhs.evaluate(interpreter) * rhs.evaluate(interpreter);
+      case "/" ->
+          interpreter -> {
+            long lint = lhs.evaluate(interpreter);
+            long rint = rhs.evaluate(interpreter);
+            if (rint == 0) {
+              throw oper.runtimeException(interpreter, "Division by zero");
+            }
+            return lint / rint;
+          };
+      case "%" ->
+          interpreter -> {
+            long lint = lhs.evaluate(interpreter);
+            long rint = rhs.evaluate(interpreter);
+            if (rint == 0) {
+              throw oper.runtimeException(interpreter, "Division by zero");
+            }
+            return lint % rint;
+          };
+      default -> null;
+    };
+  }
+
+  /**
+   * Returns a closure computing the given numeric expression as a float, or null if it cannot be
+   * specialized.
+   */
+  private static FloatNode compileFloat(final Evaluable expression) {
+    IntNode intNode = ClosureCompiler.compileInt(expression);
+    if (intNode != null) {
+      return interpreter -> (double) intNode.evaluate(interpreter);
+    }
+
+    if (!expression.getType().getBaseType().equals(TypeSpec.FLOAT)) {
+      return null;
+    }
+
+    if (expression instanceof Value.Constant constant) {
+      double value = constant.value.floatValue();
+      return interpreter -> value;
+    }
+
+    if (expression.getClass() == VariableReference.class) {
+      Variable variable = ((VariableReference) expression).target;
+      if (variable.expression != null) {
+        return null;
+      }
+      return interpreter -> variable.getValue(interpreter).floatValue();
+    }
+
+    if (expression.getClass() != Operation.class) {
+      return null;
+    }
+
+    Operation operation = (Operation) expression;
+    Operator oper = operation.getOperator();
+    FloatNode lhs = ClosureCompiler.compileFloat(operation.lhs);
+    if (lhs == null) {
+      return null;
+    }
+
+    if (operation.rhs == null) {
+      return oper.equals("-") ? interpreter -> 0.0 - lhs.evaluate(interpreter) : null;
+    }
+
+    FloatNode rhs = ClosureCompiler.compileFloat(operation.rhs);
+    if (rhs == null || !ClosureCompiler.isPrimitiveArithmetic(oper)) {
+      return null;
+    }
+
+    return ClosureCompiler.floatArithmetic(oper, lhs, rhs);
+  }
+
+  private static FloatNode floatArithmetic(
+      final Operator oper, final FloatNode lhs, final FloatNode rhs) {
+    return switch (oper.operator) {
+      case "+" -> interpreter -> lhs.evaluate(interpreter) + rhs.evaluate(interpreter);
+      case "-" -> interpreter -> lhs.evaluate(interpreter) - rhs.evaluate(interpreter);
+      case "*" -> interpreter -> lhs.evaluate(interpreter) * rhs.evaluate(interpreter);
+      case "/" ->
+          interpreter -> {
+            double lfloat = lhs.evaluate(interpreter);
+            double rfloat = rhs.evaluate(interpreter);
+            if (rfloat == 0.0) {
+              throw oper.runtimeException(interpreter, "Division by zero");
+            }
+            return lfloat / rfloat;
+          };
+      case "%" ->
+          interpreter -> {
+            double lfloat = lhs.evaluate(interpreter);
+            double rfloat = rhs.evaluate(interpreter);
+            if (rfloat == 0.0) {
+              throw oper.runtimeException(interpreter, "Division by zero");
+            }
+            return lfloat % rfloat;
+          };
+      default -> null;
+    };
+  }
+}
@@ -93,22 +93,14 @@ public class FunctionCall extends Evaluable {
     interpreter.pushFrame(this.target.getName());
 
     Value result;
-    Profiler prev = interpreter.profiler;
-    if (prev != null) {
-      long t0 = System.nanoTime();
-      prev.net += t0 - prev.net0;
-      Profiler curr = Profiler.create(this.target.getSignature());
-      curr.net0 = t0;
-      interpreter.profiler = curr;
-
-      result = this.target.execute(interpreter, values);
-
-      long t1 = System.nanoTime();
-      prev.net0 = t1;
-      interpreter.profiler = prev;
-      curr.total = t1 - t0;
-      curr.net += t1 - curr.net0;
-      curr.finish();
+    Profiler.Run profiler = interpreter.profiler;
+    if (profiler != null) {
+      profiler.enter(this.target.getSignature(), this, this.fileName, this.lineNumber);
+      try {
+        result = this.target.execute(interpreter, values);
+      } finally {
+        profiler.exit();
+      }
     } else {
       result = this.target.execute(interpreter, values);
     }
@@ -35,6 +35,10 @@ public class FunctionReturn extends Command {
     return this.returnValue;
   }
 
+  Type getExpectedType() {
+    return this.expectedType;
+  }
+
   @Override
   public Value execute(final AshRuntime interpreter) {
     if (!KoLmafia.permitsContinue()) {
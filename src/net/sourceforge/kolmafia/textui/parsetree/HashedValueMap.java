@@ -0,0 +1,469 @@
+package net.sourceforge.kolmafia.textui.parsetree;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import net.sourceforge.kolmafia.textui.DataTypes;
+
+/**
+ * The contents of an ASH map, kept in a hash table rather than a TreeMap.
+ *
+ * <p>A TreeMap finds a key with a chain of {@link Value#compareTo} calls. These maps find it by
+ * hash, and only sort their keys when they are iterated, keeping the sorted keys until the map's
+ * keys next change. Iteration visits keys in exactly the order a TreeMap would, and fails with a
+ * ConcurrentModificationException under the same circumstances, which is what foreach relies on.
+ *
+ * <p>Only keys whose equality and order the hash table reproduces exactly are hashed. The first
+ * time any other key is stored, the map moves its contents into a TreeMap and uses that from then
+ * on. Such keys can still be looked up before then, by comparing them with each key in turn, just
+ * as the TreeMap would.
+ *
+ * <p>ASH never stores null in a map, so a null value means the key is absent.
+ */
+abstract class HashedValueMap extends AbstractMap<Value, Value> {
+  /** Returns an empty map suited to keys of the given type. */
+  static Map<Value, Value> forIndexType(final Type indexType) {
+    Type type = indexType == null ? null : indexType.getBaseType();
+    if (IntKeyed.isKeyType(type)) {
+      return new IntKeyed();
+    }
+    if (type == DataTypes.STRING_TYPE) {
+      return new StringKeyed();
+    }
+    return new TreeMap<>();
+  }
+
+  private TreeMap<Value, Value> tree = null;
+  private Value[] sortedKeys = null;
+  private int modCount = 0;
+
+  /** Returns whether the key is one this map hashes. */
+  abstract boolean hashes(Value key);
+
+  /** Returns the value stored under a hashed key, or null. */
+  abstract Value lookup(Value key);
+
+  /** Stores a value under a hashed key, returning the value it replaced, or null. */
+  abstract Value store(Value key, Value value);
+
+  /** Removes a hashed key, returning the value stored under it, or null. */
+  abstract Value delete(Value key);
+
+  abstract int count();
+
+  abstract void empty();
+
+  /** Returns a new array of the stored keys, in no particular order. */
+  abstract Value[] storedKeys();
+
+  /** Orders hashed keys as {@link Value#compareTo} does. */
+  abstract Comparator<Value> order();
+
+  @Override
+  public int size() {
+    return this.tree != null ? this.tree.size() : this.count();
+  }
+
+  @Override
+  public boolean containsKey(final Object key) {
+    return this.get(key) != null;
+  }
+
+  @Override
+  public Value get(final Object key) {
+    if (this.tree != null) {
+      return this.tree.get(key);
+    }
+    if (!(key instanceof Value value)) {
+      return null;
+    }
+    if (this.hashes(value)) {
+      return this.lookup(value);
+    }
+    Value found = this.scan(value);
+    return found == null ? null : this.lookup(found);
+  }
+
+  @Override
+  public Value put(final Value key, final Value value) {
+    if (this.tree == null && !this.hashes(key)) {
+      this.spill();
+    }
+    if (this.tree != null) {
+      return this.tree.put(key, value);
+    }
+
+    int count = this.count();
+    Value previous = this.store(key, value);
+    if (this.count() != count) {
+      this.changed();
+    }
+    return previous;
+  }
+
+  @Override
+  public Value remove(final Object key) {
+    if (this.tree != null) {
+      return this.tree.remove(key);
+    }
+    if (!(key instanceof Value value)) {
+      return null;
+    }
+
+    Value found = this.hashes(value) ? value : this.scan(value);
+    Value previous = found == null ? null : this.delete(found);
+    if (previous != null) {
+      this.changed();
+    }
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    if (this.tree != null) {
+      this.tree.clear();
+      return;
+    }
+    this.empty();
+    this.changed();
+  }
+
+  @Override
+  public Set<Value> keySet() {
+    return new AbstractSet<>() {
+      @Override
+      public int size() {
+        return HashedValueMap.this.size();
+      }
+
+      @Override
+      public Iterator<Value> iterator() {
+        return HashedValueMap.this.tree != null
+            ? HashedValueMap.this.tree.keySet().iterator()
+            : new KeyIterator();
+      }
+    };
+  }
+
+  @Override
+  public Set<Map.Entry<Value, Value>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public int size() {
+        return HashedValueMap.this.size();
+      }
+
+      @Override
+      public Iterator<Map.Entry<Value, Value>> iterator() {
+        Iterator<Value> keys = HashedValueMap.this.keySet().iterator();
+        return new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return keys.hasNext();
+          }
+
+          @Override
+          public Map.Entry<Value, Value> next() {
+            Value key = keys.next();
+            return new AbstractMap.SimpleImmutableEntry<>(key, HashedValueMap.this.get(key));
+          }
+
+          @Override
+          public void remove() {
+            keys.remove();
+          }
+        };
+      }
+    };
+  }
+
+  private void changed() {
+    this.sortedKeys = null;
+    this.modCount++;
+  }
+
+  // Finds the stored key which compares equal to an unhashed key, the way a TreeMap would
+  private Value scan(final Value key) {
+    for (Value stored : this.storedKeys()) {
+      if (key.compareTo(stored) == 0) {
+        return stored;
+      }
+    }
+    return null;
+  }
+
+  private void spill() {
+    TreeMap<Value, Value> tree = new TreeMap<>();
+    for (Value key : this.storedKeys()) {
+      tree.put(key, this.lookup(key));
+    }
+    this.empty();
+    this.changed();
+    this.tree = tree;
+  }
+
+  private Value[] sortedKeys() {
+    if (this.sortedKeys == null) {
+      Value[] keys = this.storedKeys();
+      Arrays.sort(keys, this.order());
+      this.sortedKeys = keys;
+    }
+    return this.sortedKeys;
+  }
+
+  private class KeyIterator implements Iterator<Value> {
+    private final Value[] keys = HashedValueMap.this.sortedKeys();
+    private int next = 0;
+    private Value current = null;
+    private int expectedModCount = HashedValueMap.this.modCount;
+
+    @Override
+    public boolean hasNext() {
+      return this.next < this.keys.length;
+    }
+
+    @Override
+    public Value next() {
+      if (HashedValueMap.this.modCount != this.expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      if (this.next >= this.keys.length) {
+        throw new NoSuchElementException();
+      }
+      this.current = this.keys[this.next++];
+      return this.current;
+    }
+
+    @Override
+    public void remove() {
+      if (this.current == null) {
+        throw new IllegalStateException();
+      }
+      if (HashedValueMap.this.modCount != this.expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      HashedValueMap.this.remove(this.current);
+      this.current = null;
+      this.expectedModCount = HashedValueMap.this.modCount;
+    }
+  }
+
+  /**
+   * Keys which compare by their integer content: ints, items, skills, effects, and monsters other
+   * than those which compare by name. They are kept in an open-addressed table keyed by that
+   * integer, so looking one up neither boxes it nor compares Values.
+   */
+  static final class IntKeyed extends HashedValueMap {
+    private long[] ids = new long[16];
+    private Value[] keys = new Value[16];
+    private Value[] values = new Value[16];
+    private int size = 0;
+
+    static boolean isKeyType(final Type type) {
+      return type == DataTypes.INT_TYPE
+          || type == DataTypes.ITEM_TYPE
+          || type == DataTypes.SKILL_TYPE
+          || type == DataTypes.EFFECT_TYPE
+          || type == DataTypes.MONSTER_TYPE;
+    }
+
+    @Override
+    boolean hashes(final Value key) {
+      return isKeyType(key.getType().getBaseType()) && !key.isStringLike();
+    }
+
+    @Override
+    Value lookup(final Value key) {
+      int index = this.indexOf(key.contentLong);
+      return index < 0 ? null : this.values[index];
+    }
+
+    @Override
+    Value store(final Value key, final Value value) {
+      long id = key.contentLong;
+      int index = this.indexOf(id);
+      if (index >= 0) {
+        Value previous = this.values[index];
+        this.values[index] = value;
+        return previous;
+      }
+
+      if ((this.size + 1) * 4 > this.keys.length * 3) {
+        this.resize(this.keys.length * 2);
+      }
+      this.insert(id, key, value);
+      this.size++;
+      return null;
+    }
+
+    @Override
+    Value delete(final Value key) {
+      int index = this.indexOf(key.contentLong);
+      if (index < 0) {
+        return null;
+      }
+
+      Value previous = this.values[index];
+      this.size--;
+
+      // Shift later entries of the same probe sequence back into the gap
+      int mask = this.keys.length - 1;
+      int gap = index;
+      int next = index;
+      while (true) {
+        next = (next + 1) & mask;
+        if (this.keys[next] == null) {
+          break;
+        }
+        int home = this.slot(this.ids[next]);
+        boolean reachable = gap <= next ? gap < home && home <= next : gap < home || home <= next;
+        if (reachable) {
+          continue;
+        }
+        this.ids[gap] = this.ids[next];
+        this.keys[gap] = this.keys[next];
+        this.values[gap] = this.values[next];
+        gap = next;
+      }
+      this.keys[gap] = null;
+      this.values[gap] = null;
+      return previous;
+    }
+
+    @Override
+    int count() {
+      return this.size;
+    }
+
+    @Override
+    void empty() {
+      Arrays.fill(this.keys, null);
+      Arrays.fill(this.values, null);
+      this.size = 0;
+    }
+
+    @Override
+    Value[] storedKeys() {
+      Value[] stored = new Value[this.size];
+      int i = 0;
+      for (Value key : this.keys) {
+        if (key != null) {
+          stored[i++] = key;
+        }
+      }
+      return stored;
+    }
+
+    @Override
+    Comparator<Value> order() {
+      return Comparator.comparingLong(key -> key.contentLong);
+    }
+
+    private int slot(final long id) {
+      long hash = id * 0x9E3779B97F4A7C15L;
+      return (int) (hash ^ (hash >>> 32)) & (this.keys.length - 1);
+    }
+
+    private int indexOf(final long id) {
+      int mask = this.keys.length - 1;
+      for (int i = this.slot(id); this.keys[i] != null; i = (i + 1) & mask) {
+        if (this.ids[i] == id) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private void insert(final long id, final Value key, final Value value) {
+      int mask = this.keys.length - 1;
+      int i = this.slot(id);
+      while (this.keys[i] != null) {
+        i = (i + 1) & mask;
+      }
+      this.ids[i] = id;
+      this.keys[i] = key;
+      this.values[i] = value;
+    }
+
+    private void resize(final int capacity) {
+      long[] ids = this.ids;
+      Value[] keys = this.keys;
+      Value[] values = this.values;
+
+      this.ids = new long[capacity];
+      this.keys = new Value[capacity];
+      this.values = new Value[capacity];
+      for (int i = 0; i < keys.length; ++i) {
+        if (keys[i] != null) {
+          this.insert(ids[i], keys[i], values[i]);
+        }
+      }
+    }
+  }
+
+  /** String keys, hashed by their text, which is also what they compare by. */
+  static final class StringKeyed extends HashedValueMap {
+    private record Entry(Value key, Value value) {}
+
+    private final HashMap<String, Entry> entries = new HashMap<>();
+
+    @Override
+    boolean hashes(final Value key) {
+      return key.getType().getBaseType() == DataTypes.STRING_TYPE;
+    }
+
+    @Override
+    Value lookup(final Value key) {
+      Entry entry = this.entries.get(key.toString());
+      return entry == null ? null : entry.value();
+    }
+
+    @Override
+    Value store(final Value key, final Value value) {
+      String text = key.toString();
+      Entry previous = this.entries.get(text);
+      // Like a TreeMap, keep the key which was stored first
+      this.entries.put(text, new Entry(previous == null ? key : previous.key(), value));
+      return previous == null ? null : previous.value();
+    }
+
+    @Override
+    Value delete(final Value key) {
+      Entry previous = this.entries.remove(key.toString());
+      return previous == null ? null : previous.value();
+    }
+
+    @Override
+    int count() {
+      return this.entries.size();
+    }
+
+    @Override
+    void empty() {
+      this.entries.clear();
+    }
+
+    @Override
+    Value[] storedKeys() {
+      Value[] stored = new Value[this.entries.size()];
+      int i = 0;
+      for (Entry entry : this.entries.values()) {
+        stored[i++] = entry.key();
+      }
+      return stored;
+    }
+
+    @Override
+    Comparator<Value> order() {
+      return Comparator.comparing(Value::toString);
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package net.sourceforge.kolmafia.textui.parsetree;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.List;
@@ -14,7 +15,7 @@ import net.sourceforge.kolmafia.textui.ScriptException;
 import net.sourceforge.kolmafia.textui.ScriptRuntime;
 
 public class LibraryFunction extends Function {
-  private final Method method;
+  private final MethodHandle method;
   public final String[] deprecationWarning;
 
   public LibraryFunction(
@@ -26,7 +27,7 @@ public class LibraryFunction extends Function {
 
     this.deprecationWarning = deprecationWarning;
 
-    this.method = findLibraryMethodOrError(name, variableReferences.size());
+    this.method = bindLibraryMethod(findLibraryMethodOrError(name, variableReferences.size()));
   }
 
   public static Method findLibraryMethod(String name, int paramCount) throws NoSuchMethodException {
@@ -50,6 +51,35 @@ public class LibraryFunction extends Function {
     }
   }
 
+  private static MethodHandle bindLibraryMethod(final Method method) {
+    if (method == null) {
+      return null;
+    }
+
+    try {
+      // Spread the interpreter and arguments over the method's parameters
+      return MethodHandles.publicLookup()
+          .unreflect(method)
+          .asSpreader(Object[].class, method.getParameterCount());
+    } catch (IllegalAccessException e) {
+      StaticEntity.printStackTrace(e, "Cannot bind built-in function: " + method.getName());
+      return null;
+    }
+  }
+
+  private Value invoke(final Object[] values) {
+    try {
+      return (Value) this.method.invokeExact(values);
+    } catch (ScriptException e) {
+      // Pass up exceptions intentionally generated by library
+      throw e;
+    } catch (Throwable e) {
+      // This is an error in the called method. Pass
+      // it on up so that we'll print a stack trace.
+      throw new RuntimeException(e);
+    }
+  }
+
   @Override
   public Value execute(final AshRuntime interpreter, Object[] values) {
     if (!KoLmafia.permitsContinue()) {
@@ -66,27 +96,12 @@ public class LibraryFunction extends Function {
       throw interpreter.runtimeException("Internal error: no method for " + this.getName());
     }
 
-    try {
-      // Bind values to variable references.
-      // Collapse values into VarArgs array
-      values = this.bindVariableReferences(interpreter, values);
+    // Bind values to variable references.
+    // Collapse values into VarArgs array
+    values = this.bindVariableReferences(interpreter, values);
 
-      // Invoke the method
-      return (Value) this.method.invoke(this, values);
-    } catch (InvocationTargetException e) {
-      // This is an error in the called method. Pass
-      // it on up so that we'll print a stack trace.
-
-      Throwable cause = e.getCause();
-      if (cause instanceof ScriptException) {
-        // Pass up exceptions intentionally generated by library
-        throw (ScriptException) cause;
-      }
-      throw new RuntimeException(cause);
-    } catch (IllegalAccessException e) {
-      // This is not expected, but is an internal error in ASH
-      throw new ScriptException(e);
-    }
+    // Invoke the method
+    return this.invoke(values);
   }
 
   // This is necessary for calls into the runtime library from other languages.
@@ -100,26 +115,11 @@ public class LibraryFunction extends Function {
       throw controller.runtimeException("Internal error: no method for " + this.getName());
     }
 
-    try {
-      // Collapse values into VarArgs array
-      values = this.bindVariableReferences(null, values);
-
-      // Invoke the method
-      return (Value) this.method.invoke(this, values);
-    } catch (InvocationTargetException e) {
-      // This is an error in the called method. Pass
-      // it on up so that we'll print a stack trace.
+    // Collapse values into VarArgs array
+    values = this.bindVariableReferences(null, values);
 
-      Throwable cause = e.getCause();
-      if (cause instanceof ScriptException) {
-        // Pass up exceptions intentionally generated by library
-        throw (ScriptException) cause;
-      }
-      throw new RuntimeException(cause);
-    } catch (IllegalAccessException e) {
-      // This is not expected, but is an internal error in ASH
-      throw new ScriptException(e);
-    }
+    // Invoke the method
+    return this.invoke(values);
   }
 
   public List<String> getParameterNames() {
@@ -10,7 +10,7 @@ import net.sourceforge.kolmafia.textui.DataTypes.TypeSpec;
 public class MapValue extends AggregateValue {
   public MapValue(final AggregateType type) {
     super(type);
-    this.content = new TreeMap<Value, Value>();
+    this.content = HashedValueMap.forIndexType(type.getIndexType());
   }
 
   public MapValue(final AggregateType type, boolean caseInsensitive) {
@@ -18,7 +18,7 @@ public class MapValue extends AggregateValue {
     this.content =
         caseInsensitive
             ? new TreeMap<Value, Value>(Value.ignoreCaseComparator)
-            : new TreeMap<Value, Value>();
+            : HashedValueMap.forIndexType(type.getIndexType());
   }
 
   public MapValue(final AggregateType type, Map<?, ?> value) {
@@ -5,6 +5,7 @@ import net.sourceforge.kolmafia.textui.AshRuntime;
 import net.sourceforge.kolmafia.textui.DataTypes;
 import net.sourceforge.kolmafia.textui.DataTypes.TypeSpec;
 import net.sourceforge.kolmafia.textui.Parser;
+import net.sourceforge.kolmafia.textui.ScriptException;
 import net.sourceforge.kolmafia.textui.ScriptRuntime;
 import org.eclipse.lsp4j.Location;
 
@@ -182,6 +183,10 @@ public class Operator extends Command {
     return this.operator;
   }
 
+  ScriptException runtimeException(final AshRuntime interpreter, final String message) {
+    return interpreter.runtimeException(message, this.fileName, this.lineNumber);
+  }
+
   public boolean validCoercion(Type lhs, Type rhs) {
     if (lhs.isBad() || rhs.isBad()) {
       // BadNode's are only generated through errors, which
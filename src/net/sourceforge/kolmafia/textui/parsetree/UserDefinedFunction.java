@@ -7,12 +7,17 @@ import java.util.Stack;
 import net.sourceforge.kolmafia.StaticEntity;
 import net.sourceforge.kolmafia.textui.AshRuntime;
 import net.sourceforge.kolmafia.textui.RuntimeLibrary;
+import net.sourceforge.kolmafia.textui.ScriptRuntime;
 import org.eclipse.lsp4j.Location;
 
 public class UserDefinedFunction extends Function {
   private Scope scope;
   private final Stack<ArrayList<Value>> callStack;
 
+  // Once a function has been called often enough, its body is compiled
+  private int invocations = 0;
+  private ClosureCompiler.Node compiled = null;
+
   public UserDefinedFunction(
       final String name,
       final Type type,
@@ -26,6 +31,12 @@ public class UserDefinedFunction extends Function {
 
   public void setScope(final Scope s) {
     this.scope = s;
+    this.invocations = 0;
+    this.compiled = null;
+  }
+
+  boolean isCompiled() {
+    return this.compiled != null;
   }
 
   public Scope getScope() {
@@ -84,7 +95,7 @@ public class UserDefinedFunction extends Function {
     // Bind values to variable references
     this.bindVariableReferences(interpreter, values);
 
-    Value result = this.scope.execute(interpreter);
+    Value result = this.executeScope(interpreter);
 
     // Restore initial variable bindings
     this.restoreBindings(interpreter);
@@ -96,6 +107,19 @@ public class UserDefinedFunction extends Function {
     return this.type.initialValue();
   }
 
+  private Value executeScope(final AshRuntime interpreter) {
+    if (this.compiled == null && ++this.invocations >= ClosureCompiler.HOT_THRESHOLD) {
+      this.compiled = ClosureCompiler.compile(this.scope);
+    }
+
+    // Only the tree-walker traces. Compiled code profiles its calls through the tree-walker.
+    if (this.compiled == null || ScriptRuntime.isTracing()) {
+      return this.scope.execute(interpreter);
+    }
+
+    return this.compiled.execute(interpreter);
+  }
+
   public boolean overridesLibraryFunction() {
     Function[] functions = RuntimeLibrary.functions.findFunctions(this.name);
 
@@ -17,6 +17,7 @@ import net.sourceforge.kolmafia.textui.AshRuntime;
 import net.sourceforge.kolmafia.textui.DataTypes;
 import net.sourceforge.kolmafia.textui.DataTypes.TypeSpec;
 import net.sourceforge.kolmafia.textui.Parser;
+import net.sourceforge.kolmafia.textui.Profiler;
 import net.sourceforge.kolmafia.textui.Rng;
 import net.sourceforge.kolmafia.textui.parsetree.ParseTreeNode.TypedNode;
 import org.eclipse.lsp4j.Location;
@@ -37,6 +38,10 @@ public class Value implements TypedNode, Comparable<Value> {
   public String contentString = null;
   public Object content = null;
 
+  {
+    Profiler.countValue();
+  }
+
   public Value() {
     this.type = DataTypes.VOID_TYPE;
   }
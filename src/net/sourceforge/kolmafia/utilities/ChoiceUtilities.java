@@ -1,14 +1,18 @@
 package net.sourceforge.kolmafia.utilities;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.RequestLogger;
 import net.sourceforge.kolmafia.request.AdventureRequest;
+import net.sourceforge.kolmafia.request.ParsedResponse;
 import net.sourceforge.kolmafia.session.ChoiceAdventures;
 import net.sourceforge.kolmafia.session.ChoiceAdventures.Spoilers;
 import net.sourceforge.kolmafia.session.ChoiceManager;
@@ -105,8 +109,8 @@ public class ChoiceUtilities {
           "<input type=hidden name=option value=(\\d+)>.*?<input +class=button type=submit value=\"(.*?)\">");
 
   public static String findChoiceDecisionIndex(final String text, final String responseText) {
-    Matcher matcher = DECISION_BUTTON_PATTERN.matcher(responseText);
-    while (matcher.find()) {
+    for (MatchResult matcher :
+        ParsedResponse.of(responseText).getMatches(DECISION_BUTTON_PATTERN)) {
       String decisionText = matcher.group(2);
 
       if (decisionText.contains(text)) {
@@ -118,8 +122,8 @@ public class ChoiceUtilities {
   }
 
   public static String findChoiceDecisionText(final int index, final String responseText) {
-    Matcher matcher = DECISION_BUTTON_PATTERN.matcher(responseText);
-    while (matcher.find()) {
+    for (MatchResult matcher :
+        ParsedResponse.of(responseText).getMatches(DECISION_BUTTON_PATTERN)) {
       int decisionIndex = Integer.parseInt(matcher.group(1));
 
       if (decisionIndex == index) {
@@ -130,16 +134,24 @@ public class ChoiceUtilities {
     return null;
   }
 
+  // The forms of a choice page which submit a choice option
+  private static List<String> choiceForms(final String responseText) {
+    List<String> forms = new ArrayList<>();
+    for (MatchResult form : ParsedResponse.of(responseText).getMatches(FORM_PATTERN)) {
+      if (!isNonChoiceForm(form.group())) {
+        forms.add(form.group());
+      }
+    }
+    return forms;
+  }
+
   public static Map<Integer, String> parseChoices(final String responseText) {
     Map<Integer, String> rv = new TreeMap<>();
     if (responseText == null) {
       return rv;
     }
 
-    Matcher m = FORM_PATTERN.matcher(responseText);
-    while (m.find()) {
-      String form = m.group();
-      if (isNonChoiceForm(form)) continue;
+    for (String form : choiceForms(responseText)) {
       var parsed = Jsoup.parseBodyFragment(form);
       var optionVal = parsed.select("input[name=option]").attr("value");
       if (optionVal.isEmpty()) {
@@ -156,7 +168,7 @@ public class ChoiceUtilities {
       rv.put(decision, text);
     }
 
-    m = LINK_PATTERN.matcher(responseText);
+    Matcher m = LINK_PATTERN.matcher(responseText);
     while (m.find()) {
       String form = m.group();
       if (isNonChoiceForm(form)) continue;
@@ -250,10 +262,7 @@ public class ChoiceUtilities {
     }
 
     // Find all choice forms
-    Matcher m = FORM_PATTERN.matcher(responseText);
-    while (m.find()) {
-      String form = m.group();
-      if (isNonChoiceForm(form)) continue;
+    for (String form : choiceForms(responseText)) {
       Matcher optMatcher = OPTION_PATTERN1.matcher(form);
       if (!optMatcher.find()) {
         continue;
@@ -296,10 +305,7 @@ public class ChoiceUtilities {
     }
 
     // Find all choice forms
-    Matcher m = FORM_PATTERN.matcher(responseText);
-    while (m.find()) {
-      String form = m.group();
-      if (isNonChoiceForm(form)) continue;
+    for (String form : choiceForms(responseText)) {
       Matcher optMatcher = OPTION_PATTERN1.matcher(form);
       if (!optMatcher.find()) {
         continue;
@@ -353,10 +359,7 @@ public class ChoiceUtilities {
     }
 
     // Find all choice forms
-    Matcher m = FORM_PATTERN.matcher(responseText);
-    while (m.find()) {
-      String form = m.group();
-      if (isNonChoiceForm(form)) continue;
+    for (String form : choiceForms(responseText)) {
       Matcher optMatcher = OPTION_PATTERN1.matcher(form);
       if (!optMatcher.find()) {
         continue;
@@ -410,10 +413,7 @@ public class ChoiceUtilities {
     }
 
     // Find all choice forms
-    Matcher m = FORM_PATTERN.matcher(responseText);
-    while (m.find()) {
-      String form = m.group();
-      if (isNonChoiceForm(form)) continue;
+    for (String form : choiceForms(responseText)) {
       Matcher optMatcher = OPTION_PATTERN1.matcher(form);
       if (!optMatcher.find()) {
         continue;
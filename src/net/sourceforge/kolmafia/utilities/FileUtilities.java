@@ -21,6 +21,8 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.zip.GZIPInputStream;
 import javax.swing.ImageIcon;
 import net.java.dev.spellcast.utilities.DataUtilities;
@@ -52,34 +54,58 @@ public class FileUtilities {
   private FileUtilities() {}
 
   public static final BufferedReader getReader(final String filename, final boolean allowOverride) {
-    return FileUtilities.getReader(
-        DataUtilities.getReader(KoLConstants.DATA_DIRECTORY, filename, allowOverride));
+    return FileUtilities.openDataFile(filename, allowOverride, RequestLogger::printLine);
   }
 
   public static final BufferedReader getReader(final String filename) {
-    return FileUtilities.getReader(DataUtilities.getReader(KoLConstants.DATA_DIRECTORY, filename));
+    return FileUtilities.getReader(filename, true);
   }
 
   public static final BufferedReader getReader(final File file) {
-    return FileUtilities.getReader(DataUtilities.getReader(file));
+    return FileUtilities.openReader(() -> DataUtilities.getReader(file), RequestLogger::printLine);
   }
 
   public static final BufferedReader getReader(final InputStream istream) {
-    return FileUtilities.getReader(DataUtilities.getReader(istream));
+    return FileUtilities.openReader(
+        () -> DataUtilities.getReader(istream), RequestLogger::printLine);
   }
 
-  private static BufferedReader getReader(final BufferedReader reader) {
-    String lastMessage = DataUtilities.getLastMessage();
+  private static BufferedReader openDataFile(
+      final String filename, final boolean allowOverride, final Consumer<String> messages) {
+    return FileUtilities.openReader(
+        () -> DataUtilities.getReader(KoLConstants.DATA_DIRECTORY, filename, allowOverride),
+        messages);
+  }
+
+  // DataUtilities reports which file it opened through a single static field, and data files may
+  // be opened by PreparedDataFiles on other threads, so open every reader one at a time.
+  private static final Object DATA_FILE_LOCK = new Object();
+
+  private static BufferedReader openReader(
+      final Supplier<BufferedReader> opener, final Consumer<String> messages) {
+    BufferedReader reader;
+    String lastMessage;
+    synchronized (DATA_FILE_LOCK) {
+      reader = opener.get();
+      lastMessage = DataUtilities.getLastMessage();
+    }
     if (lastMessage != null) {
-      RequestLogger.printLine(lastMessage);
+      messages.accept(lastMessage);
     }
     return reader;
   }
 
   public static final BufferedReader getVersionedReader(final String filename, final int version) {
-    BufferedReader reader =
-        FileUtilities.getReader(
-            DataUtilities.getReader(KoLConstants.DATA_DIRECTORY, filename, true));
+    BufferedReader reader = PreparedDataFiles.take(filename, version);
+    if (reader != null) {
+      return reader;
+    }
+    return FileUtilities.getVersionedReader(filename, version, RequestLogger::printLine);
+  }
+
+  static BufferedReader getVersionedReader(
+      final String filename, final int version, final Consumer<String> messages) {
+    BufferedReader reader = FileUtilities.openDataFile(filename, true, messages);
 
     // If no file, no reader
     if (reader == null) {
@@ -98,7 +124,7 @@ public class FileUtilities {
       if (version == fileVersion) {
         return reader;
       }
-      RequestLogger.printLine(
+      messages.accept(
           "Incorrect version of \""
               + filename
               + "\". Found "
@@ -119,7 +145,7 @@ public class FileUtilities {
 
     // Override file is wrong version. Get built-in file
 
-    reader = DataUtilities.getReader(KoLConstants.DATA_DIRECTORY, filename, false);
+    reader = FileUtilities.openDataFile(filename, false, messages);
     // Don't forget to skip past its version number:
     FileUtilities.readLine(reader);
     return reader;
@@ -154,6 +180,10 @@ public class FileUtilities {
       return null;
     }
 
+    if (reader instanceof PreparedDataFiles.PreparedReader prepared) {
+      return prepared.readData();
+    }
+
     String line = readLine(reader);
     return line == null ? null : line.split("\t", -1);
   }
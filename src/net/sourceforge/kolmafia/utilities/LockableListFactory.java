@@ -110,6 +110,21 @@ public class LockableListFactory {
     }
   }
 
+  /**
+   * Calls {@link net.java.dev.spellcast.utilities.LockableListModel#getModificationCount()} or
+   * {@link SortedList#getModificationCount()} if possible, else returns -1, meaning that changes to
+   * the list cannot be detected
+   */
+  public static int getModificationCount(List<?> l) {
+    if (SwinglessUIUtils.isSwingAvailable && l instanceof LockableListModel<?> model) {
+      return model.getModificationCount();
+    }
+    if (l instanceof SortedList<?> list) {
+      return list.getModificationCount();
+    }
+    return -1;
+  }
+
   /** Returns the last element in a list */
   public static <E> E lastElement(List<E> l) {
     return l.isEmpty() ? null : l.get(l.size() - 1);
@@ -0,0 +1,153 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A search index over one array of canonical names, as used by {@link
+ * StringUtilities#getMatchingNames(String[], String)}.
+ *
+ * <p>The index keeps the character bitmask of every name and, built on first use, a posting list
+ * of name positions for every character trigram. Any name containing the search string as a
+ * substring must contain all of its trigrams, so the substring passes only need to look at the
+ * intersection of those posting lists. Candidates are returned in array order, so results are
+ * identical to a linear scan.
+ *
+ * <p>An index is tied to the identity of its array; databases replace their name array when new
+ * names are registered, which gives them a fresh index. The index also keeps its own copy of the
+ * names, so that an array sorted or refilled in place can be detected and reindexed.
+ */
+final class NameIndex {
+  private static final int[] NO_MATCHES = new int[0];
+
+  private final String[] names;
+  private final int[] hashes;
+  private Map<Long, int[]> trigrams;
+
+  NameIndex(final String[] names) {
+    this.names = names.clone();
+    this.hashes = new int[names.length];
+    for (int i = 0; i < names.length; ++i) {
+      this.hashes[i] = NameIndex.stringHash(names[i]);
+    }
+  }
+
+  /** Returns whether this index still describes the given array, element for element. */
+  boolean isCurrent(final String[] names) {
+    if (names.length != this.names.length) {
+      return false;
+    }
+
+    for (int i = 0; i < names.length; ++i) {
+      if (names[i] != this.names[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  int size() {
+    return this.names.length;
+  }
+
+  String name(final int index) {
+    return this.names[index];
+  }
+
+  int hash(final int index) {
+    return this.hashes[index];
+  }
+
+  /**
+   * Returns the positions of every name which could contain the given string as a substring, in
+   * ascending order, or null if the string is too short to narrow the search.
+   */
+  int[] substringCandidates(final String searchString) {
+    if (searchString.length() < 3) {
+      return null;
+    }
+
+    Map<Long, int[]> trigrams = this.getTrigrams();
+    int[] result = null;
+
+    for (int i = 0; i + 3 <= searchString.length(); ++i) {
+      int[] postings = trigrams.get(NameIndex.trigram(searchString, i));
+      if (postings == null) {
+        return NO_MATCHES;
+      }
+
+      result = result == null ? postings : NameIndex.intersect(result, postings);
+      if (result.length == 0) {
+        return NO_MATCHES;
+      }
+    }
+
+    return result;
+  }
+
+  private synchronized Map<Long, int[]> getTrigrams() {
+    if (this.trigrams != null) {
+      return this.trigrams;
+    }
+
+    Map<Long, List<Integer>> lists = new HashMap<>();
+    for (int i = 0; i < this.names.length; ++i) {
+      String name = this.names[i];
+      for (int j = 0; j + 3 <= name.length(); ++j) {
+        List<Integer> postings = lists.computeIfAbsent(trigram(name, j), k -> new ArrayList<>());
+        // Names are visited in order, so a repeated trigram within one name is always the tail
+        if (postings.isEmpty() || postings.get(postings.size() - 1) != i) {
+          postings.add(i);
+        }
+      }
+    }
+
+    Map<Long, int[]> trigrams = new HashMap<>(lists.size() * 4 / 3 + 1);
+    for (Map.Entry<Long, List<Integer>> entry : lists.entrySet()) {
+      trigrams.put(
+          entry.getKey(), entry.getValue().stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    this.trigrams = trigrams;
+    return trigrams;
+  }
+
+  private static long trigram(final String s, final int start) {
+    return ((long) s.charAt(start) << 32)
+        | ((long) s.charAt(start + 1) << 16)
+        | (long) s.charAt(start + 2);
+  }
+
+  private static int[] intersect(final int[] a, final int[] b) {
+    int[] result = new int[Math.min(a.length, b.length)];
+    int count = 0;
+    int i = 0;
+    int j = 0;
+
+    while (i < a.length && j < b.length) {
+      if (a[i] < b[j]) {
+        ++i;
+      } else if (a[i] > b[j]) {
+        ++j;
+      } else {
+        result[count++] = a[i];
+        ++i;
+        ++j;
+      }
+    }
+
+    return count == result.length ? result : Arrays.copyOf(result, count);
+  }
+
+  static int stringHash(final String s) {
+    int hash = 0;
+    for (int i = s.length() - 1; i >= 0; --i) {
+      hash |= 1 << (s.charAt(i) & 0x1F);
+    }
+    return hash;
+  }
+}
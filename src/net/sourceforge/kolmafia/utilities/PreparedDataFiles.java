@@ -0,0 +1,347 @@
+package net.sourceforge.kolmafia.utilities;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.java.dev.spellcast.utilities.DataUtilities;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.RequestLogger;
+import net.sourceforge.kolmafia.StaticEntity;
+import net.sourceforge.kolmafia.preferences.Preferences;
+
+/**
+ * Data files read and split into fields ahead of time.
+ *
+ * <p>Most databases load their data file from a static initializer the first time they are used,
+ * so at startup the files are read and parsed one after another on whichever thread happens to
+ * touch each database first. Preparing a file reads it on a background thread, checks its version
+ * exactly as {@link FileUtilities#getVersionedReader} would, and splits each of its lines into
+ * fields there. When the database does load, it is handed a reader over the prepared lines.
+ *
+ * <p>The databases themselves are still initialized on the thread that first uses them. Their
+ * static initializers refer to one another, and initializing classes which do that on several
+ * threads at once can deadlock.
+ *
+ * <p>Files bundled in the jar are also saved already split, and are loaded from there on later
+ * starts for as long as the checksum the jar records for the file is the same. An override file
+ * in the data directory is always read as text.
+ *
+ * <p>A prepared file is handed out once, and then forgotten.
+ */
+public class PreparedDataFiles {
+  // The data files which databases load while KoLmafia starts up or logs in
+  private static final Map<String, Integer> STARTUP_FILES =
+      Map.ofEntries(
+          Map.entry("adventures.txt", KoLConstants.ADVENTURES_VERSION),
+          Map.entry("classskills.txt", KoLConstants.CLASSSKILLS_VERSION),
+          Map.entry("coinmasters.txt", KoLConstants.COINMASTERS_VERSION),
+          Map.entry("combats.txt", KoLConstants.COMBATS_VERSION),
+          Map.entry("concoctions.txt", KoLConstants.CONCOCTIONS_VERSION),
+          Map.entry("equipment.txt", KoLConstants.EQUIPMENT_VERSION),
+          Map.entry("familiars.txt", KoLConstants.FAMILIARS_VERSION),
+          Map.entry("fullness.txt", KoLConstants.FULLNESS_VERSION),
+          Map.entry("inebriety.txt", KoLConstants.INEBRIETY_VERSION),
+          Map.entry("items.txt", KoLConstants.ITEMS_VERSION),
+          Map.entry("modifiers.txt", KoLConstants.MODIFIERS_VERSION),
+          Map.entry("monsters.txt", KoLConstants.MONSTERS_VERSION),
+          Map.entry("outfits.txt", KoLConstants.OUTFITS_VERSION),
+          Map.entry("spleenhit.txt", KoLConstants.SPLEENHIT_VERSION),
+          Map.entry("statuseffects.txt", KoLConstants.STATUSEFFECTS_VERSION),
+          Map.entry("zonelist.txt", KoLConstants.ZONELIST_VERSION));
+
+  record Prepared(int version, List<String> messages, String[] lines, String[][] fields) {
+    BufferedReader reader() {
+      return new PreparedReader(this.lines, this.fields);
+    }
+  }
+
+  private static final File SNAPSHOT_LOCATION = new File(KoLConstants.DATA_LOCATION, "prepared");
+  private static final int SNAPSHOT_FORMAT = 1;
+
+  private static final Map<String, CompletableFuture<Prepared>> prepared =
+      new ConcurrentHashMap<>();
+
+  private static final AtomicInteger requested = new AtomicInteger();
+  private static final AtomicInteger used = new AtomicInteger();
+  private static final AtomicInteger snapshots = new AtomicInteger();
+
+  private PreparedDataFiles() {}
+
+  /** Starts preparing the data files which are loaded at startup, unless disabled. */
+  public static void prepareStartupFiles() {
+    if (!Preferences.getBoolean("prepareDataFiles")) {
+      return;
+    }
+    STARTUP_FILES.forEach(PreparedDataFiles::prepare);
+  }
+
+  /** Starts preparing a data file on a background thread, if it is not already being prepared. */
+  public static void prepare(final String filename, final int version) {
+    PreparedDataFiles.prepared.computeIfAbsent(
+        filename,
+        k -> {
+          PreparedDataFiles.requested.incrementAndGet();
+          return CompletableFuture.supplyAsync(() -> PreparedDataFiles.read(filename, version));
+        });
+  }
+
+  /**
+   * Returns a reader over the prepared lines of the data file, positioned after its version, or
+   * null if the file has not been prepared at that version or could not be read.
+   */
+  static BufferedReader take(final String filename, final int version) {
+    CompletableFuture<Prepared> future = PreparedDataFiles.prepared.remove(filename);
+    if (future == null) {
+      return null;
+    }
+
+    Prepared file;
+    try {
+      file = future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    } catch (ExecutionException e) {
+      StaticEntity.printStackTrace(e.getCause());
+      return null;
+    }
+
+    if (file == null || file.version() != version) {
+      return null;
+    }
+
+    PreparedDataFiles.used.incrementAndGet();
+    file.messages().forEach(RequestLogger::printLine);
+    return file.reader();
+  }
+
+  public static int getRequestedCount() {
+    return PreparedDataFiles.requested.get();
+  }
+
+  public static int getUsedCount() {
+    return PreparedDataFiles.used.get();
+  }
+
+  public static int getSnapshotCount() {
+    return PreparedDataFiles.snapshots.get();
+  }
+
+  private static Prepared read(final String filename, final int version) {
+    long checksum = PreparedDataFiles.bundledChecksum(filename);
+    if (checksum == -1) {
+      return PreparedDataFiles.readText(filename, version);
+    }
+
+    File snapshot = new File(SNAPSHOT_LOCATION, filename + ".bin");
+    Prepared file = PreparedDataFiles.readSnapshot(snapshot, version, checksum);
+    if (file != null) {
+      PreparedDataFiles.snapshots.incrementAndGet();
+      return file;
+    }
+
+    file = PreparedDataFiles.readText(filename, version);
+    // Messages mean the file was not read cleanly, so read it again next time
+    if (file != null && file.messages().isEmpty()) {
+      PreparedDataFiles.writeSnapshot(snapshot, checksum, file);
+    }
+    return file;
+  }
+
+  // The checksum of the copy of the file in the jar, or -1 if it is overridden or not in a jar
+  private static long bundledChecksum(final String filename) {
+    if (new File(KoLConstants.DATA_LOCATION, filename).exists()) {
+      return -1;
+    }
+    return DataUtilities.getBundledChecksum(KoLConstants.DATA_DIRECTORY, filename);
+  }
+
+  static Prepared readText(final String filename, final int version) {
+    List<String> messages = new ArrayList<>();
+    List<String> lines = new ArrayList<>();
+
+    try (BufferedReader reader =
+        FileUtilities.getVersionedReader(filename, version, messages::add)) {
+      if (reader == null) {
+        return null;
+      }
+
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    } catch (IOException e) {
+      return null;
+    }
+
+    String[][] fields = new String[lines.size()][];
+    for (int i = 0; i < fields.length; ++i) {
+      String line = lines.get(i);
+      // Comments and blank lines are skipped by FileUtilities.readData
+      if (!line.startsWith("#") && !line.isEmpty()) {
+        fields[i] = line.split("\t", -1);
+      }
+    }
+
+    return new Prepared(version, messages, lines.toArray(new String[0]), fields);
+  }
+
+  /**
+   * Loads a file saved by {@link #writeSnapshot}, or returns null if there is none, or it was saved
+   * from another version of the file.
+   */
+  static Prepared readSnapshot(final File snapshot, final int version, final long checksum) {
+    if (!snapshot.exists()) {
+      return null;
+    }
+
+    byte[] bytes;
+    try {
+      bytes = Files.readAllBytes(snapshot.toPath());
+    } catch (IOException e) {
+      return null;
+    }
+
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      if (buffer.getInt() != SNAPSHOT_FORMAT
+          || buffer.getLong() != checksum
+          || buffer.getInt() != version) {
+        return null;
+      }
+
+      String[] lines = new String[buffer.getInt()];
+      String[][] fields = new String[lines.length][];
+      for (int i = 0; i < lines.length; ++i) {
+        int count = buffer.getInt();
+        if (count == -1) {
+          lines[i] = PreparedDataFiles.readString(buffer);
+          continue;
+        }
+        String[] data = new String[count];
+        for (int j = 0; j < count; ++j) {
+          data[j] = PreparedDataFiles.readString(buffer);
+        }
+        fields[i] = data;
+      }
+      return new Prepared(version, List.of(), lines, fields);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+      // A damaged snapshot is read as text and saved again
+      return null;
+    }
+  }
+
+  private static String readString(final ByteBuffer buffer) {
+    int length = buffer.getInt();
+    String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+
+  /**
+   * Saves a prepared file as its fields, so that it need not be split again. Lines which are not
+   * data are saved as they are; data lines are joined together again when read as lines.
+   */
+  static void writeSnapshot(final File snapshot, final long checksum, final Prepared file) {
+    File temporary = null;
+    try {
+      Files.createDirectories(snapshot.toPath().getParent());
+      temporary = File.createTempFile(snapshot.getName(), ".tmp", snapshot.getParentFile());
+
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+        out.writeInt(SNAPSHOT_FORMAT);
+        out.writeLong(checksum);
+        out.writeInt(file.version());
+        out.writeInt(file.lines().length);
+        for (int i = 0; i < file.lines().length; ++i) {
+          String[] data = file.fields()[i];
+          if (data == null) {
+            out.writeInt(-1);
+            PreparedDataFiles.writeString(out, file.lines()[i]);
+            continue;
+          }
+          out.writeInt(data.length);
+          for (String field : data) {
+            PreparedDataFiles.writeString(out, field);
+          }
+        }
+      }
+
+      // Another session may be saving the same file; whichever finishes last wins
+      Files.move(
+          temporary.toPath(),
+          snapshot.toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      // Without a snapshot, the file is read as text next time
+    } finally {
+      if (temporary != null) {
+        temporary.delete();
+      }
+    }
+  }
+
+  private static void writeString(final DataOutputStream out, final String value)
+      throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * A reader over prepared lines. It is only meant to be read a line at a time, through {@link
+   * FileUtilities#readLine} and {@link FileUtilities#readData}, which is how data files are read.
+   */
+  static class PreparedReader extends BufferedReader {
+    private final String[] lines;
+    private final String[][] fields;
+    private int next = 0;
+
+    private PreparedReader(final String[] lines, final String[][] fields) {
+      super(Reader.nullReader());
+      this.lines = lines;
+      this.fields = fields;
+    }
+
+    @Override
+    public String readLine() {
+      if (this.next >= this.lines.length) {
+        return null;
+      }
+      int i = this.next++;
+      // Data lines loaded from a snapshot are only joined together if asked for
+      if (this.lines[i] == null) {
+        this.lines[i] = String.join("\t", this.fields[i]);
+      }
+      return this.lines[i];
+    }
+
+    String[] readData() {
+      while (this.next < this.lines.length) {
+        String[] data = this.fields[this.next++];
+        if (data != null) {
+          return data;
+        }
+      }
+      return null;
+    }
+  }
+}
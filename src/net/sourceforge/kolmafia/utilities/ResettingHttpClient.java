@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
@@ -42,4 +43,13 @@ public class ResettingHttpClient {
 
     return this.client.send(req, handler);
   }
+
+  public <T> CompletableFuture<HttpResponse<T>> sendAsync(
+      HttpRequest req, HttpResponse.BodyHandler<T> handler) {
+    if (clientRequestsSent.incrementAndGet() >= HTTP_CLIENT_REQUEST_LIMIT) {
+      resetClient();
+    }
+
+    return this.client.sendAsync(req, handler);
+  }
 }
@@ -11,6 +11,24 @@ import java.util.ListIterator;
  * ArrayList
  */
 public class SortedList<E extends Comparable<E>> extends ArrayList<E> {
+  // Replacements, which ArrayList does not count as modifications
+  private int replacements = 0;
+
+  /**
+   * Returns a count which changes whenever an element is added, removed or replaced. Callers can
+   * use it to tell whether anything they derived from the list is still current.
+   */
+  public int getModificationCount() {
+    return this.modCount + this.replacements;
+  }
+
+  @Override
+  public E set(final int index, final E element) {
+    E previous = super.set(index, element);
+    ++this.replacements;
+    return previous;
+  }
+
   /**
    * Please refer to {@link java.util.List#add(int,Object)} for more information regarding this
    * function. Note that if the position is invalid (ie: it does not result in a sorted property),
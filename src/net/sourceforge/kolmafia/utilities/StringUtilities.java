@@ -7,6 +7,7 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -31,7 +32,8 @@ public class StringUtilities {
   private static final HashMap<String, String> canonicalNameCache = new HashMap<>();
 
   private static final HashMap<String, String> prepositionsMap = new HashMap<>();
-  private static final WeakHashMap<String[], int[]> hashCache = new WeakHashMap<>();
+  private static final Map<String[], NameIndex> nameIndexCache =
+      Collections.synchronizedMap(new WeakHashMap<>());
 
   private static final Pattern COMMA_DELIMITED_PATTERN = Pattern.compile("\\s*,\\s*");
 
@@ -223,6 +225,15 @@ public class StringUtilities {
     return getMatchingNames(names.toArray(new String[0]), searchString);
   }
 
+  private static NameIndex getNameIndex(final String[] names) {
+    NameIndex index = StringUtilities.nameIndexCache.get(names);
+    if (index == null || !index.isCurrent(names)) {
+      index = new NameIndex(names);
+      StringUtilities.nameIndexCache.put(names, index);
+    }
+    return index;
+  }
+
   /**
    * Returns a list of all elements which contain the given substring in their name.
    *
@@ -265,34 +276,19 @@ public class StringUtilities {
       return matchList;
     }
 
-    int nameCount = names.length;
-    int[] hashes = StringUtilities.hashCache.get(names);
-    if (hashes == null) {
-      hashes = new int[nameCount];
-      for (int i = 0; i < nameCount; ++i) {
-        hashes[i] = StringUtilities.stringHash(names[i]);
-      }
-      StringUtilities.hashCache.put(names, hashes);
-    }
-    int hash = StringUtilities.stringHash(searchString);
+    NameIndex index = StringUtilities.getNameIndex(names);
+    int hash = NameIndex.stringHash(searchString);
 
-    for (int i = 0; i < nameCount; ++i) {
-      if ((hashes[i] & hash) == hash
-          && StringUtilities.substringMatches(names[i], searchString, true)) {
-        matchList.add(names[i]);
-      }
-    }
+    // Both substring passes can only match names containing every trigram of the search string
+    int[] candidates = index.substringCandidates(searchString);
+
+    StringUtilities.addSubstringMatches(matchList, index, candidates, searchString, hash, true);
 
     if (!matchList.isEmpty()) {
       return matchList;
     }
 
-    for (int i = 0; i < nameCount; ++i) {
-      if ((hashes[i] & hash) == hash
-          && StringUtilities.substringMatches(names[i], searchString, false)) {
-        matchList.add(names[i]);
-      }
-    }
+    StringUtilities.addSubstringMatches(matchList, index, candidates, searchString, hash, false);
 
     if (!matchList.isEmpty()) {
       return matchList;
@@ -303,23 +299,33 @@ public class StringUtilities {
     // for example "in the box" will match "chef-in-the-box".  However,
     // the hash check would prevent us from even trying such a match.
     // Therefore, strip out the bit representing a space in the hash:
-    hash &= ~StringUtilities.stringHash(" ");
+    hash &= ~NameIndex.stringHash(" ");
 
-    for (int i = 0; i < nameCount; ++i) {
-      if ((hashes[i] & hash) == hash && StringUtilities.fuzzyMatches(names[i], searchString)) {
-        matchList.add(names[i]);
+    for (int i = 0; i < index.size(); ++i) {
+      String name = index.name(i);
+      if ((index.hash(i) & hash) == hash && StringUtilities.fuzzyMatches(name, searchString)) {
+        matchList.add(name);
       }
     }
 
     return matchList;
   }
 
-  private static int stringHash(final String s) {
-    int hash = 0;
-    for (int i = s.length() - 1; i >= 0; --i) {
-      hash |= 1 << (s.charAt(i) & 0x1F);
+  private static void addSubstringMatches(
+      final List<String> matchList,
+      final NameIndex index,
+      final int[] candidates,
+      final String searchString,
+      final int hash,
+      final boolean checkBoundaries) {
+    int count = candidates == null ? index.size() : candidates.length;
+    for (int c = 0; c < count; ++c) {
+      int i = candidates == null ? c : candidates[c];
+      if ((index.hash(i) & hash) == hash
+          && StringUtilities.substringMatches(index.name(i), searchString, checkBoundaries)) {
+        matchList.add(index.name(i));
+      }
     }
-    return hash;
   }
 
   public static boolean substringMatches(
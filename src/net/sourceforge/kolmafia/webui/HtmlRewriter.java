@@ -0,0 +1,210 @@
+package net.sourceforge.kolmafia.webui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies a set of anchored rewrite rules to a page, rewriting it once.
+ *
+ * <p>Each rule names a literal anchor and either inserts text before or after the first occurrence
+ * of that anchor, or replaces every occurrence of it. Anchors are located in the page as it stands,
+ * and the page is then rebuilt once with every edit applied, rather than shifting the rest of the
+ * page for each insertion. A page no rule applies to is never copied.
+ *
+ * <p>The result is the same as applying each rule in registration order with {@link
+ * net.sourceforge.kolmafia.utilities.StringUtilities#insertBefore}, {@link
+ * net.sourceforge.kolmafia.utilities.StringUtilities#insertAfter} or {@link
+ * net.sourceforge.kolmafia.utilities.StringUtilities#globalStringReplace}, provided that no rule
+ * inserts text containing another rule's anchor and that replaced occurrences do not overlap
+ * another rule's anchor. Anchors are matched against the page as it was before any rule applied.
+ *
+ * @param <C> the context passed to rules when they compute their text
+ */
+public class HtmlRewriter<C> {
+  /** What a rule can learn about the page it is rewriting. */
+  public interface Page {
+    /** Returns whether the page contains the given anchor, which must have been registered. */
+    boolean contains(String anchor);
+  }
+
+  /**
+   * Computes the text a rule inserts or substitutes; returning null skips the rule. The text is
+   * only computed once the rule's anchor has been found on the page.
+   */
+  @FunctionalInterface
+  public interface Text<C> {
+    String get(C context, Page page);
+  }
+
+  private enum Action {
+    INSERT_AFTER,
+    INSERT_BEFORE,
+    REPLACE
+  }
+
+  private record Rule<C>(int anchor, Action action, Text<C> text) {}
+
+  private final List<String> anchors = new ArrayList<>();
+  private final Map<String, Integer> anchorIndex = new HashMap<>();
+  private final List<Rule<C>> rules = new ArrayList<>();
+
+  /** Inserts text immediately before the first occurrence of the anchor. */
+  public HtmlRewriter<C> insertBefore(final String anchor, final Text<C> text) {
+    return this.add(anchor, Action.INSERT_BEFORE, text);
+  }
+
+  /** Inserts text immediately after the first occurrence of the anchor. */
+  public HtmlRewriter<C> insertAfter(final String anchor, final Text<C> text) {
+    return this.add(anchor, Action.INSERT_AFTER, text);
+  }
+
+  /** Replaces every non-overlapping occurrence of the anchor. */
+  public HtmlRewriter<C> replaceAll(final String anchor, final Text<C> text) {
+    return this.add(anchor, Action.REPLACE, text);
+  }
+
+  /** Registers an anchor that rules may test for with {@link Page#contains}. */
+  public HtmlRewriter<C> watch(final String anchor) {
+    this.anchor(anchor);
+    return this;
+  }
+
+  private HtmlRewriter<C> add(final String anchor, final Action action, final Text<C> text) {
+    this.rules.add(new Rule<>(this.anchor(anchor), action, text));
+    return this;
+  }
+
+  private int anchor(final String anchor) {
+    if (anchor.isEmpty()) {
+      throw new IllegalArgumentException("Anchors cannot be empty");
+    }
+    return this.anchorIndex.computeIfAbsent(
+        anchor,
+        k -> {
+          this.anchors.add(k);
+          return this.anchors.size() - 1;
+        });
+  }
+
+  /**
+   * Applies every rule to the buffer. The buffer is left untouched if no rule applies.
+   *
+   * <p>Rules must all be registered before the rewriter is shared between threads.
+   *
+   * @return whether the buffer was changed
+   */
+  public boolean rewrite(final StringBuffer buffer, final C context) {
+    Snapshot page = new Snapshot(buffer);
+
+    List<Edit> edits = new ArrayList<>();
+    for (int i = 0; i < this.rules.size(); ++i) {
+      Rule<C> rule = this.rules.get(i);
+      int anchor = rule.anchor();
+      int first = page.first(anchor);
+      if (first == -1) {
+        continue;
+      }
+
+      String text = rule.text().get(context, page);
+      if (text == null) {
+        continue;
+      }
+
+      int length = this.anchors.get(anchor).length();
+      switch (rule.action()) {
+        case INSERT_AFTER -> edits.add(new Edit(first + length, first + length, 0, -i, text));
+        case INSERT_BEFORE -> edits.add(new Edit(first, first, 1, i, text));
+        case REPLACE -> {
+          for (int start : page.all(anchor)) {
+            edits.add(new Edit(start, start + length, 2, i, text));
+          }
+        }
+      }
+    }
+
+    if (edits.isEmpty()) {
+      return false;
+    }
+
+    // Text inserted after an anchor precedes text inserted before the next one, just as it does
+    // when the insertions are made one at a time. Repeated insertions after the same anchor end
+    // up in reverse order, and repeated insertions before one end up in order.
+    edits.sort(
+        (a, b) ->
+            a.start != b.start
+                ? Integer.compare(a.start, b.start)
+                : a.group != b.group
+                    ? Integer.compare(a.group, b.group)
+                    : Integer.compare(a.order, b.order));
+
+    // Keep the original page, so that the buffer can be rebuilt in place
+    String text = buffer.toString();
+    int growth = 0;
+    for (Edit edit : edits) {
+      growth += edit.text.length() - (edit.end - edit.start);
+    }
+
+    buffer.setLength(0);
+    buffer.ensureCapacity(text.length() + growth);
+    int copied = 0;
+    for (Edit edit : edits) {
+      if (edit.start < copied) {
+        // Overlaps a replacement which has already been made
+        continue;
+      }
+      buffer.append(text, copied, edit.start);
+      buffer.append(edit.text);
+      copied = edit.end;
+    }
+    buffer.append(text, copied, text.length());
+
+    return true;
+  }
+
+  private record Edit(int start, int end, int group, int order, String text) {}
+
+  /** The page as it was before any rule applied, searched for each anchor at most once. */
+  private class Snapshot implements Page {
+    private static final int UNSEARCHED = -2;
+
+    private final StringBuffer text;
+    private final int[] first;
+
+    Snapshot(final StringBuffer text) {
+      this.text = text;
+      this.first = new int[HtmlRewriter.this.anchors.size()];
+      Arrays.fill(this.first, UNSEARCHED);
+    }
+
+    @Override
+    public boolean contains(final String anchor) {
+      Integer index = HtmlRewriter.this.anchorIndex.get(anchor);
+      if (index == null) {
+        throw new IllegalArgumentException("\"" + anchor + "\" is not a registered anchor");
+      }
+      return this.first(index) != -1;
+    }
+
+    int first(final int anchor) {
+      if (this.first[anchor] == UNSEARCHED) {
+        this.first[anchor] = this.text.indexOf(HtmlRewriter.this.anchors.get(anchor));
+      }
+      return this.first[anchor];
+    }
+
+    // Starts of every non-overlapping occurrence of the anchor
+    List<Integer> all(final int anchor) {
+      String search = HtmlRewriter.this.anchors.get(anchor);
+      List<Integer> all = new ArrayList<>();
+      for (int index = this.first(anchor);
+          index != -1;
+          index = this.text.indexOf(search, index + search.length())) {
+        all.add(index);
+      }
+      return all;
+    }
+  }
+}
@@ -1,15 +1,20 @@
 package net.sourceforge.kolmafia.webui;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.HashSet;
+import java.nio.file.StandardOpenOption;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import net.sourceforge.kolmafia.KoLConstants;
@@ -26,10 +31,9 @@ import net.sourceforge.kolmafia.session.ActionBarManager;
 import net.sourceforge.kolmafia.session.ChoiceManager;
 import net.sourceforge.kolmafia.session.LeafletManager;
 import net.sourceforge.kolmafia.session.VolcanoMazeManager;
-import net.sourceforge.kolmafia.utilities.PauseObject;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
-public class RelayAgent extends Thread {
+public class RelayAgent implements Runnable {
   private static GenericRequest errorRequest = null;
   private static String errorRequestPath = null;
 
@@ -45,9 +49,14 @@ public class RelayAgent extends Thread {
     RelayAgent.errorRequestPath = null;
   }
 
+  // How long an open connection may sit idle between requests, in milliseconds
+  private static final int KEEP_ALIVE_TIMEOUT = 15000;
+
+  private static final Pattern CONTENT_LENGTH_PATTERN =
+      Pattern.compile("^Content-Length:", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE);
+
   private final char[] data = new char[8192];
   private final StringBuffer buffer = new StringBuffer();
-  private final PauseObject pauser = new PauseObject();
 
   private Socket socket = null;
   private BufferedReader reader;
@@ -56,45 +65,65 @@ public class RelayAgent extends Thread {
   private String path;
   private String requestMethod;
   private String isCheckingModified;
+  private String isCheckingETag;
+  private boolean keepAlive;
+  private long fileLength;
+  private boolean connectionClosed;
   private final RelayRequest request;
 
-  public RelayAgent(final int id) {
-    super("LocalRelayAgent" + id);
+  public RelayAgent() {
     this.request = new RelayRequest(true);
   }
 
-  public boolean isWaiting() {
-    return this.socket == null;
-  }
-
   public void setSocket(final Socket socket) {
     this.socket = socket;
-    this.pauser.unpause();
+    this.reader = null;
+    this.writer = null;
   }
 
   @Override
   public void run() {
-    while (true) {
-      if (this.socket == null) {
-        this.pauser.pause();
-      }
+    RelayServer.agentThreads.add(Thread.currentThread());
+    try {
+      this.serveConnection();
+    } finally {
+      this.closeRelay();
+      RelayServer.agentThreads.remove(Thread.currentThread());
+      RelayServer.agentFinished(this);
+    }
+  }
+
+  /**
+   * Answers requests on the current socket until the browser closes it, asks for it to be closed,
+   * or leaves it idle. Pipelined requests are answered in the order they were sent.
+   */
+  public void serveConnection() {
+    boolean allowKeepAlive = Preferences.getBoolean("relayKeepAlive");
+    boolean firstRequest = true;
 
+    while (this.performRelay(allowKeepAlive, firstRequest)) {
+      firstRequest = false;
       try {
-        this.performRelay();
-      } finally {
-        this.closeRelay();
+        this.socket.setSoTimeout(RelayAgent.KEEP_ALIVE_TIMEOUT);
+      } catch (IOException e) {
+        return;
       }
     }
   }
 
+  /** Answers a single request, after which the connection is closed. */
   public void performRelay() {
+    this.performRelay(false, true);
+  }
+
+  private boolean performRelay(final boolean allowKeepAlive, final boolean firstRequest) {
     if (this.socket == null) {
-      return;
+      return false;
     }
 
     this.path = null;
-    this.reader = null;
-    this.writer = null;
+    this.keepAlive = allowKeepAlive;
+    this.connectionClosed = false;
 
     try {
       // readBrowserRequest returns true if we should process the request further, and otherwise
@@ -103,11 +132,19 @@ public class RelayAgent extends Thread {
         this.readServerResponse();
       }
 
+      // A browser closing an idle connection is not a request
+      if (this.connectionClosed && !firstRequest) {
+        return false;
+      }
+
       this.sendServerResponse();
+      return this.keepAlive;
     } catch (IOException e) {
     } catch (Exception e) {
       StaticEntity.printStackTrace(e, "Horrible relay failure");
     }
+
+    return false;
   }
 
   public boolean readBrowserRequest() throws IOException {
@@ -115,11 +152,17 @@ public class RelayAgent extends Thread {
         RequestLogger.isDebugging() && Preferences.getBoolean("logBrowserInteractions");
     boolean tracing = RequestLogger.isTracing();
 
-    this.reader = new BufferedReader(new InputStreamReader(this.socket.getInputStream()));
+    // The reader persists across requests on a connection, since it may already have buffered
+    // the next pipelined request.
+    if (this.reader == null) {
+      this.reader = new BufferedReader(new InputStreamReader(this.socket.getInputStream()));
+    }
 
     String requestLine = this.reader.readLine();
 
     if (requestLine == null) {
+      this.connectionClosed = true;
+      this.keepAlive = false;
       this.request.pseudoResponse("HTTP/1.1 400 Bad Request", "");
       return false;
     }
@@ -134,6 +177,7 @@ public class RelayAgent extends Thread {
     }
 
     if (!requestLine.contains("HTTP/1.1")) {
+      this.keepAlive = false;
       KoLmafia.updateDisplay("Malformed HTTP request from browser.");
       this.request.pseudoResponse("HTTP/1.1 400 Bad Request", "");
       return false;
@@ -155,6 +199,7 @@ public class RelayAgent extends Thread {
     this.request.constructURLString(this.path, usePostMethod);
     this.request.responseText = null;
     this.isCheckingModified = null;
+    this.isCheckingETag = null;
 
     String currentLine;
     int contentLength = 0;
@@ -178,7 +223,13 @@ public class RelayAgent extends Thread {
         case "host" -> host = headerValue;
         case "referer" -> referer = headerValue;
         case "if-modified-since" -> this.isCheckingModified = headerValue;
+        case "if-none-match" -> this.isCheckingETag = headerValue;
         case "content-length" -> contentLength = StringUtilities.parseInt(headerValue);
+        case "connection" -> {
+          if (headerValue.toLowerCase().contains("close")) {
+            this.keepAlive = false;
+          }
+        }
         case "user-agent" -> GenericRequest.saveUserAgent(headerValue);
         case "cookie" -> {
           StringBuilder buffer = new StringBuilder();
@@ -206,6 +257,7 @@ public class RelayAgent extends Thread {
       RequestLogger.printLine("Host: \"" + host + "\"");
       RequestLogger.printLine("Referer: \"" + referer + "\"");
 
+      this.keepAlive = false;
       this.request.pseudoResponse("HTTP/1.1 400 Bad Request", "");
       return false;
     }
@@ -213,8 +265,12 @@ public class RelayAgent extends Thread {
     if (requestMethod.equals("POST")) {
       int remaining = contentLength;
 
+      // Read no further than the body, which may be followed by a pipelined request
       while (remaining > 0) {
-        int current = this.reader.read(this.data);
+        int current = this.reader.read(this.data, 0, Math.min(remaining, this.data.length));
+        if (current == -1) {
+          break;
+        }
         this.buffer.append(this.data, 0, current);
         remaining -= current;
       }
@@ -331,12 +387,25 @@ public class RelayAgent extends Thread {
     return file != null && file.exists() && StringUtilities.parseDate(date) < file.lastModified();
   }
 
+  private boolean notModified(final File file) {
+    // An entity tag, if the browser sent one we can check, takes precedence over the
+    // modification date
+    if (this.isCheckingETag != null) {
+      Boolean matches = RelayAssetCache.matches(file, this.isCheckingETag);
+      if (matches != null) {
+        return matches;
+      }
+    }
+
+    return this.isCheckingModified != null
+        && RelayAgent.modifiedSince(this.isCheckingModified, file);
+  }
+
   private boolean shouldSendNotModified() {
     // Things in the "images" directory come from KoL's image server.
     // We set the modification date to KoL's modification date.
     if (this.path.startsWith("/images")) {
-      return RelayAgent.modifiedSince(
-          this.isCheckingModified, RelayRequest.findLocalImage(this.path.substring(1)));
+      return this.notModified(RelayRequest.findLocalImage(this.path.substring(1)));
     }
 
     // Things in the "relay" directory are either KoLmafia builtin
@@ -352,13 +421,12 @@ public class RelayAgent extends Thread {
 
     // Otherwise, look at the modification date of the file in the
     // file system
-    return RelayAgent.modifiedSince(
-        this.isCheckingModified, RelayRequest.findRelayFile(this.path.substring(1)));
+    return this.notModified(RelayRequest.findRelayFile(this.path.substring(1)));
   }
 
   private void readServerResponse() throws IOException {
     // If sending a local page, check modification date of file
-    if (this.isCheckingModified != null) {
+    if (this.isCheckingModified != null || this.isCheckingETag != null) {
       if (this.shouldSendNotModified()) {
         this.request.pseudoResponse("HTTP/1.1 304 Not Modified", "");
         this.request.responseCode = 304;
@@ -482,6 +550,7 @@ public class RelayAgent extends Thread {
       if (this.request.responseText == null) {
         // We did not make a request of KoL and did not
         // create a pseudoResponse
+        this.keepAlive = false;
         return;
       }
 
@@ -506,12 +575,29 @@ public class RelayAgent extends Thread {
       this.request.rawByteBuffer = this.request.responseText.getBytes(StandardCharsets.UTF_8);
     }
 
-    this.writer = new PrintStream(this.socket.getOutputStream(), false);
+    if (this.writer == null) {
+      this.writer = new PrintStream(this.socket.getOutputStream(), false);
+    }
+
+    // Measure a streamed file once, so the headers and the body agree
+    this.fileLength = this.request.rawFile != null ? this.request.rawFile.length() : 0;
+
     this.writer.print(this.request.statusLine);
     this.writer.print("\r\n");
-    this.request.printHeaders(this.writer);
+    if (this.keepAlive) {
+      this.printKeepAliveHeaders();
+    } else {
+      this.request.printHeaders(this.writer);
+    }
     this.writer.print("\r\n");
-    this.writer.write(this.request.rawByteBuffer);
+    if (this.request.rawFile != null) {
+      this.writer.flush();
+      this.sendFile(this.request.rawFile);
+    } else if (!this.keepAlive || this.request.responseCode != 304) {
+      // A Not Modified response has no body; on an open connection, sending one anyway would be
+      // read as the start of the next response.
+      this.writer.write(this.request.rawByteBuffer);
+    }
     this.writer.flush();
 
     if (RequestLogger.isTracing()) {
@@ -521,7 +607,7 @@ public class RelayAgent extends Thread {
       buffer.append(this.path);
       if (this.request.responseCode == 200) {
         buffer.append(" (");
-        buffer.append(this.request.rawByteBuffer.length);
+        buffer.append(this.contentLength());
         buffer.append(" bytes)");
       } else if (this.request.responseCode == 302) {
         buffer.append(" -> ");
@@ -555,6 +641,60 @@ public class RelayAgent extends Thread {
     }
   }
 
+  private void printKeepAliveHeaders() {
+    // On an open connection the browser relies on Content-Length to find the end of the body,
+    // but pseudo-responses and redirects do not otherwise send one.
+    ByteArrayOutputStream headers = new ByteArrayOutputStream();
+    this.request.printHeaders(new PrintStream(headers, false, StandardCharsets.UTF_8));
+    String text = headers.toString(StandardCharsets.UTF_8);
+
+    this.writer.print(text);
+    if (this.request.responseCode != 304 && !CONTENT_LENGTH_PATTERN.matcher(text).find()) {
+      this.writer.print("Content-Length: ");
+      this.writer.print(this.contentLength());
+      this.writer.print("\r\n");
+    }
+    this.writer.print("Connection: keep-alive\r\n");
+  }
+
+  private long contentLength() {
+    return this.request.rawFile != null ? this.fileLength : this.request.rawByteBuffer.length;
+  }
+
+  private void sendFile(final File file) throws IOException {
+    long length = this.fileLength;
+    long position = 0;
+
+    // Hand the file to the socket a chunk at a time, rather than reading it into memory first
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      WritableByteChannel out = Channels.newChannel(this.socket.getOutputStream());
+      while (position < length) {
+        long sent = channel.transferTo(position, length - position, out);
+        if (sent <= 0) {
+          break;
+        }
+        position += sent;
+      }
+    }
+
+    // If the file shrank while it was being sent, the browser can't find the end of the body
+    if (position < length) {
+      this.keepAlive = false;
+    }
+  }
+
+  /** Closes the current connection, interrupting any request waiting on the browser. */
+  public void closeConnection() {
+    try {
+      Socket socket = this.socket;
+      if (socket != null) {
+        socket.close();
+      }
+    } catch (IOException e) {
+      // The socket is already closed.
+    }
+  }
+
   private void closeRelay() {
     try {
       if (this.reader != null) {
@@ -582,6 +722,6 @@ public class RelayAgent extends Thread {
     }
   }
 
-  private static final Set<String> validRefererHosts = new HashSet<>();
-  private static final Set<String> invalidRefererHosts = new HashSet<>();
+  private static final Set<String> validRefererHosts = ConcurrentHashMap.newKeySet();
+  private static final Set<String> invalidRefererHosts = ConcurrentHashMap.newKeySet();
 }
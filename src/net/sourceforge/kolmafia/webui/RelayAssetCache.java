@@ -0,0 +1,240 @@
+package net.sourceforge.kolmafia.webui;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import net.sourceforge.kolmafia.preferences.Preferences;
+
+/**
+ * Keeps the contents of recently served relay and image files in memory, along with an entity tag
+ * derived from their contents.
+ *
+ * <p>Every lookup checks the file's size and modification time, so an entry never outlives a
+ * change to its file, but a hit costs one file system query instead of a read. Entries are evicted
+ * least recently used first once the total size exceeds the "relayAssetCacheSize" preference.
+ * Files too large to be worth caching are described without their contents, and are meant to be
+ * streamed from disk.
+ */
+public class RelayAssetCache {
+  // No single file may take more than this fraction of the cache
+  private static final int MAX_ENTRY_FRACTION = 8;
+
+  /**
+   * A cached file. Binary assets have {@code bytes}, text assets have {@code text}, and assets too
+   * large to cache have neither.
+   */
+  public record Asset(
+      File file, long lastModified, long length, String etag, byte[] bytes, String text) {
+    public boolean isStreamed() {
+      return this.bytes == null && this.text == null;
+    }
+
+    long weight() {
+      return this.bytes != null
+          ? this.bytes.length
+          : this.text != null ? 2L * this.text.length() : 0;
+    }
+  }
+
+  private record Key(String path, boolean text) {}
+
+  private static final Map<Key, Asset> cache = new LinkedHashMap<>(64, 0.75f, true);
+  private static long cacheSize = 0;
+
+  private RelayAssetCache() {}
+
+  /**
+   * Returns the given file as binary content, or null if it cannot be read. Files too large to
+   * cache are returned as streamed assets.
+   */
+  public static Asset getBytes(final File file) {
+    return RelayAssetCache.get(file, false, f -> null);
+  }
+
+  /**
+   * Returns the given file as text, as read by the given loader, or null if it cannot be read.
+   * Files too large to cache are returned as streamed assets.
+   */
+  public static Asset getText(final File file, final Function<File, String> loader) {
+    return RelayAssetCache.get(file, true, loader);
+  }
+
+  /**
+   * Returns whether the given If-None-Match header names the current entity tag of the given file,
+   * or null if that tag cannot be known without reading the file. Files too large to cache are
+   * tagged by their size and modification time and can always be checked; other files can only be
+   * checked while they are in the cache.
+   */
+  public static Boolean matches(final File file, final String ifNoneMatch) {
+    if (file == null || ifNoneMatch == null) {
+      return false;
+    }
+
+    BasicFileAttributes attributes = RelayAssetCache.attributes(file);
+    if (attributes == null) {
+      return false;
+    }
+
+    if (RelayAssetCache.tagListMatches(ifNoneMatch, RelayAssetCache.weakTag(attributes))) {
+      return true;
+    }
+
+    Boolean matches = null;
+    String path = file.getAbsolutePath();
+    for (boolean text : new boolean[] {false, true}) {
+      Asset asset;
+      synchronized (RelayAssetCache.class) {
+        asset = RelayAssetCache.cache.get(new Key(path, text));
+      }
+
+      if (asset != null && RelayAssetCache.isCurrent(asset, attributes)) {
+        if (RelayAssetCache.tagListMatches(ifNoneMatch, asset.etag())) {
+          return true;
+        }
+        matches = false;
+      }
+    }
+
+    if (matches == null && RelayAssetCache.isStreamed(attributes.size())) {
+      // The weak tag above is the only one this file is served with
+      return false;
+    }
+
+    return matches;
+  }
+
+  private static boolean tagListMatches(final String ifNoneMatch, final String etag) {
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public static synchronized void clear() {
+    RelayAssetCache.cache.clear();
+    RelayAssetCache.cacheSize = 0;
+  }
+
+  static synchronized long size() {
+    return RelayAssetCache.cacheSize;
+  }
+
+  private static Asset get(
+      final File file, final boolean text, final Function<File, String> loader) {
+    BasicFileAttributes attributes = RelayAssetCache.attributes(file);
+    Key key = new Key(file.getAbsolutePath(), text);
+
+    if (attributes == null) {
+      RelayAssetCache.remove(key);
+      return null;
+    }
+
+    Asset asset;
+    synchronized (RelayAssetCache.class) {
+      asset = RelayAssetCache.cache.get(key);
+    }
+
+    if (asset != null && RelayAssetCache.isCurrent(asset, attributes)) {
+      return asset;
+    }
+
+    long lastModified = attributes.lastModifiedTime().toMillis();
+    long length = attributes.size();
+
+    if (RelayAssetCache.isStreamed(length)) {
+      RelayAssetCache.remove(key);
+      return new Asset(file, lastModified, length, RelayAssetCache.weakTag(attributes), null, null);
+    }
+
+    // Files are loaded outside the lock; two agents racing for the same file both read it
+    byte[] bytes = null;
+    String content = null;
+    byte[] digested;
+
+    if (text) {
+      content = loader.apply(file);
+      if (content == null) {
+        return null;
+      }
+      digested = content.getBytes(StandardCharsets.UTF_8);
+    } else {
+      try {
+        bytes = Files.readAllBytes(file.toPath());
+      } catch (IOException e) {
+        return null;
+      }
+      digested = bytes;
+    }
+
+    asset = new Asset(file, lastModified, length, RelayAssetCache.etag(digested), bytes, content);
+
+    RelayAssetCache.put(key, asset, Preferences.getLong("relayAssetCacheSize"));
+    return asset;
+  }
+
+  private static BasicFileAttributes attributes(final File file) {
+    try {
+      BasicFileAttributes attributes =
+          Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+      return attributes.isRegularFile() ? attributes : null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static boolean isStreamed(final long length) {
+    return length > Preferences.getLong("relayAssetCacheSize") / MAX_ENTRY_FRACTION;
+  }
+
+  private static String weakTag(final BasicFileAttributes attributes) {
+    return "W/\"" + attributes.size() + "-" + attributes.lastModifiedTime().toMillis() + "\"";
+  }
+
+  private static boolean isCurrent(final Asset asset, final BasicFileAttributes attributes) {
+    return asset.lastModified() == attributes.lastModifiedTime().toMillis()
+        && asset.length() == attributes.size();
+  }
+
+  private static String etag(final byte[] content) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+      return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static synchronized void put(final Key key, final Asset asset, final long capacity) {
+    Asset previous = RelayAssetCache.cache.put(key, asset);
+    if (previous != null) {
+      RelayAssetCache.cacheSize -= previous.weight();
+    }
+    RelayAssetCache.cacheSize += asset.weight();
+
+    Iterator<Asset> it = RelayAssetCache.cache.values().iterator();
+    while (RelayAssetCache.cacheSize > capacity && it.hasNext()) {
+      RelayAssetCache.cacheSize -= it.next().weight();
+      it.remove();
+    }
+  }
+
+  private static synchronized void remove(final Key key) {
+    Asset previous = RelayAssetCache.cache.remove(key);
+    if (previous != null) {
+      RelayAssetCache.cacheSize -= previous.weight();
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package net.sourceforge.kolmafia.webui;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import net.sourceforge.kolmafia.KoLConstants;
+
+/**
+ * Replays a page-load burst against the running relay server, the way a browser would: the paths
+ * are spread over a few keep-alive connections, and each connection pipelines all of its requests
+ * before reading the responses.
+ */
+public class RelayBenchmark {
+  private static final Pattern TRACE_PATTERN =
+      Pattern.compile("(?:From Browser: )?(?:GET|POST) (\\S+) HTTP/1\\.1");
+
+  public record Result(int requests, int failures, long wallNanos, long[] latencyNanos) {
+    public long percentile(final int percent) {
+      if (this.latencyNanos.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(percent / 100.0 * this.latencyNanos.length) - 1;
+      return this.latencyNanos[Math.max(0, index)];
+    }
+  }
+
+  private RelayBenchmark() {}
+
+  /** The burst used when no recording is given: every built-in script and stylesheet. */
+  public static List<String> defaultBurst() {
+    List<String> paths = new ArrayList<>();
+    for (String file : KoLConstants.RELAY_FILES) {
+      if (file.endsWith(".js") || file.endsWith(".css")) {
+        paths.add("/" + file);
+      }
+    }
+    return paths;
+  }
+
+  /**
+   * Extracts request paths from a recording. Each line is either a path, a request line, or a
+   * "From Browser:" line from a trace log; anything else is ignored.
+   */
+  public static List<String> parseBurst(final String recording) {
+    List<String> paths = new ArrayList<>();
+    for (String line : recording.split("\n")) {
+      line = line.trim();
+      Matcher matcher = TRACE_PATTERN.matcher(line);
+      if (matcher.find()) {
+        paths.add(matcher.group(1));
+      } else if (line.startsWith("/")) {
+        paths.add(line);
+      }
+    }
+    return paths;
+  }
+
+  public static Result run(final int port, final List<String> paths, final int connections)
+      throws IOException {
+    List<List<String>> shares = new ArrayList<>();
+    for (int i = 0; i < connections; ++i) {
+      shares.add(new ArrayList<>());
+    }
+    for (int i = 0; i < paths.size(); ++i) {
+      shares.get(i % connections).add(paths.get(i));
+    }
+
+    AtomicInteger failures = new AtomicInteger();
+    List<Long> latencies = new ArrayList<>();
+    long start = System.nanoTime();
+
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<long[]>> futures = new ArrayList<>();
+      for (List<String> share : shares) {
+        if (!share.isEmpty()) {
+          futures.add(executor.submit(() -> replay(port, share, start, failures)));
+        }
+      }
+
+      for (Future<long[]> future : futures) {
+        try {
+          for (long latency : future.get()) {
+            latencies.add(latency);
+          }
+        } catch (Exception e) {
+          failures.incrementAndGet();
+        }
+      }
+    }
+
+    long wall = System.nanoTime() - start;
+    long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+    Arrays.sort(sorted);
+    return new Result(paths.size(), failures.get(), wall, sorted);
+  }
+
+  private static long[] replay(
+      final int port, final List<String> paths, final long start, final AtomicInteger failures)
+      throws IOException {
+    long[] latencies = new long[paths.size()];
+
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      OutputStream ostream = socket.getOutputStream();
+      StringBuilder burst = new StringBuilder();
+      for (String path : paths) {
+        burst.append("GET ").append(path).append(" HTTP/1.1\r\n");
+        burst.append("Host: 127.0.0.1:").append(port).append("\r\n\r\n");
+      }
+      ostream.write(burst.toString().getBytes(StandardCharsets.UTF_8));
+      ostream.flush();
+
+      InputStream istream = new BufferedInputStream(socket.getInputStream());
+      for (int i = 0; i < paths.size(); ++i) {
+        if (!readResponse(istream)) {
+          failures.addAndGet(paths.size() - i);
+          return Arrays.copyOf(latencies, i);
+        }
+        latencies[i] = System.nanoTime() - start;
+      }
+    }
+
+    return latencies;
+  }
+
+  private static boolean readResponse(final InputStream istream) throws IOException {
+    String statusLine = readLine(istream);
+    if (statusLine == null || !statusLine.startsWith("HTTP/1.1")) {
+      return false;
+    }
+
+    int contentLength = -1;
+    String header;
+    while ((header = readLine(istream)) != null && !header.isEmpty()) {
+      int colon = header.indexOf(':');
+      if (colon != -1 && header.substring(0, colon).trim().equalsIgnoreCase("Content-Length")) {
+        contentLength = Integer.parseInt(header.substring(colon + 1).trim());
+      }
+    }
+
+    // Without a length, the response cannot be framed on an open connection
+    if (header == null || contentLength < 0) {
+      return false;
+    }
+
+    istream.skipNBytes(contentLength);
+    return true;
+  }
+
+  private static String readLine(final InputStream istream) throws IOException {
+    ByteArrayOutputStream line = new ByteArrayOutputStream();
+    int ch;
+    while ((ch = istream.read()) != -1) {
+      if (ch == '\n') {
+        String text = line.toString(StandardCharsets.UTF_8);
+        return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+      }
+      line.write(ch);
+    }
+    return null;
+  }
+}
@@ -4,8 +4,12 @@ import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.UnknownHostException;
-import java.util.HashSet;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.KoLmafia;
 import net.sourceforge.kolmafia.StaticEntity;
@@ -14,12 +18,19 @@ import net.sourceforge.kolmafia.utilities.FileUtilities;
 import net.sourceforge.kolmafia.utilities.StringUtilities;
 
 public class RelayServer implements Runnable {
-  public static final Set<RelayAgent> agentThreads = new HashSet<>();
+  // Threads currently serving a browser connection
+  public static final Set<Thread> agentThreads = ConcurrentHashMap.newKeySet();
+
+  // Each connection is served by an agent on its own virtual thread. Agents, which own a
+  // RelayRequest, are recycled once their connection closes.
+  private static final Set<RelayAgent> activeAgents = ConcurrentHashMap.newKeySet();
+  private static final Queue<RelayAgent> idleAgents = new ConcurrentLinkedQueue<>();
 
   private static long lastStatusMessage = 0;
   private static Thread relayThread = null;
 
   private ServerSocket serverSocket = null;
+  private ExecutorService agentExecutor = null;
   private static int port = 60080;
   private static boolean listening = false;
   private static boolean updateStatus = false;
@@ -128,6 +139,9 @@ public class RelayServer implements Runnable {
     }
 
     if (startedSuccessfully) {
+      this.agentExecutor =
+          Executors.newThreadPerTaskExecutor(
+              Thread.ofVirtual().name("LocalRelayAgent", 0).factory());
       RelayServer.listening = true;
     }
 
@@ -145,6 +159,11 @@ public class RelayServer implements Runnable {
 
     this.closeAgents();
 
+    if (this.agentExecutor != null) {
+      this.agentExecutor.shutdown();
+      this.agentExecutor = null;
+    }
+
     try {
       if (this.serverSocket != null) {
         this.serverSocket.close();
@@ -175,29 +194,28 @@ public class RelayServer implements Runnable {
   }
 
   private synchronized void closeAgents() {
-    for (RelayAgent agent : agentThreads) {
-      agent.setSocket(null);
+    for (RelayAgent agent : RelayServer.activeAgents) {
+      agent.closeConnection();
     }
-    agentThreads.clear();
+    RelayServer.activeAgents.clear();
+    RelayServer.idleAgents.clear();
   }
 
   private synchronized void dispatchAgent(final Socket socket) {
-    for (RelayAgent agent : agentThreads) {
-      if (agent.isWaiting()) {
-        agent.setSocket(socket);
-        return;
-      }
+    RelayAgent agent = RelayServer.idleAgents.poll();
+    if (agent == null) {
+      agent = new RelayAgent();
     }
 
-    this.createAgent(socket);
-  }
-
-  private synchronized void createAgent(final Socket socket) {
-    RelayAgent agent = new RelayAgent(RelayServer.agentThreads.size());
     agent.setSocket(socket);
+    RelayServer.activeAgents.add(agent);
+    this.agentExecutor.execute(agent);
+  }
 
-    RelayServer.agentThreads.add(agent);
-    agent.start();
+  static void agentFinished(final RelayAgent agent) {
+    if (RelayServer.activeAgents.remove(agent) && RelayServer.listening) {
+      RelayServer.idleAgents.offer(agent);
+    }
   }
 
   public static final void addStatusMessage(final String message) {
@@ -14,6 +14,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -30,7 +31,8 @@ import javax.net.ssl.SSLParameters;
 
 public class FakeHttpClient extends HttpClient {
 
-  private final List<HttpRequest> requests = new ArrayList<>();
+  // Requests may be sent from several threads at once
+  private final List<HttpRequest> requests = Collections.synchronizedList(new ArrayList<>());
   private final Queue<FakeHttpResponse<String>> responses = new LinkedList<>();
   private Function<HttpRequest, FakeHttpResponse<String>> responseFunc = null;
 
@@ -0,0 +1,157 @@
+package net.java.dev.spellcast.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.IntStream;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class LockableListModelTest {
+  private static final LockableListModel.ListElementFilter EVEN =
+      element -> ((Integer) element) % 2 == 0;
+
+  private static final LockableListModel.ListElementFilter TENS =
+      element -> ((Integer) element) % 10 == 0;
+
+  private static List<Integer> visible(final LockableListModel<Integer> model) {
+    return IntStream.range(0, model.getSize()).mapToObj(model::getElementAt).toList();
+  }
+
+  private static List<Integer> expected(
+      final LockableListModel<Integer> model, final LockableListModel.ListElementFilter filter) {
+    return model.stream().filter(filter::isVisible).toList();
+  }
+
+  private static class Recorder implements ListDataListener {
+    final List<String> events = new ArrayList<>();
+
+    @Override
+    public void intervalAdded(final ListDataEvent e) {
+      this.events.add("added " + e.getIndex0() + "-" + e.getIndex1());
+    }
+
+    @Override
+    public void intervalRemoved(final ListDataEvent e) {
+      this.events.add("removed " + e.getIndex0() + "-" + e.getIndex1());
+    }
+
+    @Override
+    public void contentsChanged(final ListDataEvent e) {
+      this.events.add("changed " + e.getIndex0() + "-" + e.getIndex1());
+    }
+  }
+
+  // Keeps the Swing thread busy while the changes are made, then lets it announce them
+  private static void whileSwingIsBusy(final Runnable changes) throws Exception {
+    var busy = new CountDownLatch(1);
+    var done = new CountDownLatch(1);
+    SwingUtilities.invokeLater(
+        () -> {
+          busy.countDown();
+          try {
+            done.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        });
+    busy.await();
+    changes.run();
+    done.countDown();
+    SwingUtilities.invokeAndWait(() -> {});
+  }
+
+  @Nested
+  class Filtering {
+    @Test
+    void mirrorsFollowEachChange() {
+      var model = new LockableListModel<Integer>(EVEN);
+      var mirror = model.getMirrorImage(TENS);
+
+      for (int i = 0; i < 50; ++i) {
+        model.add(i);
+      }
+      model.add(0, 100);
+      model.add(5, 7);
+      model.remove(Integer.valueOf(20));
+      model.remove(3);
+      model.set(10, 30);
+      model.set(11, 31);
+      model.addAll(List.of(60, 61, 62));
+      model.addAll(2, List.of(70, 71));
+
+      assertThat(visible(model), is(expected(model, EVEN)));
+      assertThat(visible(mirror), is(expected(model, TENS)));
+    }
+
+    @Test
+    void elementsStayVisibleUntilTheFilterIsUpdated() {
+      boolean[] hideAll = {false};
+      var model = new LockableListModel<Integer>(element -> !hideAll[0]);
+      model.addAll(List.of(1, 2, 3, 4));
+
+      hideAll[0] = true;
+      model.remove(1);
+      model.set(1, 5);
+
+      assertThat(visible(model), contains(1, 4));
+
+      model.updateFilter(false);
+
+      assertThat(visible(model), is(empty()));
+    }
+  }
+
+  @Nested
+  class Announcing {
+    @Test
+    void appendsAwayFromSwingAreAnnouncedTogether() throws Exception {
+      var model = new LockableListModel<Integer>(EVEN);
+      var events = new Recorder();
+      model.addListDataListener(events);
+
+      whileSwingIsBusy(() -> IntStream.range(0, 10).forEach(model::add));
+
+      assertThat(events.events, contains("added 0-4"));
+    }
+
+    @Test
+    void pendingAppendsAreAnnouncedBeforeOtherChanges() throws Exception {
+      var model = new LockableListModel<Integer>();
+      var events = new Recorder();
+      model.addListDataListener(events);
+
+      whileSwingIsBusy(
+          () -> {
+            model.add(1);
+            model.addAll(List.of(2, 3));
+            model.remove(0);
+            model.add(4);
+          });
+
+      assertThat(events.events, contains("added 0-2", "removed 0-0", "added 2-2"));
+    }
+
+    @Test
+    void appendsOnSwingAreAnnouncedAtOnce() throws Exception {
+      var model = new LockableListModel<Integer>();
+      var events = new Recorder();
+      model.addListDataListener(events);
+
+      SwingUtilities.invokeAndWait(
+          () -> {
+            model.add(1);
+            model.add(2);
+            assertThat(events.events, contains("added 0-0", "added 1-1"));
+          });
+    }
+  }
+}
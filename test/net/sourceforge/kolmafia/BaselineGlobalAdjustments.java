@@ -0,0 +1,549 @@
+package net.sourceforge.kolmafia;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import net.sourceforge.kolmafia.objectpool.SkillPool;
+import net.sourceforge.kolmafia.persistence.ItemDatabase;
+import net.sourceforge.kolmafia.persistence.QuestDatabase;
+import net.sourceforge.kolmafia.persistence.QuestDatabase.Quest;
+import net.sourceforge.kolmafia.preferences.Preferences;
+import net.sourceforge.kolmafia.request.SpaaaceRequest;
+import net.sourceforge.kolmafia.request.SuburbanDisRequest;
+import net.sourceforge.kolmafia.session.ElVibratoManager;
+import net.sourceforge.kolmafia.session.ElVibratoManager.Punchcard;
+import net.sourceforge.kolmafia.session.EventManager;
+import net.sourceforge.kolmafia.utilities.StringUtilities;
+import net.sourceforge.kolmafia.webui.UseLinkDecorator;
+import net.sourceforge.kolmafia.webui.UseLinkDecorator.UseLink;
+
+/**
+ * RequestEditorKit's decoration of a page before its global decorations were made by rewriters,
+ * kept as it was so that tests can check that the rewriters decorate every page exactly as it did.
+ * Page adjustments are still made by RequestEditorKit, since they have not changed.
+ */
+final class BaselineGlobalAdjustments {
+  private BaselineGlobalAdjustments() {}
+
+  private static final ArrayList<String> maps = new ArrayList<>();
+
+  static {
+    BaselineGlobalAdjustments.maps.add("place.php?whichplace=plains");
+    BaselineGlobalAdjustments.maps.add("place.php?whichplace=bathole");
+    BaselineGlobalAdjustments.maps.add("fernruin.php");
+    BaselineGlobalAdjustments.maps.add("cobbsknob.php");
+    BaselineGlobalAdjustments.maps.add("cobbsknob.php?action=tolabs");
+    BaselineGlobalAdjustments.maps.add("cobbsknob.php?action=tomenagerie");
+    BaselineGlobalAdjustments.maps.add("cyrpt.php");
+    BaselineGlobalAdjustments.maps.add("place.php?whichplace=beanstalk");
+    BaselineGlobalAdjustments.maps.add("woods.php");
+    BaselineGlobalAdjustments.maps.add("friars.php");
+    BaselineGlobalAdjustments.maps.add("pandamonium.php");
+    BaselineGlobalAdjustments.maps.add("place.php?whichplace=mountains");
+    BaselineGlobalAdjustments.maps.add("tutorial.php");
+    BaselineGlobalAdjustments.maps.add("place.php?whichplace=mclargehuge");
+    BaselineGlobalAdjustments.maps.add("island.php");
+    BaselineGlobalAdjustments.maps.add("place.php?whichplace=cove");
+    BaselineGlobalAdjustments.maps.add("bigisland.php");
+    BaselineGlobalAdjustments.maps.add("postwarisland.php");
+    BaselineGlobalAdjustments.maps.add("place.php?whichplace=desertbeach");
+    BaselineGlobalAdjustments.maps.add("pyramid.php");
+    BaselineGlobalAdjustments.maps.add("place.php?whichplace=town_wrong");
+    BaselineGlobalAdjustments.maps.add("place.php?whichplace=town_right");
+    BaselineGlobalAdjustments.maps.add("place.php?whichplace=spookyraven1");
+    BaselineGlobalAdjustments.maps.add("place.php?whichplace=spookyraven2");
+    BaselineGlobalAdjustments.maps.add("place.php?whichplace=wormwood");
+    BaselineGlobalAdjustments.maps.add("manor3.php");
+    BaselineGlobalAdjustments.maps.add("da.php");
+    BaselineGlobalAdjustments.maps.add("canadia.php");
+    BaselineGlobalAdjustments.maps.add("gnomes.php");
+    BaselineGlobalAdjustments.maps.add("heydeze.php");
+    BaselineGlobalAdjustments.maps.add("dwarffactory.php");
+  }
+
+  private static final Pattern RCM_JS_PATTERN = Pattern.compile("rcm\\.(\\d+\\.)?js");
+
+  public static final void getFeatureRichHTML(
+      final String location, final StringBuffer buffer, final boolean addComplexFeatures) {
+    if (buffer.length() == 0) {
+      return;
+    }
+
+    // Skip all decorations on the raw KoL api.
+
+    if (location.startsWith("api.php")) {
+      return;
+    }
+
+    // Remove bogus <body> tag preceding <head> tag.  topmenu has
+    // this, but don't assume other pages are flawless
+
+    StringUtilities.singleStringReplace(buffer, "<body><head>", "<head>");
+
+    // Apply individual page adjustments
+
+    RequestEditorKit.applyPageAdjustments(location, buffer, addComplexFeatures);
+
+    // Apply adjustments that should be on all pages
+
+    BaselineGlobalAdjustments.applyGlobalAdjustments(location, buffer, addComplexFeatures);
+  }
+
+  protected static final void applyGlobalAdjustments(
+      final String location, final StringBuffer buffer, final boolean addComplexFeatures) {
+    // Make basics.js and basics.css available to all pages
+
+    if (addComplexFeatures) {
+      StringUtilities.insertBefore(
+          buffer,
+          "</head>",
+          "<script language=\"Javascript\" src=\"/" + KoLConstants.BASICS_JS + "\"></script>");
+
+      StringUtilities.insertBefore(
+          buffer,
+          "</head>",
+          "<link rel=\"stylesheet\" href=\"/" + KoLConstants.BASICS_CSS + "\" />");
+    }
+
+    // Skip additional decorations for the character pane and the top menu
+
+    if (location.startsWith("charpane.php") || location.contains("menu.php")) {
+      return;
+    }
+
+    // Remove redundant requests for a charpane refresh
+    BaselineGlobalAdjustments.suppressRedundantRefreshes(buffer);
+
+    // Handle changes which happen on a lot of different pages
+    // rather than just one or two.
+
+    BaselineGlobalAdjustments.changePunchcardNames(buffer);
+    BaselineGlobalAdjustments.changePotionImages(buffer);
+    BaselineGlobalAdjustments.decorateLevelGain(buffer);
+    BaselineGlobalAdjustments.addAbsintheLink(buffer);
+    BaselineGlobalAdjustments.addTransponderLink(buffer);
+    BaselineGlobalAdjustments.addBatteryLink(buffer);
+    BaselineGlobalAdjustments.addFolioLink(buffer);
+    RequestEditorKit.addNewLocationLinks(buffer);
+    BaselineGlobalAdjustments.suppressPotentialMalware(buffer);
+    BaselineGlobalAdjustments.extendRightClickMenu(buffer);
+
+    // Now do anything which doesn't work in Java's internal HTML renderer
+
+    if (addComplexFeatures) {
+      if (BaselineGlobalAdjustments.maps.contains(location)) {
+        buffer.insert(
+            buffer.indexOf("</tr>"),
+            "<td width=15 valign=bottom align=left bgcolor=blue><a style=\"color: white; font-weight: normal; font-size: small; text-decoration: underline\" href=\"javascript: attachSafetyText(); void(0);\">?</a>");
+        buffer.insert(buffer.indexOf("<td", buffer.indexOf("</tr>")) + 3, " colspan=2");
+      }
+
+      if (Preferences.getBoolean("relayAddsUseLinks")) {
+        UseLinkDecorator.decorate(location, buffer);
+      }
+
+      if (buffer.indexOf("showplayer.php") != -1 && !RCM_JS_PATTERN.matcher(buffer).find()) {
+        RequestEditorKit.addChatFeatures(buffer);
+      }
+
+      // Always select the contents of text fields when you
+      // click on them to make for easy editing.
+
+      if (Preferences.getBoolean("autoHighlightOnFocus") && buffer.indexOf("</html>") != -1) {
+        StringUtilities.insertBefore(
+            buffer, "</html>", "<script src=\"/" + KoLConstants.ONFOCUS_JS + "\"></script>");
+      }
+
+      if (location.contains("fight.php")) {
+        StringUtilities.insertBefore(
+            buffer, "</html>", "<script src=\"/" + KoLConstants.COMBATFILTER_JS + "\"></script>");
+      }
+    }
+
+    var eventMatcher = EventManager.findEventsBlock(buffer);
+
+    if (EventManager.hasEvents() && (eventMatcher != null || location.equals("main.php"))) {
+      int eventTableInsertIndex = 0;
+
+      if (eventMatcher != null) {
+        eventTableInsertIndex = eventMatcher.start();
+        var pageWithoutBlock = eventMatcher.replaceFirst("");
+
+        buffer.setLength(0);
+        buffer.append(pageWithoutBlock);
+      } else {
+        eventTableInsertIndex = buffer.indexOf("</div>") + 6;
+      }
+
+      StringBuilder eventsTable = new StringBuilder();
+
+      eventsTable.append("<center><table width=95% cellspacing=0 cellpadding=0>");
+      eventsTable.append("<tr><td style=\"background-color: orange;\" align=center >");
+      eventsTable.append("<b style=\"color: white\">New Events:</b>");
+      eventsTable.append("</td></tr>");
+      eventsTable.append("<tr><td style=\"padding: 5px; border: 1px solid orange;\" align=center>");
+
+      Iterator<String> eventHyperTextIterator = EventManager.getEventHyperTexts().iterator();
+
+      while (eventHyperTextIterator.hasNext()) {
+        eventsTable.append(eventHyperTextIterator.next());
+
+        if (eventHyperTextIterator.hasNext()) {
+          eventsTable.append("<br />");
+        }
+      }
+
+      eventsTable.append("</td></tr>");
+      eventsTable.append("<tr><td height=4></td></tr>");
+      eventsTable.append("</table></center>");
+
+      buffer.insert(eventTableInsertIndex, eventsTable);
+
+      EventManager.clearEventHistory();
+    }
+
+    // Having done all the decoration on the page, do things that
+    // might modify or depend on those decorations
+
+    // Change border colors if the user wants something other than blue
+
+    String defaultColor = Preferences.getString("defaultBorderColor");
+    if (!defaultColor.equals("blue")) {
+      StringUtilities.globalStringReplace(
+          buffer, "bgcolor=blue", "bgcolor=\"" + defaultColor + "\"");
+      StringUtilities.globalStringReplace(
+          buffer, "border: 1px solid blue", "border: 1px solid " + defaultColor);
+      StringUtilities.globalStringReplace(
+          buffer,
+          "<td style=\"background-color: blue\"",
+          "<td style=\"background-color: " + defaultColor + "\"");
+    }
+  }
+
+  private static void extendRightClickMenu(StringBuffer buffer) {
+    if (buffer.indexOf("pop_ircm_contents") != -1) {
+      StringUtilities.insertBefore(
+          buffer, "</html>", "<script src=\"/" + KoLConstants.IRCM_JS + "\"></script>");
+    }
+  }
+
+  private static void decorateLevelGain(final StringBuffer buffer) {
+    String test = "<b>You gain a Level!</b>";
+    int index = buffer.indexOf(test);
+
+    if (index == -1) {
+      String test2 = "<b>You gain some Levels!</b>";
+      int index2 = buffer.indexOf(test2);
+      if (index2 == -1) {
+        return;
+      }
+      index = index2;
+      test = test2;
+    }
+
+    StringBuilder links = new StringBuilder();
+    boolean haveLinks = false;
+    int newLevel = KoLCharacter.getLevel();
+
+    links.append("<font size=1>");
+
+    // If we are Level 13 or less, the Council might have quests for us
+    if (newLevel <= 13) {
+      // If we're Ed, and have already found we're talking to Amun instead, link to Amun
+      if (KoLCharacter.isEd() && QuestDatabase.isQuestStarted(Quest.LARVA)) {
+        links.append(" [<a href=\"council.php\">Amun</a>]");
+      } else {
+        links.append(" [<a href=\"council.php\">council</a>]");
+      }
+      haveLinks = true;
+    }
+
+    // If we are an Avatar of Boris, we can learn a new skill
+    if (KoLCharacter.inAxecore() && newLevel <= 15) {
+      links.append(" [<a href=\"da.php?place=gate1\">boris</a>]");
+      haveLinks = true;
+    } else if (KoLCharacter.isJarlsberg() && newLevel <= 15) {
+      links.append(" [<a href=\"da.php?place=gate2\">jarlsberg</a>]");
+      haveLinks = true;
+    } else if (KoLCharacter.isSneakyPete() && newLevel <= 15) {
+      links.append(" [<a href=\"da.php?place=gate3\">sneaky pete</a>]");
+      haveLinks = true;
+    } else if (KoLCharacter.isEd() && newLevel <= 15) {
+      if (newLevel % 3 == 0) {
+        links.append(" [<a href=\"/place.php?whichplace=edbase&action=edbase_door\">servant</a>]");
+      } else {
+        if (KoLCharacter.hasSkill(SkillPool.BOUNTY_OF_RENENUTET)
+            && KoLCharacter.hasSkill(SkillPool.WRATH_OF_RA)
+            && KoLCharacter.hasSkill(SkillPool.CURSE_OF_STENCH)) {
+          links.append(
+              " [<a href=\"/place.php?whichplace=edbase&action=edbase_door\">servant xp</a>]");
+        } else {
+          links.append(
+              " [<a href=\"/place.php?whichplace=edbase&action=edbase_book\">skill book</a>]");
+        }
+      }
+      haveLinks = true;
+    }
+
+    // Otherwise, if we are level 15 or less, the guild might have a skill for us
+    // Only give a link if we have opened the guild
+    else if (newLevel <= 15 && KoLCharacter.getGuildStoreOpen()) {
+      links.append(" [<a href=\"guild.php\">guild</a>]");
+      haveLinks = true;
+    }
+
+    links.append("</font>");
+
+    if (haveLinks) {
+      buffer.insert(index + test.length(), links.toString());
+    }
+  }
+
+  private static void addTransponderLink(final StringBuffer buffer) {
+    // You can't get there anymore, because you don't know the
+    // transporter frequency. You consider beating up Kenneth to
+    // see if <i>he</i> remembers it, but you think better of it.
+
+    String test =
+        "You consider beating up Kenneth to see if <i>he</i> remembers it, but you think better of it.";
+    int index = buffer.indexOf(test);
+
+    if (index == -1) {
+      test = "You can't get here without the proper transporter frequency.";
+      index = buffer.indexOf(test);
+    }
+
+    if (index == -1) {
+      return;
+    }
+
+    if (SpaaaceRequest.TRANSPONDER.getCount(KoLConstants.inventory) == 0) {
+      return;
+    }
+
+    UseLink link =
+        new UseLink(
+            ItemPool.TRANSPORTER_TRANSPONDER,
+            1,
+            "use transponder",
+            "inv_use.php?which=3&whichitem=");
+    buffer.insert(index + test.length(), link.getItemHTML());
+  }
+
+  private static final AdventureResult WARBEAR_BATTERY = ItemPool.get(ItemPool.WARBEAR_BATTERY, 1);
+
+  private static void addBatteryLink(final StringBuffer buffer) {
+    // Your hoverbelt would totally do the trick to get you up
+    // there, only it's out of juice.
+
+    String test =
+        "Your hoverbelt would totally do the trick to get you up there, only it's out of juice.";
+    int index = buffer.indexOf(test);
+    if (index == -1) {
+      return;
+    }
+
+    if (BaselineGlobalAdjustments.WARBEAR_BATTERY.getCount(KoLConstants.inventory) == 0) {
+      return;
+    }
+
+    UseLink link =
+        new UseLink(
+            ItemPool.WARBEAR_BATTERY,
+            1,
+            "install warbear battery",
+            "inv_use.php?which=3&whichitem=");
+    buffer.insert(index + test.length(), link.getItemHTML());
+  }
+
+  private static void addFolioLink(final StringBuffer buffer) {
+    // Remember that devilish folio you read?
+    // No, you don't! You don't have it all still in your head!
+    // Better find a new one you can read! I swear this:
+    // 'Til you do, you can't visit the Suburbs of Dis!
+
+    String test = "'Til you do, you can't visit the Suburbs of Dis!";
+    int index = buffer.indexOf(test);
+
+    if (index == -1) {
+      return;
+    }
+
+    if (SuburbanDisRequest.FOLIO.getCount(KoLConstants.inventory) == 0) {
+      return;
+    }
+
+    UseLink link =
+        new UseLink(
+            ItemPool.DEVILISH_FOLIO, 1, "use devilish folio", "inv_use.php?which=3&whichitem=");
+    buffer.insert(index + test.length(), link.getItemHTML());
+  }
+
+  private static void addAbsintheLink(final StringBuffer buffer) {
+    // For some reason, you can't find your way back there.
+
+    String test = "For some reason, you can't find your way back there.";
+    int index = buffer.indexOf(test);
+
+    if (index == -1) {
+      return;
+    }
+
+    if (ItemPool.get(ItemPool.ABSINTHE, 1).getCount(KoLConstants.inventory) == 0) {
+      return;
+    }
+
+    UseLink link =
+        new UseLink(ItemPool.ABSINTHE, 1, "use absinthe", "inv_use.php?which=3&whichitem=");
+    buffer.insert(index + test.length(), link.getItemHTML());
+  }
+
+  // Obsolete usage: put script into HTML comment.
+  //
+  // <script language=Javascript>
+  // <!--
+  // if (parent.frames.length == 0) location.href="game.php";
+  // top.charpane.location.href="charpane.php";
+  // //-->
+  // </script>
+  //
+  // Current usage: no HTML comments:
+  //
+  // <script>top.charpane.location.href="charpane.php";</script>
+  // <script>parent.charpane.location.href="charpane.php";</script>
+  //
+  // Either will force the browser to issue a request for charpane.php.
+  // The issue is that KoL will sometimes include BOTH, forcing two requests.
+
+  private static final Pattern CHARPANE_REFRESH_PATTERN =
+      Pattern.compile(
+          "(?:top|parent).charpane.location.href=\"charpane.php\";\\n?", Pattern.DOTALL);
+
+  private static void suppressRedundantRefreshes(final StringBuffer buffer) {
+    Matcher matcher = CHARPANE_REFRESH_PATTERN.matcher(buffer);
+    MatchResult[] matches = matcher.results().toArray(MatchResult[]::new);
+    // Index of the last match - if any
+    int index = matches.length - 1;
+    // If there is more than one match, retain only the final one. Since we are
+    // removing matches from the buffer, count down to preserve earlier indices
+    while (index > 0) {
+      MatchResult result = matches[--index];
+      buffer.replace(result.start(), result.end(), "");
+    }
+  }
+
+  // <script>
+  //  (function(i,s,o,g,r,a,m){i['GoogleAnalyticsObject']=r;i[r]=i[r]||function(){
+  //  (i[r].q=i[r].q||[]).push(arguments)},i[r].l=1*new Date();a=s.createElement(o),
+  //  m=s.getElementsByTagName(o)[0];a.async=1;a.src=g;m.parentNode.insertBefore(a,m)
+  //  })(window,document,'script','//www.google-analytics.com/analytics.js','ga');
+  //
+  //  ga('create', 'UA-47556088-1', 'kingdomofloathing.com');
+  //  ga('send', 'pageview');
+  //
+  // </script>
+
+  private static final Pattern MALWARE1_PATTERN =
+      Pattern.compile(
+          "<script>[\\s]*\\(function\\(i,s,o,g,r,a,m\\).*?GoogleAnalyticsObject.*?</script>",
+          Pattern.DOTALL);
+
+  // <script async src="//pagead2.googlesyndication.com/pagead/js/adsbygoogle.js"></script>
+  // <!-- ROS_728x90 -->
+  // <ins class="adsbygoogle"
+  //      style="display:inline-block;width:728px;height:90px"
+  //      data-ad-client="ca-pub-5904875379193204"
+  //      data-ad-slot="3053908571"></ins>
+  // <script>
+  // (adsbygoogle = window.adsbygoogle || []).push({});
+  // </script>
+  // <br><img src=/images/otherimages/1x1trans.gif height=4><br>
+
+  private static final Pattern MALWARE2_PATTERN =
+      Pattern.compile(
+          "<script async src=\"//.*?adsbygoogle.js\".*?1x1trans.gif.*?<br>", Pattern.DOTALL);
+
+  private static void suppressPotentialMalware(final StringBuffer buffer) {
+    // Always remove lag-inducing Javascript
+    if (buffer.indexOf("GoogleAnalyticsObject") != -1) {
+      Matcher matcher = BaselineGlobalAdjustments.MALWARE1_PATTERN.matcher(buffer);
+      if (matcher.find()) {
+        StringUtilities.globalStringDelete(buffer, matcher.group(0));
+      }
+    }
+
+    if (buffer.indexOf("adsbygoogle") != -1) {
+      Matcher matcher = BaselineGlobalAdjustments.MALWARE2_PATTERN.matcher(buffer);
+      if (matcher.find()) {
+        StringUtilities.globalStringDelete(buffer, matcher.group(0));
+      }
+    }
+  }
+
+  private static void changePotionImages(final StringBuffer buffer) {
+    if (buffer.indexOf("exclam.gif") == -1 && buffer.indexOf("vial.gif") == -1) {
+      return;
+    }
+    if (!Preferences.getBoolean("relayShowSpoilers")) {
+      return;
+    }
+
+    ArrayList<String> potionNames = new ArrayList<>();
+    ArrayList<String> pluralNames = new ArrayList<>();
+    ArrayList<String> potionEffects = new ArrayList<>();
+
+    for (int i = 819; i <= 827; ++i) {
+      String name = ItemDatabase.getItemName(i);
+      String plural = ItemDatabase.getPluralName(i);
+      if (buffer.indexOf(name) != -1 || buffer.indexOf(plural) != -1) {
+        String effect = Preferences.getString("lastBangPotion" + i);
+        if (!effect.isEmpty()) {
+          potionNames.add(name);
+          pluralNames.add(plural);
+          potionEffects.add(" of " + effect);
+        }
+      }
+    }
+    for (int i = ItemPool.VIAL_OF_RED_SLIME; i <= ItemPool.VIAL_OF_PURPLE_SLIME; ++i) {
+      String name = ItemDatabase.getItemName(i);
+      String plural = ItemDatabase.getPluralName(i);
+      if (buffer.indexOf(name) != -1 || buffer.indexOf(plural) != -1) {
+        String effect = Preferences.getString("lastSlimeVial" + i);
+        if (!effect.isEmpty()) {
+          potionNames.add(name);
+          pluralNames.add(plural);
+          potionEffects.add(": " + effect);
+        }
+      }
+    }
+
+    if (potionNames.isEmpty()) {
+      return;
+    }
+
+    for (int i = 0; i < potionNames.size(); ++i) {
+      String name = potionNames.get(i);
+      String plural = pluralNames.get(i);
+      String effect = potionEffects.get(i);
+
+      StringUtilities.globalStringReplace(buffer, name + "</b>", name + effect + "</b>");
+      StringUtilities.globalStringReplace(buffer, plural + "</b>", plural + effect + "</b>");
+    }
+  }
+
+  private static void changePunchcardNames(final StringBuffer buffer) {
+    if (buffer.indexOf("El Vibrato punchcard") == -1) {
+      return;
+    }
+
+    for (Punchcard punchcard : ElVibratoManager.PUNCHCARDS) {
+      String name = punchcard.name();
+      if (buffer.indexOf(name) != -1) {
+        StringUtilities.globalStringReplace(buffer, name, punchcard.alias());
+      }
+    }
+  }
+}
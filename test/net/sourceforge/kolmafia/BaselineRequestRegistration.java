@@ -0,0 +1,828 @@
+package net.sourceforge.kolmafia;
+
+import net.sourceforge.kolmafia.request.*;
+import net.sourceforge.kolmafia.request.coinmaster.AWOLQuartermasterRequest;
+import net.sourceforge.kolmafia.request.coinmaster.AltarOfBonesRequest;
+import net.sourceforge.kolmafia.request.coinmaster.BURTRequest;
+import net.sourceforge.kolmafia.request.coinmaster.BigBrotherRequest;
+import net.sourceforge.kolmafia.request.coinmaster.BountyHunterHunterRequest;
+import net.sourceforge.kolmafia.request.coinmaster.CRIMBCOGiftShopRequest;
+import net.sourceforge.kolmafia.request.coinmaster.Crimbo11Request;
+import net.sourceforge.kolmafia.request.coinmaster.CrimboCartelRequest;
+import net.sourceforge.kolmafia.request.coinmaster.DimemasterRequest;
+import net.sourceforge.kolmafia.request.coinmaster.FreeSnackRequest;
+import net.sourceforge.kolmafia.request.coinmaster.FudgeWandRequest;
+import net.sourceforge.kolmafia.request.coinmaster.GameShoppeRequest;
+import net.sourceforge.kolmafia.request.coinmaster.HermitRequest;
+import net.sourceforge.kolmafia.request.coinmaster.MrStoreRequest;
+import net.sourceforge.kolmafia.request.coinmaster.QuartersmasterRequest;
+import net.sourceforge.kolmafia.request.coinmaster.SkeletonOfCrimboPastRequest;
+import net.sourceforge.kolmafia.request.coinmaster.SwaggerShopRequest;
+import net.sourceforge.kolmafia.request.coinmaster.TravelingTraderRequest;
+import net.sourceforge.kolmafia.request.concoction.BurningLeavesRequest;
+import net.sourceforge.kolmafia.request.concoction.BurningNewspaperRequest;
+import net.sourceforge.kolmafia.request.concoction.CreateItemRequest;
+import net.sourceforge.kolmafia.request.concoction.Crimbo07Request;
+import net.sourceforge.kolmafia.request.concoction.FantasyRealmRequest;
+import net.sourceforge.kolmafia.request.concoction.GnomePartRequest;
+import net.sourceforge.kolmafia.request.concoction.GrubbyWoolRequest;
+import net.sourceforge.kolmafia.request.concoction.MeteoroidRequest;
+import net.sourceforge.kolmafia.request.concoction.SausageOMaticRequest;
+import net.sourceforge.kolmafia.request.concoction.WaxGlobRequest;
+import net.sourceforge.kolmafia.request.concoction.shop.Crimbo12Request;
+import net.sourceforge.kolmafia.session.ChoiceManager;
+import net.sourceforge.kolmafia.session.DvorakManager;
+import net.sourceforge.kolmafia.session.ElVibratoManager;
+import net.sourceforge.kolmafia.session.OceanManager;
+import net.sourceforge.kolmafia.session.SorceressLairManager;
+import net.sourceforge.kolmafia.shop.ShopRequest;
+
+/**
+ * The chain of checks RequestLogger made for each request before registrars were indexed by page,
+ * kept as it was so that tests can check that the index logs every URL exactly as it did.
+ */
+final class BaselineRequestRegistration {
+  private BaselineRequestRegistration() {}
+
+  /**
+   * Registers a request as the chain did, given whether the last request was a simple visit, and
+   * returns whether this one was.
+   */
+  static boolean register(
+      final GenericRequest request, final String urlString, final boolean wasLastRequestSimple) {
+    try {
+      return BaselineRequestRegistration.doRegister(request, urlString, wasLastRequestSimple);
+    } catch (Exception e) {
+      StaticEntity.printStackTrace(e);
+      return wasLastRequestSimple;
+    }
+  }
+
+  private static boolean doRegister(
+      final GenericRequest request, final String urlString, final boolean wasLastRequestSimple) {
+    // If we are in a fight, don't even look at things which are
+    // not fight.php, since they will immediately redirect to
+    // continue the fight.
+    if (FightRequest.currentRound != 0
+        && !urlString.startsWith("fight.php")
+        && !urlString.startsWith("fambattle.php")) {
+      return wasLastRequestSimple;
+    }
+
+    if (urlString.startsWith("api")
+        || urlString.startsWith("charpane")
+        || urlString.startsWith("account")
+        || urlString.startsWith("login")
+        || urlString.startsWith("logout")) {
+      return wasLastRequestSimple;
+    }
+
+    // We want to do special things when we visit locations within
+    // the Sorceress' Lair. Those locations which are "adventures"
+    // but are not claimed here will be picked up by KoLAdventure
+
+    if (SorceressLairManager.registerRequest(urlString)) {
+      return false;
+    }
+
+    if (KoLAdventure.recordToSession(urlString)) {
+      return false;
+    }
+
+    // Anything past this is not an "adventure" per se
+
+    boolean isExternal =
+        request.getClass() == GenericRequest.class
+            || request instanceof RelayRequest
+            || request instanceof PlaceRequest;
+
+    if (urlString.startsWith("shop.php")) {
+      // We know of 138 different shops.
+      //
+      // 24 concoctions
+      // 71 coinmasters
+      // 39 NPC stores
+      // 4 NPC + coinmaster
+
+      // This one was written before shop.php was modernized.
+      // It's obsolete, so, who knows?
+      if ((isExternal || request instanceof Crimbo12Request)
+          && Crimbo12Request.registerRequest(urlString)) {
+        return false;
+      }
+
+      // This should cover literally everything else.
+      if (ShopRequest.registerRequest(urlString)) {
+        return false;
+      }
+    }
+
+    if ((isExternal || request instanceof FightRequest)
+        && FightRequest.registerRequest(isExternal, urlString)) {
+      return false;
+    }
+
+    // Some adventures do not post any form fields,
+    // so handle them first.
+
+    // We want to register simple visits to the Altar of Literacy
+    if ((isExternal || request instanceof AltarOfLiteracyRequest)
+        && AltarOfLiteracyRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // We want to register simple visits to the Bounty Hunter Hunter
+    if ((isExternal || request instanceof BountyHunterHunterRequest)
+        && BountyHunterHunterRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // We want to register visits to the You're the Fudge Wizard Now, Dog choice adventure before
+    // ChoiceManager.
+    if ((isExternal || request instanceof FudgeWandRequest)
+        && FudgeWandRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // We want to register visits to the Visiting your Skeleton of Crimbo Past choice adventure
+    // before ChoiceManager.
+    if ((isExternal || request instanceof SkeletonOfCrimboPastRequest)
+        && SkeletonOfCrimboPastRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // We want to register visits to the Summoning Chamber choice adventure before ChoiceManager.
+    if ((isExternal || request instanceof SummoningChamberRequest)
+        && SummoningChamberRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // We want to register simple visits to HeyDeze
+    if ((isExternal || request instanceof HeyDezeRequest)
+        && HeyDezeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // We want to register simple visits to Mr. Store
+    if ((isExternal || request instanceof MrStoreRequest)
+        && MrStoreRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // We want to register simple visits to Spaaace
+    if ((isExternal || request instanceof SpaaaceRequest)
+        && SpaaaceRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // We want to register simple visits to the Volcano Maze
+    if ((isExternal || request instanceof VolcanoMazeRequest)
+        && VolcanoMazeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if (urlString.startsWith("choice.php")) {
+      // Burning Leaves creation is an instance of choice.php
+      if ((isExternal || request instanceof BurningLeavesRequest)
+          && BurningLeavesRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // Burning Newspaper creation is an instance of choice.php
+      if ((isExternal || request instanceof BurningNewspaperRequest)
+          && BurningNewspaperRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // The Cargo Cultist Shorts is an instance of choice.php
+      if ((isExternal || request instanceof CargoCultistShortsRequest)
+          && CargoCultistShortsRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // The Clan Lounge Swimming Pool is an instance of choice.php
+      if ((isExternal || request instanceof ClanLoungeSwimmingPoolRequest)
+          && ClanLoungeSwimmingPoolRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // The Deck of Every Card is an instance of choice.php
+      if ((isExternal || request instanceof DeckOfEveryCardRequest)
+          && DeckOfEveryCardRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // The Florist is an instance of choice.php
+      if ((isExternal || request instanceof FloristRequest)
+          && FloristRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // grubby wool creation is an instance of choice.php
+      if ((isExternal || request instanceof GrubbyWoolRequest)
+          && GrubbyWoolRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // The Hashing Vise is an instance of choice.php
+      if ((isExternal || request instanceof HashingViseRequest)
+          && HashingViseRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // metal meteoroid creation is an instance of choice.php
+      if ((isExternal || request instanceof MeteoroidRequest)
+          && MeteoroidRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // Numberology is an instance of choice.php
+      if ((isExternal || request instanceof NumberologyRequest)
+          && NumberologyRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // The Potted Tea Tree is an instance of choice.php
+      if ((isExternal || request instanceof PottedTeaTreeRequest)
+          && PottedTeaTreeRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // Sausage Grinder creation is an instance of choice.php
+      if ((isExternal || request instanceof SausageOMaticRequest)
+          && SausageOMaticRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // The Source Terminal is an instance of choice.php
+      if ((isExternal || request instanceof TerminalRequest)
+          && TerminalRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // Sweet Synthesis is an instance of choice.php
+      if ((isExternal || request instanceof SweetSynthesisRequest)
+          && SweetSynthesisRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // Wax Glob creation is an instance of choice.php
+      if ((isExternal || request instanceof WaxGlobRequest)
+          && WaxGlobRequest.registerRequest(urlString)) {
+        return false;
+      }
+
+      // All other choicees can be handled generically.
+      ChoiceManager.registerRequest(urlString);
+      return wasLastRequestSimple;
+    }
+
+    // We want to register a simple visit to tiles.php
+    if (DvorakManager.registerRequest(urlString)) {
+      return false;
+    }
+
+    // We want to register a simple visit to ocean.php
+    if (OceanManager.registerRequest(urlString)) {
+      return false;
+    }
+
+    // We want to register a simple visit to elvmachine.php
+    if (ElVibratoManager.registerRequest(urlString)) {
+      return false;
+    }
+
+    // Anything else that doesn't submit an actual form
+    // should not be registered.
+
+    if (!urlString.contains("?")) {
+      return wasLastRequestSimple;
+    }
+
+    // We want to register some visits to the Campground
+    if ((isExternal || request instanceof CampgroundRequest)
+        && CampgroundRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // This is a campground request and so must go here.
+    if ((isExternal || request instanceof PizzaCubeRequest)
+        && PizzaCubeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // This is a campground request and so must go here.
+    if ((isExternal || request instanceof PortalRequest)
+        && PortalRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // This is a campground request and so must go here.
+    if ((isExternal || request instanceof TelescopeRequest)
+        && TelescopeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // This might be a campground request and so must go here.
+    if ((isExternal || request instanceof UseSkillRequest)
+        && UseSkillRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // This might be on inventory.php
+
+    if ((isExternal || request instanceof EquipmentRequest)
+        && EquipmentRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if (urlString.startsWith("campground")
+        || urlString.startsWith("doc.php")
+        || urlString.startsWith("inventory.php?ajax")
+        || urlString.startsWith("inventory.php?which=")
+        || urlString.startsWith("inventory.php?action=message")
+        || urlString.startsWith("mining")) {
+      return wasLastRequestSimple;
+    }
+
+    // Check individual cafes
+    if ((isExternal || request instanceof MicroBreweryRequest)
+        && MicroBreweryRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof ChezSnooteeRequest)
+        && ChezSnooteeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof CrimboCafeRequest)
+        && CrimboCafeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // Check UseItemRequest early, so that lastItemUsed gets
+    // cleared when processing anything else.  Otherwise, any
+    // non-item-use that redirects to inventory.php?action=message
+    // (such as outfit changes) will cause the last item to be
+    // processed again.
+
+    // However, we have to check CreateItemRequest earlier, so that
+    // it can handle single-/multi-use concoctions.
+    if (CreateItemRequest.registerRequest(isExternal, urlString)) {
+      return false;
+    }
+
+    // Are we finally ready to call UseItemRequest?
+    if ((isExternal || request instanceof UseItemRequest)
+        && UseItemRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // The following is in place.php
+    if ((isExternal || request instanceof FalloutShelterRequest)
+        && FalloutShelterRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // Let the "placeholder" for place.php take every otherwise
+    // unclaimed call to that URL.
+
+    if (PlaceRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // The following lists all the remaining requests in
+    // alphabetical order.
+
+    if ((isExternal || request instanceof AfterLifeRequest)
+        && AfterLifeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof AltarOfBonesRequest)
+        && AltarOfBonesRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof ArcadeRequest)
+        && ArcadeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof ArtistRequest)
+        && ArtistRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof AutoMallRequest)
+        && AutoMallRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof AutoSellRequest)
+        && AutoSellRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof AWOLQuartermasterRequest)
+        && AWOLQuartermasterRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof BeerPongRequest)
+        && BeerPongRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof BigBrotherRequest)
+        && BigBrotherRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof BURTRequest) && BURTRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof CafeRequest) && CafeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof CakeArenaRequest)
+        && CakeArenaRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof CampAwayRequest)
+        && CampAwayRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof ChateauRequest)
+        && ChateauRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof ClanLoungeRequest)
+        && ClanLoungeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof ClanRumpusRequest)
+        && ClanRumpusRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof ClanStashRequest)
+        && ClanStashRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof ClosetRequest)
+        && ClosetRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof CRIMBCOGiftShopRequest)
+        && CRIMBCOGiftShopRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof Crimbo07Request)
+        && Crimbo07Request.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof Crimbo09Request)
+        && Crimbo09Request.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof Crimbo10Request)
+        && Crimbo10Request.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof Crimbo11Request)
+        && Crimbo11Request.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof Crimbo21TreeRequest)
+        && Crimbo21TreeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof CrimboCartelRequest)
+        && CrimboCartelRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof CurseRequest)
+        && CurseRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof DigRequest) && DigRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof DimemasterRequest)
+        && DimemasterRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof DisplayCaseRequest)
+        && DisplayCaseRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof DreadsylvaniaRequest)
+        && DreadsylvaniaRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof DwarfContraptionRequest)
+        && DwarfContraptionRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof DwarfFactoryRequest)
+        && DwarfFactoryRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof EdBaseRequest)
+        && EdBaseRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof FamiliarRequest)
+        && FamiliarRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof FamTeamRequest)
+        && FamTeamRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof FantasyRealmRequest)
+        && FantasyRealmRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof FleaMarketRequest)
+        && FleaMarketRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof FleaMarketSellRequest)
+        && FleaMarketSellRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof FreeSnackRequest)
+        && FreeSnackRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof FriarRequest)
+        && FriarRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof GameShoppeRequest)
+        && GameShoppeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof GourdRequest)
+        && GourdRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof GrandpaRequest)
+        && GrandpaRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof GuildRequest)
+        && GuildRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof HermitRequest)
+        && HermitRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof IslandRequest)
+        && IslandRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof KnollRequest)
+        && KnollRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof LeafletRequest)
+        && LeafletRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof MallSearchRequest)
+        && MallSearchRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof ManageStoreRequest)
+        && ManageStoreRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof MindControlRequest)
+        && MindControlRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof MomRequest) && MomRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof MonsterManuelRequest)
+        && MonsterManuelRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof MushroomRequest)
+        && MushroomRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof NemesisRequest)
+        && NemesisRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof PandamoniumRequest)
+        && PandamoniumRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof PeeVPeeRequest)
+        && PeeVPeeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof ProfileRequest)
+        && ProfileRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof PulverizeRequest)
+        && PulverizeRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof QuartersmasterRequest)
+        && QuartersmasterRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof RaffleRequest)
+        && RaffleRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof GnomePartRequest)
+        && GnomePartRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof RichardRequest)
+        && RichardRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof ScrapheapRequest)
+        && ScrapheapRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof SeaMerkinRequest)
+        && SeaMerkinRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof SendGiftRequest)
+        && SendGiftRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof SendMailRequest)
+        && SendMailRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof ShrineRequest)
+        && ShrineRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof SkateParkRequest)
+        && SkateParkRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof StandardRequest)
+        && StandardRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof StorageRequest)
+        && StorageRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof SuburbanDisRequest)
+        && SuburbanDisRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof SwaggerShopRequest)
+        && SwaggerShopRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof TavernRequest)
+        && TavernRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof TravelingTraderRequest)
+        && TravelingTraderRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof TrophyHutRequest)
+        && TrophyHutRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof TutorialRequest)
+        && TutorialRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof UneffectRequest)
+        && UneffectRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof UntinkerRequest)
+        && UntinkerRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof VolcanoIslandRequest)
+        && VolcanoIslandRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof WildfireCampRequest)
+        && WildfireCampRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    if ((isExternal || request instanceof ZapRequest) && ZapRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // Do PurchaseRequest after all Coinmaster shops so they can
+    // register simple visits, if they so choose.
+
+    if ((isExternal || request instanceof PurchaseRequest)
+        && PurchaseRequest.registerRequest(urlString)) {
+      return false;
+    }
+
+    // Let PlaceRequest step in and suppress logging for any
+    // unclaimed simple visits to a place.php container
+
+    if (PlaceRequest.unclaimedPlace(urlString)) {
+      return false;
+    }
+
+    // Otherwise, print the raw URL so that it's at least mentioned
+    // in the session log.
+
+    if (!wasLastRequestSimple) {
+      RequestLogger.updateSessionLog();
+    }
+
+    RequestLogger.updateSessionLog(urlString);
+    return true;
+  }
+}
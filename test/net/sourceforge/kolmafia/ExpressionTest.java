@@ -12,6 +12,7 @@ import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import internal.helpers.Cleanups;
+import net.sourceforge.kolmafia.listener.PreferenceListenerRegistry;
 import net.sourceforge.kolmafia.objectpool.ItemPool;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import org.junit.jupiter.api.BeforeEach;
@@ -202,4 +203,103 @@ public class ExpressionTest {
       }
     }
   }
+
+  @Nested
+  class CompiledEvaluation {
+    @ParameterizedTest
+    @ValueSource(
+        strings = {
+          "10-4-3",
+          "2^3^2",
+          "100/5/4",
+          "17%5*2",
+          "min(3,-2)",
+          "max(3,-2)",
+          "lt(2,3)+gt(2,3)*10+lte(3,3)*100+gte(2,3)*1000",
+          "eq(2,2)-neq(2,2)",
+          "-(4-9)",
+          "floor(-1.5)+ceil(-1.5)+abs(-1.5)",
+          "3.25*2",
+          "40000-1",
+          "1/0",
+          "sqrt(-1)",
+          "999^999",
+          "advsleft*2",
+          "pref(test)+pref(test,4)",
+        })
+    public void compiledEvaluationMatchesInterpreter(String input) {
+      var cleanups = new Cleanups(withProperty("test", "42"), withAdventuresLeft(11));
+
+      try (cleanups) {
+        var exp = new Expression(input, input);
+        double compiled = exp.eval();
+        boolean previous = Expression.setCompiledEvaluation(false);
+        try {
+          assertEquals(exp.eval(), compiled);
+        } finally {
+          Expression.setCompiledEvaluation(previous);
+        }
+      }
+    }
+
+    @Test
+    public void compiledEvaluationSeesStateChanges() {
+      var exp = new Expression("pref(test)*2", "pref(test)*2");
+
+      try (var cleanups = withProperty("test", "3")) {
+        assertThat(exp.eval(), is(6.0));
+      }
+      try (var cleanups = withProperty("test", "5")) {
+        assertThat(exp.eval(), is(10.0));
+      }
+    }
+  }
+
+  @Nested
+  class Memoization {
+    @Test
+    public void rememberedValueChangesWithPreference() {
+      var exp = new Expression("pref(test)+pref(other,abc)", "two prefs");
+      var cleanups = new Cleanups(withProperty("test", "3"), withProperty("other", "xyz"));
+
+      try (cleanups) {
+        assertThat(exp.eval(), is(3.0));
+        assertThat(exp.eval(), is(3.0));
+        Preferences.setString("other", "abc");
+        assertThat(exp.eval(), is(4.0));
+        Preferences.setInteger("test", 7);
+        assertThat(exp.eval(), is(8.0));
+      }
+    }
+
+    @Test
+    public void rememberedValueIsNotUsedWhileListenersAreDeferred() {
+      var exp = new Expression("pref(test)", "pref(test)");
+
+      try (var cleanups = withProperty("test", "3")) {
+        assertThat(exp.eval(), is(3.0));
+        PreferenceListenerRegistry.deferPreferenceListeners(true);
+        try {
+          Preferences.setInteger("test", 5);
+          assertThat(exp.eval(), is(5.0));
+        } finally {
+          PreferenceListenerRegistry.deferPreferenceListeners(false);
+        }
+        assertThat(exp.eval(), is(5.0));
+      }
+    }
+
+    @Test
+    public void overridesBypassRememberedValue() {
+      var exp = new Expression("pref(test)", "pref(test)");
+
+      try (var cleanups = withProperty("test", "3")) {
+        assertThat(exp.eval(), is(3.0));
+        var overrides = new ExpressionOverrides();
+        overrides.setPref("test", "9");
+        assertThat(exp.eval(overrides), is(9.0));
+        assertThat(exp.eval(), is(3.0));
+      }
+    }
+  }
 }
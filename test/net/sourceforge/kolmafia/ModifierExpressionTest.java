@@ -26,9 +26,12 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import internal.helpers.Cleanups;
 import java.time.Month;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import net.sourceforge.kolmafia.KoLCharacter.Gender;
 import net.sourceforge.kolmafia.equipment.Slot;
 import net.sourceforge.kolmafia.modifiers.DoubleModifier;
+import net.sourceforge.kolmafia.modifiers.Lookup;
 import net.sourceforge.kolmafia.modifiers.StringModifier;
 import net.sourceforge.kolmafia.objectpool.FamiliarPool;
 import net.sourceforge.kolmafia.objectpool.ItemPool;
@@ -651,4 +654,42 @@ public class ModifierExpressionTest {
       }
     }
   }
+
+  @Nested
+  class CompiledEvaluation {
+    private static final Pattern EXPRESSION = Pattern.compile("\\[([^]]+)]");
+
+    @Test
+    public void compiledEvaluationMatchesInterpreterForAllModifiers() {
+      var cleanups =
+          new Cleanups(
+              withLevel(11),
+              withClass(AscensionClass.SAUCEROR),
+              withFamiliar(FamiliarPool.MOSQUITO),
+              withEffect("Starry-Eyed"),
+              withLocation("The Haunted Kitchen"));
+
+      try (cleanups) {
+        int compared = 0;
+        for (Lookup lookup : ModifierDatabase.getAllModifiers()) {
+          String modifiers = ModifierDatabase.getModifierString(lookup);
+          if (modifiers == null) continue;
+          Matcher m = EXPRESSION.matcher(modifiers);
+          while (m.find()) {
+            var exp = new ModifierExpression(m.group(1), lookup);
+            if (exp.hasErrors()) continue;
+            double compiled = exp.eval();
+            boolean previous = Expression.setCompiledEvaluation(false);
+            try {
+              assertEquals(exp.eval(), compiled, lookup + ": " + m.group(1));
+            } finally {
+              Expression.setCompiledEvaluation(previous);
+            }
+            compared++;
+          }
+        }
+        assertTrue(compared > 100);
+      }
+    }
+  }
 }
@@ -1993,4 +1993,40 @@ public class ModifiersTest {
       }
     }
   }
+
+  @Nested
+  class SpeculationContext {
+    @AfterEach
+    public void afterEach() {
+      Modifiers.exitSpeculationContext();
+      Modifiers.setHoboPower(0.0);
+    }
+
+    @Test
+    public void speculationContextKeepsStaticsPrivate() {
+      Modifiers.setHoboPower(5.0);
+      Modifiers.enterSpeculationContext();
+      assertThat(Modifiers.getHoboPower(), equalTo(5.0));
+
+      Modifiers.setHoboPower(25.0);
+      assertThat(Modifiers.getHoboPower(), equalTo(25.0));
+      assertThat(Modifiers.hoboPower, equalTo(5.0));
+
+      Modifiers.exitSpeculationContext();
+      assertThat(Modifiers.getHoboPower(), equalTo(5.0));
+    }
+
+    @Test
+    public void speculationContextRecalculatesPrivateCopy() {
+      var cleanups = withThrall(SkillPool.BIND_VAMPIEROGHI, 10);
+
+      try (cleanups) {
+        Modifiers shared = ModifierDatabase.getModifiers(ModifierType.THRALL, "Vampieroghi");
+        Modifiers.enterSpeculationContext();
+        Modifiers speculative = ModifierDatabase.getModifiers(ModifierType.THRALL, "Vampieroghi");
+        assertThat(speculative, not(sameInstance(shared)));
+        assertThat(speculative.getDouble(DoubleModifier.HP), equalTo(60.0));
+      }
+    }
+  }
 }
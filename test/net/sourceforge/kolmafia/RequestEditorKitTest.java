@@ -4,6 +4,7 @@ import static internal.helpers.Networking.html;
 import static internal.helpers.Player.withChoice;
 import static internal.helpers.Player.withClass;
 import static internal.helpers.Player.withEquipped;
+import static internal.helpers.Player.withHttpClientBuilder;
 import static internal.helpers.Player.withItem;
 import static internal.helpers.Player.withNextMonster;
 import static internal.helpers.Player.withPasswordHash;
@@ -11,10 +12,19 @@ import static internal.helpers.Player.withProperty;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.*;
 
 import internal.helpers.Cleanups;
+import internal.network.FakeHttpClientBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -541,6 +551,96 @@ public class RequestEditorKitTest {
         assertThat(contents, containsString(expected));
       }
     }
+
+    @Test
+    void decoratesGlobalAnchors() {
+      var cleanups =
+          new Cleanups(
+              withItem(ItemPool.ABSINTHE),
+              withItem(ItemPool.TRANSPORTER_TRANSPONDER),
+              withPasswordHash("GLOBAL"));
+      try (cleanups) {
+        var buffer =
+            new StringBuffer(
+                "<html><head></head><body>For some reason, you can't find your way back there."
+                    + " You can't get here without the proper transporter frequency."
+                    + " You have an El Vibrato punchcard (115 holes) and an"
+                    + " El Vibrato punchcard (88 holes).<a onclick=\"pop_ircm_contents()\">"
+                    + "</body></html>");
+        RequestEditorKit.getFeatureRichHTML("place.php?whichplace=plains", buffer, true);
+        var contents = buffer.toString();
+        assertThat(
+            contents,
+            containsString(
+                "<script language=\"Javascript\" src=\"/"
+                    + KoLConstants.BASICS_JS
+                    + "\"></script><link rel=\"stylesheet\" href=\"/"
+                    + KoLConstants.BASICS_CSS
+                    + "\" /></head>"));
+        assertThat(
+            contents,
+            containsString("you can't find your way back there.<font size=1>[<a href="));
+        assertThat(contents, containsString("use absinthe"));
+        assertThat(contents, containsString("transporter frequency.<font size=1>[<a href="));
+        assertThat(contents, containsString("use transponder"));
+        assertThat(
+            contents,
+            containsString("<script src=\"/" + KoLConstants.IRCM_JS + "\"></script></html>"));
+        assertThat(contents, containsString("El Vibrato punchcard (ATTACK)"));
+        assertThat(contents, containsString("El Vibrato punchcard (FLOOR)"));
+        assertThat(contents, not(containsString("holes")));
+      }
+    }
+
+    private List<Path> recordedPages() throws IOException {
+      try (var files = Files.list(Path.of("request"))) {
+        return files.filter(f -> f.toString().endsWith(".html")).sorted().toList();
+      }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void decoratesRecordedPagesLikeTheBaseline(final boolean addComplexFeatures)
+        throws IOException {
+      var cleanups =
+          new Cleanups(
+              withHttpClientBuilder(new FakeHttpClientBuilder()),
+              withProperty("defaultBorderColor", "red"),
+              withProperty("relayShowSpoilers", true),
+              withItem(ItemPool.ABSINTHE),
+              withItem(ItemPool.TRANSPORTER_TRANSPONDER),
+              withItem(ItemPool.WARBEAR_BATTERY),
+              withItem(ItemPool.DEVILISH_FOLIO),
+              withPasswordHash("GLOBAL"));
+      for (int i = 819; i <= 827; ++i) {
+        cleanups.add(withProperty("lastBangPotion" + i, "healing"));
+      }
+      for (int i = ItemPool.VIAL_OF_RED_SLIME; i <= ItemPool.VIAL_OF_PURPLE_SLIME; ++i) {
+        cleanups.add(withProperty("lastSlimeVial" + i, "strong"));
+      }
+
+      try (cleanups) {
+        List<String> differences = new ArrayList<>();
+        var pages = recordedPages();
+        for (Path page : pages) {
+          String name = page.getFileName().toString();
+          String location = name.contains("charpane") ? "charpane.php" : "town.php";
+          String html = html(page.toString());
+
+          var expected = new StringBuffer(html);
+          BaselineGlobalAdjustments.getFeatureRichHTML(location, expected, addComplexFeatures);
+          var actual = new StringBuffer(html);
+          RequestEditorKit.getFeatureRichHTML(location, actual, addComplexFeatures);
+
+          if (!actual.toString().equals(expected.toString())) {
+            differences.add(name);
+          }
+        }
+
+        assertThat(pages, hasSize(greaterThan(1000)));
+        assertThat(differences, empty());
+      }
+    }
   }
 
   @Nested
@@ -1,21 +1,39 @@
 package net.sourceforge.kolmafia;
 
+import static internal.helpers.Networking.html;
 import static internal.helpers.Player.withItemMonster;
 import static internal.helpers.Player.withLastLocation;
 import static internal.helpers.Player.withMultiFight;
 import static internal.helpers.Player.withProperty;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import internal.helpers.Cleanups;
+import internal.helpers.SessionLoggerOutput;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import net.sourceforge.kolmafia.persistence.AdventureDatabase;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import net.sourceforge.kolmafia.request.AdventureRequest.ShadowRift;
 import net.sourceforge.kolmafia.request.GenericRequest;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
@@ -143,4 +161,111 @@ class RequestLoggerTest {
       }
     }
   }
+
+  @Nested
+  class Dispatch {
+    // Neither chain claims it, so it logs a blank line first unless the request before was simple
+    private static final String PROBE = "somethingunknown.php?probe=1";
+
+    private static final Pattern PAGE_URL = Pattern.compile("/?([a-z_0-9]+\\.php(?:\\?[^#]*)?)");
+
+    private static void addUrl(final Set<String> urls, final String link) {
+      Matcher matcher = PAGE_URL.matcher(link);
+      if (matcher.matches()) {
+        urls.add(matcher.group(1));
+      }
+    }
+
+    // The links and form submissions of every recorded page
+    private static Set<String> recordedUrls() throws IOException {
+      Set<String> urls = new TreeSet<>();
+      try (var files = Files.list(Path.of("request"))) {
+        for (Path file : files.filter(f -> f.toString().endsWith(".html")).sorted().toList()) {
+          Document page = Jsoup.parse(html(file.toString()));
+          for (Element link : page.select("a[href]")) {
+            addUrl(urls, link.attr("href"));
+          }
+          for (Element form : page.select("form[action]")) {
+            List<String> fields = new ArrayList<>();
+            var inputs = form.select("input[type=hidden][name], input[type=submit][name]");
+            for (Element input : inputs) {
+              fields.add(
+                  input.attr("name")
+                      + "="
+                      + URLEncoder.encode(input.attr("value"), StandardCharsets.UTF_8));
+            }
+            String action = form.attr("action");
+            addUrl(
+                urls,
+                fields.isEmpty()
+                    ? action
+                    : action + (action.contains("?") ? "&" : "?") + String.join("&", fields));
+          }
+        }
+      }
+      return urls;
+    }
+
+    private String register(final Runnable registration) {
+      Preferences.reset("RequestLogger");
+
+      // Start from a request which was claimed, so that both chains agree
+      // on whether the previous request was a simple one.
+      RequestLogger.registerRequest(new GenericRequest("bounty.php"), "bounty.php");
+
+      SessionLoggerOutput.startStream();
+      var output = withCapturedLogs(registration);
+      return output + "\n" + SessionLoggerOutput.stopStream().trim();
+    }
+
+    private String register(final String url) {
+      var request = new GenericRequest(url);
+      return register(() -> RequestLogger.registerRequest(request, url));
+    }
+
+    // Registers the URL and then the probe, which shows whether the URL left the last request
+    // marked as simple.
+    private String registerWithProbe(final String url, final boolean baseline) {
+      var request = new GenericRequest(url);
+      var probe = new GenericRequest(PROBE);
+      return register(
+          () -> {
+            if (baseline) {
+              boolean simple = BaselineRequestRegistration.register(request, url, false);
+              BaselineRequestRegistration.register(probe, PROBE, simple);
+            } else {
+              RequestLogger.registerRequest(request, url);
+              RequestLogger.registerRequest(probe, PROBE);
+            }
+          });
+    }
+
+    @Test
+    public void recordedUrlsLogTheSameAsTheBaselineChain() throws IOException {
+      Set<String> urls = recordedUrls();
+      assertThat(urls.size(), greaterThan(1000));
+
+      List<String> differences = new ArrayList<>();
+      for (String url : urls) {
+        String expected = registerWithProbe(url, true);
+        String actual = registerWithProbe(url, false);
+        if (!expected.equals(actual)) {
+          differences.add(url + "\nbaseline:\n" + expected + "\nindexed:\n" + actual);
+        }
+      }
+
+      assertThat(differences, empty());
+    }
+
+    @Test
+    public void unclaimedRequestsLogTheirUrl() {
+      assertThat(
+          register("somethingunknown.php?foo=bar").trim(), equalTo("somethingunknown.php?foo=bar"));
+    }
+
+    @Test
+    public void claimedRequestsLogTheirOwnMessage() {
+      assertThat(register("storage.php?action=pullall").trim(), equalTo("Emptying storage"));
+    }
+  }
 }
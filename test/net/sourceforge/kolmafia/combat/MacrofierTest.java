@@ -1,8 +1,18 @@
 package net.sourceforge.kolmafia.combat;
 
+import static internal.helpers.Player.withProperty;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 
+import internal.helpers.Cleanups;
+import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.request.FightRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 public class MacrofierTest {
@@ -10,10 +20,90 @@ public class MacrofierTest {
   public void stackingMacrosKeepsOriginalOverride() {
     // example: an adv1 call
     Macrofier.setMacroOverride("abort;", null);
-    // example: a pre-adventure script
-    Macrofier.setMacroOverride(null, null);
-    // reset from the pre-adventure script
-    Macrofier.resetMacroOverride();
-    assertThat(Macrofier.macrofy(), equalTo("abort;"));
+    try {
+      // example: a pre-adventure script
+      Macrofier.setMacroOverride(null, null);
+      // reset from the pre-adventure script
+      Macrofier.resetMacroOverride();
+      assertThat(Macrofier.macrofy(), equalTo("abort;"));
+    } finally {
+      Macrofier.resetMacroOverride();
+    }
+  }
+
+  @Nested
+  class Cache {
+    @BeforeEach
+    void beforeEach() {
+      KoLCharacter.reset("MacrofierTest");
+      FightRequest.setMacroPrefixLength(0);
+      MacroCache.clear();
+      MacroCache.resetStatistics();
+    }
+
+    @AfterEach
+    void afterEach() {
+      CombatActionManager.loadStrategyLookup("default");
+    }
+
+    @Test
+    void reusesMacroForSameSection() {
+      try (var cleanups = withProperty("battleAction", "custom combat script")) {
+        CombatActionManager.setDefaultAction("attack with weapon");
+
+        String first = Macrofier.macrofy();
+        String second = Macrofier.macrofy();
+
+        assertThat(first, containsString("attack"));
+        assertThat(second, equalTo(first));
+        assertThat(MacroCache.getMisses(), is(1L));
+        assertThat(MacroCache.getHits(), is(1L));
+      }
+    }
+
+    @Test
+    void forgetsMacrosWhenScriptChanges() {
+      try (var cleanups = withProperty("battleAction", "custom combat script")) {
+        CombatActionManager.setDefaultAction("attack with weapon");
+        Macrofier.macrofy();
+
+        CombatActionManager.setDefaultAction("runaway");
+        String macro = Macrofier.macrofy();
+
+        assertThat(macro, containsString("runaway"));
+        assertThat(macro, not(containsString("attack")));
+        assertThat(MacroCache.getMisses(), is(2L));
+        assertThat(MacroCache.getHits(), is(0L));
+      }
+    }
+
+    @Test
+    void doesNotRememberMacrosWhichDependOnTheFight() {
+      try (var cleanups = withProperty("battleAction", "custom combat script")) {
+        CombatActionManager.setDefaultAction("try to steal an item; attack with weapon");
+
+        Macrofier.macrofy();
+        Macrofier.macrofy();
+
+        assertThat(MacroCache.getUncacheable(), is(2L));
+        assertThat(MacroCache.getHits(), is(0L));
+        assertThat(MacroCache.size(), is(0));
+      }
+    }
+
+    @Test
+    void buildsMacrosForDebuggingEachTime() {
+      try (var cleanups =
+          new Cleanups(
+              withProperty("battleAction", "custom combat script"),
+              withProperty("macroDebug", true))) {
+        CombatActionManager.setDefaultAction("attack with weapon");
+
+        Macrofier.macrofy();
+        Macrofier.macrofy();
+
+        assertThat(MacroCache.getHits() + MacroCache.getMisses(), is(0L));
+      }
+    }
   }
 }
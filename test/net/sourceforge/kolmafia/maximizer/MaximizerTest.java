@@ -40,7 +40,9 @@ import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasToString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -3344,4 +3346,123 @@ public class MaximizerTest {
       }
     }
   }
+
+  @Nested
+  class ParallelSearch {
+    @Test
+    public void parallelSearchPicksBestFamiliar() {
+      var cleanups =
+          new Cleanups(
+              withProperty("maximizerParallelSearch", true),
+              withFamiliarInTerrarium(FamiliarPool.TRICK_TOT),
+              withFamiliarInTerrarium(FamiliarPool.HAND),
+              withFamiliarInTerrarium(FamiliarPool.MOSQUITO),
+              withItem(ItemPool.TRICK_TOT_UNICORN), // 5 adv with tot
+              withItem(ItemPool.TRICK_TOT_CANDY), // 0 adv
+              withItem(ItemPool.TIME_SWORD), // 3 adv with hand
+              withItem(ItemPool.SOLID_SHIFTING_TIME_WEIRDNESS) // 4 adv with any familiar
+              );
+
+      try (cleanups) {
+        assertTrue(
+            maximize(
+                "adv -weapon -offhand -tie +switch tot +switch disembodied hand +switch mosquito"));
+        assertThat(getBoosts(), hasItem(recommendsSlot(Slot.FAMILIAR, "li'l unicorn costume")));
+        assertThat(
+            getBoosts(), hasItem(hasProperty("cmd", startsWith("familiar Trick-or-Treating Tot"))));
+      }
+    }
+
+    @Test
+    public void parallelSearchMatchesSequentialSearch() {
+      var cleanups =
+          new Cleanups(
+              withFamiliar(FamiliarPool.MOSQUITO),
+              withFamiliarInTerrarium(FamiliarPool.BADGER),
+              withFamiliarInTerrarium(FamiliarPool.PURSE_RAT, 400),
+              withEquippableItem("helmet turtle"),
+              withEquippableItem("hardened slime hat"),
+              withEquippableItem("bounty-hunting helmet"),
+              withItem(ItemPool.LIARS_PANTS));
+
+      try (cleanups) {
+        String expression = "ml, 0.1 item drop +switch badger +switch purse rat";
+        assertTrue(maximize(expression));
+        var sequential = getBoosts().toString();
+
+        try (var parallel = withProperty("maximizerParallelSearch", true)) {
+          assertTrue(maximize(expression));
+        }
+        assertThat(getBoosts().toString(), equalTo(sequential));
+      }
+    }
+
+    @Test
+    public void limitedParallelSearchMatchesSequentialSearch() {
+      var cleanups =
+          new Cleanups(
+              withProperty("maximizerCombinationLimit", 3),
+              withFamiliar(FamiliarPool.MOSQUITO),
+              withFamiliarInTerrarium(FamiliarPool.BADGER),
+              withFamiliarInTerrarium(FamiliarPool.PURSE_RAT, 400),
+              withEquippableItem("helmet turtle"),
+              withEquippableItem("hardened slime hat"),
+              withEquippableItem("bounty-hunting helmet"),
+              withItem(ItemPool.LIARS_PANTS));
+
+      try (cleanups) {
+        String expression = "ml, 0.1 item drop +switch badger +switch purse rat";
+        maximize(expression);
+        var sequential = getBoosts().toString();
+
+        for (int i = 0; i < 5; ++i) {
+          try (var parallel = withProperty("maximizerParallelSearch", true)) {
+            maximize(expression);
+          }
+          assertThat(getBoosts().toString(), equalTo(sequential));
+        }
+      }
+    }
+  }
+
+  @Nested
+  class BranchAndBound {
+    private Cleanups withItems() {
+      return new Cleanups(
+          withEquippableItem("helmet turtle"),
+          withEquippableItem("hardened slime hat"),
+          withEquippableItem("wreath of laurels"),
+          withEquippableItem("seal-skull helmet"),
+          withEquippableItem("shiny ring"),
+          withEquippableItem("cyborg doll"),
+          withEquippableItem("blue glowstick"),
+          withEquippableItem("gold wedding ring"));
+    }
+
+    @Test
+    public void branchAndBoundFindsSameCombinationWithFewerChecks() {
+      try (var cleanups = withItems()) {
+        String expression = "mus -tie";
+        assertTrue(maximize(expression));
+        var exhaustive = getBoosts().toString();
+        int exhaustiveChecked = Maximizer.bestChecked;
+
+        try (var pruned = withProperty("maximizerBranchAndBound", true)) {
+          assertTrue(maximize(expression));
+        }
+        assertThat(getBoosts().toString(), equalTo(exhaustive));
+        assertThat(Maximizer.bestChecked, lessThan(exhaustiveChecked));
+      }
+    }
+
+    @Test
+    public void branchAndBoundIsNotUsedForCappedScores() {
+      var cleanups = new Cleanups(withItems(), withProperty("maximizerBranchAndBound", true));
+      try (cleanups) {
+        String expression = "mus 20 max -tie";
+        assertTrue(maximize(expression));
+        assertThat(Maximizer.eval.bound, nullValue());
+      }
+    }
+  }
 }
@@ -4,16 +4,21 @@ import static internal.helpers.HttpClientWrapper.getRequests;
 import static internal.helpers.HttpClientWrapper.setupFakeClient;
 import static internal.helpers.Player.withEffect;
 import static internal.helpers.Player.withItem;
+import static internal.helpers.Player.withMeat;
+import static internal.helpers.Player.withProperty;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
 import internal.helpers.Cleanups;
 import net.sourceforge.kolmafia.KoLCharacter;
+import net.sourceforge.kolmafia.objectpool.Concoction;
+import net.sourceforge.kolmafia.objectpool.ConcoctionPool;
 import net.sourceforge.kolmafia.objectpool.EffectPool;
 import net.sourceforge.kolmafia.objectpool.ItemPool;
 import net.sourceforge.kolmafia.preferences.Preferences;
 import net.sourceforge.kolmafia.session.ResultProcessor;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 public class ConcoctionDatabaseTest {
@@ -51,4 +56,60 @@ public class ConcoctionDatabaseTest {
       assertEquals(4, ConcoctionDatabase.getFreeCraftingTurns());
     }
   }
+
+  @Nested
+  class IncrementalRefresh {
+    private static Concoction concoction(final String name) {
+      return ConcoctionPool.get(ItemDatabase.getItemId(name));
+    }
+
+    @Test
+    public void itemChangeRecalculatesConcoctionsThatUseIt() {
+      var cleanups =
+          new Cleanups(
+              withProperty("incrementalConcoctionRefresh", true),
+              withItem(ItemPool.MEAT_PASTE, 10),
+              withItem(ItemPool.SPIDER_WEB, 2));
+
+      try (cleanups) {
+        ConcoctionDatabase.refreshConcoctionsNow();
+        assertEquals(1, concoction("really sticky spider web").creatable);
+        assertEquals(0, concoction("really really sticky spider web").creatable);
+
+        try (var moreWebs = withItem(ItemPool.SPIDER_WEB, 2)) {
+          ConcoctionDatabase.setRefreshNeeded(ItemPool.SPIDER_WEB);
+          ConcoctionDatabase.refreshConcoctions(false);
+          assertEquals(2, concoction("really sticky spider web").creatable);
+          assertEquals(1, concoction("really really sticky spider web").creatable);
+
+          // A full refresh agrees
+          ConcoctionDatabase.refreshConcoctionsNow();
+          assertEquals(2, concoction("really sticky spider web").creatable);
+          assertEquals(1, concoction("really really sticky spider web").creatable);
+        }
+      }
+    }
+
+    @Test
+    public void meatChangeFallsBackToFullRefresh() {
+      var cleanups =
+          new Cleanups(
+              withProperty("incrementalConcoctionRefresh", true),
+              withMeat(0),
+              withItem(ItemPool.SPIDER_WEB, 2));
+
+      try (cleanups) {
+        ConcoctionDatabase.refreshConcoctionsNow();
+        assertEquals(0, concoction("really sticky spider web").creatable);
+
+        // Meat for the meat paste arrives along with more webs
+        try (var meat = withMeat(100);
+            var moreWebs = withItem(ItemPool.SPIDER_WEB, 2)) {
+          ConcoctionDatabase.setRefreshNeeded(ItemPool.SPIDER_WEB);
+          ConcoctionDatabase.refreshConcoctions(false);
+          assertEquals(2, concoction("really sticky spider web").creatable);
+        }
+      }
+    }
+  }
 }
@@ -4,16 +4,20 @@ import static com.spotify.hamcrest.optional.OptionalMatchers.optionalWithValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.arrayWithSize;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.matchesPattern;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.startsWith;
 
 import internal.helpers.Utilities;
 import internal.network.FakeHttpClientBuilder;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import net.sourceforge.kolmafia.utilities.HttpUtilities;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -77,4 +81,31 @@ public class MallPriceDatabaseTest {
     assertThat(lines[2], matchesPattern("^600\t\\d+\t5$"));
     assertThat(lines[3], matchesPattern("^607\t\\d+\t50$"));
   }
+
+  @Test
+  void appendsRecordedPricesToPriceFile() throws IOException {
+    MallPriceDatabase.savePricesToFile = true;
+    try {
+      // Use the same items as the other tests, which see every recorded price
+      MallPriceDatabase.recordPrice(555, 10, true);
+      MallPriceDatabase.recordPrice(600, 20, true);
+      MallPriceDatabase.writePrices();
+
+      MallPriceDatabase.recordPrice(600, 25, false);
+
+      // The earlier price is still in the file, superseded by the appended one
+      var lines = Files.readAllLines(MallPriceDatabase.PRICE_FILE.toPath());
+      assertThat(lines, hasItem(matchesPattern("^600\t\\d+\t20$")));
+      assertThat(lines.getLast(), matchesPattern("^600\t\\d+\t25$"));
+
+      // Reading the file back keeps the latest price, and writes the file out again
+      MallPriceDatabase.updatePrices("mallprices.txt");
+      assertThat(MallPriceDatabase.getPrice(600), is(25L));
+      lines = Files.readAllLines(MallPriceDatabase.PRICE_FILE.toPath());
+      assertThat(lines, not(hasItem(matchesPattern("^600\t\\d+\t20$"))));
+    } finally {
+      MallPriceDatabase.savePricesToFile = false;
+      Utilities.verboseDelete("data/mallprices.txt");
+    }
+  }
 }
@@ -923,6 +923,93 @@ class PreferencesTest {
     }
   }
 
+  @Nested
+  class Journal {
+    // Lowercase because of filenames
+    private final String USER_NAME = "PreferencesTestJournalUser".toLowerCase();
+    private final File userFile = new File("settings/" + USER_NAME + "_prefs.txt");
+    private final File backupFile = new File("settings/" + USER_NAME + "_prefs.bak");
+    private final File journalFile = new File("settings/" + USER_NAME + "_prefs.journal");
+
+    @BeforeEach
+    public void deleteUserPrefs() {
+      verboseDelete(userFile);
+      verboseDelete(backupFile);
+      verboseDelete(journalFile);
+    }
+
+    @AfterEach
+    public void resetCharAndPreferences() {
+      deleteSerFiles(USER_NAME);
+      KoLCharacter.reset("");
+      verboseDelete(journalFile);
+    }
+
+    private Cleanups withJournal() {
+      return new Cleanups(
+          withSavePreferencesToFile(),
+          withProperty("saveSettingsOnSet", true),
+          withProperty("saveSettingsToJournal", true));
+    }
+
+    @Test
+    public void journalIsReplayedOnLogin() throws IOException {
+      try (var cleanups = withJournal()) {
+        Preferences.reset(USER_NAME);
+        Preferences.setString("journalledPreference", "old");
+        Preferences.setString("removedPreference", "present");
+        Preferences.reset("");
+
+        Files.writeString(
+            journalFile.toPath(),
+            "journalledPreference=new\n#removed removedPreference\n",
+            StandardCharsets.UTF_8);
+        Preferences.reset(USER_NAME);
+
+        assertEquals("new", Preferences.getString("journalledPreference"));
+        assertFalse(Preferences.propertyExists("removedPreference", false));
+        // The journal was folded back into the preferences file
+        assertFalse(journalFile.exists());
+        assertThat(
+            Files.readString(userFile.toPath(), StandardCharsets.UTF_8),
+            containsString("journalledPreference=new"));
+      }
+    }
+
+    @Test
+    public void tornJournalRecordsAreIgnored() throws IOException {
+      try (var cleanups = withJournal()) {
+        Preferences.reset(USER_NAME);
+        Preferences.setString("journalledPreference", "old");
+        Preferences.reset("");
+
+        byte[] prefix =
+            "journalledPreference=new\nskippedKey=skippedValue".getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[prefix.length + 64];
+        System.arraycopy(prefix, 0, bytes, 0, prefix.length);
+        Files.write(journalFile.toPath(), bytes);
+        Preferences.reset(USER_NAME);
+
+        assertEquals("new", Preferences.getString("journalledPreference"));
+        assertFalse(Preferences.propertyExists("skippedKey", false));
+      }
+    }
+
+    @Test
+    public void logoutWritesJournalledChanges() throws IOException {
+      try (var cleanups = withJournal()) {
+        Preferences.reset(USER_NAME);
+        Preferences.setString("journalledPreference", "value");
+        Preferences.reset("");
+
+        assertFalse(journalFile.exists());
+        assertThat(
+            Files.readString(userFile.toPath(), StandardCharsets.UTF_8),
+            containsString("journalledPreference=value"));
+      }
+    }
+  }
+
   @Nested
   class SetterFunctions {
     @Test
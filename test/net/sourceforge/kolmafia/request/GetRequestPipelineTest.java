@@ -0,0 +1,189 @@
+package net.sourceforge.kolmafia.request;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import net.sourceforge.kolmafia.request.GetRequestPipeline.Limits;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Runs the pipeline against a stub server on the loopback interface. */
+public class GetRequestPipelineTest {
+  private HttpServer server;
+  private ExecutorService executor;
+  private HttpClient client;
+
+  private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicInteger mostActive = new AtomicInteger();
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+    client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+  }
+
+  @AfterEach
+  void stopServer() {
+    client.close();
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath();
+    String query = exchange.getRequestURI().getQuery();
+    int hit = hits.computeIfAbsent(path + "?" + query, k -> new AtomicInteger()).incrementAndGet();
+    mostActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+    try {
+      switch (path) {
+        case "/slow.php" -> {
+          TimeUnit.MILLISECONDS.sleep(50);
+          respond(exchange, 200, "slow " + query);
+        }
+        case "/busy.php" -> {
+          if (hit == 1) {
+            respond(exchange, 503, "busy");
+          } else {
+            respond(exchange, 200, "ready");
+          }
+        }
+        case "/gzip.php" -> {
+          var bytes = new ByteArrayOutputStream();
+          try (var gzip = new GZIPOutputStream(bytes)) {
+            gzip.write("compressed".getBytes(StandardCharsets.UTF_8));
+          }
+          exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+          exchange.sendResponseHeaders(200, bytes.size());
+          exchange.getResponseBody().write(bytes.toByteArray());
+        }
+        case "/missing.php" -> respond(exchange, 404, "not found");
+        default -> respond(exchange, 200, "page " + query);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      active.decrementAndGet();
+      exchange.close();
+    }
+  }
+
+  private static void respond(final HttpExchange exchange, final int code, final String text)
+      throws IOException {
+    byte[] body = text.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(code, body.length);
+    exchange.getResponseBody().write(body);
+  }
+
+  private GetRequestPipeline pipeline(final int maxInFlight) {
+    URI root = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    return new GetRequestPipeline(
+        root,
+        HttpRequest::newBuilder,
+        request -> client.sendAsync(request, BodyHandlers.ofByteArray()),
+        new Limits(maxInFlight, 1000, 3, 10));
+  }
+
+  private int hits(final String path) {
+    var count = hits.get(path);
+    return count == null ? 0 : count.get();
+  }
+
+  @Test
+  void fetchesEachPathOnce() throws Exception {
+    try (var pipeline = pipeline(4)) {
+      Map<Integer, String> paths = new LinkedHashMap<>();
+      for (int i = 1; i <= 20; i++) {
+        paths.put(i, "desc_item.php?whichitem=" + (i % 10));
+      }
+
+      var pages = pipeline.fetchAll(paths);
+
+      assertThat(pages, aMapWithSize(20));
+      assertThat(pages.get(13), equalTo("page whichitem=3"));
+      assertThat(pipeline.fetch("desc_item.php?whichitem=3").get(), equalTo("page whichitem=3"));
+      for (int i = 0; i < 10; i++) {
+        assertThat(hits("/desc_item.php?whichitem=" + i), is(1));
+      }
+    }
+  }
+
+  @Test
+  void keepsWithinRequestsInFlight() {
+    try (var pipeline = pipeline(3)) {
+      Map<Integer, String> paths = new LinkedHashMap<>();
+      for (int i = 0; i < 24; i++) {
+        paths.put(i, "slow.php?which=" + i);
+      }
+
+      var pages = pipeline.fetchAll(paths);
+
+      assertThat(pages, aMapWithSize(24));
+      assertThat(mostActive.get(), lessThanOrEqualTo(3));
+      assertThat(mostActive.get(), greaterThan(1));
+    }
+  }
+
+  @Test
+  void retriesWhenServerIsBusy() throws Exception {
+    try (var pipeline = pipeline(2)) {
+      assertThat(pipeline.fetch("busy.php?which=1").get(), equalTo("ready"));
+      assertThat(hits("/busy.php?which=1"), is(2));
+    }
+  }
+
+  @Test
+  void doesNotRetryMissingPages() throws Exception {
+    try (var pipeline = pipeline(2)) {
+      assertThat(pipeline.fetch("missing.php?which=1").get(), nullValue());
+      assertThat(hits("/missing.php?which=1"), is(1));
+    }
+  }
+
+  @Test
+  void decodesCompressedPages() throws Exception {
+    try (var pipeline = pipeline(2)) {
+      assertThat(pipeline.fetch("gzip.php?which=1").get(), equalTo("compressed"));
+    }
+  }
+
+  @Test
+  void tokenBucketLimitsRate() throws InterruptedException {
+    var bucket = new GetRequestPipeline.TokenBucket(100, 1);
+    long start = System.nanoTime();
+    for (int i = 0; i < 11; i++) {
+      bucket.acquire();
+    }
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertThat(elapsed, greaterThanOrEqualTo(90L));
+  }
+}
@@ -0,0 +1,106 @@
+package net.sourceforge.kolmafia.request;
+
+import static internal.helpers.Networking.html;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.stream.Stream;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.session.ResultProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+class ParsedResponseTest {
+  private static Stream<Path> recordedPages() throws IOException {
+    try (var files = Files.list(Path.of("request"))) {
+      return files
+          .filter(f -> f.toString().endsWith(".html"))
+          .filter(f -> f.toString().contains("fight") || f.toString().contains("choice"))
+          .sorted()
+          .toList()
+          .stream();
+    }
+  }
+
+  @Test
+  void sameTextSharesView() {
+    String text = "<b>You acquire an item</b>";
+    ParsedResponse view = ParsedResponse.of(text);
+
+    assertThat(ParsedResponse.of(text), sameInstance(view));
+    assertThat(ParsedResponse.of(new String(text)), not(sameInstance(view)));
+  }
+
+  @Test
+  void forgetsResponsesNotViewedRecently() {
+    String text = "first";
+    ParsedResponse view = ParsedResponse.of(text);
+    for (int i = 0; i < 4; ++i) {
+      ParsedResponse.of("other " + i);
+    }
+
+    assertThat(ParsedResponse.of(text), not(sameInstance(view)));
+  }
+
+  @ParameterizedTest
+  @MethodSource("recordedPages")
+  void plainTextLinesMatchStrippingTags(final Path page) {
+    String html = html(page.toString());
+    String body = KoLConstants.HEAD_PATTERN.matcher(html).replaceAll("");
+    String plain =
+        KoLConstants.ANYTAG_BUT_ITALIC_PATTERN.matcher(body).replaceAll(KoLConstants.LINE_BREAK);
+
+    var view = new ParsedResponse(html);
+
+    assertThat(view.getPlainText(), is(plain));
+    assertThat(view.getPlainTextLines(), is(Arrays.asList(plain.split(KoLConstants.LINE_BREAK))));
+  }
+
+  @ParameterizedTest
+  @MethodSource("recordedPages")
+  void matchesAreThoseAMatcherFinds(final Path page) {
+    String html = html(page.toString());
+    List<String> expected = new ArrayList<>();
+    Matcher matcher = ResultProcessor.ITEM_TABLE_PATTERN.matcher(html);
+    while (matcher.find()) {
+      expected.add(matcher.start() + ":" + matcher.group(1));
+    }
+
+    var matches = new ParsedResponse(html).getMatches(ResultProcessor.ITEM_TABLE_PATTERN);
+
+    assertThat(matches.stream().map(m -> m.start() + ":" + m.group(1)).toList(), is(expected));
+  }
+
+  @Test
+  void copiedDocumentsAreIndependent() {
+    var view = new ParsedResponse("<html><body><table><tr><td>x</td></tr></table></body></html>");
+    var shared = view.getDocument();
+    var copy = view.copyDocument();
+
+    copy.select("table").remove();
+
+    assertThat(copy.select("table").size(), is(0));
+    assertThat(shared.select("table").size(), is(1));
+    assertThat(view.copyDocument().select("table").size(), is(1));
+  }
+
+  @Test
+  void linesCannotBeModified() {
+    var lines = new ParsedResponse("<b>a</b><b>b</b>").getPlainTextLines();
+
+    assertThat(lines, contains("", "a", "", "b"));
+    assertThrows(UnsupportedOperationException.class, () -> lines.remove(0));
+  }
+}
@@ -161,6 +161,7 @@ public class RelayRequestTest {
       // Not testing value here, which would require it to complete the same second.
       assertThat(rr.getHeaderField("Last-Modified"), not(emptyOrNullString()));
       assertThat(rr.getHeaderField("Expires"), not(emptyOrNullString()));
+      assertThat(rr.getHeaderField("ETag"), not(emptyOrNullString()));
     }
   }
 
@@ -0,0 +1,121 @@
+package net.sourceforge.kolmafia.scripts.git;
+
+import static internal.helpers.Player.withProperty;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.textui.ScriptWatcher;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+/** Installs and updates projects from bare repositories on disk, so needs no network. */
+@DisabledOnOs(
+    value = {OS.WINDOWS, OS.MAC},
+    disabledReason = "installing or deleting script can fail")
+public class GitManagerLocalTest {
+  @TempDir Path remotes;
+
+  private final List<String> projects = new ArrayList<>();
+  private final List<Path> installed = new ArrayList<>();
+
+  @AfterEach
+  void removeProjects() throws IOException {
+    for (var project : projects) {
+      GitManager.delete(project);
+    }
+    for (var file : installed) {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /** Creates a bare repository and a working copy which pushes to it. */
+  private Git createRemote(String name) throws GitAPIException, IOException {
+    var bare = remotes.resolve(name + ".git");
+    Git.init().setBare(true).setInitialBranch("main").setDirectory(bare.toFile()).call().close();
+
+    var work =
+        Git.init().setInitialBranch("main").setDirectory(remotes.resolve(name).toFile()).call();
+    work.remoteAdd().setName("origin").setUri(new URIish(bare.toUri().toString())).call();
+    return work;
+  }
+
+  private void commitScript(Git work, String script) throws GitAPIException, IOException {
+    commitScript(work, script, "print(\"" + script + "\");");
+  }
+
+  private void commitScript(Git work, String script, String text)
+      throws GitAPIException, IOException {
+    var path = work.getRepository().getWorkTree().toPath().resolve("scripts").resolve(script);
+    Files.createDirectories(path.getParent());
+    Files.writeString(path, text);
+    installed.add(KoLConstants.SCRIPT_LOCATION.toPath().resolve(script));
+
+    work.add().addFilepattern(".").call();
+    work.commit().setMessage("add " + script).setAuthor("test", "test@localhost").call();
+    work.push().setRemote("origin").add("main").call();
+  }
+
+  private void install(String name) {
+    var url = remotes.resolve(name + ".git").toUri().toString();
+    assertTrue(GitManager.clone(url, null));
+    projects.add(GitManager.getRepoId(url, null));
+  }
+
+  @Test
+  void updatesProjectsConcurrently() throws GitAPIException, IOException {
+    var names = List.of("first", "second", "third");
+    var works = new ArrayList<Git>();
+    for (var name : names) {
+      var work = createRemote(name);
+      works.add(work);
+      commitScript(work, name + "-old.ash");
+      install(name);
+    }
+
+    for (int i = 0; i < names.size(); i++) {
+      commitScript(works.get(i), names.get(i) + "-new.ash");
+    }
+
+    try (var cleanups = withProperty("gitThreadPoolSize", 4)) {
+      GitManager.updateAll();
+    }
+
+    for (var name : names) {
+      var script = KoLConstants.SCRIPT_LOCATION.toPath().resolve(name + "-new.ash");
+      assertTrue(Files.exists(script), name);
+      assertThat(Files.readString(script), equalTo("print(\"" + name + "-new.ash\");"));
+    }
+    works.forEach(Git::close);
+  }
+
+  @Test
+  void updatedScriptsAreStaleAtOnce() throws GitAPIException, IOException {
+    var work = createRemote("watched");
+    commitScript(work, "watched.ash", "print(1);");
+    install("watched");
+
+    var script = KoLConstants.SCRIPT_LOCATION.toPath().resolve("watched.ash").toFile();
+    var stamp = ScriptWatcher.stamp(script);
+
+    commitScript(work, "watched.ash", "print(2);");
+    assertTrue(GitManager.update(projects.get(0)));
+
+    // Without waiting for the watch service to report the new version
+    assertThat(ScriptWatcher.isCurrent(script, stamp), is(false));
+    work.close();
+  }
+}
@@ -0,0 +1,79 @@
+package net.sourceforge.kolmafia.session;
+
+import static internal.helpers.Player.withItem;
+import static internal.helpers.Player.withItemInCloset;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.sourceforge.kolmafia.AdventureResult;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.objectpool.ItemPool;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ItemCountIndexTest {
+  @BeforeEach
+  void beforeEach() {
+    KoLConstants.inventory.clear();
+    KoLConstants.closet.clear();
+  }
+
+  @Test
+  void followsChangesToInventory() {
+    var seal = ItemPool.get(ItemPool.SEAL_TOOTH, 1);
+    assertThat(ItemCountIndex.INVENTORY.getCount(ItemPool.SEAL_TOOTH), is(0));
+
+    AdventureResult.addResultToList(KoLConstants.inventory, seal);
+    assertThat(ItemCountIndex.INVENTORY.getCount(ItemPool.SEAL_TOOTH), is(1));
+
+    AdventureResult.addResultToList(KoLConstants.inventory, ItemPool.get(ItemPool.SEAL_TOOTH, 4));
+    assertThat(ItemCountIndex.INVENTORY.getCount(ItemPool.SEAL_TOOTH), is(5));
+    assertThat(seal.getCount(KoLConstants.inventory), is(5));
+
+    AdventureResult.addResultToList(KoLConstants.inventory, ItemPool.get(ItemPool.SEAL_TOOTH, -5));
+    assertThat(ItemCountIndex.INVENTORY.getCount(ItemPool.SEAL_TOOTH), is(0));
+
+    KoLConstants.inventory.add(ItemPool.get(ItemPool.SEAL_TOOTH, 2));
+    assertThat(ItemCountIndex.INVENTORY.getCount(ItemPool.SEAL_TOOTH), is(2));
+
+    KoLConstants.inventory.clear();
+    assertThat(ItemCountIndex.INVENTORY.getCount(ItemPool.SEAL_TOOTH), is(0));
+  }
+
+  @Test
+  void indexesEachListSeparately() {
+    try (var cleanups = withItem(ItemPool.SEAL_TOOTH, 2)) {
+      try (var closet = withItemInCloset(ItemPool.SEAL_TOOTH, 3)) {
+        assertThat(ItemCountIndex.INVENTORY.getCount(ItemPool.SEAL_TOOTH), is(2));
+        assertThat(ItemCountIndex.CLOSET.getCount(ItemPool.SEAL_TOOTH), is(3));
+        assertThat(InventoryManager.getCount(ItemPool.SEAL_TOOTH), is(2));
+      }
+    }
+  }
+
+  @Test
+  void countsUnindexedListsBySearching() {
+    List<AdventureResult> list = new ArrayList<>();
+    list.add(ItemPool.get(ItemPool.SEAL_TOOTH, 7));
+
+    assertThat(ItemCountIndex.forList(list), is((ItemCountIndex) null));
+    assertThat(ItemPool.get(ItemPool.SEAL_TOOTH, 1).getCount(list), is(7));
+  }
+
+  @Test
+  void snapshotsIgnoreLaterChanges() {
+    try (var cleanups = withItem(ItemPool.SEAL_TOOTH, 2)) {
+      var snapshot = ItemCountIndex.INVENTORY.snapshot();
+
+      AdventureResult.addResultToList(KoLConstants.inventory, ItemPool.get(ItemPool.SEAL_TOOTH, 1));
+      snapshot.add(ItemPool.SEAL_TOOTH, -2);
+      snapshot.add(ItemPool.SEAL_TOOTH + 100000, 1);
+
+      assertThat(snapshot.getCount(ItemPool.SEAL_TOOTH), is(0));
+      assertThat(snapshot.getCount(ItemPool.SEAL_TOOTH + 100000), is(1));
+      assertThat(ItemCountIndex.INVENTORY.getCount(ItemPool.SEAL_TOOTH), is(3));
+    }
+  }
+}
@@ -1,13 +1,17 @@
 package net.sourceforge.kolmafia.session;
 
+import static internal.helpers.Networking.getPostRequestBody;
 import static internal.helpers.Networking.html;
 import static internal.helpers.Player.withDay;
 import static internal.helpers.Player.withHttpClientBuilder;
 import static internal.helpers.Player.withMeat;
 import static internal.helpers.Player.withNextResponse;
 import static internal.helpers.Player.withProperty;
+import static internal.helpers.Player.withResponses;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -875,4 +879,31 @@ public class MallPriceManagerTest {
       assertEquals(0, client.getRequests().size());
     }
   }
+
+  @Test
+  public void canRefreshPricesWithConcurrentSearches() {
+    AdventureResult[] items = {ItemPool.get(ItemPool.HELL_RAMEN), ItemPool.get(ItemPool.SPROCKET)};
+
+    try (var cleanups =
+        new Cleanups(
+            withProperty("mallSearchThreads", 2),
+            withProperty("mallSearchInterval", 0),
+            withResponses(
+                request -> {
+                  String body = getPostRequestBody(request);
+                  String page =
+                      body.contains("ramen")
+                          ? "request/test_mall_search_hell_ramen.html"
+                          : "request/test_mall_search_sprocket.html";
+                  return new FakeHttpResponse<>(200, html(page));
+                }))) {
+      int count = MallPriceManager.getMallPrices(items, 0.0f);
+
+      assertEquals(2, count);
+      assertThat(MallPriceManager.getMallPrice(ItemPool.HELL_RAMEN) > 0, is(true));
+      assertThat(MallPriceManager.getMallPrice(ItemPool.SPROCKET) > 0, is(true));
+      assertThat(MallPriceManager.getSavedSearch(ItemPool.HELL_RAMEN, 1), notNullValue());
+      assertThat(MallPriceManager.getSavedSearch(ItemPool.SPROCKET, 1), notNullValue());
+    }
+  }
 }
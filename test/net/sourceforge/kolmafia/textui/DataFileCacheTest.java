@@ -4,10 +4,15 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
 import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.textui.parsetree.MapValue;
+import net.sourceforge.kolmafia.textui.parsetree.Value;
+import net.sourceforge.kolmafia.utilities.FileUtilities;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
@@ -94,4 +99,58 @@ public class DataFileCacheTest {
       Files.deleteIfExists(file.toPath());
     }
   }
+
+  private static boolean readInto(final MapValue map, final BufferedReader reader) {
+    String[] data;
+    map.clear();
+    while ((data = FileUtilities.readData(reader)) != null) {
+      map.aset(new Value(data[0]), new Value(Integer.parseInt(data[1])));
+    }
+    return true;
+  }
+
+  @Test
+  void readMapReusesParsedMapUntilFileChanges() throws Exception {
+    String filename = "DataFileCacheTest_readMap.txt";
+    File file = new File(KoLConstants.DATA_LOCATION, filename);
+    AtomicInteger parses = new AtomicInteger();
+    DataFileCache.MapReader counting =
+        reader -> {
+          parses.incrementAndGet();
+          return true;
+        };
+    try {
+      DataFileCache.printBytes(filename, "a\t1\nb\t2\n".getBytes(StandardCharsets.UTF_8));
+
+      MapValue first = new MapValue(DataTypes.STRING_TO_INT_TYPE);
+      DataFileCache.readMap(
+          filename,
+          first,
+          true,
+          reader -> {
+            parses.incrementAndGet();
+            return readInto(first, reader);
+          });
+
+      MapValue second = new MapValue(DataTypes.STRING_TO_INT_TYPE);
+      second.aset(new Value("stale"), new Value(0));
+      assertThat(DataFileCache.readMap(filename, second, true, counting), is(true));
+      assertThat(parses.get(), is(1));
+      assertThat(second.count(), is(2));
+      assertThat(second.aref(new Value("b")), equalTo(new Value(2)));
+
+      // The copy is independent of the cached map
+      second.aset(new Value("a"), new Value(10));
+      MapValue third = new MapValue(DataTypes.STRING_TO_INT_TYPE);
+      DataFileCache.readMap(filename, third, true, counting);
+      assertThat(third.aref(new Value("a")), equalTo(new Value(1)));
+
+      // Writing the file again means it must be parsed again
+      DataFileCache.printBytes(filename, "c\t3\n".getBytes(StandardCharsets.UTF_8));
+      DataFileCache.readMap(filename, new MapValue(DataTypes.STRING_TO_INT_TYPE), true, counting);
+      assertThat(parses.get(), is(2));
+    } finally {
+      Files.deleteIfExists(file.toPath());
+    }
+  }
 }
@@ -1,11 +1,18 @@
 package net.sourceforge.kolmafia.textui;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.List;
 import net.sourceforge.kolmafia.RequestLogger;
 import net.sourceforge.kolmafia.textui.command.CallScriptCommand;
+import net.sourceforge.kolmafia.textui.parsetree.Value;
 import org.junit.jupiter.api.Test;
 
 class ProfilerTest {
@@ -30,5 +37,108 @@ class ProfilerTest {
     assertTrue(output.contains("toplevel"));
     assertTrue(output.contains("Name (sorted by total time)"));
     assertTrue(output.contains("Name (sorted by net time)"));
+    assertTrue(output.contains("Line (sorted by total time)"));
+  }
+
+  @Test
+  public void itShouldRecordEachPathOfCalls() throws InterruptedException {
+    var profiler = new Profiler();
+    var run = Profiler.startRun(profiler, "script.ash");
+    Object first = new Object();
+    Object second = new Object();
+
+    run.enter("outer()", first, "script.ash", 1);
+    run.enter("inner()", second, "script.ash", 2);
+    Thread.sleep(2);
+    run.exit();
+    Thread.sleep(2);
+    run.exit();
+    run.enter("inner()", second, "script.ash", 2);
+    Thread.sleep(2);
+    run.exit();
+    run.finish();
+
+    String stacks = profiler.toCollapsedStacks();
+    assertThat(stacks, containsString("script.ash;outer() "));
+    assertThat(stacks, containsString("script.ash;outer();inner() "));
+    assertThat(stacks, containsString("script.ash;inner() "));
+
+    var lines = profiler.toJSON().getJSONArray("lines");
+    assertThat(lines.size(), is(2));
+    for (int i = 0; i < lines.size(); ++i) {
+      var line = lines.getJSONObject(i);
+      assertThat(line.getString("file"), is("script.ash"));
+      assertThat(line.getLongValue("count"), is(line.getIntValue("line") == 1 ? 1L : 2L));
+    }
+  }
+
+  @Test
+  public void itShouldCountValuesCreatedInAFunction() {
+    // Create the constant values first
+    assertThat(DataTypes.VOID_VALUE, notNullValue());
+
+    var profiler = new Profiler();
+    var run = Profiler.startRun(profiler, "script.ash");
+
+    run.enter("makeValues()", this, "script.ash", 1);
+    for (int i = 0; i < 3; ++i) {
+      new Value(i);
+    }
+    run.exit();
+    run.finish();
+
+    var script = profiler.toJSON().getJSONObject("calls").getJSONArray("children").getJSONObject(0);
+    var function = script.getJSONArray("children").getJSONObject(0);
+    assertThat(function.getString("name"), is("makeValues()"));
+    assertThat(function.getLongValue("values"), is(3L));
+  }
+
+  @Test
+  public void itShouldRecordSampledStacks() throws InterruptedException {
+    var profiler = new Profiler();
+    var run = Profiler.startRun(profiler, "script.js");
+
+    Thread.sleep(2);
+    run.sample(List.of("main (script.js)", "helper (script.js)"), "script.js", 7);
+    run.finish();
+
+    assertThat(
+        profiler.toCollapsedStacks(),
+        containsString("script.js;main (script.js);helper (script.js) "));
+    assertThat(profiler.summary(), containsString("script.js:7"));
+  }
+
+  @Test
+  public void itShouldCountDeepRecursionAtTheDeepestNode() {
+    var profiler = new Profiler();
+    var run = Profiler.startRun(profiler, "script.ash");
+
+    for (int i = 0; i < 500; ++i) {
+      run.enter("recurse()", this, "script.ash", 1);
+    }
+    for (int i = 0; i < 500; ++i) {
+      run.exit();
+    }
+    run.finish();
+
+    var node = profiler.toJSON().getJSONObject("calls").getJSONArray("children").getJSONObject(0);
+    int depth = 0;
+    while (!node.getJSONArray("children").isEmpty()) {
+      node = node.getJSONArray("children").getJSONObject(0);
+      ++depth;
+    }
+
+    // The calls below are counted in the deepest node
+    assertThat(depth, is(200));
+    assertThat(node.getLongValue("count"), is(301L));
+
+    var lines = profiler.toJSON().getJSONArray("lines");
+    assertThat(lines.size(), is(1));
+    assertThat(lines.getJSONObject(0).getLongValue("count"), is(500L));
+  }
+
+  @Test
+  public void itShouldNotRecordWhenNothingIsProfiling() {
+    assertThat(Profiler.startRun(null, "script.ash"), nullValue());
   }
 }
@@ -0,0 +1,107 @@
+package net.sourceforge.kolmafia.textui;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.KoLmafiaASH;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ScriptWatcherTest {
+  private static final Path DIRECTORY =
+      KoLConstants.SCRIPT_LOCATION.toPath().resolve("ScriptWatcherTest");
+
+  @AfterEach
+  void tearDown() throws IOException {
+    if (Files.isDirectory(DIRECTORY)) {
+      try (var files = Files.list(DIRECTORY)) {
+        for (var file : files.toList()) {
+          Files.delete(file);
+        }
+      }
+      Files.delete(DIRECTORY);
+    }
+  }
+
+  private static boolean eventually(final BooleanSupplier condition) throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      if (condition.getAsBoolean()) {
+        return true;
+      }
+      TimeUnit.MILLISECONDS.sleep(50);
+    }
+    return false;
+  }
+
+  private static File write(final String name, final String text) throws IOException {
+    Files.createDirectories(DIRECTORY);
+    return Files.writeString(DIRECTORY.resolve(name), text).toFile();
+  }
+
+  @Test
+  void unwatchedFilesAreCheckedByModificationTime(@TempDir final Path elsewhere)
+      throws IOException {
+    File file = Files.writeString(elsewhere.resolve("elsewhere.ash"), "print(1);").toFile();
+
+    var stamp = ScriptWatcher.stamp(file);
+
+    assertThat(stamp.watched(), is(false));
+    assertThat(ScriptWatcher.isCurrent(file, stamp), is(true));
+
+    file.setLastModified(file.lastModified() - 10000);
+
+    assertThat(ScriptWatcher.isCurrent(file, stamp), is(false));
+  }
+
+  @Test
+  void watchedFilesAreStaleAfterAnEvent() throws IOException, InterruptedException {
+    File file = write("watched.ash", "print(1);");
+    assumeTrue(eventually(() -> ScriptWatcher.stamp(file).watched()), "no watch service");
+
+    var stamp = ScriptWatcher.stamp(file);
+    assertThat(ScriptWatcher.isCurrent(file, stamp), is(true));
+
+    Files.writeString(file.toPath(), "print(2);");
+
+    // The operating system reports an edit made outside KoLmafia a moment after it is made
+    assertThat(eventually(() -> !ScriptWatcher.isCurrent(file, stamp)), is(true));
+  }
+
+  @Test
+  void filesWrittenByKoLmafiaAreStaleAtOnce() throws IOException, InterruptedException {
+    File file = write("written.ash", "print(1);");
+    assumeTrue(eventually(() -> ScriptWatcher.stamp(file).watched()), "no watch service");
+
+    var stamp = ScriptWatcher.stamp(file);
+    ScriptWatcher.fileChanged(file);
+
+    assertThat(ScriptWatcher.isCurrent(file, stamp), is(false));
+  }
+
+  @Test
+  void interpreterIsReplacedWhenAnImportChanges() throws IOException, InterruptedException {
+    File library = write("watcher_library.ash", "int answer() { return 1; }");
+    File main =
+        write("watcher_main.ash", "import <watcher_library.ash>\nvoid main() { answer(); }");
+
+    var first = KoLmafiaASH.getInterpreter(main);
+    assertThat(first, notNullValue());
+    assertThat(KoLmafiaASH.getInterpreter(main), sameInstance(first));
+
+    Files.writeString(library.toPath(), "int answer() { return 2; }");
+    library.setLastModified(library.lastModified() + 10000);
+
+    assertThat(eventually(() -> KoLmafiaASH.getInterpreter(main) != first), is(true));
+  }
+}
@@ -0,0 +1,60 @@
+package net.sourceforge.kolmafia.textui.command;
+
+import static internal.helpers.Player.withProperty;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+
+import net.sourceforge.kolmafia.combat.CombatActionManager;
+import net.sourceforge.kolmafia.combat.MacroCache;
+import net.sourceforge.kolmafia.combat.Macrofier;
+import net.sourceforge.kolmafia.request.FightRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class MacroCacheCommandTest extends AbstractCommandTestBase {
+  public MacroCacheCommandTest() {
+    this.command = "macrocache";
+  }
+
+  @BeforeEach
+  public void beforeEach() {
+    FightRequest.setMacroPrefixLength(0);
+    MacroCache.clear();
+    MacroCache.resetStatistics();
+  }
+
+  @AfterEach
+  public void afterEach() {
+    CombatActionManager.loadStrategyLookup("default");
+  }
+
+  @Test
+  void showsHitRate() {
+    try (var cleanups = withProperty("battleAction", "custom combat script")) {
+      CombatActionManager.setDefaultAction("attack with weapon");
+      for (int i = 0; i < 4; i++) {
+        Macrofier.macrofy();
+      }
+
+      String output = execute("");
+
+      assertThat(output, containsString("1 macros remembered. 4 macros requested:"));
+      assertThat(output, containsString("3 reused (75"));
+      assertThat(output, containsString("1 built and remembered"));
+    }
+  }
+
+  @Test
+  void clearForgetsMacros() {
+    try (var cleanups = withProperty("battleAction", "custom combat script")) {
+      CombatActionManager.setDefaultAction("attack with weapon");
+      Macrofier.macrofy();
+
+      String output = execute("clear");
+
+      assertThat(output, containsString("Remembered macros forgotten."));
+      assertThat(execute(""), containsString("0 macros remembered."));
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package net.sourceforge.kolmafia.textui.command;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.textui.Profiler;
+import net.sourceforge.kolmafia.textui.javascript.JavascriptRuntime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class ProfilerCommandTest extends AbstractCommandTestBase {
+  private static final File OUTPUT = new File(KoLConstants.DATA_LOCATION, "profile.test");
+
+  public ProfilerCommandTest() {
+    this.command = "profiler";
+  }
+
+  @BeforeEach
+  public void beforeEach() {
+    Profiler.getEveryRun().clear();
+  }
+
+  @AfterEach
+  public void afterEach() {
+    Profiler.stopRecordingEveryRun();
+    Profiler.getEveryRun().clear();
+    OUTPUT.delete();
+  }
+
+  @Test
+  void recordsEveryScriptRunWhileStarted() {
+    String output = execute("start");
+    assertThat(output, containsString("Profiling every script run."));
+
+    new CallScriptCommand().run("call", "Excluded/CountItems.ash");
+    execute("stop");
+    new CallScriptCommand().run("call", "Excluded/CountItems.ash");
+
+    assertThat(Profiler.getEveryRun().toCollapsedStacks(), containsString("CountItems.ash;"));
+    assertThat(
+        Profiler.getEveryRun().toJSON().getJSONObject("calls").getLongValue("count"), is(1L));
+    assertThat(execute(""), containsString("Name (sorted by net time)"));
+  }
+
+  @Test
+  void samplesJavascript() {
+    execute("start");
+
+    new JavascriptRuntime("let x = 0; for (let i = 0; i < 5000000; i++) { x += i % 7; }")
+        .execute(null, null, true);
+
+    assertThat(Profiler.getEveryRun().toCollapsedStacks(), containsString("(command line);"));
+  }
+
+  @Test
+  void savesCollapsedStacks() throws IOException {
+    execute("start");
+    new CallScriptCommand().run("call", "Excluded/CountItems.ash");
+
+    String output = execute("collapsed " + OUTPUT.getName());
+
+    assertThat(output, containsString("Profile saved to"));
+    assertThat(Files.readString(OUTPUT.toPath()), startsWith("CountItems.ash"));
+  }
+
+  @Test
+  void savesJson() throws IOException {
+    execute("start");
+    new CallScriptCommand().run("call", "Excluded/CountItems.ash");
+
+    execute("json " + OUTPUT.getName());
+
+    assertThat(Files.readString(OUTPUT.toPath()), containsString("\"name\":\"CountItems.ash\""));
+  }
+
+  @Test
+  void requiresAFileToSave() {
+    String output = execute("json");
+
+    assertThat(output, startsWith("Usage: profiler"));
+    assertErrorState();
+  }
+}
@@ -0,0 +1,57 @@
+package net.sourceforge.kolmafia.textui.javascript;
+
+import static internal.helpers.Player.withProperty;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.File;
+import java.nio.file.Files;
+import net.sourceforge.kolmafia.KoLConstants;
+import net.sourceforge.kolmafia.textui.parsetree.Value;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class JavascriptRuntimeTest {
+  private static String run(final String script) {
+    Value result = new JavascriptRuntime(script).execute(null, null, true);
+    return result == null ? null : result.toString();
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void enumeratedTypesWorkWithAndWithoutSharedScope(final boolean shared) {
+    try (var cleanups = withProperty("javascriptSharedScope", shared)) {
+      for (int i = 0; i < 2; ++i) {
+        assertThat(run("Item.get(\"seal tooth\").name"), equalTo("seal tooth"));
+        assertThat(run("Item.get(2) === Item.get(\"seal tooth\")"), equalTo("true"));
+        assertThat(run("require(\"kolmafia\").MafiaClasses.length > 0"), equalTo("true"));
+      }
+    }
+  }
+
+  @Test
+  void sharedScopeDoesNotLeakGlobalsBetweenRuns() {
+    try (var cleanups = withProperty("javascriptSharedScope", true)) {
+      assertThat(run("var leaked = \"here\"; leaked"), equalTo("here"));
+      assertThat(run("typeof leaked"), equalTo("undefined"));
+    }
+  }
+
+  @Test
+  void editedModulesAreRequiredAfresh() throws Exception {
+    File module = new File(KoLConstants.SCRIPT_LOCATION, "JavascriptRuntimeTest_module.js");
+    String script = "require(\"JavascriptRuntimeTest_module\").value";
+    try {
+      Files.writeString(module.toPath(), "module.exports.value = \"first\";");
+      assertThat(run(script), equalTo("first"));
+
+      Files.writeString(module.toPath(), "module.exports.value = \"second\";");
+      // Make sure the edit shows in the file's modification time
+      module.setLastModified(module.lastModified() + 2000);
+      assertThat(run(script), equalTo("second"));
+    } finally {
+      Files.deleteIfExists(module.toPath());
+    }
+  }
+}
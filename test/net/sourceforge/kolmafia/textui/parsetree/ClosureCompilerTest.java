@@ -0,0 +1,143 @@
+package net.sourceforge.kolmafia.textui.parsetree;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import internal.helpers.RequestLoggerOutput;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import net.sourceforge.kolmafia.KoLmafia;
+import net.sourceforge.kolmafia.textui.AshRuntime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ClosureCompilerTest {
+  private AshRuntime runtime;
+
+  @BeforeEach
+  void beforeEach() {
+    KoLmafia.forceContinue();
+    this.runtime = new AshRuntime();
+  }
+
+  private Value run(final String source) {
+    return run(null, source);
+  }
+
+  private Value run(final File scriptFile, final String source) {
+    var istream = new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8));
+    this.runtime.validate(scriptFile, istream);
+    return this.runtime.execute("main", null);
+  }
+
+  private UserDefinedFunction function(final String name) {
+    return (UserDefinedFunction) this.runtime.getFunctions().findFunctions(name)[0];
+  }
+
+  @Test
+  void compilesHotRecursiveFunction() {
+    var result =
+        run(
+            """
+            int fib(int n) {
+              if (n < 2) {
+                return n;
+              }
+              return fib(n - 1) + fib(n - 2);
+            }
+            int main() {
+              return fib(15);
+            }
+            """);
+
+    assertThat(result.intValue(), is(610L));
+    assertThat(function("fib").isCompiled(), is(true));
+  }
+
+  @Test
+  void leavesColdFunctionInterpreted() {
+    var result =
+        run(
+            """
+            int twice(int n) {
+              return n * 2;
+            }
+            int main() {
+              return twice(21);
+            }
+            """);
+
+    assertThat(result.intValue(), is(42L));
+    assertThat(function("twice").isCompiled(), is(false));
+  }
+
+  @Test
+  void compiledArithmeticMatchesInterpreter() {
+    var result =
+        run(
+            """
+            float step(int i) {
+              float x = 0.5;
+              int j = 0;
+              while (j < i) {
+                x += j / 2;
+                x = x * 1.5 - max(j % 3, 0);
+                j += 1;
+                if (j == 5) {
+                  break;
+                }
+              }
+              return x;
+            }
+            float main() {
+              float total = 0;
+              for i from 0 to 299 {
+                total += step(i % 8);
+              }
+              return total;
+            }
+            """);
+
+    double expected = 0;
+    for (int i = 0; i < 300; ++i) {
+      double x = 0.5;
+      int j = 0;
+      while (j < i % 8) {
+        x += j / 2;
+        x = x * 1.5 - Math.max(j % 3, 0);
+        j += 1;
+        if (j == 5) {
+          break;
+        }
+      }
+      expected += x;
+    }
+
+    assertThat(result.floatValue(), is(expected));
+    assertThat(function("step").isCompiled(), is(true));
+  }
+
+  @Test
+  void compiledDivisionByZeroReportsLine() {
+    RequestLoggerOutput.startStream();
+    // Runtime errors only report their line for scripts read from a file
+    run(
+        new File("ClosureCompilerTest.ash"),
+        """
+        int divide(int a, int b) {
+          return a / b;
+        }
+        void main() {
+          for i from 0 to 200 {
+            divide(i, 200 - i);
+          }
+        }
+        """);
+    String output = RequestLoggerOutput.stopStream();
+
+    assertThat(output, containsString("Division by zero (ClosureCompilerTest.ash, line 2)"));
+    assertThat(function("divide").isCompiled(), is(true));
+  }
+}
@@ -0,0 +1,143 @@
+package net.sourceforge.kolmafia.textui.parsetree;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import net.sourceforge.kolmafia.textui.AshRuntime;
+import net.sourceforge.kolmafia.textui.DataTypes;
+import org.junit.jupiter.api.Test;
+
+class MapValueTest {
+  private static MapValue map(final Type indexType) {
+    return new MapValue(new AggregateType(DataTypes.INT_TYPE, indexType));
+  }
+
+  private static List<String> keys(final MapValue map) {
+    List<String> keys = new ArrayList<>();
+    map.iterator().forEachRemaining(key -> keys.add(key.toString()));
+    return keys;
+  }
+
+  private static void matchesTreeMap(final Type indexType, final IntFunction<Value> makeKey) {
+    MapValue map = map(indexType);
+    TreeMap<Value, Value> expected = new TreeMap<>();
+    Random random = new Random(1234);
+    AshRuntime runtime = new AshRuntime();
+
+    for (int i = 0; i < 5000; ++i) {
+      Value key = makeKey.apply(random.nextInt(500) - 100);
+      Value value = new Value(i);
+      if (random.nextInt(4) == 0) {
+        assertThat(map.remove(key, runtime), equalTo(expected.remove(key)));
+      } else {
+        map.aset(key, value, null);
+        expected.put(key, value);
+      }
+      assertThat(map.aref(key, null), equalTo(expected.get(key)));
+    }
+
+    assertThat(map.count(), is(expected.size()));
+    assertThat(Arrays.asList(map.keys()), equalTo(new ArrayList<>(expected.keySet())));
+    for (Value key : expected.keySet()) {
+      assertThat(map.aref(key, null), equalTo(expected.get(key)));
+    }
+  }
+
+  @Test
+  void intKeysMatchTreeMap() {
+    matchesTreeMap(DataTypes.INT_TYPE, DataTypes::makeIntValue);
+  }
+
+  @Test
+  void stringKeysMatchTreeMap() {
+    matchesTreeMap(DataTypes.STRING_TYPE, i -> DataTypes.makeStringValue("key" + i));
+  }
+
+  @Test
+  void itemKeysIterateInIdOrder() {
+    MapValue map = map(DataTypes.ITEM_TYPE);
+    for (int id : new int[] {4, 1, 3, 2}) {
+      map.aset(DataTypes.makeItemValue(id, true), new Value(id), null);
+    }
+
+    assertThat(
+        keys(map),
+        contains(
+            DataTypes.makeItemValue(1, true).toString(),
+            DataTypes.makeItemValue(2, true).toString(),
+            DataTypes.makeItemValue(3, true).toString(),
+            DataTypes.makeItemValue(4, true).toString()));
+  }
+
+  @Test
+  void findsKeysOfOtherTypesByComparison() {
+    MapValue map = map(DataTypes.INT_TYPE);
+    map.aset(new Value(3), new Value(30), null);
+
+    assertThat(map.aref(new Value(3.0), null), equalTo(new Value(30)));
+    assertThat(map.contains(new Value(3.5)), is(false));
+
+    // Storing such a key moves the map into a TreeMap without losing anything
+    map.aset(new Value(1.0), new Value(10), null);
+    assertThat(map.count(), is(2));
+    assertThat(map.aref(new Value(3), null), equalTo(new Value(30)));
+    assertThat(map.aref(new Value(1), null), equalTo(new Value(10)));
+  }
+
+  @Test
+  void iteratorRemovesCurrentKey() {
+    MapValue map = map(DataTypes.INT_TYPE);
+    for (int i = 1; i <= 5; ++i) {
+      map.aset(new Value(i), new Value(i), null);
+    }
+
+    Iterator<Value> it = map.iterator();
+    while (it.hasNext()) {
+      if (it.next().intValue() % 2 == 0) {
+        it.remove();
+      }
+    }
+
+    assertThat(keys(map), contains("1", "3", "5"));
+    assertThat(map.aref(new Value(2), null), nullValue());
+  }
+
+  @Test
+  void addingKeysDuringIterationFails() {
+    MapValue map = map(DataTypes.STRING_TYPE);
+    map.aset(new Value("a"), new Value(1), null);
+    map.aset(new Value("b"), new Value(2), null);
+
+    Iterator<Value> it = map.iterator();
+    it.next();
+    map.aset(new Value("c"), new Value(3), null);
+    assertThrows(ConcurrentModificationException.class, it::next);
+  }
+
+  @Test
+  void replacingValuesDuringIterationSucceeds() {
+    MapValue map = map(DataTypes.STRING_TYPE);
+    map.aset(new Value("a"), new Value(1), null);
+    map.aset(new Value("b"), new Value(2), null);
+
+    Iterator<Value> it = map.iterator();
+    while (it.hasNext()) {
+      Value key = it.next();
+      map.aset(key, new Value(10), null);
+    }
+
+    assertThat(map.aref(new Value("b"), null), equalTo(new Value(10)));
+  }
+}
@@ -1,13 +1,19 @@
 package net.sourceforge.kolmafia.utilities;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 import net.sourceforge.kolmafia.KoLConstants;
 import net.sourceforge.kolmafia.StaticEntity;
 import net.sourceforge.kolmafia.preferences.Preferences;
@@ -16,6 +22,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
@@ -138,4 +145,72 @@ class FileUtilitiesTest {
       assertThat(FileUtilities.isEmptyDirectory(path), equalTo(isEmptyDirectory));
     }
   }
+
+  @Nested
+  class PreparedFiles {
+    private static List<String> readLines(final BufferedReader reader) throws IOException {
+      List<String> lines = new ArrayList<>();
+      String[] data;
+      while ((data = FileUtilities.readData(reader)) != null) {
+        lines.add(String.join("\t", data));
+      }
+      reader.close();
+      return lines;
+    }
+
+    @Test
+    public void preparedFileReadsLikeTheFile() throws IOException {
+      PreparedDataFiles.prepare("outfits.txt", KoLConstants.OUTFITS_VERSION);
+      var prepared = FileUtilities.getVersionedReader("outfits.txt", KoLConstants.OUTFITS_VERSION);
+      assertThat(prepared, instanceOf(PreparedDataFiles.PreparedReader.class));
+
+      // A prepared file is only handed out once
+      var read = FileUtilities.getVersionedReader("outfits.txt", KoLConstants.OUTFITS_VERSION);
+      assertThat(read, not(instanceOf(PreparedDataFiles.PreparedReader.class)));
+
+      List<String> preparedLines = readLines(prepared);
+      assertThat(preparedLines, not(empty()));
+      assertThat(preparedLines, equalTo(readLines(read)));
+    }
+
+    @Test
+    public void fileIsReadAgainIfPreparedAtAnotherVersion() throws IOException {
+      PreparedDataFiles.prepare("outfits.txt", KoLConstants.OUTFITS_VERSION + 1);
+      var reader = FileUtilities.getVersionedReader("outfits.txt", KoLConstants.OUTFITS_VERSION);
+      assertThat(reader, not(instanceOf(PreparedDataFiles.PreparedReader.class)));
+      assertThat(readLines(reader), not(empty()));
+    }
+
+    private static List<String> readRawLines(final BufferedReader reader) throws IOException {
+      List<String> lines = new ArrayList<>();
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+      return lines;
+    }
+
+    @Test
+    public void snapshotReadsLikeTheFile(@TempDir final File dir) throws IOException {
+      int version = KoLConstants.OUTFITS_VERSION;
+      var text = PreparedDataFiles.readText("outfits.txt", version);
+      var snapshot = new File(dir, "outfits.txt.bin");
+      PreparedDataFiles.writeSnapshot(snapshot, 1234L, text);
+
+      var saved = PreparedDataFiles.readSnapshot(snapshot, version, 1234L);
+      assertThat(readRawLines(saved.reader()), equalTo(readRawLines(text.reader())));
+      assertThat(readLines(saved.reader()), equalTo(readLines(text.reader())));
+    }
+
+    @Test
+    public void snapshotIsIgnoredIfTheFileChanged(@TempDir final File dir) {
+      int version = KoLConstants.OUTFITS_VERSION;
+      var text = PreparedDataFiles.readText("outfits.txt", version);
+      var snapshot = new File(dir, "outfits.txt.bin");
+      PreparedDataFiles.writeSnapshot(snapshot, 1234L, text);
+
+      assertThat(PreparedDataFiles.readSnapshot(snapshot, version, 4321L), nullValue());
+      assertThat(PreparedDataFiles.readSnapshot(snapshot, version + 1, 1234L), nullValue());
+    }
+  }
 }
@@ -10,6 +10,7 @@ import internal.helpers.RequestLoggerOutput;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
@@ -677,6 +678,45 @@ class StringUtilitiesTest {
     assertEquals(0, results.size(), "Unexpected matches");
   }
 
+  @Nested
+  class MatchingNameIndex {
+    @Test
+    public void itShouldMatchOnlyNamesContainingEveryTrigram() {
+      String[] names = {"bartender-in-the-box", "boxing glove", "chef-in-the-box", "the boxer"};
+      assertEquals(
+          List.of("bartender-in-the-box", "chef-in-the-box"),
+          StringUtilities.getMatchingNames(names, "in-the-box"));
+      assertEquals(Arrays.asList(names), StringUtilities.getMatchingNames(names, "box"));
+      assertEquals(List.of(), StringUtilities.getMatchingNames(names, "boxes"));
+    }
+
+    @Test
+    public void itShouldStillFuzzyMatchAcrossTrigrams() {
+      String[] names = {"bartender-in-the-box", "chef-in-the-box"};
+      assertEquals(
+          List.of("bartender-in-the-box", "chef-in-the-box"),
+          StringUtilities.getMatchingNames(names, "in the box"));
+      assertEquals(List.of("chef-in-the-box"), StringUtilities.getMatchingNames(names, "citb"));
+    }
+
+    @Test
+    public void itShouldReindexAnArrayChangedInPlace() {
+      String[] names = {"seal tooth", "seal-clubbing club"};
+      assertEquals(List.of("seal-clubbing club"), StringUtilities.getMatchingNames(names, "club"));
+      names[1] = "turtle totem";
+      assertEquals(List.of(), StringUtilities.getMatchingNames(names, "club"));
+      assertEquals(List.of("turtle totem"), StringUtilities.getMatchingNames(names, "totem"));
+    }
+
+    @Test
+    public void itShouldFollowChangesToACollection() {
+      List<String> names = new ArrayList<>(List.of("seal tooth"));
+      assertEquals(List.of(), StringUtilities.getMatchingNames(names, "club"));
+      names.add("seal-clubbing club");
+      assertEquals(List.of("seal-clubbing club"), StringUtilities.getMatchingNames(names, "club"));
+    }
+  }
+
   @Test
   public void itShouldNotHavACanonicalNameForNull() {
     assertNull(StringUtilities.getCanonicalName(null));
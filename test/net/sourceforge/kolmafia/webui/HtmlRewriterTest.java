@@ -0,0 +1,109 @@
+package net.sourceforge.kolmafia.webui;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HtmlRewriterTest {
+  private static final String SCRIPT = "<script src=\"/basics.js\"></script>";
+  private static final String IRCM = "<script src=\"/ircm_extend.js\"></script>";
+
+  @Test
+  void ordersInsertionsAtTheSamePositionLikeSequentialInsertions() {
+    var rewriter =
+        new HtmlRewriter<Void>()
+            .insertBefore("</b>", (context, page) -> "1")
+            .insertAfter("<b>", (context, page) -> "2")
+            .insertBefore("</b>", (context, page) -> "3")
+            .insertAfter("<b>", (context, page) -> "4");
+    var buffer = new StringBuffer("<b></b><b></b>");
+
+    rewriter.rewrite(buffer, null);
+
+    assertThat(buffer.toString(), is("<b>4213</b><b></b>"));
+  }
+
+  @Test
+  void replacesNonOverlappingOccurrences() {
+    var rewriter = new HtmlRewriter<Void>().replaceAll("aa", (context, page) -> "b");
+    var buffer = new StringBuffer("aaaaa");
+
+    rewriter.rewrite(buffer, null);
+
+    assertThat(buffer.toString(), is("bba"));
+  }
+
+  @Test
+  void findsAnchorsThatOverlap() {
+    var rewriter =
+        new HtmlRewriter<Void>()
+            .watch("she")
+            .watch("hers")
+            .watch("he")
+            .insertAfter(
+                "usher",
+                (context, page) ->
+                    page.contains("she") && page.contains("hers") && page.contains("he")
+                        ? "!"
+                        : null);
+
+    var buffer = new StringBuffer("ushers");
+    rewriter.rewrite(buffer, null);
+    assertThat(buffer.toString(), is("usher!s"));
+
+    buffer = new StringBuffer("usher");
+    rewriter.rewrite(buffer, null);
+    assertThat(buffer.toString(), is("usher"));
+  }
+
+  @Test
+  void leavesPageAloneWhenNoRuleApplies() {
+    var rewriter =
+        new HtmlRewriter<Void>()
+            .insertBefore("</head>", (context, page) -> SCRIPT)
+            .insertBefore("</html>", (context, page) -> null);
+    var buffer = new StringBuffer("<html><body></body></html>");
+
+    assertThat(rewriter.rewrite(buffer, null), is(false));
+    assertThat(buffer.toString(), is("<html><body></body></html>"));
+  }
+
+  @Test
+  void computesTextOnlyForAnchorsOnThePage() {
+    List<String> computed = new ArrayList<>();
+    var rewriter =
+        new HtmlRewriter<Void>()
+            .insertBefore(
+                "</head>",
+                (context, page) -> {
+                  computed.add("head");
+                  return SCRIPT;
+                })
+            .insertBefore(
+                "</html>",
+                (context, page) -> {
+                  computed.add("html");
+                  return IRCM;
+                });
+
+    rewriter.rewrite(new StringBuffer("<html><body></body></html>"), null);
+
+    assertThat(computed, contains("html"));
+  }
+
+  @Test
+  void rejectsUnregisteredAnchors() {
+    var rewriter =
+        new HtmlRewriter<Void>()
+            .insertBefore("</head>", (context, page) -> page.contains("</html>") ? SCRIPT : null);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> rewriter.rewrite(new StringBuffer("<head></head>"), null));
+  }
+}
@@ -3,7 +3,9 @@ package net.sourceforge.kolmafia.webui;
 import static internal.helpers.Player.withPasswordHash;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -34,9 +36,12 @@ class RelayAgentTest {
     public OutputStream getOutputStream() {
       return this.outputStream;
     }
+
+    @Override
+    public void setSoTimeout(int timeout) {}
   }
 
-  private static final RelayAgent agent = new RelayAgent(999);
+  private static final RelayAgent agent = new RelayAgent();
   ;
 
   private OutputStream sendInput(String input) {
@@ -90,4 +95,36 @@ class RelayAgentTest {
       }
     }
   }
+
+  @Test
+  void servesPipelinedRequestsOnOneConnection() throws IOException {
+    var cleanups = withPasswordHash("xxxx");
+    try (cleanups) {
+      try (var outputStream =
+          this.sendInput(
+              "GET /KoLmafia/sideCommand?cmd=echo hi HTTP/1.1\r\n\r\n"
+                  + "GET /KoLmafia/sideCommand?pwd=yyy&cmd=echo hi HTTP/1.1\r\n\r\n")) {
+        agent.serveConnection();
+        String output = outputStream.toString();
+        assertThat(output.split("HTTP/1.1 401 Unauthorized", -1).length, is(3));
+        assertThat(output, containsString("Content-Length: 1\r\nConnection: keep-alive\r\n"));
+      }
+    }
+  }
+
+  @Test
+  void closesConnectionWhenAsked() throws IOException {
+    var cleanups = withPasswordHash("xxxx");
+    try (cleanups) {
+      try (var outputStream =
+          this.sendInput(
+              "GET /KoLmafia/sideCommand?cmd=echo hi HTTP/1.1\r\nConnection: close\r\n\r\n"
+                  + "GET /KoLmafia/sideCommand?pwd=yyy&cmd=echo hi HTTP/1.1\r\n\r\n")) {
+        agent.serveConnection();
+        String output = outputStream.toString();
+        assertThat(output.split("HTTP/1.1 401 Unauthorized", -1).length, is(2));
+        assertThat(output, not(containsString("Connection: keep-alive")));
+      }
+    }
+  }
 }
@@ -0,0 +1,128 @@
+package net.sourceforge.kolmafia.webui;
+
+import static internal.helpers.Player.withProperty;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RelayAssetCacheTest {
+  @TempDir Path directory;
+
+  @BeforeEach
+  void beforeEach() {
+    RelayAssetCache.clear();
+  }
+
+  private File write(final String name, final byte[] contents) throws IOException {
+    return Files.write(this.directory.resolve(name), contents).toFile();
+  }
+
+  @Test
+  void servesRepeatedRequestsFromMemory() throws IOException {
+    File file = write("a.png", new byte[] {1, 2, 3});
+
+    var first = RelayAssetCache.getBytes(file);
+    var second = RelayAssetCache.getBytes(file);
+
+    assertThat(first.bytes(), is(new byte[] {1, 2, 3}));
+    assertThat(second, sameInstance(first));
+    assertThat(RelayAssetCache.size(), is(3L));
+  }
+
+  @Test
+  void reloadsChangedFiles() throws IOException {
+    File file = write("a.png", new byte[] {1, 2, 3});
+    var first = RelayAssetCache.getBytes(file);
+
+    write("a.png", new byte[] {4, 5, 6, 7});
+    var second = RelayAssetCache.getBytes(file);
+
+    assertThat(second.bytes(), is(new byte[] {4, 5, 6, 7}));
+    assertThat(second.etag(), not(first.etag()));
+    assertThat(RelayAssetCache.size(), is(4L));
+  }
+
+  @Test
+  void forgetsDeletedFiles() throws IOException {
+    File file = write("a.png", new byte[] {1, 2, 3});
+    RelayAssetCache.getBytes(file);
+
+    Files.delete(file.toPath());
+
+    assertThat(RelayAssetCache.getBytes(file), nullValue());
+    assertThat(RelayAssetCache.size(), is(0L));
+  }
+
+  @Test
+  void evictsLeastRecentlyUsedFiles() throws IOException {
+    try (var cleanups = withProperty("relayAssetCacheSize", 80)) {
+      File a = write("a.png", new byte[10]);
+      File b = write("b.png", new byte[10]);
+      RelayAssetCache.getBytes(a);
+      RelayAssetCache.getBytes(b);
+      for (int i = 0; i < 8; ++i) {
+        RelayAssetCache.getBytes(write(i + ".png", new byte[10]));
+        // Keep a in use
+        RelayAssetCache.getBytes(a);
+      }
+
+      assertThat(RelayAssetCache.size(), is(80L));
+      var hit = RelayAssetCache.getBytes(a);
+      assertThat(RelayAssetCache.matches(a, hit.etag()), is(true));
+      // An evicted file's tag is unknown until it is read again
+      assertThat(RelayAssetCache.matches(b, hit.etag()), nullValue());
+    }
+  }
+
+  @Test
+  void streamsLargeFiles() throws IOException {
+    try (var cleanups = withProperty("relayAssetCacheSize", 80)) {
+      File file = write("big.png", new byte[11]);
+
+      var asset = RelayAssetCache.getBytes(file);
+
+      assertThat(asset.isStreamed(), is(true));
+      assertThat(asset.length(), is(11L));
+      assertThat(asset.etag(), startsWith("W/"));
+      assertThat(RelayAssetCache.size(), is(0L));
+    }
+  }
+
+  @Test
+  void matchesStreamedFilesBySizeAndDate() throws IOException {
+    try (var cleanups = withProperty("relayAssetCacheSize", 80)) {
+      File file = write("big.png", new byte[11]);
+      var asset = RelayAssetCache.getBytes(file);
+
+      assertThat(RelayAssetCache.matches(file, asset.etag()), is(true));
+      assertThat(RelayAssetCache.matches(file, "\"other\""), is(false));
+
+      RelayAssetCache.clear();
+      assertThat(RelayAssetCache.matches(file, asset.etag()), is(true));
+
+      write("big.png", new byte[12]);
+      assertThat(RelayAssetCache.matches(file, asset.etag()), is(false));
+    }
+  }
+
+  @Test
+  void matchesIfNoneMatchLists() throws IOException {
+    File file = write("a.css", "body {}".getBytes());
+    var asset = RelayAssetCache.getText(file, f -> "body {}\n");
+
+    assertThat(RelayAssetCache.matches(file, "\"other\", " + asset.etag()), is(true));
+    assertThat(RelayAssetCache.matches(file, "*"), is(true));
+    assertThat(RelayAssetCache.matches(file, "\"other\""), is(false));
+  }
+}